@@ -22,5 +22,6 @@ import org.neo4j.graphdb.Label;
 
 public enum SystemLabels implements Label {
     ApocTriggerMeta,
-    ApocTrigger
+    ApocTrigger,
+    ApocFingerprint
 }
@@ -30,4 +30,9 @@ public enum SystemPropertyKeys {
     selector,
     params,
     paused,
+
+    // incremental fingerprints
+    config,
+    fingerprint,
+    transactionId,
 }
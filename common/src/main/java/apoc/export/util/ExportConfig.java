@@ -94,6 +94,7 @@ public class ExportConfig extends CompressionConfig {
     private int unwindBatchSize;
     private long awaitForIndexes;
     private final Map<String, Object> samplingConfig;
+    private final int shards;
 
     public int getBatchSize() {
         return batchSize;
@@ -103,6 +104,10 @@ public class ExportConfig extends CompressionConfig {
         return bulkImport;
     }
 
+    public int getShards() {
+        return shards;
+    }
+
     public char getDelimChar() {
         return delim.charAt(0);
     }
@@ -175,6 +180,7 @@ public class ExportConfig extends CompressionConfig {
         this.multipleRelationshipsWithType = toBoolean(config.get(RELS_WITH_TYPE_KEY));
         this.source = new NodeConfig((Map<String, String>) config.get("source"));
         this.target = new NodeConfig((Map<String, String>) config.get("target"));
+        this.shards = Math.max(1, Util.toInteger(config.getOrDefault("shards", 1)));
         validate();
     }
 
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.util;
+
+import apoc.result.ProgressInfo;
+import apoc.util.collection.Iterables;
+import apoc.util.collection.PrefetchingIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.internal.kernel.api.Cursor;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PartitionedScan;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.kernel.api.ExecutionContext;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+
+/**
+ * Exports the whole database as a number of independent shards, which are written concurrently.
+ *
+ * Nodes and relationships are read with partitioned scans, as in
+ * {@link apoc.util.kernel.MultiThreadedGlobalGraphOperations}.
+ * Each shard is written by one pool thread, in its own transaction. That thread keeps reserving partitions,
+ * first of the node store and then of the relationship store, until none are left.
+ *
+ * The transactions of the shards do not see the uncommitted changes of the calling transaction:
+ * if it has any, the shards are written one after the other in the calling transaction instead,
+ * each with the nodes and relationships whose id modulo the number of shards is the shard.
+ */
+public class PartitionedExport {
+
+    public interface ShardWriter {
+        /**
+         * Writes one shard. Both iterables can be iterated only once, the nodes before the relationships.
+         */
+        void write(
+                InternalTransaction tx,
+                int shard,
+                Iterable<Node> nodes,
+                Iterable<Relationship> relationships,
+                Reporter reporter)
+                throws Exception;
+    }
+
+    public static void export(
+            InternalTransaction callerTx,
+            GraphDatabaseService db,
+            ExecutorService pool,
+            int shards,
+            Reporter reporter,
+            ShardWriter writer) {
+        if (callerTx.kernelTransaction().dataRead().transactionStateHasChanges()) {
+            exportSequentially(callerTx, shards, reporter, writer);
+            return;
+        }
+        Reporter sharedReporter = new SynchronizedReporter(reporter);
+        try (InternalTransaction tx = (InternalTransaction) db.beginTx()) {
+            KernelTransaction ktx = tx.kernelTransaction();
+            Read read = ktx.dataRead();
+            PartitionedScan<NodeCursor> nodeScan = read.allNodesScan(shards, ktx.cursorContext());
+            PartitionedScan<RelationshipScanCursor> relationshipScan =
+                    read.allRelationshipsScan(shards, ktx.cursorContext());
+
+            List<Future<?>> futures = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                int shard = i;
+                futures.add(pool.submit(() -> {
+                    exportShard(db, shard, nodeScan, relationshipScan, sharedReporter, writer);
+                    return null;
+                }));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                throw new RuntimeException("Error exporting shards: " + cause.getMessage(), cause);
+            }
+            tx.commit();
+        }
+    }
+
+    private static void exportSequentially(InternalTransaction tx, int shards, Reporter reporter, ShardWriter writer) {
+        for (int i = 0; i < shards; i++) {
+            int shard = i;
+            try (ResourceIterable<Node> allNodes = tx.getAllNodes();
+                    ResourceIterable<Relationship> allRelationships = tx.getAllRelationships()) {
+                Iterable<Node> nodes = () -> Iterables.stream(allNodes)
+                        .filter(node -> node.getId() % shards == shard)
+                        .iterator();
+                Iterable<Relationship> relationships = () -> Iterables.stream(allRelationships)
+                        .filter(relationship -> relationship.getId() % shards == shard)
+                        .iterator();
+                writer.write(tx, shard, nodes, relationships, reporter);
+            } catch (Exception e) {
+                throw new RuntimeException("Error exporting shards: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static void exportShard(
+            GraphDatabaseService db,
+            int shard,
+            PartitionedScan<NodeCursor> nodeScan,
+            PartitionedScan<RelationshipScanCursor> relationshipScan,
+            Reporter reporter,
+            ShardWriter writer)
+            throws Exception {
+        try (InternalTransaction tx = (InternalTransaction) db.beginTx()) {
+            KernelTransaction ktx = tx.kernelTransaction();
+            ExecutionContext executionContext = ktx.createExecutionContext();
+            try (Statement ignored = ktx.acquireStatement();
+                    NodeCursor nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+                    RelationshipScanCursor relationshipCursor =
+                            ktx.cursors().allocateRelationshipScanCursor(ktx.cursorContext())) {
+                Iterable<Node> nodes = entities(
+                        nodeScan, nodeCursor, executionContext, cursor -> tx.newNodeEntity(cursor.nodeReference()));
+                Iterable<Relationship> relationships = entities(
+                        relationshipScan,
+                        relationshipCursor,
+                        executionContext,
+                        cursor -> tx.newRelationshipEntity(
+                                cursor.relationshipReference(),
+                                cursor.sourceNodeReference(),
+                                cursor.type(),
+                                cursor.targetNodeReference()));
+                writer.write(tx, shard, nodes, relationships, reporter);
+            } finally {
+                executionContext.complete();
+                executionContext.close();
+            }
+            tx.commit();
+        }
+    }
+
+    private static <C extends Cursor, T> Iterable<T> entities(
+            PartitionedScan<C> scan, C cursor, ExecutionContext executionContext, Function<C, T> entity) {
+        return () -> new PrefetchingIterator<>() {
+            private boolean reserved;
+
+            @Override
+            protected T fetchNextOrNull() {
+                while (true) {
+                    if (reserved && cursor.next()) return entity.apply(cursor);
+                    reserved = scan.reservePartition(cursor, executionContext);
+                    if (!reserved) return null;
+                }
+            }
+        };
+    }
+
+    /**
+     * The shards report their progress concurrently into the same reporter.
+     */
+    private record SynchronizedReporter(Reporter delegate) implements Reporter {
+        @Override
+        public void progress(String msg) {
+            synchronized (delegate) {
+                delegate.progress(msg);
+            }
+        }
+
+        @Override
+        public void update(long nodes, long rels, long properties) {
+            synchronized (delegate) {
+                delegate.update(nodes, rels, properties);
+            }
+        }
+
+        @Override
+        public void done() {
+            synchronized (delegate) {
+                delegate.done();
+            }
+        }
+
+        @Override
+        public ProgressInfo getTotal() {
+            synchronized (delegate) {
+                return delegate.getTotal();
+            }
+        }
+
+        @Override
+        public void nextRow() {
+            synchronized (delegate) {
+                delegate.nextRow();
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ package apoc.load;
 
 import apoc.result.LoadDataMapResult;
 import apoc.util.JsonUtil;
+import apoc.util.StreamingJsonPath;
 import apoc.util.Util;
 import java.util.Collections;
 import java.util.HashMap;
@@ -45,7 +46,7 @@ public class LoadJsonUtils {
             headers = null != headers ? headers : new HashMap<>();
             headers.putAll(Util.extractCredentialsIfNeeded((String) urlOrKeyOrBinary, failOnError));
         }
-        Stream<Object> stream = JsonUtil.loadJson(
+        Stream<Object> stream = JsonUtil.loadJsonLazily(
                 urlOrKeyOrBinary, headers, payload, path, failOnError, compressionAlgo, pathOptions, urlAccessChecker);
         return stream.flatMap((value) -> {
             if (terminationGuard != null) {
@@ -54,6 +55,16 @@ public class LoadJsonUtils {
             if (value instanceof Map) {
                 return Stream.of(new LoadDataMapResult((Map) value));
             }
+            if (value instanceof StreamingJsonPath.Matches matches) {
+                return matches.toResults(
+                        (v) -> {
+                            if (terminationGuard != null) {
+                                terminationGuard.check();
+                            }
+                            return new LoadDataMapResult((Map) v);
+                        },
+                        (list) -> new LoadDataMapResult(Collections.singletonMap("result", list)));
+            }
             if (value instanceof List) {
                 if (((List) value).isEmpty()) return Stream.empty();
                 if (((List) value).get(0) instanceof Map)
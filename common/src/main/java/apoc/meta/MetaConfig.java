@@ -31,6 +31,7 @@ public class MetaConfig {
     private final Set<String> excludeLabels;
     private final Set<String> excludeRels;
     private final boolean addRelationshipsBetweenNodes;
+    private final boolean cached;
 
     private final SampleMetaConfig sampleMetaConfig;
 
@@ -50,6 +51,7 @@ public class MetaConfig {
      * every 1000th node will be examined.  It does **not** mean that a total of 1000 nodes
      * will be sampled.
      * - maxRels: the maximum number of relationships to look at per Node Label.
+     * - cached: whether to read the meta schema cache, if it is enabled and up to date, instead of sampling the graph.
      */
     public MetaConfig(Map<String, Object> config, Boolean shouldSampleByDefault) {
         config = config != null ? config : Collections.emptyMap();
@@ -84,6 +86,7 @@ public class MetaConfig {
                 new HashSet<>((Collection<String>) config.getOrDefault("excludeRels", Collections.EMPTY_SET));
         this.sampleMetaConfig = new SampleMetaConfig(config, shouldSampleByDefault);
         this.addRelationshipsBetweenNodes = Util.toBoolean(config.getOrDefault("addRelationshipsBetweenNodes", true));
+        this.cached = Util.toBoolean(config.getOrDefault("cached", false));
     }
 
     public MetaConfig(Map<String, Object> config) {
@@ -174,4 +177,8 @@ public class MetaConfig {
     public boolean isAddRelationshipsBetweenNodes() {
         return addRelationshipsBetweenNodes;
     }
+
+    public boolean isCached() {
+        return cached;
+    }
 }
@@ -18,23 +18,27 @@
  */
 package apoc.meta;
 
+import apoc.util.Util;
 import java.util.Collections;
 import java.util.Map;
 
 public class SampleMetaConfig {
     private final long maxRels;
     private final long sample;
+    private final long sampleTimeout;
 
     /**
      * - sample: a long, i.e. "1 in (SAMPLE)".  If set to 1000 this means that every 1000th node will be examined.
      * It does **not** mean that a total of 1000 nodes will be sampled.
      * - maxRels: the maximum number of relationships to look at per Node Label.
+     * - sampleTimeout: the time in milliseconds after which no more nodes are sampled, -1 for no limit.
      */
     public SampleMetaConfig(Map<String, Object> config, Boolean shouldSampleByDefault) {
         config = config != null ? config : Collections.emptyMap();
 
         this.sample = (long) config.getOrDefault("sample", shouldSampleByDefault ? 1000L : 1L);
         this.maxRels = (long) config.getOrDefault("maxRels", shouldSampleByDefault ? 100L : -1L);
+        this.sampleTimeout = Util.toLong(config.getOrDefault("sampleTimeout", -1L));
     }
 
     public SampleMetaConfig(Map<String, Object> config) {
@@ -48,4 +52,15 @@ public class SampleMetaConfig {
     public long getMaxRels() {
         return maxRels;
     }
+
+    public long getSampleTimeout() {
+        return sampleTimeout;
+    }
+
+    /**
+     * @return the time in millis when to stop sampling, if starting now
+     */
+    public long getSampleDeadline() {
+        return sampleTimeout < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + sampleTimeout;
+    }
 }
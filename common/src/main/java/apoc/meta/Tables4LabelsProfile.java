@@ -240,6 +240,31 @@ public class Tables4LabelsProfile {
         }
     }
 
+    /**
+     * Adds nodes with the given labels which were observed elsewhere,
+     * see {@link PropertyContainerProfile#observe(long, Map, boolean)}
+     */
+    public void observeNodes(OrderedLabels labels, long count, Map<String, Map<String, Long>> propertyTypes) {
+        getNodeProfile(labels).observe(count, propertyTypes, true);
+        obsByNode.merge(labels, count, Long::sum);
+    }
+
+    /**
+     * Adds relationships between nodes with the given labels which were observed elsewhere,
+     * see {@link PropertyContainerProfile#observe(long, Map, boolean)}
+     */
+    public void observeRels(
+            List<String> sourceLabels,
+            List<String> targetLabels,
+            String typeName,
+            long count,
+            Map<String, Map<String, Long>> propertyTypes) {
+        String relIdentifier =
+                String.join("@@@", sourceLabels) + "###" + String.join("@@@", targetLabels) + "###" + typeName;
+        getRelProfile(relIdentifier).observe(count, propertyTypes, false);
+        obsByRelType.merge(relIdentifier, count, Long::sum);
+    }
+
     public Tables4LabelsProfile finished() {
         for (PropertyContainerProfile prof : labelMap.values()) {
             prof.finished();
@@ -65,6 +65,25 @@ public class PropertyContainerProfile {
         }
     }
 
+    /**
+     * Adds entities which were observed elsewhere, given their number
+     * and the number of values of each type of each of their properties.
+     */
+    public void observe(long entities, Map<String, Map<String, Long>> propertyTypes, boolean isNode) {
+        observations += entities;
+
+        propertyTypes.forEach((propName, types) -> {
+            PropertyTracker tracker = profile.computeIfAbsent(propName, key -> new PropertyTracker());
+            tracker.types.addAll(types.keySet());
+            for (long count : types.values()) {
+                tracker.observations += count;
+            }
+
+            tracker.mandatory = false;
+            this.isNode = isNode;
+        });
+    }
+
     public PropertyContainerProfile finished() {
         PropertyTracker tracker;
 
@@ -41,7 +41,7 @@ public class PropertyTracker {
         types.add(assignTypeName(value));
     }
 
-    private String assignTypeName(Object value) {
+    public static String assignTypeName(Object value) {
         String typeName = value.getClass().getCanonicalName();
         if (typeMappings.containsKey(typeName)) {
             return typeMappings.get(typeName);
@@ -20,6 +20,7 @@ package apoc.periodic;
 
 import apoc.util.Util;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,7 +41,7 @@ public class BatchAndTotalCollector {
     private AtomicLong retried = new AtomicLong();
     private Map<String, Long> operationErrors = new ConcurrentHashMap<>();
     private AtomicInteger failedBatches = new AtomicInteger();
-    private Map<String, Long> batchErrors = new HashMap<>();
+    private Map<String, Long> batchErrors = Collections.synchronizedMap(new HashMap<>());
     private Map<String, List<Map<String, Object>>> failedParamsMap = new ConcurrentHashMap<>();
     private final boolean wasTerminated;
 
@@ -57,7 +58,7 @@ public class BatchAndTotalCollector {
         wasTerminated = Util.transactionIsTerminated(terminationGuard);
     }
 
-    public BatchAndTotalResult getResult() {
+    public BatchAndTotalResult getResult(Map<String, Object> adaptive) {
         long timeTaken = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
         Map<String, Long> updateStatistics = new HashMap<>();
         updateStatistics.put("nodesCreated", nodesCreated.get());
@@ -80,7 +81,8 @@ public class BatchAndTotalCollector {
                 batchErrors,
                 wasTerminated,
                 failedParamsMap,
-                updateStatistics);
+                updateStatistics,
+                adaptive);
     }
 
     public long getCount() {
@@ -119,6 +121,14 @@ public class BatchAndTotalCollector {
         }
     }
 
+    public void recordFailedBatch(List<Map<String, Object>> batch, Exception e) {
+        failedBatches.incrementAndGet();
+        incrementFailedOps(batch.size());
+        amendFailedParamsMap(batch);
+        PeriodicUtils.recordError(batchErrors, e);
+        PeriodicUtils.recordError(operationErrors, e);
+    }
+
     public AtomicInteger getFailedBatches() {
         return failedBatches;
     }
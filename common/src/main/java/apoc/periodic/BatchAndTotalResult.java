@@ -91,6 +91,20 @@ public class BatchAndTotalResult {
             """)
     public final Map<String, Long> updateStatistics;
 
+    @Description(
+            """
+            {
+                enabled :: BOOLEAN,
+                concurrency :: INTEGER,
+                batchSize :: INTEGER,
+                lowestConcurrency :: INTEGER,
+                lowestBatchSize :: INTEGER,
+                adjustments :: INTEGER,
+                avgBatchMillis :: INTEGER
+            }
+            """)
+    public final Map<String, Object> adaptive;
+
     public BatchAndTotalResult(
             long batches,
             long total,
@@ -103,7 +117,8 @@ public class BatchAndTotalResult {
             Map<String, Long> batchErrors,
             boolean wasTerminated,
             Map<String, List<Map<String, Object>>> failedParams,
-            Map<String, Long> updateStatistics) {
+            Map<String, Long> updateStatistics,
+            Map<String, Object> adaptive) {
         this.batches = batches;
         this.total = total;
         this.timeTaken = timeTaken;
@@ -126,5 +141,6 @@ public class BatchAndTotalResult {
                 "errors",
                 operationErrors);
         this.updateStatistics = updateStatistics;
+        this.adaptive = adaptive;
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.periodic;
+
+import apoc.util.Util;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how many batches of an `apoc.periodic.iterate` run may be in flight at once and how many rows go into
+ * the next batch.
+ *
+ * In fixed mode both values are the configured `concurrency` and `batchSize`.
+ * In adaptive mode they are re-evaluated after every window of completed batches:
+ * retries or failures halve both (lock contention), a per-row latency well above the best one seen so far
+ * takes one batch out of flight, and otherwise, as long as the pool queue is not backing up,
+ * one more batch is allowed in flight and the batch size grows back towards the configured one.
+ */
+public class BatchConcurrencyController {
+    static final long CAPACITY_WAIT_MILLIS = 50;
+    static final double CONTENTION_THRESHOLD = 0.1;
+    static final double LATENCY_THRESHOLD = 1.5;
+    static final int MIN_BATCH_SIZE_DIVISOR = 16;
+
+    private final boolean adaptive;
+    private final boolean bounded;
+    private final int maxConcurrency;
+    private final int maxBatchSize;
+    private final int minBatchSize;
+    private final ExecutorService pool;
+
+    private int concurrency;
+    private int batchSize;
+    private int inFlight;
+
+    private int lowestConcurrency;
+    private int lowestBatchSize;
+    private long adjustments;
+    private double bestRowLatencyNanos = -1;
+    private long completedBatches;
+    private long totalLatencyNanos;
+
+    private long windowBatches;
+    private long windowRows;
+    private long windowContended;
+    private long windowLatencyNanos;
+
+    public BatchConcurrencyController(
+            boolean adaptive, boolean parallel, int concurrency, int batchSize, ExecutorService pool) {
+        this.adaptive = adaptive;
+        this.bounded = parallel;
+        this.maxConcurrency = concurrency;
+        this.maxBatchSize = batchSize;
+        this.minBatchSize = Math.max(1, batchSize / MIN_BATCH_SIZE_DIVISOR);
+        this.pool = pool;
+        this.concurrency = adaptive ? Math.max(1, concurrency / 2) : concurrency;
+        this.batchSize = batchSize;
+        this.lowestConcurrency = this.concurrency;
+        this.lowestBatchSize = batchSize;
+    }
+
+    public synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Reserves an in-flight slot for the next batch, waiting at most {@link #CAPACITY_WAIT_MILLIS}
+     * for a running batch to complete, so that the caller can still check for termination in between.
+     *
+     * @return true if the slot was reserved
+     */
+    public synchronized boolean tryAcquire() {
+        if (bounded && inFlight >= concurrency) {
+            try {
+                wait(CAPACITY_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (inFlight >= concurrency) return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Releases the slot of a completed batch and, in adaptive mode, feeds its measurements to the controller.
+     *
+     * @param rows the number of rows in the batch
+     * @param latencyNanos the time from the first attempt until the final commit or failure
+     * @param retries the number of times the batch was retried
+     * @param failed whether the batch eventually failed
+     */
+    public synchronized void release(long rows, long latencyNanos, long retries, boolean failed) {
+        inFlight--;
+        completedBatches++;
+        totalLatencyNanos += latencyNanos;
+        if (adaptive) {
+            windowBatches++;
+            windowRows += rows;
+            windowLatencyNanos += latencyNanos;
+            if (retries > 0 || failed) windowContended++;
+            if (windowBatches >= concurrency) adjust();
+        }
+        notifyAll();
+    }
+
+    private void adjust() {
+        double contention = (double) windowContended / windowBatches;
+        double rowLatencyNanos = (double) windowLatencyNanos / Math.max(1, windowRows);
+        int previousConcurrency = concurrency;
+        int previousBatchSize = batchSize;
+
+        if (contention > CONTENTION_THRESHOLD) {
+            concurrency = Math.max(1, concurrency / 2);
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+        } else if (bestRowLatencyNanos > 0 && rowLatencyNanos > bestRowLatencyNanos * LATENCY_THRESHOLD) {
+            concurrency = Math.max(1, concurrency - 1);
+        } else if (queueDepth() < concurrency) {
+            concurrency = Math.min(maxConcurrency, concurrency + 1);
+            batchSize = Math.min(maxBatchSize, batchSize + Math.max(1, batchSize / 4));
+        }
+        if (windowContended == 0 && (bestRowLatencyNanos < 0 || rowLatencyNanos < bestRowLatencyNanos)) {
+            bestRowLatencyNanos = rowLatencyNanos;
+        }
+
+        if (concurrency != previousConcurrency || batchSize != previousBatchSize) adjustments++;
+        lowestConcurrency = Math.min(lowestConcurrency, concurrency);
+        lowestBatchSize = Math.min(lowestBatchSize, batchSize);
+        windowBatches = 0;
+        windowRows = 0;
+        windowContended = 0;
+        windowLatencyNanos = 0;
+    }
+
+    private int queueDepth() {
+        return pool instanceof ThreadPoolExecutor executor ? executor.getQueue().size() : 0;
+    }
+
+    public synchronized Map<String, Object> getSummary() {
+        return Util.map(
+                "enabled",
+                adaptive,
+                "concurrency",
+                (long) concurrency,
+                "batchSize",
+                (long) batchSize,
+                "lowestConcurrency",
+                (long) lowestConcurrency,
+                "lowestBatchSize",
+                (long) lowestBatchSize,
+                "adjustments",
+                adjustments,
+                "avgBatchMillis",
+                completedBatches == 0 ? 0L : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos / completedBatches));
+    }
+}
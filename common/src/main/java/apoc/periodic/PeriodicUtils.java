@@ -28,11 +28,11 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.ToLongFunction;
@@ -101,6 +101,7 @@ public class PeriodicUtils {
         protected BatchAndTotalCollector collector;
         private List<Map<String, Object>> batch;
         protected BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer;
+        protected boolean reportErrors = true;
 
         ExecuteBatch(
                 TerminationGuard terminationGuard,
@@ -117,6 +118,31 @@ public class PeriodicUtils {
             return Util.rebindRows(tx, batch);
         }
 
+        protected abstract ExecuteBatch subBatch(List<Map<String, Object>> rows);
+
+        List<Map<String, Object>> rows() {
+            return batch;
+        }
+
+        int size() {
+            return batch.size();
+        }
+
+        /**
+         * Splits this batch in two halves, which are executed independently of this one.
+         */
+        List<ExecuteBatch> split() {
+            int half = batch.size() / 2;
+            return List.of(
+                    subBatch(new ArrayList<>(batch.subList(0, half))),
+                    subBatch(new ArrayList<>(batch.subList(half, batch.size()))));
+        }
+
+        ExecuteBatch withoutErrorReporting() {
+            this.reportErrors = false;
+            return this;
+        }
+
         public void release() {
             terminationGuard = null;
             collector = null;
@@ -135,12 +161,20 @@ public class PeriodicUtils {
             super(terminationGuard, collector, batch, consumer);
         }
 
+        @Override
+        protected ExecuteBatch subBatch(List<Map<String, Object>> rows) {
+            ExecuteBatch subBatch = new ListExecuteBatch(terminationGuard, collector, rows, consumer);
+            subBatch.reportErrors = reportErrors;
+            return subBatch;
+        }
+
         @Override
         public final Long apply(Transaction txInThread) {
             if (Util.transactionIsTerminated(terminationGuard)) return 0L;
             final var batch = rebindBatch(txInThread);
             Map<String, Object> params = Util.map("_count", collector.getCount(), "_batch", batch);
-            return executeAndReportErrors(txInThread, consumer, params, batch, batch.size(), null, collector);
+            return executeAndReportErrors(
+                    txInThread, consumer, params, batch, batch.size(), null, collector, reportErrors);
         }
     }
 
@@ -154,6 +188,13 @@ public class PeriodicUtils {
             super(terminationGuard, collector, batch, consumer);
         }
 
+        @Override
+        protected ExecuteBatch subBatch(List<Map<String, Object>> rows) {
+            ExecuteBatch subBatch = new OneByOneExecuteBatch(terminationGuard, collector, rows, consumer);
+            subBatch.reportErrors = reportErrors;
+            return subBatch;
+        }
+
         @Override
         public final Long apply(Transaction txInThread) {
             if (Util.transactionIsTerminated(terminationGuard)) return 0L;
@@ -165,7 +206,8 @@ public class PeriodicUtils {
                             return 0;
                         }
                         Map<String, Object> params = merge(p, Util.map("_count", localCount.get(), "_batch", batch));
-                        return executeAndReportErrors(txInThread, consumer, params, batch, 1, localCount, collector);
+                        return executeAndReportErrors(
+                                txInThread, consumer, params, batch, 1, localCount, collector, reportErrors);
                     })
                     .sum();
         }
@@ -178,7 +220,8 @@ public class PeriodicUtils {
             List<Map<String, Object>> batch,
             int returnValue,
             AtomicLong localCount,
-            BatchAndTotalCollector collector) {
+            BatchAndTotalCollector collector,
+            boolean reportErrors) {
         try {
             QueryStatistics statistics = consumer.apply(tx, params);
             if (localCount != null) {
@@ -187,9 +230,11 @@ public class PeriodicUtils {
             collector.updateStatistics(statistics);
             return returnValue;
         } catch (Exception e) {
-            collector.incrementFailedOps(batch.size());
-            collector.amendFailedParamsMap(batch);
-            recordError(collector.getOperationErrors(), e);
+            if (reportErrors) {
+                collector.incrementFailedOps(batch.size());
+                collector.amendFailedParamsMap(batch);
+                recordError(collector.getOperationErrors(), e);
+            }
             throw e;
         }
     }
@@ -253,50 +298,75 @@ public class PeriodicUtils {
             int concurrency,
             int failedParams,
             String periodicId) {
+        return iterateAndExecuteBatchedInSeparateThread(
+                db,
+                terminationGuard,
+                log,
+                pools,
+                batchsize,
+                parallel,
+                false,
+                false,
+                iterateList,
+                retries,
+                iterator,
+                consumer,
+                concurrency,
+                failedParams,
+                periodicId);
+    }
+
+    public static Stream<BatchAndTotalResult> iterateAndExecuteBatchedInSeparateThread(
+            GraphDatabaseService db,
+            TerminationGuard terminationGuard,
+            Log log,
+            Pools pools,
+            int batchsize,
+            boolean parallel,
+            boolean adaptive,
+            boolean bisect,
+            boolean iterateList,
+            long retries,
+            Iterator<Map<String, Object>> iterator,
+            BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
+            int concurrency,
+            int failedParams,
+            String periodicId) {
 
         ExecutorService pool = parallel ? pools.getDefaultExecutorService() : pools.getSingleExecutorService();
         List<Future<Long>> futures = new ArrayList<>(concurrency);
         BatchAndTotalCollector collector = new BatchAndTotalCollector(terminationGuard, failedParams);
-        AtomicInteger activeFutures = new AtomicInteger(0);
+        BatchConcurrencyController controller =
+                new BatchConcurrencyController(adaptive, parallel, concurrency, batchsize, pool);
+        BisectingBatchRunner runner =
+                bisect ? new BisectingBatchRunner(log, db, terminationGuard, collector, retries) : null;
 
         do {
             if (Util.transactionIsTerminated(terminationGuard)) break;
 
-            if (activeFutures.get() < concurrency || !parallel) {
-                // we have capacity, add a new Future to the list
-                activeFutures.incrementAndGet();
-
+            // we can't block until a batch completes as we might miss a cancellation, so the controller only
+            // waits a short while for capacity before we check for cancellation again.
+            if (controller.tryAcquire()) {
+                int currentBatchLimit = controller.getBatchSize();
                 if (log.isDebugEnabled())
-                    log.debug("Execute, in periodic iteration with id %s, no %d batch size ", periodicId, batchsize);
-                List<Map<String, Object>> batch = Util.take(iterator, batchsize);
+                    log.debug(
+                            "Execute, in periodic iteration with id %s, no %d batch size ",
+                            periodicId, currentBatchLimit);
+                List<Map<String, Object>> batch = Util.take(iterator, currentBatchLimit);
                 final long currentBatchSize = batch.size();
                 ExecuteBatch executeBatch = iterateList
                         ? new ListExecuteBatch(terminationGuard, collector, batch, consumer)
                         : new OneByOneExecuteBatch(terminationGuard, collector, batch, consumer);
+                if (runner != null) executeBatch.withoutErrorReporting();
 
-                futures.add(Util.inTxFuture(
-                        log,
-                        pool,
-                        db,
-                        executeBatch,
-                        retries,
-                        retryCount -> collector.incrementRetried(),
-                        onComplete -> {
-                            collector.incrementBatches();
-                            executeBatch.release();
-                            activeFutures.decrementAndGet();
-                        }));
+                futures.add(submitBatch(
+                        log, pool, db, executeBatch, retries, collector, controller, runner, currentBatchSize));
                 collector.incrementCount(currentBatchSize);
                 if (log.isDebugEnabled()) {
                     log.debug(
                             "Processed in periodic iteration with id %s, %d iterations of %d total",
-                            periodicId, batchsize, collector.getCount());
+                            periodicId, currentBatchLimit, collector.getCount());
                 }
-            } else {
-                // we can't block until the counter decrease as we might miss a cancellation, so
-                // let this thread be preempted for a bit before we check for cancellation or
-                // capacity.
-                LockSupport.parkNanos(1000);
             }
         } while (iterator.hasNext());
 
@@ -305,13 +375,123 @@ public class PeriodicUtils {
                 ? f -> Util.getFutureOrCancel(f, collector.getBatchErrors(), collector.getFailedBatches(), 0L)
                 : f -> Util.getFuture(f, collector.getBatchErrors(), collector.getFailedBatches(), 0L);
         collector.incrementSuccesses(futures.stream().mapToLong(toLongFunction).sum());
+        if (runner != null && !wasTerminated) {
+            // sub-batches which kept failing on transient errors get a last chance once the contention is over
+            collector.incrementSuccesses(Util.getFuture(
+                    pool.submit(runner::runDeferred), collector.getBatchErrors(), collector.getFailedBatches(), 0L));
+        }
 
         Util.logErrors("Error during iterate.commit:", collector.getBatchErrors(), log);
         Util.logErrors("Error during iterate.execute:", collector.getOperationErrors(), log);
         if (log.isDebugEnabled()) {
             log.debug("Terminated periodic iteration with id %s with %d executions", periodicId, collector.getCount());
         }
-        return Stream.of(collector.getResult());
+        return Stream.of(collector.getResult(controller.getSummary()));
+    }
+
+    private static Future<Long> submitBatch(
+            Log log,
+            ExecutorService pool,
+            GraphDatabaseService db,
+            ExecuteBatch executeBatch,
+            long retries,
+            BatchAndTotalCollector collector,
+            BatchConcurrencyController controller,
+            BisectingBatchRunner runner,
+            long batchSize) {
+        try {
+            return pool.submit(() -> {
+                long start = System.nanoTime();
+                AtomicLong batchRetries = new AtomicLong();
+                boolean failed = true;
+                try {
+                    Long result = runner != null
+                            ? runner.run(executeBatch, batchRetries, true)
+                            : Util.retryInTx(log, db, executeBatch, 0, retries, retryCount -> {
+                                collector.incrementRetried();
+                                batchRetries.incrementAndGet();
+                            });
+                    failed = false;
+                    return result;
+                } finally {
+                    collector.incrementBatches();
+                    executeBatch.release();
+                    controller.release(batchSize, System.nanoTime() - start, batchRetries.get(), failed);
+                }
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error executing in separate transaction", e);
+        }
+    }
+
+    /**
+     * Runs batches for `bisect: true`.
+     * A batch failing on a transient error, e.g. a deadlock, is split in halves instead of being replayed whole,
+     * so that a few contended rows do not keep re-locking the rest of the batch.
+     * Single rows still failing on a transient error after their retries are deferred to the end of the run,
+     * any other failure is recorded against the smallest failing sub-batch while the rest of the batch commits.
+     */
+    static class BisectingBatchRunner {
+        private final Log log;
+        private final GraphDatabaseService db;
+        private final TerminationGuard terminationGuard;
+        private final BatchAndTotalCollector collector;
+        private final long retries;
+        private final Queue<ExecuteBatch> deferred = new ConcurrentLinkedQueue<>();
+
+        BisectingBatchRunner(
+                Log log,
+                GraphDatabaseService db,
+                TerminationGuard terminationGuard,
+                BatchAndTotalCollector collector,
+                long retries) {
+            this.log = log;
+            this.db = db;
+            this.terminationGuard = terminationGuard;
+            this.collector = collector;
+            this.retries = retries;
+        }
+
+        long run(ExecuteBatch executeBatch, AtomicLong contention, boolean deferTransientFailures) {
+            for (long retry = 0; ; retry++) {
+                if (Util.transactionIsTerminated(terminationGuard)) return 0L;
+                try (Transaction tx = db.beginTx()) {
+                    long result = executeBatch.apply(tx);
+                    tx.commit();
+                    return result;
+                } catch (Exception e) {
+                    boolean transientError = Util.isTransientError(e);
+                    if (transientError && executeBatch.size() > 1) {
+                        contention.incrementAndGet();
+                        return executeBatch.split().stream()
+                                .mapToLong(half -> run(half, contention, deferTransientFailures))
+                                .sum();
+                    }
+                    if (retry >= retries) {
+                        if (transientError && deferTransientFailures) {
+                            deferred.add(executeBatch.subBatch(new ArrayList<>(executeBatch.rows())));
+                        } else {
+                            collector.recordFailedBatch(executeBatch.rows(), e);
+                        }
+                        return 0L;
+                    }
+                    log.warn("Retrying operation %d of %d", retry, retries);
+                    collector.incrementRetried();
+                    contention.incrementAndGet();
+                    Util.sleep(Util.retryBackoffMillis(retry));
+                }
+            }
+        }
+
+        long runDeferred() {
+            AtomicLong contention = new AtomicLong();
+            long successes = 0;
+            for (ExecuteBatch executeBatch = deferred.poll(); executeBatch != null; executeBatch = deferred.poll()) {
+                successes += run(executeBatch, contention, false);
+                executeBatch.release();
+            }
+            return successes;
+        }
     }
 
     public static Stream<JobInfo> submitProc(
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.util;
+
+import com.jayway.jsonpath.JsonPath;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * Bounded LRU caches of the compiled regular expressions, JSON paths and XPath expressions
+ * used by the text, json and xml functions, shared by all of them,
+ * so that an expression passed for every row is only compiled once.
+ *
+ * Unlike a `Pattern` or a `JsonPath`, an `XPathExpression` is not thread-safe:
+ * the callers have to synchronize on it while evaluating it.
+ */
+public class ExpressionCache {
+    public static final int MAX_SIZE = 1000;
+
+    public static final Cache<Pattern> PATTERNS = new Cache<>("regex");
+    public static final Cache<JsonPath> JSON_PATHS = new Cache<>("jsonPath");
+    public static final Cache<XPathExpression> XPATHS = new Cache<>("xpath");
+
+    // an XPath is not thread-safe either, and the factory lookup is expensive
+    private static final ThreadLocal<XPath> XPATH =
+            ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+
+    public static Pattern getOrCreatePattern(String regex) {
+        return PATTERNS.getOrCreate(regex, Pattern::compile);
+    }
+
+    public static JsonPath getOrCreateJsonPath(String path) {
+        return JSON_PATHS.getOrCreate(path, JsonPath::compile);
+    }
+
+    public static XPathExpression getOrCreateXPath(String path) throws XPathExpressionException {
+        return XPATHS.getOrCreate(path, expression -> XPATH.get().compile(expression));
+    }
+
+    public static List<Cache<?>> caches() {
+        return List.of(PATTERNS, JSON_PATHS, XPATHS);
+    }
+
+    @FunctionalInterface
+    public interface Compiler<T, E extends Exception> {
+        T compile(String expression) throws E;
+    }
+
+    public static class Cache<T> {
+        private final String name;
+        private final Map<String, T> compiled = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > MAX_SIZE;
+            }
+        };
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private Cache(String name) {
+            this.name = name;
+        }
+
+        public <E extends Exception> T getOrCreate(String expression, Compiler<T, E> compiler) throws E {
+            T value;
+            synchronized (compiled) {
+                value = compiled.get(expression);
+            }
+            if (value != null) {
+                hits.increment();
+                return value;
+            }
+            misses.increment();
+            // compiled outside the lock, an invalid expression is not cached and fails again on the next call
+            T created = compiler.compile(expression);
+            synchronized (compiled) {
+                value = compiled.putIfAbsent(expression, created);
+            }
+            return value == null ? created : value;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int size() {
+            synchronized (compiled) {
+                return compiled.size();
+            }
+        }
+
+        public long hits() {
+            return hits.sum();
+        }
+
+        public long misses() {
+            return misses.sum();
+        }
+
+        public void clear() {
+            synchronized (compiled) {
+                compiled.clear();
+            }
+            hits.reset();
+            misses.reset();
+        }
+    }
+}
@@ -21,6 +21,7 @@ package apoc.util;
 import apoc.export.util.DurationValueSerializer;
 import apoc.export.util.PointSerializer;
 import apoc.export.util.TemporalSerializer;
+import apoc.util.collection.Iterators;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -111,6 +112,25 @@ public class JsonUtil {
             String compressionAlgo,
             List<String> options,
             URLAccessChecker urlAccessChecker) {
+        return loadJsonLazily(
+                        urlOrBinary, headers, payload, path, failOnError, compressionAlgo, options, urlAccessChecker)
+                .map(value -> value instanceof StreamingJsonPath.Matches matches ? Iterators.asList(matches) : value);
+    }
+
+    /**
+     * As {@link #loadJson(Object, Map, String, String, boolean, String, List, URLAccessChecker)}, except that
+     * the matches of an indefinite path evaluated while parsing are a {@link StreamingJsonPath.Matches} per document
+     * rather than a list, which reads them as they are consumed, and has to be consumed before the next document.
+     */
+    public static Stream<Object> loadJsonLazily(
+            Object urlOrBinary,
+            Map<String, Object> headers,
+            String payload,
+            String path,
+            boolean failOnError,
+            String compressionAlgo,
+            List<String> options,
+            URLAccessChecker urlAccessChecker) {
         try {
             if (urlOrBinary instanceof String) {
                 String url = (String) urlOrBinary;
@@ -119,12 +139,21 @@ public class JsonUtil {
             InputStream input =
                     FileUtils.inputStreamFor(urlOrBinary, headers, payload, compressionAlgo, urlAccessChecker);
             JsonParser parser = OBJECT_MAPPER.getFactory().createParser(input);
+            if (!StringUtils.isBlank(path) && options == null) {
+                // with the default options, the supported paths are evaluated while parsing
+                StreamingJsonPath streamingPath = StreamingJsonPath.compile(path);
+                if (streamingPath != null) {
+                    return streamingPath.evaluate(parser, OBJECT_MAPPER);
+                }
+            }
             MappingIterator<Object> it = OBJECT_MAPPER.readValues(parser, Object.class);
             Stream<Object> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, 0), false);
-            return StringUtils.isBlank(path)
-                    ? stream
-                    : stream.map((value) ->
-                            JsonPath.parse(value, getJsonPathConfig(options)).read(path));
+            if (StringUtils.isBlank(path)) {
+                return stream;
+            }
+            JsonPath jsonPath = ExpressionCache.getOrCreateJsonPath(path);
+            Configuration configuration = getJsonPathConfig(options);
+            return stream.map((value) -> JsonPath.parse(value, configuration).read(jsonPath));
         } catch (IOException e) {
             if (!failOnError) {
                 return Stream.of();
@@ -155,7 +184,8 @@ public class JsonUtil {
             if (path == null || path.isEmpty()) {
                 return OBJECT_MAPPER.readValue(json, type);
             }
-            return JsonPath.parse(json, getJsonPathConfig(options)).read(path, type);
+            return JsonPath.parse(json, getJsonPathConfig(options))
+                    .read(ExpressionCache.getOrCreateJsonPath(path), type);
         } catch (IOException e) {
             throw new RuntimeException(
                     "Can't convert " + json + " to " + type.getSimpleName() + " with path " + path, e);
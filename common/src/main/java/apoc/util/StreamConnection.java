@@ -108,6 +108,10 @@ public interface StreamConnection {
             this(new File(fileName));
         }
 
+        public File getFile() {
+            return file;
+        }
+
         @Override
         public InputStream getInputStream() throws IOException {
             return toLimitedIStream(FileUtils.openInputStream(file), getLength());
@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Evaluates a subset of JSONPath directly on a {@link JsonParser}, so that a document is never read into memory
+ * as a whole: only the matches are, one at a time.
+ *
+ * The subset is the root `$`, child properties (`.name`, `['name']`), wildcards (`.*`, `[*]`),
+ * non-negative array indexes and slices (`[2]`, `[1:3]`, `[2:]`, `[:3]`), and a recursive descent
+ * to a property at the end of the path (`..name`).
+ * The results are the same as the ones of JsonPath with the default `pathOptions`,
+ * i.e. `DEFAULT_PATH_LEAF_TO_NULL` and `SUPPRESS_EXCEPTIONS`.
+ * Any other expression is not compiled, and has to be evaluated by JsonPath.
+ */
+public class StreamingJsonPath {
+
+    private enum Kind {
+        PROPERTY,
+        WILDCARD,
+        SLICE,
+        SCAN
+    }
+
+    private record Step(Kind kind, String name, int from, int to) {
+        boolean selects(int index) {
+            return index >= from && index < to;
+        }
+    }
+
+    private final Step[] steps;
+    private final boolean definite;
+
+    private StreamingJsonPath(List<Step> steps) {
+        this.steps = steps.toArray(new Step[0]);
+        this.definite = steps.stream()
+                .allMatch(step -> step.kind() == Kind.PROPERTY
+                        || (step.kind() == Kind.SLICE && step.to() == step.from() + 1));
+    }
+
+    /**
+     * @return the compiled path, or null if the expression is not in the supported subset
+     */
+    public static StreamingJsonPath compile(String path) {
+        if (path == null) return null;
+        String expression = path.trim();
+        if (!expression.startsWith("$")) return null;
+        List<Step> steps = new ArrayList<>();
+        int i = 1;
+        int length = expression.length();
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (expression.startsWith("..", i)) {
+                int end = propertyEnd(expression, i + 2);
+                String name = expression.substring(i + 2, end);
+                // only a recursive descent to a property, as the last step
+                if (end != length || !isPropertyName(name)) return null;
+                steps.add(new Step(Kind.SCAN, null, 0, 0));
+                steps.add(new Step(Kind.PROPERTY, name, 0, 0));
+                i = end;
+            } else if (c == '.') {
+                int end = propertyEnd(expression, i + 1);
+                String name = expression.substring(i + 1, end);
+                if (name.equals("*")) {
+                    steps.add(new Step(Kind.WILDCARD, null, 0, 0));
+                } else if (isPropertyName(name)) {
+                    steps.add(new Step(Kind.PROPERTY, name, 0, 0));
+                } else {
+                    return null;
+                }
+                i = end;
+            } else if (c == '[') {
+                int end = expression.indexOf(']', i);
+                if (end < 0) return null;
+                Step step = bracketStep(expression.substring(i + 1, end).trim());
+                if (step == null) return null;
+                steps.add(step);
+                i = end + 1;
+            } else {
+                return null;
+            }
+        }
+        return new StreamingJsonPath(steps);
+    }
+
+    private static int propertyEnd(String expression, int from) {
+        int end = from;
+        while (end < expression.length() && expression.charAt(end) != '.' && expression.charAt(end) != '[') {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isPropertyName(String name) {
+        if (name.isEmpty()) return false;
+        for (char c : name.toCharArray()) {
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '$') return false;
+        }
+        return true;
+    }
+
+    private static Step bracketStep(String content) {
+        if (content.equals("*")) {
+            return new Step(Kind.WILDCARD, null, 0, 0);
+        }
+        if (content.length() >= 2
+                && (content.charAt(0) == '\'' || content.charAt(0) == '"')
+                && content.charAt(content.length() - 1) == content.charAt(0)) {
+            String name = content.substring(1, content.length() - 1);
+            if (name.indexOf('\'') >= 0 || name.indexOf('"') >= 0 || name.indexOf(',') >= 0) return null;
+            return new Step(Kind.PROPERTY, name, 0, 0);
+        }
+        int colon = content.indexOf(':');
+        try {
+            if (colon < 0) {
+                int index = Integer.parseInt(content);
+                return index < 0 ? null : new Step(Kind.SLICE, null, index, index + 1);
+            }
+            String from = content.substring(0, colon).trim();
+            String to = content.substring(colon + 1).trim();
+            int start = from.isEmpty() ? 0 : Integer.parseInt(from);
+            int end = to.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(to);
+            // negative bounds depend on the length of the array, which is unknown while streaming
+            return start < 0 || end < 0 ? null : new Step(Kind.SLICE, null, start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Evaluates the path on each of the top-level values of the parser.
+     * A definite path results in one value per document, the match or null.
+     * An indefinite path results in one {@link Matches} per document, which has to be consumed before the next one.
+     */
+    public Stream<Object> evaluate(JsonParser parser, ObjectMapper mapper) {
+        Iterator<Object> documents = new Iterator<>() {
+            private Matches current;
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    if (current != null) current.drain();
+                    try {
+                        hasNext = parser.nextToken() != null;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                hasNext = null;
+                current = new Matches(parser, mapper);
+                if (!definite) return current;
+                Object value = current.hasNext() ? current.next() : null;
+                current.drain();
+                return value;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(documents, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * The matches of an indefinite path in a document, read from the parser as they are consumed.
+     */
+    public class Matches implements Iterator<Object> {
+        private final JsonParser parser;
+        private final ObjectMapper mapper;
+        private final Deque<Frame> stack = new ArrayDeque<>();
+        // matches can be null, as with DEFAULT_PATH_LEAF_TO_NULL
+        private final Queue<Object> ready = new LinkedList<>();
+
+        private class Frame {
+            final int step;
+            final boolean array;
+            int index = -1;
+            boolean found;
+            // only objects of a recursive descent are pending until their own match is known
+            boolean resolved;
+            List<Object> pending;
+
+            Frame(int step, boolean array) {
+                this.step = step;
+                this.array = array;
+                this.resolved = array || steps[step].kind() != Kind.SCAN;
+            }
+        }
+
+        private Matches(JsonParser parser, ObjectMapper mapper) {
+            this.parser = parser;
+            this.mapper = mapper;
+            value(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (ready.isEmpty() && !stack.isEmpty()) {
+                    advance();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return !ready.isEmpty();
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return ready.poll();
+        }
+
+        private void drain() {
+            while (hasNext()) {
+                next();
+            }
+        }
+
+        /**
+         * Rows for the `apoc.load.json*` procedures: one per match if the first match is a map,
+         * otherwise a single one with all the matches, as for the list returned by JsonPath.
+         */
+        public <T> Stream<T> toResults(Function<Object, T> each, Function<List<Object>, T> all) {
+            if (!hasNext()) return Stream.empty();
+            if (ready.peek() instanceof Map) {
+                return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                        .map(each);
+            }
+            List<Object> matches = new ArrayList<>();
+            forEachRemaining(matches::add);
+            return Stream.of(all.apply(matches));
+        }
+
+        private void advance() throws IOException {
+            JsonToken token = parser.nextToken();
+            Frame frame = stack.peek();
+            if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                stack.pop();
+                if (!frame.array) {
+                    Step step = steps[frame.step];
+                    if (step.kind() == Kind.SCAN) {
+                        if (!frame.resolved) resolve(frame, null);
+                    } else if (step.kind() == Kind.PROPERTY && !frame.found && frame.step == steps.length - 1) {
+                        emit(null);
+                    }
+                }
+                return;
+            }
+            if (frame.array) {
+                frame.index++;
+                Step step = steps[frame.step];
+                if (step.kind() == Kind.SCAN) {
+                    scanChild();
+                } else if (step.kind() == Kind.WILDCARD || step.selects(frame.index)) {
+                    value(frame.step + 1);
+                } else {
+                    parser.skipChildren();
+                }
+                return;
+            }
+            String name = parser.currentName();
+            parser.nextToken();
+            Step step = steps[frame.step];
+            if (step.kind() == Kind.SCAN) {
+                if (!frame.resolved && name.equals(steps[frame.step + 1].name())) {
+                    Object match = mapper.readValue(parser, Object.class);
+                    resolve(frame, match);
+                    walk(match);
+                } else {
+                    scanChild();
+                }
+            } else if (step.kind() == Kind.WILDCARD || (step.kind() == Kind.PROPERTY && name.equals(step.name()))) {
+                frame.found = true;
+                value(frame.step + 1);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        /**
+         * Applies the step to the value the parser is positioned at.
+         */
+        private void value(int step) {
+            try {
+                JsonToken token = parser.currentToken();
+                if (step == steps.length) {
+                    emit(mapper.readValue(parser, Object.class));
+                    return;
+                }
+                Kind kind = steps[step].kind();
+                if (token == JsonToken.START_OBJECT && kind != Kind.SLICE) {
+                    stack.push(new Frame(step, false));
+                } else if (token == JsonToken.START_ARRAY && kind != Kind.PROPERTY) {
+                    stack.push(new Frame(step, true));
+                } else {
+                    parser.skipChildren();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void scanChild() throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                stack.push(new Frame(stack.peek().step, token == JsonToken.START_ARRAY));
+            }
+        }
+
+        /**
+         * Continues a recursive descent into a match which has already been read.
+         */
+        private void walk(Object value) {
+            String name = steps[steps.length - 1].name();
+            if (value instanceof Map<?, ?> map) {
+                emit(map.get(name));
+                map.values().forEach(this::walk);
+            } else if (value instanceof List<?> list) {
+                list.forEach(this::walk);
+            }
+        }
+
+        /**
+         * A recursive descent yields the match of an object before the ones of its descendants,
+         * so the latter wait in the object frame until the property has been found or the object has ended.
+         */
+        private void resolve(Frame frame, Object match) {
+            frame.resolved = true;
+            emit(match);
+            if (frame.pending != null) {
+                frame.pending.forEach(this::emit);
+                frame.pending = null;
+            }
+        }
+
+        private void emit(Object match) {
+            for (Frame frame : stack) {
+                if (!frame.resolved) {
+                    if (frame.pending == null) frame.pending = new ArrayList<>();
+                    frame.pending.add(match);
+                    return;
+                }
+            }
+            ready.add(match);
+        }
+    }
+}
@@ -72,6 +72,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -87,6 +88,7 @@ import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseSettings;
@@ -98,6 +100,7 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotInTransactionException;
+import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.QueryExecutionType;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
@@ -106,6 +109,7 @@ import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.ResultTransformer;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.TransactionTerminatedException;
+import org.neo4j.graphdb.TransientFailureException;
 import org.neo4j.graphdb.schema.ConstraintType;
 import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.graphdb.security.URLAccessChecker;
@@ -113,6 +117,7 @@ import org.neo4j.graphdb.security.URLAccessValidationError;
 import org.neo4j.internal.kernel.api.procs.ProcedureCallContext;
 import org.neo4j.internal.schema.ConstraintDescriptor;
 import org.neo4j.kernel.api.QueryLanguage;
+import org.neo4j.kernel.api.exceptions.Status;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.kernel.impl.util.ValueUtils;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
@@ -133,6 +138,9 @@ import org.neo4j.values.storable.Values;
  */
 public class Util {
 
+    private static final int RETRY_BACKOFF_BASE_MILLIS = 100;
+    private static final int RETRY_BACKOFF_MAX_MILLIS = 5000;
+
     public static final Label[] NO_LABELS = new Label[0];
     public static final String NODE_COUNT = "MATCH (n) RETURN count(*) as result";
     public static final String REL_COUNT = "MATCH ()-->() RETURN count(*) as result";
@@ -239,11 +247,41 @@ public class Util {
                 log.warn("Retrying operation %d of %d", retry, maxRetries);
             }
             callbackForRetry.accept(retry);
-            Util.sleep(100);
+            Util.sleep(retryBackoffMillis(retry));
             return retryInTx(log, db, function, retry + 1, maxRetries, callbackForRetry);
         }
     }
 
+    /**
+     * Jittered exponential backoff before the given retry: the first retry waits about 100ms,
+     * every following one about twice as long, up to 5s.
+     */
+    public static int retryBackoffMillis(long retry) {
+        int ceiling =
+                (int) Math.min(RETRY_BACKOFF_MAX_MILLIS, (long) RETRY_BACKOFF_BASE_MILLIS << Math.min(retry, 16));
+        return ceiling / 2 + ThreadLocalRandom.current().nextInt(ceiling / 2 + 1);
+    }
+
+    /**
+     * Whether the given exception, or one of its causes, is a transient error like a deadlock or a lock timeout,
+     * i.e. one that may not happen again if the transaction is retried.
+     */
+    public static boolean isTransientError(Throwable e) {
+        for (Throwable t : ExceptionUtils.getThrowableList(e)) {
+            if (t instanceof TransientFailureException) return true;
+            if (t instanceof Status.HasStatus hasStatus
+                    && hasStatus.status().code().classification() == Status.Classification.TransientError) {
+                return true;
+            }
+            if (t instanceof QueryExecutionException queryException
+                    && queryException.getStatusCode() != null
+                    && queryException.getStatusCode().startsWith("Neo.TransientError.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static <T> Future<T> inTxFuture(
             Log log,
             ExecutorService pool,
@@ -18,7 +18,10 @@
  */
 package apoc.util;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.neo4j.graphdb.schema.ConstraintType.NODE_KEY;
 import static org.neo4j.graphdb.schema.ConstraintType.NODE_LABEL_EXISTENCE;
 import static org.neo4j.graphdb.schema.ConstraintType.NODE_PROPERTY_EXISTENCE;
@@ -41,8 +44,10 @@ import java.util.Arrays;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.TransientTransactionFailureException;
 import org.neo4j.graphdb.schema.ConstraintType;
 import org.neo4j.graphdb.schema.IndexType;
+import org.neo4j.kernel.api.exceptions.Status;
 
 public class UtilTest {
 
@@ -75,4 +80,22 @@ public class UtilTest {
                 Arrays.stream(IndexType.values()).collect(Collectors.toSet()),
                 Set.of(FULLTEXT, LOOKUP, TEXT, RANGE, POINT, VECTOR));
     }
+
+    @Test
+    void testRetryBackoffGrowsExponentiallyWithJitter() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(Util.retryBackoffMillis(0)).isBetween(50, 100);
+            assertThat(Util.retryBackoffMillis(1)).isBetween(100, 200);
+            assertThat(Util.retryBackoffMillis(3)).isBetween(400, 800);
+            assertThat(Util.retryBackoffMillis(100)).isBetween(2500, 5000);
+        }
+    }
+
+    @Test
+    void testIsTransientError() {
+        var deadlock = new TransientTransactionFailureException(Status.Transaction.DeadlockDetected, "deadlock");
+        assertTrue(Util.isTransientError(deadlock));
+        assertTrue(Util.isTransientError(new RuntimeException("wrapped", deadlock)));
+        assertFalse(Util.isTransientError(new ArithmeticException("/ by zero")));
+    }
 }
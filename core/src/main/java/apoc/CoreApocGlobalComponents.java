@@ -19,11 +19,17 @@
 package apoc;
 
 import static apoc.ApocConfig.APOC_TRIGGER_ENABLED;
+import static apoc.hashing.FingerprintHandler.FINGERPRINT_INCREMENTAL_ENABLED;
+import static apoc.meta.MetaSchemaHandler.META_SCHEMA_CACHE_ENABLED;
 
 import apoc.cypher.CypherInitializer;
+import apoc.hashing.FingerprintHandler;
+import apoc.meta.MetaSchemaHandler;
 import apoc.trigger.TriggerHandler;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.neo4j.annotations.service.ServiceProvider;
 import org.neo4j.kernel.availability.AvailabilityListener;
@@ -38,8 +44,9 @@ public class CoreApocGlobalComponents implements ApocGlobalComponents {
     public Map<String, Lifecycle> getServices(GraphDatabaseAPI db, ApocExtensionFactory.Dependencies dependencies) {
         var apocConfig = dependencies.apocConfig();
 
+        Map<String, Lifecycle> services = new HashMap<>();
         if (apocConfig.getConfig().getBoolean(APOC_TRIGGER_ENABLED)) {
-            return Collections.singletonMap(
+            services.put(
                     "trigger",
                     new TriggerHandler(
                             db,
@@ -49,12 +56,32 @@ public class CoreApocGlobalComponents implements ApocGlobalComponents {
                             dependencies.pools(),
                             dependencies.scheduler()));
         }
-        return Collections.emptyMap();
+        if (apocConfig.getConfig().getBoolean(FINGERPRINT_INCREMENTAL_ENABLED, false)) {
+            services.put(
+                    "fingerprint",
+                    new FingerprintHandler(
+                            db,
+                            dependencies.databaseManagementService(),
+                            apocConfig,
+                            dependencies.log().getUserLog(FingerprintHandler.class),
+                            dependencies.scheduler()));
+        }
+        if (apocConfig.getConfig().getBoolean(META_SCHEMA_CACHE_ENABLED, false)) {
+            services.put(
+                    "metaSchema",
+                    new MetaSchemaHandler(
+                            db,
+                            dependencies.databaseManagementService(),
+                            apocConfig,
+                            dependencies.log().getUserLog(MetaSchemaHandler.class),
+                            dependencies.scheduler()));
+        }
+        return services;
     }
 
     @Override
     public Collection<Class> getContextClasses() {
-        return Collections.singleton(TriggerHandler.class);
+        return List.of(TriggerHandler.class, FingerprintHandler.class);
     }
 
     @Override
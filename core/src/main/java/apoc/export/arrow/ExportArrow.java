@@ -69,7 +69,7 @@ public class ExportArrow {
     public Stream<ByteArrayResult> all(
             @Name(value = "config", defaultValue = "{}", description = "{ batchSize = 2000 :: INTEGER }")
                     Map<String, Object> config) {
-        return new ExportArrowService(db, pools, terminationGuard, logger)
+        return new ExportArrowService(db, pools, terminationGuard, logger, tx)
                 .stream(new DatabaseSubGraph(tx), new ArrowConfig(config));
     }
 
@@ -99,7 +99,8 @@ public class ExportArrow {
         } else {
             throw new IllegalArgumentException("Supported inputs are VirtualGraph, Map");
         }
-        return new ExportArrowService(db, pools, terminationGuard, logger).stream(subGraph, new ArrowConfig(config));
+        return new ExportArrowService(db, pools, terminationGuard, logger, tx)
+                .stream(subGraph, new ArrowConfig(config));
     }
 
     @NotThreadSafe
@@ -117,7 +118,8 @@ public class ExportArrow {
                 ? Collections.emptyMap()
                 : (Map<String, Object>) config.getOrDefault("params", Collections.emptyMap());
         Result result = tx.execute(query, params);
-        return new ExportArrowService(db, pools, terminationGuard, logger).stream(result, new ArrowConfig(config));
+        return new ExportArrowService(db, pools, terminationGuard, logger, tx)
+                .stream(result, new ArrowConfig(config));
     }
 
     @NotThreadSafe
@@ -129,7 +131,7 @@ public class ExportArrow {
             @Name(value = "file", description = "The name of the file to export the data to.") String fileName,
             @Name(value = "config", defaultValue = "{}", description = "{ batchSize = 2000 :: INTEGER }")
                     Map<String, Object> config) {
-        return new ExportArrowService(db, pools, terminationGuard, logger)
+        return new ExportArrowService(db, pools, terminationGuard, logger, tx)
                 .file(fileName, new DatabaseSubGraph(tx), new ArrowConfig(config));
     }
 
@@ -158,7 +160,7 @@ public class ExportArrow {
         } else {
             throw new IllegalArgumentException("Supported inputs are VirtualGraph, Map");
         }
-        return new ExportArrowService(db, pools, terminationGuard, logger)
+        return new ExportArrowService(db, pools, terminationGuard, logger, tx)
                 .file(fileName, subGraph, new ArrowConfig(config));
     }
 
@@ -177,7 +179,7 @@ public class ExportArrow {
                 ? Collections.emptyMap()
                 : (Map<String, Object>) config.getOrDefault("params", Collections.emptyMap());
         Result result = tx.execute(query, params);
-        return new ExportArrowService(db, pools, terminationGuard, logger)
+        return new ExportArrowService(db, pools, terminationGuard, logger, tx)
                 .file(fileName, result, new ArrowConfig(config));
     }
 }
@@ -29,6 +29,7 @@ import java.util.stream.Stream;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
@@ -40,19 +41,23 @@ public class ExportArrowService {
     private final Pools pools;
     private final TerminationGuard terminationGuard;
     private final Log logger;
+    private final Transaction tx;
 
-    public ExportArrowService(GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger) {
+    public ExportArrowService(
+            GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger, Transaction tx) {
         this.db = db;
         this.pools = pools;
         this.terminationGuard = terminationGuard;
         this.logger = logger;
+        this.tx = tx;
     }
 
     public Stream<ByteArrayResult> stream(Object data, ArrowConfig config) {
         if (data instanceof Result) {
             return new ExportResultStreamStrategy(db, pools, terminationGuard, logger).export((Result) data, config);
         } else {
-            return new ExportGraphStreamStrategy(db, pools, terminationGuard, logger).export((SubGraph) data, config);
+            return new ExportGraphStreamStrategy(db, pools, terminationGuard, logger, tx)
+                    .export((SubGraph) data, config);
         }
     }
 
@@ -67,7 +72,7 @@ public class ExportArrowService {
             return new ExportResultFileStrategy(fileName, db, pools, terminationGuard, logger)
                     .export((Result) data, config);
         } else {
-            return new ExportGraphFileStrategy(fileName, db, pools, terminationGuard, logger)
+            return new ExportGraphFileStrategy(fileName, db, pools, terminationGuard, logger, tx)
                     .export((SubGraph) data, config);
         }
     }
@@ -158,6 +158,30 @@ public interface ExportArrowStrategy<IN, OUT> {
         }
     }
 
+    /**
+     * Writes the values of one column, with the dispatch on the vector type already resolved.
+     */
+    interface ColumnWriter {
+        void write(int index, Object value);
+    }
+
+    default ColumnWriter columnWriter(FieldVector fieldVector) {
+        if (fieldVector instanceof BaseVariableWidthVector vector) {
+            return (index, value) -> writeBaseVariableWidthVector(index, value, vector);
+        } else if (fieldVector instanceof BigIntVector vector) {
+            return (index, value) -> writeBigIntVector(index, value, vector);
+        } else if (fieldVector instanceof DateMilliVector vector) {
+            return (index, value) -> writeDateMilliVector(index, value, vector);
+        } else if (fieldVector instanceof Float8Vector vector) {
+            return (index, value) -> writeFloat8Vector(index, value, vector);
+        } else if (fieldVector instanceof BitVector vector) {
+            return (index, value) -> writeBitVector(index, value, vector);
+        } else if (fieldVector instanceof ListVector) {
+            return (index, value) -> writeListVector(index, value, fieldVector);
+        }
+        return (index, value) -> {};
+    }
+
     default void write(int index, Object value, FieldVector fieldVector) {
         if (fieldVector instanceof BaseVariableWidthVector) {
             writeBaseVariableWidthVector(index, value, (BaseVariableWidthVector) fieldVector);
@@ -191,33 +215,41 @@ public interface ExportArrowStrategy<IN, OUT> {
         listWriter.setPosition(index);
         listWriter.startList();
         FieldVector inner = listVector.getChildrenFromFields().get(0);
-        for (int i = 0; i < array.length; i++) {
-            Object val = convertValue(array[i]);
-            if (val == null) {
-                listWriter.writeNull();
-            } else if (inner instanceof ListVector) {
-                write(i, val, inner);
-            } else if (inner instanceof BaseVariableWidthVector) {
-                final byte[] bytes;
-                if (val instanceof String) {
-                    bytes = val.toString().getBytes(StandardCharsets.UTF_8);
-                } else {
-                    bytes = JsonUtil.writeValueAsBytes(val);
-                }
-                ArrowBuf tempBuf = fieldVector.getAllocator().buffer(bytes.length);
-                tempBuf.setBytes(0, bytes);
-                listWriter.varChar().writeVarChar(0, bytes.length, tempBuf);
-                tempBuf.close();
-            } else if (inner instanceof BigIntVector) {
-                long lng = (long) val;
-                listWriter.bigInt().writeBigInt(lng);
-            } else if (inner instanceof Float8Vector) {
-                double dbl = (double) val;
-                listWriter.float8().writeFloat8(dbl);
-            } else if (inner instanceof BitVector) {
-                boolean bool = (boolean) val;
-                listWriter.bit().writeBit(bool ? 1 : 0);
-            } // TODO datemilli
+        // one scratch buffer for all the strings of the list, grown as needed
+        ArrowBuf tempBuf = null;
+        try {
+            for (int i = 0; i < array.length; i++) {
+                Object val = convertValue(array[i]);
+                if (val == null) {
+                    listWriter.writeNull();
+                } else if (inner instanceof ListVector) {
+                    write(i, val, inner);
+                } else if (inner instanceof BaseVariableWidthVector) {
+                    final byte[] bytes;
+                    if (val instanceof String) {
+                        bytes = val.toString().getBytes(StandardCharsets.UTF_8);
+                    } else {
+                        bytes = JsonUtil.writeValueAsBytes(val);
+                    }
+                    if (tempBuf == null || tempBuf.capacity() < bytes.length) {
+                        if (tempBuf != null) tempBuf.close();
+                        tempBuf = fieldVector.getAllocator().buffer(Math.max(bytes.length, 64));
+                    }
+                    tempBuf.setBytes(0, bytes);
+                    listWriter.varChar().writeVarChar(0, bytes.length, tempBuf);
+                } else if (inner instanceof BigIntVector) {
+                    long lng = (long) val;
+                    listWriter.bigInt().writeBigInt(lng);
+                } else if (inner instanceof Float8Vector) {
+                    double dbl = (double) val;
+                    listWriter.float8().writeFloat8(dbl);
+                } else if (inner instanceof BitVector) {
+                    boolean bool = (boolean) val;
+                    listWriter.bit().writeBit(bool ? 1 : 0);
+                } // TODO datemilli
+            }
+        } finally {
+            if (tempBuf != null) tempBuf.close();
         }
         listWriter.endList();
     }
@@ -65,6 +65,21 @@ public interface ExportArrowStreamStrategy<IN> extends ExportArrowStrategy<IN, S
         }
     }
 
+    /**
+     * Serializes the current content of the root as a self-contained Arrow stream,
+     * so that the root can be refilled for the next batch.
+     */
+    default byte[] writeBatch(VectorSchemaRoot root) {
+        try (final ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            try (final ArrowWriter writer = newArrowWriter(root, out)) {
+                writer.writeBatch();
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     default Stream<ByteArrayResult> export(IN data, ArrowConfig config) {
         class ExportIterator implements Iterator<ByteArrayResult> {
             ByteArrayResult current;
@@ -21,7 +21,10 @@ package apoc.export.arrow;
 import apoc.Pools;
 import apoc.export.util.ProgressReporter;
 import apoc.result.ExportProgressInfo;
+import apoc.util.FileUtils;
+import apoc.util.Util;
 import apoc.util.collection.Iterables;
+import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -29,11 +32,16 @@ import java.util.concurrent.ExecutorService;
 import java.util.stream.Stream;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowWriter;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.neo4j.cypher.export.SubGraph;
+import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
@@ -44,18 +52,25 @@ public class ExportGraphFileStrategy implements ExportArrowFileStrategy<SubGraph
     private final Pools pools;
     private final TerminationGuard terminationGuard;
     private final Log logger;
+    private final InternalTransaction tx;
 
     private final RootAllocator bufferAllocator;
 
     private Schema schema;
 
     public ExportGraphFileStrategy(
-            String fileName, GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger) {
+            String fileName,
+            GraphDatabaseService db,
+            Pools pools,
+            TerminationGuard terminationGuard,
+            Log logger,
+            Transaction tx) {
         this.fileName = fileName;
         this.db = db;
         this.pools = pools;
         this.terminationGuard = terminationGuard;
         this.logger = logger;
+        this.tx = (InternalTransaction) tx;
         this.bufferAllocator = new RootAllocator();
     }
 
@@ -78,8 +93,31 @@ public class ExportGraphFileStrategy implements ExportArrowFileStrategy<SubGraph
 
     @Override
     public Stream<ExportProgressInfo> export(SubGraph data, ArrowConfig config) {
-        schemaFor(List.of(createConfigMap(data, config)));
-        return ExportArrowFileStrategy.super.export(data, config);
+        final Schema schema = schemaFor(List.of(createConfigMap(data, config)));
+        ExportProgressInfo progressInfo = new ExportProgressInfo(fileName, getSource(data), "arrow");
+        progressInfo.setBatchSize(config.getBatchSize());
+        ProgressReporter reporter = new ProgressReporter(null, null, progressInfo);
+        try (OutputStream out = FileUtils.getOutputStream(fileName);
+                VectorSchemaRoot root = VectorSchemaRoot.create(schema, bufferAllocator);
+                ArrowWriter writer = newArrowWriter(root, out);
+                GraphVectorWriter vectorWriter = new GraphVectorWriter(this, root, tx)) {
+            Iterator<Entity> entities = entities(data);
+            while (!Util.transactionIsTerminated(terminationGuard) && entities.hasNext()) {
+                vectorWriter.startBatch();
+                while (vectorWriter.rows() < config.getBatchSize() && entities.hasNext()) {
+                    Entity entity = entities.next();
+                    vectorWriter.write(entity);
+                    reporter.update(entity instanceof Node ? 1 : 0, entity instanceof Relationship ? 1 : 0, 0);
+                }
+                vectorWriter.finishBatch();
+                writer.writeBatch();
+            }
+        } catch (Exception e) {
+            getLogger().error("Exception while extracting Arrow data:", e);
+        } finally {
+            reporter.done();
+        }
+        return Stream.of(progressInfo);
     }
 
     @Override
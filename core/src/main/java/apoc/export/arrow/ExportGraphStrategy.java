@@ -29,6 +29,7 @@ import apoc.util.Util;
 import apoc.util.collection.Iterables;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -80,6 +81,12 @@ public interface ExportGraphStrategy {
         return new Schema(allFields);
     }
 
+    default Iterator<Entity> entities(SubGraph subGraph) {
+        return Stream.<Entity>concat(
+                        Iterables.stream(subGraph.getNodes()), Iterables.stream(subGraph.getRelationships()))
+                .iterator();
+    }
+
     default Map<String, Object> entityToMap(Entity entity) {
         Map<String, Object> flattened = new HashMap<>();
         flattened.put(FIELD_ID.getName(), entity.getId());
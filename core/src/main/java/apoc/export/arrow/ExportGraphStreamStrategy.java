@@ -20,7 +20,10 @@ package apoc.export.arrow;
 
 import apoc.Pools;
 import apoc.result.ByteArrayResult;
+import apoc.util.Util;
 import apoc.util.collection.Iterables;
+import apoc.util.collection.Iterators;
+import apoc.util.collection.PrefetchingIterator;
 import java.io.OutputStream;
 import java.nio.channels.Channels;
 import java.util.Iterator;
@@ -36,7 +39,10 @@ import org.apache.arrow.vector.ipc.ArrowStreamWriter;
 import org.apache.arrow.vector.ipc.ArrowWriter;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.neo4j.cypher.export.SubGraph;
+import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
@@ -46,17 +52,19 @@ public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubG
     private final Pools pools;
     private final TerminationGuard terminationGuard;
     private final Log logger;
+    private final InternalTransaction tx;
 
     private final RootAllocator bufferAllocator;
 
     private Schema schema;
 
     public ExportGraphStreamStrategy(
-            GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger) {
+            GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger, Transaction tx) {
         this.db = db;
         this.pools = pools;
         this.terminationGuard = terminationGuard;
         this.logger = logger;
+        this.tx = (InternalTransaction) tx;
         this.bufferAllocator = new RootAllocator();
     }
 
@@ -70,8 +78,29 @@ public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubG
     @Override
     public Stream<ByteArrayResult> export(SubGraph subGraph, ArrowConfig config) {
         Map<String, Object> configMap = createConfigMap(subGraph, config);
-        this.schemaFor(List.of(configMap));
-        return ExportArrowStreamStrategy.super.export(subGraph, config);
+        final VectorSchemaRoot root = VectorSchemaRoot.create(schemaFor(List.of(configMap)), bufferAllocator);
+        final GraphVectorWriter vectorWriter = new GraphVectorWriter(this, root, tx);
+        final Iterator<Entity> entities = entities(subGraph);
+        final Iterator<ByteArrayResult> batches = new PrefetchingIterator<>() {
+            @Override
+            protected ByteArrayResult fetchNextOrNull() {
+                vectorWriter.startBatch();
+                while (vectorWriter.rows() < config.getBatchSize()
+                        && !Util.transactionIsTerminated(terminationGuard)
+                        && entities.hasNext()) {
+                    vectorWriter.write(entities.next());
+                }
+                if (vectorWriter.rows() == 0) {
+                    return null;
+                }
+                vectorWriter.finishBatch();
+                return new ByteArrayResult(writeBatch(root));
+            }
+        };
+        return Iterators.stream(batches).onClose(() -> {
+            vectorWriter.close();
+            root.close();
+        });
     }
 
     @Override
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.arrow;
+
+import static apoc.export.arrow.ArrowUtils.FIELD_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_LABELS;
+import static apoc.export.arrow.ArrowUtils.FIELD_SOURCE_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TARGET_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TYPE;
+
+import apoc.util.Util;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.NodeEntity;
+import org.neo4j.kernel.impl.core.RelationshipEntity;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.token.api.TokenSet;
+
+/**
+ * Fills the vectors of a graph export column by column, straight from the node and relationship property cursors,
+ * without building a map per entity.
+ *
+ * The columns are resolved once, from the schema fixed by the `apoc.meta` sampling,
+ * and the root is reused across batches: every batch overwrites the rows of the previous one.
+ * Entities which are not in the store, i.e. virtual ones, are read through the core API instead.
+ */
+class GraphVectorWriter implements AutoCloseable {
+    private static final int[] NO_COLUMNS = new int[0];
+
+    private final ExportArrowStrategy<?, ?> strategy;
+    private final VectorSchemaRoot root;
+    private final ExportArrowStrategy.ColumnWriter[] writers;
+    private final Map<String, int[]> columnsByName = new HashMap<>();
+    private final int idColumn;
+    private final int labelsColumn;
+    private final int typeColumn;
+    private final int sourceIdColumn;
+    private final int targetIdColumn;
+
+    private final Read read;
+    private final TokenRead tokenRead;
+    private final NodeCursor nodeCursor;
+    private final RelationshipScanCursor relationshipCursor;
+    private final PropertyCursor propertyCursor;
+
+    private final Map<Integer, int[]> columnsByPropertyKey = new HashMap<>();
+    private final Map<Integer, String> labelNames = new HashMap<>();
+    private final Map<Integer, String> typeNames = new HashMap<>();
+
+    private final boolean[] written;
+    private boolean allocated;
+    private int rows;
+
+    GraphVectorWriter(ExportArrowStrategy<?, ?> strategy, VectorSchemaRoot root, InternalTransaction tx) {
+        this.strategy = strategy;
+        this.root = root;
+        List<FieldVector> vectors = root.getFieldVectors();
+        this.writers = new ExportArrowStrategy.ColumnWriter[vectors.size()];
+        Map<String, List<Integer>> columns = new HashMap<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            FieldVector vector = vectors.get(i);
+            writers[i] = strategy.columnWriter(vector);
+            columns.computeIfAbsent(vector.getName(), name -> new ArrayList<>()).add(i);
+        }
+        columns.forEach((name, indexes) ->
+                columnsByName.put(name, indexes.stream().mapToInt(Integer::intValue).toArray()));
+        this.idColumn = column(FIELD_ID.getName());
+        this.labelsColumn = column(FIELD_LABELS.getName());
+        this.typeColumn = column(FIELD_TYPE.getName());
+        this.sourceIdColumn = column(FIELD_SOURCE_ID.getName());
+        this.targetIdColumn = column(FIELD_TARGET_ID.getName());
+        this.written = new boolean[vectors.size()];
+
+        KernelTransaction ktx = tx.kernelTransaction();
+        this.read = ktx.dataRead();
+        this.tokenRead = ktx.tokenRead();
+        this.nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+        this.relationshipCursor = ktx.cursors().allocateRelationshipScanCursor(ktx.cursorContext());
+        this.propertyCursor = ktx.cursors().allocatePropertyCursor(ktx.cursorContext(), ktx.memoryTracker());
+    }
+
+    private int column(String name) {
+        int[] columns = columnsByName.get(name);
+        return columns == null ? -1 : columns[0];
+    }
+
+    void startBatch() {
+        if (allocated) {
+            // keep the buffers of the previous batch, they are already sized for a batch
+            root.getFieldVectors().forEach(FieldVector::reset);
+        } else {
+            root.allocateNew();
+            allocated = true;
+        }
+        rows = 0;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    void finishBatch() {
+        root.setRowCount(rows);
+    }
+
+    void write(Entity entity) {
+        Arrays.fill(written, false);
+        if (entity instanceof Node node) {
+            writeNode(node);
+        } else {
+            writeRelationship((Relationship) entity);
+        }
+        for (int i = 0; i < written.length; i++) {
+            if (!written[i]) writers[i].write(rows, null);
+        }
+        rows++;
+    }
+
+    private void writeNode(Node node) {
+        long id = node.getId();
+        writeColumn(idColumn, id);
+        if (!(node instanceof NodeEntity) || !singleNode(id)) {
+            writeColumn(labelsColumn, Util.labelStrings(node));
+            node.getAllProperties().forEach(this::writeProperty);
+            return;
+        }
+        TokenSet labels = nodeCursor.labels();
+        List<String> names = new ArrayList<>(labels.numberOfTokens());
+        for (int i = 0; i < labels.numberOfTokens(); i++) {
+            names.add(labelNames.computeIfAbsent(labels.token(i), this::labelName));
+        }
+        names.sort(null);
+        writeColumn(labelsColumn, names);
+        nodeCursor.properties(propertyCursor);
+        writeProperties();
+    }
+
+    private void writeRelationship(Relationship rel) {
+        long id = rel.getId();
+        writeColumn(idColumn, id);
+        if (!(rel instanceof RelationshipEntity) || !singleRelationship(id)) {
+            writeColumn(typeColumn, rel.getType().name());
+            writeColumn(sourceIdColumn, rel.getStartNodeId());
+            writeColumn(targetIdColumn, rel.getEndNodeId());
+            rel.getAllProperties().forEach(this::writeProperty);
+            return;
+        }
+        writeColumn(typeColumn, typeNames.computeIfAbsent(relationshipCursor.type(), this::typeName));
+        writeColumn(sourceIdColumn, relationshipCursor.sourceNodeReference());
+        writeColumn(targetIdColumn, relationshipCursor.targetNodeReference());
+        relationshipCursor.properties(propertyCursor);
+        writeProperties();
+    }
+
+    private boolean singleNode(long id) {
+        read.singleNode(id, nodeCursor);
+        return nodeCursor.next();
+    }
+
+    private boolean singleRelationship(long id) {
+        read.singleRelationship(id, relationshipCursor);
+        return relationshipCursor.next();
+    }
+
+    private void writeProperties() {
+        while (propertyCursor.next()) {
+            int[] columns = columnsByPropertyKey.computeIfAbsent(
+                    propertyCursor.propertyKey(), key -> columnsByName.getOrDefault(propertyKeyName(key), NO_COLUMNS));
+            if (columns.length == 0) continue;
+            Object value = strategy.convertValue(propertyCursor.propertyValue().asObjectCopy());
+            for (int column : columns) {
+                writers[column].write(rows, value);
+                written[column] = true;
+            }
+        }
+    }
+
+    private void writeProperty(String key, Object value) {
+        Object converted = strategy.convertValue(value);
+        for (int column : columnsByName.getOrDefault(key, NO_COLUMNS)) {
+            writers[column].write(rows, converted);
+            written[column] = true;
+        }
+    }
+
+    private void writeColumn(int column, Object value) {
+        if (column < 0) return;
+        writers[column].write(rows, strategy.convertValue(value));
+        written[column] = true;
+    }
+
+    private String labelName(int token) {
+        try {
+            return tokenRead.nodeLabelName(token);
+        } catch (KernelException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String typeName(int token) {
+        try {
+            return tokenRead.relationshipTypeName(token);
+        } catch (KernelException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String propertyKeyName(int token) {
+        try {
+            return tokenRead.propertyKeyName(token);
+        } catch (KernelException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        propertyCursor.close();
+        relationshipCursor.close();
+        nodeCursor.close();
+    }
+}
@@ -25,18 +25,19 @@ import apoc.load.CSVResult;
 import apoc.load.Mapping;
 import apoc.load.util.Results;
 import apoc.util.FileUtils;
+import apoc.util.Util;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.RFC4180ParserBuilder;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.security.URLAccessChecker;
 import org.neo4j.graphdb.security.URLAccessValidationError;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.logging.Log;
 
 public class CsvEntityLoader {
@@ -57,9 +58,211 @@ public class CsvEntityLoader {
         this.urlAccessChecker = urlAccessChecker;
     }
 
+    /**
+     * A CSV file with its header processed, positioned at the first line to import.
+     */
+    class CsvFile implements AutoCloseable {
+        final CountingReader reader;
+        final List<CsvHeaderField> fields;
+        private final Map<String, Mapping> mapping;
+        private final String[] loadCsvCompatibleHeader;
+
+        private CsvFile(Object fileName) throws IOException, URISyntaxException, URLAccessValidationError {
+            this.reader = FileUtils.readerFor(fileName, clc.getCompressionAlgo(), urlAccessChecker);
+            try {
+                final String header = readFirstLine(reader);
+                this.fields = CsvHeaderFields.processHeader(header, clc.getDelimiter(), clc.getQuotationCharacter());
+                this.mapping = getMapping(fields);
+                this.loadCsvCompatibleHeader = fields.stream().map(f -> f.getName()).toArray(String[]::new);
+            } catch (IOException | RuntimeException e) {
+                reader.close();
+                throw e;
+            }
+        }
+
+        CsvHeaderField field(String type) {
+            return fields.stream().filter(f -> type.equals(f.getType())).findFirst().orElse(null);
+        }
+
+        /**
+         * Parses every line into a row of typed values, keyed by field name.
+         */
+        void forEachRow(RowConsumer consumer) throws IOException {
+            final CSVReader csv = new CSVReaderBuilder(reader)
+                    .withCSVParser(new RFC4180ParserBuilder()
+                            .withSeparator(clc.getDelimiter())
+                            .withQuoteChar(clc.getQuotationCharacter())
+                            .build())
+                    .withSkipLines(clc.getSkipLines() - 1)
+                    .build();
+            int lineNo = 0;
+            for (String[] line : csv) {
+                lineNo++;
+                final EnumSet<Results> results = EnumSet.of(Results.map);
+                final CSVResult result = new CSVResult(
+                        loadCsvCompatibleHeader, line, lineNo, false, mapping, Collections.emptyList(), results);
+                consumer.accept(lineNo, line, result.map);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    interface RowConsumer {
+        void accept(int lineNo, String[] line, Map<String, Object> row);
+    }
+
+    CsvFile open(Object fileName) throws IOException, URISyntaxException, URLAccessValidationError {
+        return new CsvFile(fileName);
+    }
+
+    /**
+     * @return the id field of a node file, or null
+     */
+    CsvHeaderField nodeIdField(CsvFile file) {
+        final CsvHeaderField idField = file.field(CsvLoaderConstants.ID_FIELD);
+        if (idField == null) {
+            log.warn(
+                    "Please note that if no ID is specified, the node will be imported but it will not be able to be connected by any relationships during the import");
+        }
+        return idField;
+    }
+
+    static String idSpace(CsvHeaderField idField) {
+        return idField != null ? idField.getIdSpace() : CsvLoaderConstants.DEFAULT_IDSPACE;
+    }
+
+    static String nodeCsvId(CsvHeaderField idField, Map<String, Object> row) {
+        return idField == null ? null : (String) row.get(idField.getName());
+    }
+
+    /**
+     * Reserves the CSV id of the node on the given line in its id space, so that duplicates are found in file order,
+     * even if the nodes themselves are created out of order.
+     *
+     * @return false if the id is a duplicate and duplicates are to be ignored
+     */
+    boolean reserveNodeId(String nodeCsvId, CsvIdMapping.IdSpace idSpace, int lineNo, String[] line) {
+        // if 'ignore duplicate nodes' is false, there is an id field and the mapping already has the current id,
+        // we either fail the loading process or skip it depending on the 'ignore duplicate nodes' setting
+        if (idSpace.put(nodeCsvId, CsvIdMapping.PENDING)) {
+            return true;
+        }
+        if (clc.getIgnoreDuplicateNodes()) {
+            return false;
+        }
+        throw new IllegalStateException(
+                "Duplicate node with id " + nodeCsvId + " found on line " + lineNo + "\n" + Arrays.toString(line));
+    }
+
+    /**
+     * Creates the node of a row and maps its reserved CSV id to it.
+     *
+     * @return the number of properties set
+     */
+    int createNode(
+            Transaction tx,
+            List<String> labels,
+            List<CsvHeaderField> fields,
+            Map<String, Object> row,
+            CsvIdMapping.IdSpace idSpace,
+            String nodeCsvId) {
+        final Node node = tx.createNode();
+        if (nodeCsvId != null) {
+            idSpace.set(nodeCsvId, Util.getNodeId((InternalTransaction) tx, node.getElementId()));
+        }
+
+        // add labels
+        for (String label : labels) {
+            node.addLabel(Label.label(label));
+        }
+
+        // add properties
+        int props = 0;
+        for (CsvHeaderField field : fields) {
+            final String name = field.getName();
+            Object value = row.get(name);
+
+            if (field.isMeta()) {
+                final List<String> customLabels = (List<String>) value;
+                for (String customLabel : customLabels) {
+                    node.addLabel(Label.label(customLabel));
+                }
+            } else if (field.isId()) {
+                final Object idValue;
+                if (clc.getStringIds()) {
+                    idValue = value;
+                } else {
+                    idValue = Long.valueOf((String) value);
+                }
+                node.setProperty(field.getName(), idValue);
+                props++;
+            } else {
+                boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(node, field, value, clc);
+                props += propertyAdded ? 1 : 0;
+            }
+        }
+        return props;
+    }
+
+    static List<CsvHeaderField> relationshipPropertyFields(CsvFile file) {
+        return file.fields.stream()
+                .filter(field -> !CsvLoaderConstants.START_ID_FIELD.equals(field.getType()))
+                .filter(field -> !CsvLoaderConstants.END_ID_FIELD.equals(field.getType()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates the relationship of a row between the nodes mapped to its start and end ids.
+     *
+     * @return the number of properties set
+     */
+    int createRelationship(
+            Transaction tx,
+            String type,
+            CsvHeaderField startIdField,
+            CsvHeaderField endIdField,
+            List<CsvHeaderField> propertyFields,
+            Map<String, Object> row,
+            CsvIdMapping idMapping) {
+        final Node source =
+                node(tx, idMapping, startIdField.getIdSpace(), row.get(CsvLoaderConstants.START_ID_ATTR));
+        final Node target = node(tx, idMapping, endIdField.getIdSpace(), row.get(CsvLoaderConstants.END_ID_ATTR));
+
+        final String currentType;
+        final Object overridingType = row.get(CsvLoaderConstants.TYPE_ATTR);
+        if (overridingType != null && !((String) overridingType).isEmpty()) {
+            currentType = (String) overridingType;
+        } else {
+            currentType = type;
+        }
+        final Relationship rel = source.createRelationshipTo(target, RelationshipType.withName(currentType));
+
+        // add properties
+        int props = 0;
+        for (CsvHeaderField field : propertyFields) {
+            final String name = field.getName();
+            Object value = row.get(name);
+            boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(rel, field, value, clc);
+            props += propertyAdded ? 1 : 0;
+        }
+        return props;
+    }
+
+    private static Node node(Transaction tx, CsvIdMapping idMapping, String idSpace, Object csvId) {
+        final long internalId = idMapping.get(idSpace, csvId.toString());
+        if (internalId == CsvIdMapping.NOT_FOUND) {
+            throw new IllegalStateException("Node for id space " + idSpace + " and id " + csvId + " not found");
+        }
+        return ((InternalTransaction) tx).newNodeEntity(internalId);
+    }
+
     /**
      * Loads nodes from a CSV file with given labels to an online database, and fills the {@code idMapping},
-     * which will be used by the {@link #loadRelationships(Object, String, GraphDatabaseService, Map)}
+     * which will be used by the {@link #loadRelationships(Object, String, GraphDatabaseService, CsvIdMapping)}
      * method.
      *
      * @param fileName URI/Binary of the CSV file representing the node
@@ -72,113 +275,22 @@ public class CsvEntityLoader {
             final Object fileName,
             final List<String> labels,
             final GraphDatabaseService db,
-            final Map<String, Map<String, String>> idMapping)
+            final CsvIdMapping idMapping)
             throws IOException, URISyntaxException, URLAccessValidationError {
 
-        try (final CountingReader reader = FileUtils.readerFor(fileName, clc.getCompressionAlgo(), urlAccessChecker)) {
-            final String header = readFirstLine(reader);
-            final List<CsvHeaderField> fields =
-                    CsvHeaderFields.processHeader(header, clc.getDelimiter(), clc.getQuotationCharacter());
-
-            final Optional<CsvHeaderField> idField = fields.stream()
-                    .filter(f -> CsvLoaderConstants.ID_FIELD.equals(f.getType()))
-                    .findFirst();
-
-            if (!idField.isPresent()) {
-                log.warn(
-                        "Please note that if no ID is specified, the node will be imported but it will not be able to be connected by any relationships during the import");
-            }
-
-            final Optional<String> idAttribute =
-                    idField.isPresent() ? Optional.of(idField.get().getName()) : Optional.empty();
-            final String idSpace =
-                    idField.isPresent() ? idField.get().getIdSpace() : CsvLoaderConstants.DEFAULT_IDSPACE;
+        try (final CsvFile file = open(fileName)) {
+            final CsvHeaderField idField = nodeIdField(file);
+            final CsvIdMapping.IdSpace idSpace = idMapping.idSpace(idSpace(idField));
 
-            idMapping.putIfAbsent(idSpace, new HashMap<>());
-            final Map<String, String> idspaceIdMapping = idMapping.get(idSpace);
-
-            final Map<String, Mapping> mapping = getMapping(fields);
-
-            final CSVReader csv = new CSVReaderBuilder(reader)
-                    .withCSVParser(new RFC4180ParserBuilder()
-                            .withSeparator(clc.getDelimiter())
-                            .withQuoteChar(clc.getQuotationCharacter())
-                            .build())
-                    .withSkipLines(clc.getSkipLines() - 1)
-                    .build();
-
-            final String[] loadCsvCompatibleHeader =
-                    fields.stream().map(f -> f.getName()).toArray(String[]::new);
-            AtomicInteger lineNo = new AtomicInteger();
             BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter);
             try {
-                csv.forEach(line -> {
-                    lineNo.getAndIncrement();
-
-                    final EnumSet<Results> results = EnumSet.of(Results.map);
-                    final CSVResult result = new CSVResult(
-                            loadCsvCompatibleHeader,
-                            line,
-                            lineNo.get(),
-                            false,
-                            mapping,
-                            Collections.emptyList(),
-                            results);
-
-                    final String nodeCsvId =
-                            (String) idAttribute.map(result.map::get).orElse(null);
-
-                    // if 'ignore duplicate nodes' is false, there is an id field and the mapping already has the
-                    // current id,
-                    // we either fail the loading process or skip it depending on the 'ignore duplicate nodes' setting
-                    if (idField.isPresent() && idspaceIdMapping.containsKey(nodeCsvId)) {
-                        if (clc.getIgnoreDuplicateNodes()) {
-                            return;
-                        } else {
-                            throw new IllegalStateException("Duplicate node with id " + nodeCsvId + " found on line "
-                                    + lineNo + "\n" + Arrays.toString(line));
-                        }
-                    }
-
-                    // create node and add its id to the mapping
-                    final Node node = btx.getTransaction().createNode();
-                    if (idField.isPresent()) {
-                        idspaceIdMapping.put(nodeCsvId, node.getElementId());
-                    }
-
-                    // add labels
-                    for (String label : labels) {
-                        node.addLabel(Label.label(label));
-                    }
-
-                    // add properties
-                    int props = 0;
-                    for (CsvHeaderField field : fields) {
-                        final String name = field.getName();
-                        Object value = result.map.get(name);
-
-                        if (field.isMeta()) {
-                            final List<String> customLabels = (List<String>) value;
-                            for (String customLabel : customLabels) {
-                                node.addLabel(Label.label(customLabel));
-                            }
-                        } else if (field.isId()) {
-                            final Object idValue;
-                            if (clc.getStringIds()) {
-                                idValue = value;
-                            } else {
-                                idValue = Long.valueOf((String) value);
-                            }
-                            node.setProperty(field.getName(), idValue);
-                            props++;
-                        } else {
-                            boolean propertyAdded =
-                                    CsvPropertyConverter.addPropertyToGraphEntity(node, field, value, clc);
-                            props += propertyAdded ? 1 : 0;
-                        }
-                    }
+                file.forEachRow((lineNo, line, row) -> {
+                    final String nodeCsvId = nodeCsvId(idField, row);
+                    if (nodeCsvId != null && !reserveNodeId(nodeCsvId, idSpace, lineNo, line)) return;
+
+                    int props = createNode(btx.getTransaction(), labels, file.fields, row, idSpace, nodeCsvId);
                     btx.increment();
-                    reporter.update(1, 0, props++);
+                    reporter.update(1, 0, props);
                 });
                 btx.doCommit();
             } catch (RuntimeException e) {
@@ -193,7 +305,7 @@ public class CsvEntityLoader {
     /**
      * Loads relationships from a CSV file with given relationship types to an online database,
      * using the {@code idMapping} created by the
-     * {@link #loadNodes(Object, List, GraphDatabaseService, Map)} method.
+     * {@link #loadNodes(Object, List, GraphDatabaseService, CsvIdMapping)} method.
      *
      * @param data URI / Binary of the CSV file representing the relationship
      * @param type relationship type to be applied to each relationships
@@ -206,104 +318,28 @@ public class CsvEntityLoader {
             final Object data,
             final String type,
             final GraphDatabaseService db,
-            final Map<String, Map<String, String>> idMapping)
+            final CsvIdMapping idMapping)
             throws IOException, URISyntaxException, URLAccessValidationError {
 
-        try (final CountingReader reader = FileUtils.readerFor(data, clc.getCompressionAlgo(), urlAccessChecker)) {
-            final String header = readFirstLine(reader);
-            final List<CsvHeaderField> fields =
-                    CsvHeaderFields.processHeader(header, clc.getDelimiter(), clc.getQuotationCharacter());
-
-            final CsvHeaderField startIdField = fields.stream()
-                    .filter(f -> CsvLoaderConstants.START_ID_FIELD.equals(f.getType()))
-                    .findFirst()
-                    .get();
-
-            final CsvHeaderField endIdField = fields.stream()
-                    .filter(f -> CsvLoaderConstants.END_ID_FIELD.equals(f.getType()))
-                    .findFirst()
-                    .get();
+        try (final CsvFile file = open(data)) {
+            final CsvHeaderField startIdField = file.field(CsvLoaderConstants.START_ID_FIELD);
+            final CsvHeaderField endIdField = file.field(CsvLoaderConstants.END_ID_FIELD);
+            final List<CsvHeaderField> propertyFields = relationshipPropertyFields(file);
 
-            final List<CsvHeaderField> edgePropertiesFields = fields.stream()
-                    .filter(field -> !CsvLoaderConstants.START_ID_FIELD.equals(field.getType()))
-                    .filter(field -> !CsvLoaderConstants.END_ID_FIELD.equals(field.getType()))
-                    .collect(Collectors.toList());
-
-            final Map<String, Mapping> mapping = getMapping(fields);
-
-            try (final var csv = new CSVReaderBuilder(reader)
-                    .withCSVParser(new RFC4180ParserBuilder()
-                            .withSeparator(clc.getDelimiter())
-                            .withQuoteChar(clc.getQuotationCharacter())
-                            .build())
-                    .withSkipLines(clc.getSkipLines() - 1)
-                    .build()) {
-                final String[] loadCsvCompatibleHeader =
-                        fields.stream().map(f -> f.getName()).toArray(String[]::new);
-
-                AtomicInteger lineNo = new AtomicInteger();
-                BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter);
-                try {
-                    csv.forEach(line -> {
-                        lineNo.getAndIncrement();
-
-                        final EnumSet<Results> results = EnumSet.of(Results.map);
-                        final CSVResult result = new CSVResult(
-                                loadCsvCompatibleHeader,
-                                line,
-                                lineNo.get(),
-                                false,
-                                mapping,
-                                Collections.emptyList(),
-                                results);
-
-                        final Object startId = result.map.get(CsvLoaderConstants.START_ID_ATTR);
-                        final Object startInternalId =
-                                idMapping.get(startIdField.getIdSpace()).get(startId.toString());
-                        if (startInternalId == null) {
-                            throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id "
-                                    + startId + " not found");
-                        }
-                        final Node source = btx.getTransaction().getNodeByElementId(startInternalId.toString());
-
-                        final Object endId = result.map.get(CsvLoaderConstants.END_ID_ATTR);
-                        final Object endInternalId =
-                                idMapping.get(endIdField.getIdSpace()).get(endId.toString());
-                        if (endInternalId == null) {
-                            throw new IllegalStateException(
-                                    "Node for id space " + endIdField.getIdSpace() + " and id " + endId + " not found");
-                        }
-                        final Node target = btx.getTransaction().getNodeByElementId(endInternalId.toString());
-
-                        final String currentType;
-                        final Object overridingType = result.map.get(CsvLoaderConstants.TYPE_ATTR);
-                        if (overridingType != null && !((String) overridingType).isEmpty()) {
-                            currentType = (String) overridingType;
-                        } else {
-                            currentType = type;
-                        }
-                        final Relationship rel =
-                                source.createRelationshipTo(target, RelationshipType.withName(currentType));
-
-                        // add properties
-                        int props = 0;
-                        for (CsvHeaderField field : edgePropertiesFields) {
-                            final String name = field.getName();
-                            Object value = result.map.get(name);
-                            boolean propertyAdded =
-                                    CsvPropertyConverter.addPropertyToGraphEntity(rel, field, value, clc);
-                            props += propertyAdded ? 1 : 0;
-                        }
-                        btx.increment();
-                        reporter.update(0, 1, props);
-                    });
-                    btx.doCommit();
-                } catch (RuntimeException e) {
-                    btx.rollback();
-                    throw e;
-                } finally {
-                    btx.close();
-                }
+            BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter);
+            try {
+                file.forEachRow((lineNo, line, row) -> {
+                    int props = createRelationship(
+                            btx.getTransaction(), type, startIdField, endIdField, propertyFields, row, idMapping);
+                    btx.increment();
+                    reporter.update(0, 1, props);
+                });
+                btx.doCommit();
+            } catch (RuntimeException e) {
+                btx.rollback();
+                throw e;
+            } finally {
+                btx.close();
             }
         }
     }
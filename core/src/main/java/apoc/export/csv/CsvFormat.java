@@ -25,7 +25,6 @@ import static apoc.export.util.MetaInformation.getLabelsString;
 import static apoc.export.util.MetaInformation.updateKeyTypes;
 import static apoc.util.Util.INVALID_QUERY_MODE_ERROR;
 import static apoc.util.Util.getNodeId;
-import static apoc.util.Util.getRelationshipId;
 import static apoc.util.Util.joinLabels;
 
 import apoc.export.cypher.ExportFileManager;
@@ -33,6 +32,7 @@ import apoc.export.util.ExportConfig;
 import apoc.export.util.FormatUtils;
 import apoc.export.util.MetaInformation;
 import apoc.export.util.NodesAndRelsSubGraph;
+import apoc.export.util.PartitionedExport;
 import apoc.export.util.Reporter;
 import com.opencsv.CSVWriter;
 import java.io.IOException;
@@ -41,14 +41,13 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 import org.neo4j.cypher.export.DatabaseSubGraph;
 import org.neo4j.cypher.export.ExportData;
 import org.neo4j.cypher.export.SubGraph;
@@ -57,7 +56,6 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
-import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.security.AuthorizationViolationException;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
@@ -168,6 +166,35 @@ public class CsvFormat {
     }
 
     public void writeAll(InternalTransaction threadBoundTx, SubGraph graph, Reporter reporter, CSVWriter out) {
+        Header header = header(graph);
+        out.writeNext(header.columns(), applyQuotesToAll);
+        writeNodes(threadBoundTx, graph.getNodes(), header, out, reporter);
+        writeRels(threadBoundTx, graph.getRelationships(), header, out, reporter);
+    }
+
+    /**
+     * Exports the whole database into `shards` files, which are written concurrently.
+     * Every shard has the same header, so that each one can be loaded on its own.
+     */
+    public void dumpShards(
+            InternalTransaction threadBoundTx, ExecutorService pool, ExportFileManager writer, Reporter reporter) {
+        Header header = header(new DatabaseSubGraph(threadBoundTx));
+        PartitionedExport.export(
+                threadBoundTx, db, pool, config.getShards(), reporter, (tx, shard, nodes, rels, shardReporter) -> {
+                    try (PrintWriter printWriter = writer.getPrintWriter("shard-" + shard)) {
+                        CSVWriter out = getCsvWriter(printWriter);
+                        out.writeNext(header.columns(), applyQuotesToAll);
+                        writeNodes(tx, nodes, header, out, shardReporter);
+                        writeRels(tx, rels, header, out, shardReporter);
+                        out.flush();
+                    }
+                });
+        reporter.done();
+    }
+
+    private record Header(String[] columns, List<String> nodePropNames, List<String> relPropNames, int relOffset) {}
+
+    private Header header(SubGraph graph) {
         final var nodePropTypes = collectPropTypesForNodes(graph, db, config);
         final var relPropTypes = collectPropTypesForRelationships(graph, db, config);
         final var nodeHeader = generateHeader(nodePropTypes, config.useTypes(), NODE_HEADER_FIXED_COLUMNS);
@@ -176,155 +203,162 @@ public class CsvFormat {
         final var relPropNames = relPropTypes.keySet().stream().sorted().toList();
         final var header = new ArrayList<>(nodeHeader);
         header.addAll(relHeader);
-        out.writeNext(header.toArray(String[]::new), applyQuotesToAll);
-        int cols = header.size();
+        return new Header(header.toArray(String[]::new), nodePropNames, relPropNames, nodeHeader.size());
+    }
 
+    private void writeNodes(
+            InternalTransaction threadBoundTx, Iterable<Node> nodes, Header header, CSVWriter out, Reporter reporter) {
         writeNodes(
                 threadBoundTx,
-                graph,
+                nodes,
                 out,
                 reporter,
-                nodePropNames,
-                cols,
+                header.nodePropNames(),
+                header.columns().length,
                 config.getBatchSize(),
                 config.shouldDifferentiateNulls());
+    }
+
+    private void writeRels(
+            InternalTransaction threadBoundTx,
+            Iterable<Relationship> rels,
+            Header header,
+            CSVWriter out,
+            Reporter reporter) {
         writeRels(
                 threadBoundTx,
-                graph,
+                rels,
                 out,
                 reporter,
-                relPropNames,
-                cols,
-                nodeHeader.size(),
+                header.relPropNames(),
+                header.columns().length,
+                header.relOffset(),
                 config.getBatchSize(),
                 config.shouldDifferentiateNulls());
     }
 
+    /**
+     * Writes one file per label set and one per relationship type, in two passes over the graph.
+     * The first pass only collects the property types of each file, to build its header.
+     * The second pass writes every entity straight into the file it belongs to,
+     * so that no rows are kept in memory.
+     */
     private void writeAllBulkImport(
             InternalTransaction threadBoundTx, SubGraph graph, Reporter reporter, ExportFileManager writer) {
-        Map<Iterable<Label>, List<Node>> objectNodes = StreamSupport.stream(
-                        graph.getNodes().spliterator(), false)
-                .collect(Collectors.groupingBy(Node::getLabels));
-        Map<RelationshipType, List<Relationship>> objectRels = StreamSupport.stream(
-                        graph.getRelationships().spliterator(), false)
-                .collect(Collectors.groupingBy(Relationship::getType));
-        writeNodesBulkImport(threadBoundTx, reporter, writer, objectNodes);
-        writeRelsBulkImport(threadBoundTx, reporter, writer, objectRels);
-    }
+        Map<Iterable<Label>, Map<String, Class>> nodeKeyTypes = new LinkedHashMap<>();
+        for (Node node : graph.getNodes()) {
+            updateKeyTypes(nodeKeyTypes.computeIfAbsent(node.getLabels(), k -> new LinkedHashMap<>()), node);
+        }
+        Map<String, Map<String, Class>> relKeyTypes = new LinkedHashMap<>();
+        for (Relationship rel : graph.getRelationships()) {
+            updateKeyTypes(relKeyTypes.computeIfAbsent(rel.getType().name(), k -> new LinkedHashMap<>()), rel);
+        }
 
-    private void writeNodesBulkImport(
-            InternalTransaction threadBoundTransaction,
-            Reporter reporter,
-            ExportFileManager writer,
-            Map<Iterable<Label>, List<Node>> objectNode) {
-        objectNode.forEach((labels, nodes) -> {
-            Set<String> headerNode = generateHeaderNodeBulkImport(nodes);
+        Map<Iterable<Label>, BulkImportFile> nodeFiles = new HashMap<>();
+        Map<String, BulkImportFile> relFiles = new HashMap<>();
+        try {
+            nodeKeyTypes.forEach((labels, keyTypes) -> nodeFiles.put(
+                    labels,
+                    new BulkImportFile(
+                            writer,
+                            "nodes." + joinLabels(labels, "."),
+                            keyTypes,
+                            new String[] {":ID"},
+                            new String[] {":LABEL"},
+                            joinLabels(labels, config.getArrayDelim()))));
+            relKeyTypes.forEach((type, keyTypes) -> relFiles.put(
+                    type,
+                    new BulkImportFile(
+                            writer,
+                            "relationships." + type,
+                            keyTypes,
+                            new String[] {":START_ID", ":END_ID", ":TYPE"},
+                            new String[0],
+                            type)));
 
-            List<List<String>> rows = nodes.stream()
-                    .map(n -> {
-                        reporter.update(1, 0, n.getAllProperties().size());
-                        return headerNode.stream()
-                                .map(s -> {
-                                    if (s.equals(":LABEL")) {
-                                        return joinLabels(labels, config.getArrayDelim());
-                                    }
-                                    String prop = s.split(":")[0];
-                                    return prop.isEmpty()
-                                            ? String.valueOf(getNodeId(threadBoundTransaction, n.getElementId()))
-                                            : FormatUtils.toString(
-                                                    n.getProperty(prop, null), config.shouldDifferentiateNulls());
-                                })
-                                .collect(Collectors.toList());
-                    })
-                    .collect(Collectors.toList());
+            for (Node node : graph.getNodes()) {
+                BulkImportFile file = nodeFiles.get(node.getLabels());
+                String[] row = file.row;
+                row[0] = String.valueOf(getNodeId(threadBoundTx, node.getElementId()));
+                int properties = 0;
+                for (int i = 0; i < file.properties.length; i++) {
+                    Object value = node.getProperty(file.properties[i], null);
+                    if (value != null) properties++;
+                    row[1 + i] = FormatUtils.toString(value, config.shouldDifferentiateNulls());
+                }
+                row[row.length - 1] = file.constant;
+                file.write(row);
+                reporter.update(1, 0, properties);
+            }
 
-            String type = joinLabels(labels, ".");
-            writeRow(config, writer, headerNode, rows, "nodes." + type);
-        });
+            for (Relationship rel : graph.getRelationships()) {
+                BulkImportFile file = relFiles.get(rel.getType().name());
+                String[] row = file.row;
+                row[0] = String.valueOf(getNodeId(threadBoundTx, rel.getStartNode().getElementId()));
+                row[1] = String.valueOf(getNodeId(threadBoundTx, rel.getEndNode().getElementId()));
+                row[2] = file.constant;
+                int properties = 0;
+                for (int i = 0; i < file.properties.length; i++) {
+                    Object value = rel.getProperty(file.properties[i], null);
+                    if (value != null) properties++;
+                    row[3 + i] = value == null ? "" : FormatUtils.toString(value);
+                }
+                file.write(row);
+                reporter.update(0, 1, properties);
+            }
+        } finally {
+            nodeFiles.values().forEach(BulkImportFile::close);
+            relFiles.values().forEach(BulkImportFile::close);
+        }
     }
 
-    private void writeRelsBulkImport(
-            InternalTransaction threadBoundTx,
-            Reporter reporter,
-            ExportFileManager writer,
-            Map<RelationshipType, List<Relationship>> objectRel) {
-        objectRel.entrySet().forEach(entrySet -> {
-            Set<String> headerRel = generateHeaderRelationshipBulkImport(entrySet);
-
-            List<List<String>> rows = entrySet.getValue().stream()
-                    .map(r -> {
-                        reporter.update(0, 1, r.getAllProperties().size());
-                        return headerRel.stream()
-                                .map(s -> switch (s) {
-                                    case ":START_ID" -> String.valueOf(getNodeId(
-                                            threadBoundTx, r.getStartNode().getElementId()));
-                                    case ":END_ID" -> String.valueOf(getNodeId(
-                                            threadBoundTx, r.getEndNode().getElementId()));
-                                    case ":TYPE" -> entrySet.getKey().name();
-                                    default -> {
-                                        String prop = s.split(":")[0];
-                                        yield prop.isEmpty()
-                                                ? String.valueOf(getRelationshipId(threadBoundTx, r.getElementId()))
-                                                : FormatUtils.toString(r.getProperty(prop, ""));
-                                    }
-                                })
-                                .collect(Collectors.toList());
-                    })
-                    .collect(Collectors.toList());
-            writeRow(
-                    config,
-                    writer,
-                    headerRel,
-                    rows,
-                    "relationships." + entrySet.getKey().name());
-        });
-    }
+    /**
+     * A file of a bulk import export, with its header already written and a row buffer to be reused for every entity.
+     * The columns are the leading fixed ones, one per property key, and the trailing fixed ones.
+     */
+    private class BulkImportFile {
+        private final CSVWriter csvWriter;
+        private final String[] properties;
+        private final String[] row;
+        private final String constant;
 
-    private static Set<String> generateHeaderNodeBulkImport(final List<Node> nodes) {
-        Set<String> headerNode = new LinkedHashSet<>();
-        headerNode.add(":ID");
-        Map<String, Class> keyTypes = new LinkedHashMap<>();
-        nodes.forEach(node -> updateKeyTypes(keyTypes, node));
-        final LinkedHashSet<String> otherFields = keyTypes.entrySet().stream()
-                .map(stringClassEntry -> formatHeader(stringClassEntry))
-                .collect(Collectors.toCollection(LinkedHashSet::new));
-        headerNode.addAll(otherFields);
-        headerNode.add(":LABEL");
-        return headerNode;
-    }
+        BulkImportFile(
+                ExportFileManager writer,
+                String name,
+                Map<String, Class> keyTypes,
+                String[] leading,
+                String[] trailing,
+                String constant) {
+            this.properties = keyTypes.keySet().toArray(String[]::new);
+            this.constant = constant;
 
-    private Set<String> generateHeaderRelationshipBulkImport(Map.Entry<RelationshipType, List<Relationship>> entrySet) {
-        Set<String> headerNode = new LinkedHashSet<>();
-        Map<String, Class> keyTypes = new LinkedHashMap<>();
-        entrySet.getValue().forEach(relationship -> updateKeyTypes(keyTypes, relationship));
-        headerNode.add(":START_ID");
-        headerNode.add(":END_ID");
-        headerNode.add(":TYPE");
-        headerNode.addAll(keyTypes.entrySet().stream()
-                .map(stringClassEntry -> formatHeader(stringClassEntry))
-                .collect(Collectors.toCollection(LinkedHashSet::new)));
-        return headerNode;
-    }
+            List<String> header = new ArrayList<>(leading.length + properties.length + trailing.length);
+            Collections.addAll(header, leading);
+            keyTypes.entrySet().forEach(entry -> header.add(formatHeader(entry)));
+            Collections.addAll(header, trailing);
+            this.row = new String[header.size()];
 
-    private void writeRow(
-            ExportConfig config,
-            ExportFileManager writer,
-            Set<String> headerNode,
-            List<List<String>> rows,
-            String name) {
-        try (PrintWriter pw = writer.getPrintWriter(name);
-                CSVWriter csvWriter = getCsvWriter(pw)) {
+            this.csvWriter = getCsvWriter(writer.getPrintWriter(name));
             if (config.isSeparateHeader()) {
                 try (PrintWriter pwHeader = writer.getPrintWriter("header." + name)) {
                     CSVWriter csvWriterHeader = getCsvWriter(pwHeader);
-                    csvWriterHeader.writeNext(headerNode.toArray(String[]::new), applyQuotesToAll);
+                    csvWriterHeader.writeNext(header.toArray(String[]::new), applyQuotesToAll);
                 }
             } else {
-                csvWriter.writeNext(headerNode.toArray(String[]::new), applyQuotesToAll);
+                csvWriter.writeNext(header.toArray(String[]::new), applyQuotesToAll);
+            }
+        }
+
+        void write(String[] row) {
+            csvWriter.writeNext(row, applyQuotesToAll);
+        }
+
+        void close() {
+            try {
+                csvWriter.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
-            rows.forEach(row -> csvWriter.writeNext(row.toArray(String[]::new), applyQuotesToAll));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
     }
 
@@ -349,7 +383,7 @@ public class CsvFormat {
 
     private void writeNodes(
             InternalTransaction threadBoundTx,
-            SubGraph graph,
+            Iterable<Node> nodes,
             CSVWriter out,
             Reporter reporter,
             List<String> nodePropTypes,
@@ -357,20 +391,20 @@ public class CsvFormat {
             int batchSize,
             boolean keepNulls) {
         String[] row = new String[cols];
-        int nodes = 0;
-        for (Node node : graph.getNodes()) {
+        int count = 0;
+        for (Node node : nodes) {
             row[0] = String.valueOf(getNodeId(threadBoundTx, node.getElementId()));
             row[1] = getLabelsString(node);
             collectProps(nodePropTypes, node, reporter, row, 2, keepNulls);
             out.writeNext(row, applyQuotesToAll);
-            nodes++;
-            if (batchSize == -1 || nodes % batchSize == 0) {
-                reporter.update(nodes, 0, 0);
-                nodes = 0;
+            count++;
+            if (batchSize == -1 || count % batchSize == 0) {
+                reporter.update(count, 0, 0);
+                count = 0;
             }
         }
-        if (nodes > 0) {
-            reporter.update(nodes, 0, 0);
+        if (count > 0) {
+            reporter.update(count, 0, 0);
         }
     }
 
@@ -391,7 +425,7 @@ public class CsvFormat {
 
     private void writeRels(
             InternalTransaction threadBoundTx,
-            SubGraph graph,
+            Iterable<Relationship> relationships,
             CSVWriter out,
             Reporter reporter,
             List<String> relPropNames,
@@ -401,7 +435,7 @@ public class CsvFormat {
             boolean keepNull) {
         String[] row = new String[cols];
         int rels = 0;
-        for (Relationship rel : graph.getRelationships()) {
+        for (Relationship rel : relationships) {
             row[offset] =
                     String.valueOf(getNodeId(threadBoundTx, rel.getStartNode().getElementId()));
             row[offset + 1] =
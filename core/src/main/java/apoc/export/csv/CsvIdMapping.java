@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.csv;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.memory.MemoryTracker;
+
+/**
+ * Maps the ids of the CSV files, per id space, to internal node ids, without keeping them on the heap.
+ *
+ * Every id space is an open-addressing hash table in {@link OffHeapPages}, with 16 byte slots.
+ * Numeric ids are stored in the slot itself, next to the node id. As the ids are mapped as strings,
+ * only the canonical forms of numbers are, while the others, e.g. `01` or `+1`, are kept apart as string ids.
+ * String ids are dictionary-encoded: the slot holds the hash of the id and the offset of an entry in a separate
+ * arena, which holds the node id and the UTF-8 bytes of the id.
+ * The id spaces are thread-safe, so that nodes can be created and looked up by concurrent writers.
+ */
+public class CsvIdMapping implements AutoCloseable {
+
+    public enum Storage {
+        OFF_HEAP,
+        MEMORY_MAPPED
+    }
+
+    public static final long NOT_FOUND = -1;
+
+    /**
+     * The node id of a CSV id which has been reserved, but whose node has not been created yet.
+     */
+    public static final long PENDING = Long.MAX_VALUE - 1;
+
+    private final OffHeapPages.Allocator allocator;
+    private final boolean stringIds;
+    private final Map<String, IdSpace> idSpaces = new ConcurrentHashMap<>();
+
+    public CsvIdMapping(Storage storage, boolean stringIds) {
+        this(storage, stringIds, EmptyMemoryTracker.INSTANCE);
+    }
+
+    /**
+     * @param memoryTracker accounts the off-heap memory of the mapping, unless it is memory-mapped
+     */
+    public CsvIdMapping(Storage storage, boolean stringIds, MemoryTracker memoryTracker) {
+        this.allocator = new OffHeapPages.Allocator(storage == Storage.MEMORY_MAPPED, memoryTracker);
+        this.stringIds = stringIds;
+    }
+
+    /**
+     * @return the id space with the given name, which is created if it does not exist yet
+     */
+    public IdSpace idSpace(String name) {
+        return idSpaces.computeIfAbsent(
+                name, n -> stringIds ? new StringIdSpace(allocator) : new LongIdSpace(allocator));
+    }
+
+    /**
+     * @return the internal id of the node with the given CSV id, or {@link #NOT_FOUND}
+     */
+    public long get(String idSpace, String csvId) {
+        IdSpace space = idSpaces.get(idSpace);
+        return space == null ? NOT_FOUND : space.get(csvId);
+    }
+
+    @Override
+    public void close() {
+        idSpaces.values().forEach(IdSpace::close);
+        idSpaces.clear();
+        allocator.close();
+    }
+
+    public abstract static class IdSpace implements AutoCloseable {
+        private static final int SLOT_SIZE = 16;
+        private static final double LOAD_FACTOR = 0.7;
+        private static final long INITIAL_CAPACITY = 1 << 10;
+
+        final OffHeapPages.Allocator allocator;
+        private OffHeapPages slots;
+        private long capacity;
+        private long size;
+
+        IdSpace(OffHeapPages.Allocator allocator) {
+            this.allocator = allocator;
+            this.capacity = INITIAL_CAPACITY;
+            this.slots = new OffHeapPages(allocator);
+            this.slots.ensureCapacity(capacity * SLOT_SIZE);
+        }
+
+        /**
+         * @return the internal id of the node with the given CSV id, or {@link #NOT_FOUND}
+         */
+        public abstract long get(String csvId);
+
+        /**
+         * @return false if the CSV id was already mapped, in which case the mapping is left unchanged
+         */
+        public abstract boolean put(String csvId, long nodeId);
+
+        /**
+         * Maps the CSV id to the node id, whether it was already mapped or not.
+         */
+        public abstract void set(String csvId, long nodeId);
+
+        public long size() {
+            return size;
+        }
+
+        /**
+         * Finds the slot holding the given key, for which `matches` returns true, or else the empty slot to put it in.
+         * Empty slots have a payload of 0.
+         */
+        long find(long key, Object id) {
+            long mask = capacity - 1;
+            for (long slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+                long payload = payload(slot);
+                if (payload == 0 || (key(slot) == key && matches(payload, id))) return slot;
+            }
+        }
+
+        abstract boolean matches(long payload, Object id);
+
+        long key(long slot) {
+            return slots.getLong(slot * SLOT_SIZE);
+        }
+
+        long payload(long slot) {
+            return slots.getLong(slot * SLOT_SIZE + 8);
+        }
+
+        void setPayload(long slot, long payload) {
+            slots.putLong(slot * SLOT_SIZE + 8, payload);
+        }
+
+        void insert(long slot, long key, long payload) {
+            slots.putLong(slot * SLOT_SIZE, key);
+            slots.putLong(slot * SLOT_SIZE + 8, payload);
+            if (++size > capacity * LOAD_FACTOR) grow();
+        }
+
+        private void grow() {
+            OffHeapPages previous = slots;
+            long previousCapacity = capacity;
+            capacity *= 2;
+            slots = new OffHeapPages(allocator);
+            slots.ensureCapacity(capacity * SLOT_SIZE);
+            long mask = capacity - 1;
+            for (long i = 0; i < previousCapacity; i++) {
+                long payload = previous.getLong(i * SLOT_SIZE + 8);
+                if (payload == 0) continue;
+                long key = previous.getLong(i * SLOT_SIZE);
+                long slot = mix(key) & mask;
+                while (payload(slot) != 0) slot = (slot + 1) & mask;
+                slots.putLong(slot * SLOT_SIZE, key);
+                slots.putLong(slot * SLOT_SIZE + 8, payload);
+            }
+            previous.close();
+        }
+
+        private static long mix(long key) {
+            key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+            key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return key ^ (key >>> 33);
+        }
+
+        @Override
+        public void close() {
+            slots.close();
+        }
+    }
+
+    /**
+     * The payload of a slot is the node id + 1, so that node id 0 can be told apart from an empty slot.
+     * The ids which are not canonical numbers are mapped in a string id space, created on the first one.
+     */
+    static class LongIdSpace extends IdSpace {
+        private StringIdSpace others;
+
+        LongIdSpace(OffHeapPages.Allocator allocator) {
+            super(allocator);
+        }
+
+        @Override
+        public synchronized long get(String csvId) {
+            if (!isCanonical(csvId)) {
+                return others == null ? NOT_FOUND : others.get(csvId);
+            }
+            long payload = payload(find(Long.parseLong(csvId), null));
+            return payload == 0 ? NOT_FOUND : payload - 1;
+        }
+
+        @Override
+        public synchronized boolean put(String csvId, long nodeId) {
+            if (!isCanonical(csvId)) {
+                return others().put(csvId, nodeId);
+            }
+            long id = Long.parseLong(csvId);
+            long slot = find(id, null);
+            if (payload(slot) != 0) return false;
+            insert(slot, id, nodeId + 1);
+            return true;
+        }
+
+        @Override
+        public synchronized void set(String csvId, long nodeId) {
+            if (!isCanonical(csvId)) {
+                others().set(csvId, nodeId);
+                return;
+            }
+            long id = Long.parseLong(csvId);
+            long slot = find(id, null);
+            if (payload(slot) == 0) insert(slot, id, nodeId + 1);
+            else setPayload(slot, nodeId + 1);
+        }
+
+        @Override
+        public synchronized long size() {
+            return super.size() + (others == null ? 0 : others.size());
+        }
+
+        private StringIdSpace others() {
+            if (others == null) {
+                others = new StringIdSpace(allocator);
+            }
+            return others;
+        }
+
+        /**
+         * @return true if the id is the form {@link Long#toString(long)} gives a long,
+         * i.e. without any plus sign, leading zero or minus zero
+         */
+        static boolean isCanonical(String csvId) {
+            int start = csvId.startsWith("-") ? 1 : 0;
+            int digits = csvId.length() - start;
+            if (digits == 0 || digits > 19 || (csvId.charAt(start) == '0' && (digits > 1 || start == 1))) {
+                return false;
+            }
+            for (int i = start; i < csvId.length(); i++) {
+                char c = csvId.charAt(i);
+                if (c < '0' || c > '9') return false;
+            }
+            if (digits < 19) return true;
+            try {
+                Long.parseLong(csvId);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        boolean matches(long payload, Object id) {
+            return true;
+        }
+
+        @Override
+        public synchronized void close() {
+            super.close();
+            if (others != null) {
+                others.close();
+            }
+        }
+    }
+
+    /**
+     * The payload of a slot is the arena offset of the entry + 1.
+     * An entry is the node id, the length of the CSV id and its UTF-8 bytes, and never crosses a page boundary.
+     */
+    static class StringIdSpace extends IdSpace {
+        private static final int ENTRY_HEADER_SIZE = 12;
+
+        private final OffHeapPages arena;
+        private long arenaSize;
+
+        StringIdSpace(OffHeapPages.Allocator allocator) {
+            super(allocator);
+            this.arena = new OffHeapPages(allocator);
+        }
+
+        @Override
+        public synchronized long get(String csvId) {
+            byte[] bytes = csvId.getBytes(UTF_8);
+            long payload = payload(find(hash(bytes), bytes));
+            return payload == 0 ? NOT_FOUND : arena.getLong(payload - 1);
+        }
+
+        @Override
+        public synchronized boolean put(String csvId, long nodeId) {
+            byte[] bytes = csvId.getBytes(UTF_8);
+            long hash = hash(bytes);
+            long slot = find(hash, bytes);
+            if (payload(slot) != 0) return false;
+            insert(slot, hash, append(bytes, nodeId));
+            return true;
+        }
+
+        @Override
+        public synchronized void set(String csvId, long nodeId) {
+            byte[] bytes = csvId.getBytes(UTF_8);
+            long hash = hash(bytes);
+            long slot = find(hash, bytes);
+            long payload = payload(slot);
+            if (payload == 0) insert(slot, hash, append(bytes, nodeId));
+            else arena.putLong(payload - 1, nodeId);
+        }
+
+        /**
+         * @return the payload of the appended entry
+         */
+        private long append(byte[] bytes, long nodeId) {
+            int entrySize = ENTRY_HEADER_SIZE + bytes.length;
+            if (entrySize > OffHeapPages.PAGE_SIZE) {
+                throw new IllegalArgumentException("The id " + new String(bytes, 0, 100, UTF_8) + "... is too long");
+            }
+            long offset = arenaSize;
+            if ((offset & OffHeapPages.PAGE_MASK) + entrySize > OffHeapPages.PAGE_SIZE) {
+                offset = (offset | OffHeapPages.PAGE_MASK) + 1;
+            }
+            arena.ensureCapacity(offset + entrySize);
+            arena.putLong(offset, nodeId);
+            arena.putInt(offset + 8, bytes.length);
+            arena.put(offset + ENTRY_HEADER_SIZE, bytes);
+            arenaSize = offset + entrySize;
+            return offset + 1;
+        }
+
+        @Override
+        boolean matches(long payload, Object id) {
+            byte[] bytes = (byte[]) id;
+            long offset = payload - 1;
+            return arena.getInt(offset + 8) == bytes.length && arena.equals(offset + ENTRY_HEADER_SIZE, bytes);
+        }
+
+        private static long hash(byte[] bytes) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : bytes) {
+                hash = (hash ^ b) * 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.csv;
+
+import apoc.export.util.ProgressReporter;
+import apoc.util.Util;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * Loads the files of an `apoc.import.csv` call in a pipeline.
+ * Parser threads read the files and convert their lines into batches of typed rows.
+ * A pool of `concurrency` writers takes the batches from a bounded queue and writes each one in its own transaction.
+ *
+ * Node files are partitioned per id space. The files of one id space are parsed in order by a single parser,
+ * which also reserves their CSV ids, so that duplicates are detected just as in the sequential import.
+ * Relationship files are only loaded once all nodes are committed, each file by its own parser.
+ *
+ * The parsers and the writers run on threads of their own, rather than on the shared APOC pool:
+ * the writers block on the queue until the end of each phase, so they could otherwise take all the threads of the pool
+ * and leave the parsers queued behind them. The calling thread is always one of the parsers.
+ */
+class CsvPipelinedLoader {
+    static final int MAX_RETRIES = 5;
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final CsvEntityLoader loader;
+    private final CsvLoaderConfig clc;
+    private final GraphDatabaseService db;
+    private final ProgressReporter reporter;
+    private final BlockingQueue<Batch<?>> batches;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private static final Batch<?> POISON = new Batch<>(null, false, null);
+
+    CsvPipelinedLoader(
+            CsvEntityLoader loader,
+            CsvLoaderConfig clc,
+            GraphDatabaseService db,
+            ProgressReporter reporter) {
+        this.loader = loader;
+        this.clc = clc;
+        this.db = db;
+        this.reporter = reporter;
+        this.batches = new ArrayBlockingQueue<>(clc.getConcurrency());
+    }
+
+    interface RowWriter<T> {
+        /**
+         * @return the number of properties set
+         */
+        int write(Transaction tx, T row);
+    }
+
+    private record Batch<T>(List<T> rows, boolean nodes, RowWriter<T> writer) {}
+
+    private record NodeRow(Map<String, Object> row, String nodeCsvId) {}
+
+    private interface Job {
+        void run() throws Exception;
+    }
+
+    void load(List<Map<String, Object>> nodes, List<Map<String, Object>> relationships, CsvIdMapping idMapping)
+            throws Exception {
+        Map<String, List<Job>> idSpaces = new LinkedHashMap<>();
+        List<CsvEntityLoader.CsvFile> files = new ArrayList<>();
+        try {
+            for (Map<String, Object> node : nodes) {
+                final Object fileName = node.getOrDefault("fileName", node.get("data"));
+                final List<String> labels = (List<String>) node.get("labels");
+                final CsvEntityLoader.CsvFile file = loader.open(fileName);
+                files.add(file);
+                final CsvHeaderField idField = loader.nodeIdField(file);
+                final String idSpace = CsvEntityLoader.idSpace(idField);
+                idSpaces.computeIfAbsent(idSpace, k -> new ArrayList<>())
+                        .add(() -> parseNodes(file, labels, idField, idMapping.idSpace(idSpace)));
+            }
+            List<Job> nodeJobs = new ArrayList<>();
+            for (List<Job> idSpaceJobs : idSpaces.values()) {
+                nodeJobs.add(() -> {
+                    for (Job job : idSpaceJobs) job.run();
+                });
+            }
+            runPhase(nodeJobs);
+        } finally {
+            for (CsvEntityLoader.CsvFile file : files) file.close();
+        }
+
+        List<Job> relationshipJobs = new ArrayList<>();
+        for (Map<String, Object> relationship : relationships) {
+            final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
+            final String type = (String) relationship.get("type");
+            relationshipJobs.add(() -> parseRelationships(fileName, type, idMapping));
+        }
+        runPhase(relationshipJobs);
+    }
+
+    private void parseNodes(
+            CsvEntityLoader.CsvFile file, List<String> labels, CsvHeaderField idField, CsvIdMapping.IdSpace idSpace)
+            throws Exception {
+        final RowWriter<NodeRow> writer =
+                (tx, row) -> loader.createNode(tx, labels, file.fields, row.row(), idSpace, row.nodeCsvId());
+        final List<NodeRow>[] batch = new List[] {new ArrayList<>(clc.getBatchSize())};
+        file.forEachRow((lineNo, line, row) -> {
+            final String nodeCsvId = CsvEntityLoader.nodeCsvId(idField, row);
+            if (nodeCsvId != null && !loader.reserveNodeId(nodeCsvId, idSpace, lineNo, line)) return;
+            batch[0].add(new NodeRow(row, nodeCsvId));
+            if (batch[0].size() >= clc.getBatchSize()) {
+                enqueue(new Batch<>(batch[0], true, writer));
+                batch[0] = new ArrayList<>(clc.getBatchSize());
+            }
+        });
+        if (!batch[0].isEmpty()) enqueue(new Batch<>(batch[0], true, writer));
+    }
+
+    private void parseRelationships(Object fileName, String type, CsvIdMapping idMapping) throws Exception {
+        try (final CsvEntityLoader.CsvFile file = loader.open(fileName)) {
+            final CsvHeaderField startIdField = file.field(CsvLoaderConstants.START_ID_FIELD);
+            final CsvHeaderField endIdField = file.field(CsvLoaderConstants.END_ID_FIELD);
+            final List<CsvHeaderField> propertyFields = CsvEntityLoader.relationshipPropertyFields(file);
+            final RowWriter<Map<String, Object>> writer = (tx, row) ->
+                    loader.createRelationship(tx, type, startIdField, endIdField, propertyFields, row, idMapping);
+            final List<Map<String, Object>>[] batch = new List[] {new ArrayList<>(clc.getBatchSize())};
+            file.forEachRow((lineNo, line, row) -> {
+                batch[0].add(row);
+                if (batch[0].size() >= clc.getBatchSize()) {
+                    enqueue(new Batch<>(batch[0], false, writer));
+                    batch[0] = new ArrayList<>(clc.getBatchSize());
+                }
+            });
+            if (!batch[0].isEmpty()) enqueue(new Batch<>(batch[0], false, writer));
+        }
+    }
+
+    /**
+     * Hands a batch over to the writers, waiting while the queue is full, unless the import has already failed.
+     */
+    private void enqueue(Batch<?> batch) {
+        try {
+            while (!batches.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) throw new IllegalStateException("The import was aborted");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The import was interrupted", e);
+        }
+    }
+
+    private void runPhase(List<Job> jobs) throws Exception {
+        if (jobs.isEmpty()) return;
+        final Queue<Job> pending = new ConcurrentLinkedQueue<>(jobs);
+        final CountDownLatch parsed = new CountDownLatch(jobs.size());
+
+        int parsers = Math.min(jobs.size(), clc.getConcurrency());
+        // a thread for every parser but the calling one, and for every writer, so that none waits for another
+        ExecutorService pool = Executors.newFixedThreadPool(parsers - 1 + clc.getConcurrency(), r -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 1; i < parsers; i++) {
+                pool.submit(() -> parse(pending, parsed));
+            }
+            List<Future<?>> writers = new ArrayList<>(clc.getConcurrency());
+            for (int i = 0; i < clc.getConcurrency(); i++) {
+                writers.add(pool.submit(this::writeBatches));
+            }
+            parse(pending, parsed);
+            parsed.await();
+
+            for (int i = 0; i < writers.size(); i++) {
+                batches.put(POISON);
+            }
+            for (Future<?> writer : writers) {
+                try {
+                    writer.get();
+                } catch (ExecutionException e) {
+                    failure.compareAndSet(null, e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof Exception e) throw e;
+        if (error != null) throw new RuntimeException(error);
+    }
+
+    private void parse(Queue<Job> pending, CountDownLatch parsed) {
+        Job job;
+        while ((job = pending.poll()) != null) {
+            try {
+                if (failure.get() == null) job.run();
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                parsed.countDown();
+            }
+        }
+    }
+
+    /**
+     * Writes batches until the poison pill is taken. After a failure, batches are still taken but discarded,
+     * so that no parser stays blocked on a full queue.
+     */
+    private void writeBatches() {
+        while (true) {
+            Batch<?> batch;
+            try {
+                batch = batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+                return;
+            }
+            if (batch == POISON) return;
+            if (failure.get() != null) continue;
+            try {
+                write(batch);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private <T> void write(Batch<T> batch) {
+        for (int retry = 0; ; retry++) {
+            try (Transaction tx = db.beginTx()) {
+                long props = 0;
+                for (T row : batch.rows()) {
+                    props += batch.writer().write(tx, row);
+                }
+                tx.commit();
+                int rows = batch.rows().size();
+                synchronized (reporter) {
+                    reporter.update(batch.nodes() ? rows : 0, batch.nodes() ? 0 : rows, props);
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (retry >= MAX_RETRIES || !Util.isTransientError(e)) throw e;
+                Util.sleep(Util.retryBackoffMillis(retry));
+            }
+        }
+    }
+}
@@ -34,6 +34,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
+import org.apache.commons.lang3.StringUtils;
 import org.neo4j.cypher.export.ExportData;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
@@ -87,6 +88,7 @@ public class ExportCSV {
                             stream = false :: BOOLEAN,
                             batchSize = 20000 :: INTEGER,
                             bulkImport = false :: BOOLEAN,
+                            shards = 1 :: INTEGER,
                             timeoutSeconds = 100 :: INTEGER,
                             compression = 'None' :: STRING,
                             charset = 'UTF_8' :: STRING,
@@ -210,16 +212,35 @@ public class ExportCSV {
         }
     }
 
+    private void validateShards(String fileName, ExportData data, ExportConfig config) {
+        if (config.getShards() > 1
+                && (!(data instanceof ExportData.Database)
+                        || config.isBulkImport()
+                        || config.streamStatements()
+                        || StringUtils.isBlank(fileName))) {
+            throw new RuntimeException(
+                    "You can use `shards` only with apoc.export.csv.all, exporting to a file and without `bulkImport`");
+        }
+    }
+
     private Stream<ExportProgressInfo> exportCsv(
             @Name("file") String fileName, String source, ExportData data, ExportConfig exportConfig) {
         apocConfig.checkWriteAllowed(exportConfig, fileName);
+        validateShards(fileName, data, exportConfig);
         final String format = "csv";
         ExportProgressInfo progressInfo = new ExportProgressInfo(fileName, source, format);
         progressInfo.batchSize = exportConfig.getBatchSize();
         ProgressReporter reporter = new ProgressReporter(null, null, progressInfo);
         CsvFormat exporter = new CsvFormat(db, exportConfig);
 
-        ExportFileManager cypherFileManager = createFileManager(fileName, exportConfig.isBulkImport(), exportConfig);
+        ExportFileManager cypherFileManager =
+                createFileManager(fileName, exportConfig.isBulkImport() || exportConfig.getShards() > 1, exportConfig);
+
+        if (exportConfig.getShards() > 1) {
+            exporter.dumpShards(
+                    (InternalTransaction) tx, pools.getDefaultExecutorService(), cypherFileManager, reporter);
+            return Stream.of((ExportProgressInfo) reporter.getTotal());
+        }
 
         if (exportConfig.streamStatements()) {
             return ExportUtils.getProgressInfoStream(
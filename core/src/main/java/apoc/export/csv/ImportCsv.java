@@ -22,12 +22,13 @@ import apoc.Pools;
 import apoc.export.util.ProgressReporter;
 import apoc.result.ImportProgressInfo;
 import apoc.util.Util;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.security.URLAccessChecker;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
 
@@ -35,6 +36,9 @@ public class ImportCsv {
     @Context
     public GraphDatabaseService db;
 
+    @Context
+    public Transaction tx;
+
     @Context
     public Pools pools;
 
@@ -72,10 +76,15 @@ public class ImportCsv {
                         ignoreEmptyCellArray = false :: BOOLEAN,
                         compression = "NONE" :: ["NONE", "BYTES", "GZIP", "BZIP2", "DEFLATE", "BLOCK_LZ4", "FRAMED_SNAPPY"],
                         charset = "UTF-8" :: STRING,
-                        batchSize = 2000 :: INTEGER
+                        batchSize = 2000 :: INTEGER,
+                        idMapping = "OFF_HEAP" :: ["OFF_HEAP", "MEMORY_MAPPED"],
+                        parallel = false :: BOOLEAN,
+                        concurrency :: INTEGER
                     }
                     """)
                     Map<String, Object> config) {
+        // the import runs while the transaction of the procedure waits for it, which accounts its id mapping
+        final var memoryTracker = ((InternalTransaction) tx).kernelTransaction().memoryTracker();
         ImportProgressInfo result = Util.inThread(pools, () -> {
             String file = "progress.csv";
             String source = "file";
@@ -88,17 +97,24 @@ public class ImportCsv {
                     new ProgressReporter(null, null, new ImportProgressInfo(file, source, "csv"));
             final CsvEntityLoader loader = new CsvEntityLoader(clc, reporter, log, urlAccessChecker);
 
-            final Map<String, Map<String, String>> idMapping = new HashMap<>();
-            for (Map<String, Object> node : nodes) {
-                final Object fileName = node.getOrDefault("fileName", node.get("data"));
-                final List<String> labels = (List<String>) node.get("labels");
-                loader.loadNodes(fileName, labels, db, idMapping);
-            }
+            try (final CsvIdMapping idMapping =
+                    new CsvIdMapping(clc.getIdMapping(), clc.getStringIds(), memoryTracker)) {
+                if (clc.isParallel()) {
+                    new CsvPipelinedLoader(loader, clc, db, reporter).load(nodes, relationships, idMapping);
+                    return (ImportProgressInfo) reporter.getTotal();
+                }
+
+                for (Map<String, Object> node : nodes) {
+                    final Object fileName = node.getOrDefault("fileName", node.get("data"));
+                    final List<String> labels = (List<String>) node.get("labels");
+                    loader.loadNodes(fileName, labels, db, idMapping);
+                }
 
-            for (Map<String, Object> relationship : relationships) {
-                final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
-                final String type = (String) relationship.get("type");
-                loader.loadRelationships(fileName, type, db, idMapping);
+                for (Map<String, Object> relationship : relationships) {
+                    final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
+                    final String type = (String) relationship.get("type");
+                    loader.loadRelationships(fileName, type, db, idMapping);
+                }
             }
 
             return (ImportProgressInfo) reporter.getTotal();
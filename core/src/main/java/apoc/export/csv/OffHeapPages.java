@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.csv;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.neo4j.memory.MemoryTracker;
+
+/**
+ * Growable memory outside the Java heap, addressed by a long offset.
+ *
+ * The memory is split into pages of {@link #PAGE_SIZE} bytes, taken from an {@link Allocator}:
+ * either direct buffers, or regions of a temporary memory-mapped file.
+ * While there is only one page, it starts small and doubles, so that small imports do not reserve a whole page.
+ * A value must not cross a page boundary, callers are expected to align their records.
+ */
+class OffHeapPages implements AutoCloseable {
+    static final int PAGE_SHIFT = 23;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int INITIAL_SIZE = 1 << 12;
+
+    private final Allocator allocator;
+    private final List<Allocator.Page> pages = new ArrayList<>();
+    private long capacity;
+
+    OffHeapPages(Allocator allocator) {
+        this.allocator = allocator;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Makes sure that the offsets up to `size` exclusive can be addressed, newly allocated memory is zeroed.
+     */
+    void ensureCapacity(long size) {
+        if (size <= capacity) return;
+        if (pages.size() <= 1 && size <= PAGE_SIZE) {
+            int pageSize = (int) Math.min(PAGE_SIZE, Math.max(INITIAL_SIZE, Long.highestOneBit(size - 1) << 1));
+            Allocator.Page page = allocator.allocate(pageSize);
+            if (!pages.isEmpty()) {
+                Allocator.Page previous = pages.get(0);
+                page.buffer().put(0, previous.buffer(), 0, (int) capacity);
+                allocator.release(previous);
+                pages.set(0, page);
+            } else {
+                pages.add(page);
+            }
+            capacity = pageSize;
+            return;
+        }
+        if (capacity < PAGE_SIZE) ensureCapacity(PAGE_SIZE);
+        while (capacity < size) {
+            pages.add(allocator.allocate(PAGE_SIZE));
+            capacity += PAGE_SIZE;
+        }
+    }
+
+    private ByteBuffer page(long offset) {
+        return pages.get((int) (offset >>> PAGE_SHIFT)).buffer();
+    }
+
+    long getLong(long offset) {
+        return page(offset).getLong((int) (offset & PAGE_MASK));
+    }
+
+    void putLong(long offset, long value) {
+        page(offset).putLong((int) (offset & PAGE_MASK), value);
+    }
+
+    int getInt(long offset) {
+        return page(offset).getInt((int) (offset & PAGE_MASK));
+    }
+
+    void putInt(long offset, int value) {
+        page(offset).putInt((int) (offset & PAGE_MASK), value);
+    }
+
+    void put(long offset, byte[] bytes) {
+        page(offset).put((int) (offset & PAGE_MASK), bytes);
+    }
+
+    boolean equals(long offset, byte[] bytes) {
+        ByteBuffer page = page(offset);
+        int position = (int) (offset & PAGE_MASK);
+        return page.slice(position, bytes.length).equals(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Hands the pages back to the allocator
+     */
+    @Override
+    public void close() {
+        pages.forEach(allocator::release);
+        pages.clear();
+        capacity = 0;
+    }
+
+    /**
+     * The memory of all the pages of an import.
+     *
+     * Direct buffers are accounted in the memory tracker of the transaction, until they are released.
+     * Memory-mapped pages are regions of a single temporary file, deleted on close: the released regions are reused
+     * by the next pages of the same size, so that the file does not keep the tables an id space has outgrown.
+     */
+    static class Allocator implements AutoCloseable {
+        private static final byte[] ZEROS = new byte[INITIAL_SIZE];
+
+        record Page(ByteBuffer buffer, long fileOffset) {}
+
+        private final MemoryTracker memoryTracker;
+        private final FileChannel channel;
+        private final Map<Integer, Deque<Long>> released = new HashMap<>();
+        private long fileSize;
+
+        Allocator(boolean memoryMapped, MemoryTracker memoryTracker) {
+            this.memoryTracker = memoryTracker;
+            try {
+                this.channel = memoryMapped
+                        ? FileChannel.open(
+                                Files.createTempFile("apoc-import-csv-", ".ids"),
+                                StandardOpenOption.READ,
+                                StandardOpenOption.WRITE,
+                                StandardOpenOption.DELETE_ON_CLOSE)
+                        : null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized Page allocate(int size) {
+            if (channel == null) {
+                memoryTracker.allocateNative(size);
+                return new Page(ByteBuffer.allocateDirect(size), -1);
+            }
+            Deque<Long> free = released.get(size);
+            boolean reused = free != null && !free.isEmpty();
+            long offset = reused ? free.pop() : fileSize;
+            try {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, offset, size);
+                if (reused) {
+                    for (int position = 0; position < size; position += ZEROS.length) {
+                        buffer.put(position, ZEROS);
+                    }
+                } else {
+                    fileSize += size;
+                }
+                return new Page(buffer, offset);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized void release(Page page) {
+            if (channel == null) {
+                memoryTracker.releaseNative(page.buffer().capacity());
+            } else {
+                released.computeIfAbsent(page.buffer().capacity(), k -> new ArrayDeque<>())
+                        .push(page.fileOffset());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
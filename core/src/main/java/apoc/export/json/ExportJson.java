@@ -33,6 +33,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
+import org.apache.commons.lang3.StringUtils;
 import org.neo4j.cypher.export.DatabaseSubGraph;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -41,6 +42,7 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.kernel.api.procs.ProcedureCallContext;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
@@ -83,6 +85,7 @@ public class ExportJson {
                             writeNodeProperties = true :: BOOLEAN,
                             writeRelationshipProperties = writeNodeProperties :: BOOLEAN,
                             jsonFormat = 'JSON_LINES' :: STRING,
+                            shards = 1 :: INTEGER,
                             compression = 'None' :: STRING,
                             charset = 'UTF_8' :: STRING
                     }
@@ -187,10 +190,21 @@ public class ExportJson {
             String fileName, String source, Object data, Map<String, Object> config) {
         ExportConfig exportConfig = new ExportConfig(config);
         apocConfig.checkWriteAllowed(exportConfig, fileName);
+        validateShards(fileName, data, exportConfig);
         final String format = "json";
         ProgressReporter reporter = new ProgressReporter(null, null, new ExportProgressInfo(fileName, source, format));
         JsonFormat exporter = new JsonFormat(db, getJsonFormat(config));
-        ExportFileManager cypherFileManager = FileManagerFactory.createFileManager(fileName, false, exportConfig);
+        ExportFileManager cypherFileManager =
+                FileManagerFactory.createFileManager(fileName, exportConfig.getShards() > 1, exportConfig);
+        if (exportConfig.getShards() > 1) {
+            exporter.dumpShards(
+                    (InternalTransaction) tx,
+                    pools.getDefaultExecutorService(),
+                    cypherFileManager,
+                    reporter,
+                    exportConfig);
+            return Stream.of((ExportProgressInfo) reporter.getTotal());
+        }
         if (exportConfig.streamStatements()) {
             return ExportUtils.getProgressInfoStream(
                     db,
@@ -208,6 +222,15 @@ public class ExportJson {
         }
     }
 
+    private void validateShards(String fileName, Object data, ExportConfig config) {
+        if (config.getShards() > 1
+                && (!(data instanceof DatabaseSubGraph)
+                        || config.streamStatements()
+                        || StringUtils.isBlank(fileName))) {
+            throw new RuntimeException("You can use `shards` only with apoc.export.json.all, exporting to a file");
+        }
+    }
+
     private JsonFormat.Format getJsonFormat(Map<String, Object> config) {
         if (config == null) {
             return JsonFormat.Format.JSON_LINES;
@@ -22,6 +22,7 @@ import static apoc.util.Util.INVALID_QUERY_MODE_ERROR;
 
 import apoc.export.cypher.ExportFileManager;
 import apoc.export.util.ExportConfig;
+import apoc.export.util.PartitionedExport;
 import apoc.export.util.Reporter;
 import apoc.meta.Types;
 import apoc.result.ProgressInfo;
@@ -33,6 +34,7 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -42,6 +44,7 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.security.AuthorizationViolationException;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 
 public class JsonFormat {
     enum Format {
@@ -77,14 +80,7 @@ public class JsonFormat {
         isExportSubGraph = true;
         Consumer<JsonGenerator> consumer = (jsonGenerator) -> {
             try {
-                writeJsonContainerStart(jsonGenerator);
-                writeJsonNodeContainerStart(jsonGenerator);
-                writeNodes(graph.getNodes(), reporter, jsonGenerator, config);
-                writeJsonNodeContainerEnd(jsonGenerator);
-                writeJsonRelationshipContainerStart(jsonGenerator);
-                writeRels(graph.getRelationships(), reporter, jsonGenerator, config);
-                writeJsonRelationshipContainerEnd(jsonGenerator);
-                writeJsonContainerEnd(jsonGenerator);
+                writeGraph(graph.getNodes(), graph.getRelationships(), reporter, jsonGenerator, config);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
@@ -92,6 +88,45 @@ public class JsonFormat {
         return dump(writer.getPrintWriter("json"), reporter, consumer);
     }
 
+    /**
+     * Exports the whole database into `shards` files, which are written concurrently.
+     * Every shard is a complete document of the configured format.
+     */
+    public ProgressInfo dumpShards(
+            InternalTransaction threadBoundTx,
+            ExecutorService pool,
+            ExportFileManager writer,
+            Reporter reporter,
+            ExportConfig config) {
+        isExportSubGraph = true;
+        PartitionedExport.export(
+                threadBoundTx, db, pool, config.getShards(), reporter, (tx, shard, nodes, rels, shardReporter) -> {
+                    try (JsonGenerator jsonGenerator = getJsonGenerator(writer.getPrintWriter("shard-" + shard))) {
+                        writeGraph(nodes, rels, shardReporter, jsonGenerator, config);
+                        jsonGenerator.flush();
+                    }
+                });
+        reporter.done();
+        return reporter.getTotal();
+    }
+
+    private void writeGraph(
+            Iterable<Node> nodes,
+            Iterable<Relationship> rels,
+            Reporter reporter,
+            JsonGenerator jsonGenerator,
+            ExportConfig config)
+            throws IOException {
+        writeJsonContainerStart(jsonGenerator);
+        writeJsonNodeContainerStart(jsonGenerator);
+        writeNodes(nodes, reporter, jsonGenerator, config);
+        writeJsonNodeContainerEnd(jsonGenerator);
+        writeJsonRelationshipContainerStart(jsonGenerator);
+        writeRels(rels, reporter, jsonGenerator, config);
+        writeJsonRelationshipContainerEnd(jsonGenerator);
+        writeJsonContainerEnd(jsonGenerator);
+    }
+
     private void writeJsonRelationshipContainerEnd(JsonGenerator jsonGenerator) throws IOException {
         switch (format) {
             case JSON:
@@ -0,0 +1,517 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.hashing;
+
+import apoc.ApocConfig;
+import apoc.SystemLabels;
+import apoc.SystemPropertyKeys;
+import apoc.util.Util;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.TransactionIdStore;
+
+/**
+ * Maintains the fingerprint of a whole database from the changes of every transaction,
+ * so that it can be read without scanning the graph.
+ *
+ * The fingerprint is the sum, modulo the width of the digest, of the `apoc.hashing.fingerprinting` digests
+ * of all the nodes and relationships, with the rules of the configured {@link FingerprintingConfig}.
+ * A sum does not depend on the order of the entities, so a transaction only has to subtract the digests
+ * of the entities it changes, as they were before, and add the ones they have after it.
+ * Since the digest of a relationship includes the ones of its nodes,
+ * the relationships of a changed node are changed too, and a transaction keeps the nodes of the relationships
+ * it changes, and the relationships of the nodes it changes, from being changed by others until it is committed.
+ * Those shared locks are taken on entities the transaction did not write, while it holds the exclusive locks
+ * of the ones it did, so two transactions changing the nodes at either end of the same relationships can deadlock,
+ * and one of them fails with a deadlock error and has to be retried: the price of a sum that does not drift.
+ *
+ * It is persisted into the system database with the id of the last transaction it includes,
+ * and only computed with a full scan when that is not the last transaction of the database on startup.
+ */
+public class FingerprintHandler extends LifecycleAdapter implements TransactionEventListener<byte[]> {
+
+    // beware that, while enabled, every transaction also takes shared locks on the neighbours of what it changes,
+    // so concurrent writes to connected nodes and relationships can fail with deadlocks, and have to be retried
+    public static final String FINGERPRINT_INCREMENTAL_ENABLED = "apoc.hashing.fingerprint.incremental.enabled";
+    // the config of the fingerprint, as a JSON map, see apoc.hashing.fingerprinting
+    public static final String FINGERPRINT_INCREMENTAL_CONFIG = "apoc.hashing.fingerprint.incremental.config";
+    // how often the fingerprint is persisted into the system database, in milliseconds
+    public static final String FINGERPRINT_INCREMENTAL_PERSIST_INTERVAL =
+            "apoc.hashing.fingerprint.incremental.persistInterval";
+
+    public static final String NOT_ENABLED_ERROR = "The incremental fingerprint has not been enabled."
+            + " Set '" + FINGERPRINT_INCREMENTAL_ENABLED + "=true' in your apoc.conf file"
+            + " located in the $NEO4J_HOME/conf/ directory.";
+
+    // how often a full scan is retried while transactions keep it from being consistent
+    private static final long REBUILD_RETRY_MILLIS = 1000;
+
+    private final GraphDatabaseAPI db;
+    private final DatabaseManagementService databaseManagementService;
+    private final ApocConfig apocConfig;
+    private final Log log;
+    private final JobScheduler jobScheduler;
+    private final Fingerprinting fingerprinting = new Fingerprinting();
+    private final String configJson;
+    private final FingerprintingConfig config;
+    private final int width;
+
+    // the transactions between beforeCommit and afterCommit, whose changes are not in the sum yet
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // guarded by this
+    private byte[] sum;
+    private boolean ready;
+    private boolean dirty;
+    // the transactions up to this one are in the sum from the full scan or from the system database
+    private long baseTransactionId = Long.MAX_VALUE;
+    private long lastTransactionId;
+
+    private long nextPersist;
+    private JobHandle maintenanceHandle;
+
+    public FingerprintHandler(
+            GraphDatabaseAPI db,
+            DatabaseManagementService databaseManagementService,
+            ApocConfig apocConfig,
+            Log log,
+            JobScheduler jobScheduler) {
+        this.db = db;
+        this.databaseManagementService = databaseManagementService;
+        this.apocConfig = apocConfig;
+        this.log = log;
+        this.jobScheduler = jobScheduler;
+        this.fingerprinting.log = log;
+        this.configJson = apocConfig.getString(FINGERPRINT_INCREMENTAL_CONFIG, "{}");
+        this.config = new FingerprintingConfig(Util.fromJson(configJson, Map.class));
+        try {
+            this.width = MessageDigest.getInstance(config.getDigestAlgorithm()).getDigestLength();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void start() {
+        databaseManagementService.registerTransactionEventListener(db.databaseName(), this);
+        restore();
+        maintenanceHandle = jobScheduler.scheduleRecurring(
+                Group.STORAGE_MAINTENANCE, this::maintain, 0, REBUILD_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        databaseManagementService.unregisterTransactionEventListener(db.databaseName(), this);
+        if (maintenanceHandle != null) {
+            maintenanceHandle.cancel();
+        }
+        persist();
+    }
+
+    /**
+     * @return the fingerprint and the id of the last transaction it includes, empty while it is being computed
+     */
+    public synchronized Map<String, Object> fingerprint() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ready", ready);
+        if (ready) {
+            result.put("fingerprint", HexFormat.of().withUpperCase().formatHex(sum));
+            result.put("transactionId", lastTransactionId);
+        }
+        return result;
+    }
+
+    @Override
+    public byte[] beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) {
+        inFlight.incrementAndGet();
+        try {
+            return new Delta(data, transaction).compute();
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, byte[] delta, GraphDatabaseService databaseService) {
+        long transactionId = data.getTransactionId();
+        synchronized (this) {
+            // otherwise its changes are already in the full scan, or are going to be
+            if (ready && transactionId > baseTransactionId) {
+                add(sum, delta, 1);
+                lastTransactionId = Math.max(lastTransactionId, transactionId);
+                dirty = true;
+            }
+        }
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public void afterRollback(TransactionData data, byte[] delta, GraphDatabaseService databaseService) {
+        inFlight.decrementAndGet();
+    }
+
+    private void maintain() {
+        try {
+            boolean rebuilt;
+            synchronized (this) {
+                rebuilt = ready;
+            }
+            if (!rebuilt) {
+                rebuild();
+            } else if (System.currentTimeMillis() >= nextPersist) {
+                persist();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to maintain the incremental fingerprint of database %s: %s", db.databaseName(), e);
+        }
+    }
+
+    /**
+     * Takes the fingerprint from the system database, if it was persisted with the current config
+     * and no transaction has been committed since.
+     */
+    private void restore() {
+        try (Transaction tx = apocConfig.getSystemDb().beginTx()) {
+            Node node = tx.findNode(
+                    SystemLabels.ApocFingerprint, SystemPropertyKeys.database.name(), db.databaseName());
+            if (node != null && configJson.equals(node.getProperty(SystemPropertyKeys.config.name(), null))) {
+                byte[] persisted = HexFormat.of()
+                        .parseHex((String) node.getProperty(SystemPropertyKeys.fingerprint.name()));
+                long transactionId = (long) node.getProperty(SystemPropertyKeys.transactionId.name());
+                long committedTransactionId = transactionIdStore().getLastCommittedTransactionId();
+                synchronized (this) {
+                    if (persisted.length == width && transactionId == committedTransactionId) {
+                        sum = persisted;
+                        baseTransactionId = transactionId;
+                        lastTransactionId = transactionId;
+                        ready = true;
+                    }
+                }
+            }
+            tx.commit();
+        } catch (Exception e) {
+            log.warn("Failed to restore the incremental fingerprint of database %s: %s", db.databaseName(), e);
+        }
+    }
+
+    /**
+     * Computes the fingerprint with a full scan, which is consistent only if no transaction is committed meanwhile:
+     * otherwise it is retried later.
+     */
+    private void rebuild() {
+        TransactionIdStore transactionIdStore = transactionIdStore();
+        long start = transactionIdStore.getLastCommittedTransactionId();
+        if (start != transactionIdStore.getLastClosedTransactionId()) {
+            return; // a transaction is still being applied
+        }
+        byte[] total = new byte[width];
+        try (Transaction tx = db.beginTx()) {
+            for (Node node : tx.getAllNodes()) {
+                String nodeFingerprint = fingerprint(node);
+                add(total, nodeFingerprint, 1);
+                for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
+                    add(total, fingerprint(rel, nodeFingerprint, fingerprint(rel.getEndNode())), 1);
+                }
+            }
+            tx.commit();
+        }
+        synchronized (this) {
+            if (transactionIdStore.getLastCommittedTransactionId() != start) {
+                return;
+            }
+            sum = total;
+            baseTransactionId = start;
+            lastTransactionId = start;
+            ready = true;
+            dirty = true;
+        }
+        log.info("Computed the incremental fingerprint of database %s", db.databaseName());
+    }
+
+    private void persist() {
+        String fingerprint;
+        long transactionId;
+        synchronized (this) {
+            // with transactions in flight, the sum might not include all the ones up to the last transaction id
+            if (!ready || !dirty || inFlight.get() > 0) return;
+            fingerprint = HexFormat.of().withUpperCase().formatHex(sum);
+            transactionId = lastTransactionId;
+            dirty = false;
+        }
+        nextPersist = System.currentTimeMillis() + apocConfig.getInt(FINGERPRINT_INCREMENTAL_PERSIST_INTERVAL, 60000);
+        try (Transaction tx = apocConfig.getSystemDb().beginTx()) {
+            Node node = tx.findNode(
+                    SystemLabels.ApocFingerprint, SystemPropertyKeys.database.name(), db.databaseName());
+            if (node == null) {
+                node = tx.createNode(SystemLabels.ApocFingerprint);
+                node.setProperty(SystemPropertyKeys.database.name(), db.databaseName());
+            }
+            node.setProperty(SystemPropertyKeys.config.name(), configJson);
+            node.setProperty(SystemPropertyKeys.fingerprint.name(), fingerprint);
+            node.setProperty(SystemPropertyKeys.transactionId.name(), transactionId);
+            node.setProperty(SystemPropertyKeys.lastUpdated.name(), System.currentTimeMillis());
+            tx.commit();
+        } catch (Exception e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            log.warn("Failed to persist the incremental fingerprint of database %s: %s", db.databaseName(), e);
+        }
+    }
+
+    private TransactionIdStore transactionIdStore() {
+        return db.getDependencyResolver().resolveDependency(TransactionIdStore.class);
+    }
+
+    private String fingerprint(Node node) {
+        return fingerprinting.fingerprintNode(Util.labelStrings(node), node.getAllProperties(), config);
+    }
+
+    private String fingerprint(Relationship rel, String startNodeFingerprint, String endNodeFingerprint) {
+        return fingerprinting.fingerprintRelationship(
+                rel.getType().name(), startNodeFingerprint, endNodeFingerprint, rel.getAllProperties(), config);
+    }
+
+    private static void add(byte[] sum, String fingerprint, int sign) {
+        add(sum, HexFormat.of().parseHex(fingerprint), sign);
+    }
+
+    /**
+     * Adds or subtracts the digest to the big-endian number, modulo its width.
+     */
+    private static void add(byte[] sum, byte[] digest, int sign) {
+        int carry = 0;
+        for (int i = sum.length - 1; i >= 0; i--) {
+            int result = (sum[i] & 0xFF) + sign * (digest[i] & 0xFF) + carry;
+            sum[i] = (byte) result;
+            carry = result >> 8;
+        }
+    }
+
+    /**
+     * The change of the fingerprint made by a transaction, computed before it commits,
+     * while both the state before it and the one after it can be read.
+     */
+    private class Delta {
+        private final TransactionData data;
+        private final Transaction tx;
+        private final byte[] delta = new byte[width];
+
+        private final Set<Long> createdNodes = new HashSet<>();
+        private final Set<Long> deletedNodes = new HashSet<>();
+        private final Map<Long, List<String>> assignedLabels = new HashMap<>();
+        private final Map<Long, List<String>> removedLabels = new HashMap<>();
+        // the values before the transaction, null if there was none
+        private final Map<Long, Map<String, Object>> nodeProperties = new HashMap<>();
+        private final Map<Long, Map<String, Object>> relationshipProperties = new HashMap<>();
+
+        private final Map<Long, String> before = new HashMap<>();
+        private final Map<Long, String> after = new HashMap<>();
+
+        Delta(TransactionData data, Transaction tx) {
+            this.data = data;
+            this.tx = tx;
+        }
+
+        byte[] compute() {
+            data.createdNodes().forEach(node -> createdNodes.add(node.getId()));
+            data.deletedNodes().forEach(node -> deletedNodes.add(node.getId()));
+            for (LabelEntry entry : data.assignedLabels()) {
+                assignedLabels
+                        .computeIfAbsent(entry.node().getId(), id -> new ArrayList<>())
+                        .add(entry.label().name());
+            }
+            for (LabelEntry entry : data.removedLabels()) {
+                removedLabels
+                        .computeIfAbsent(entry.node().getId(), id -> new ArrayList<>())
+                        .add(entry.label().name());
+            }
+            for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+                previous(nodeProperties, entry.entity().getId(), entry);
+            }
+            for (PropertyEntry<Node> entry : data.removedNodeProperties()) {
+                previous(nodeProperties, entry.entity().getId(), entry);
+            }
+            for (PropertyEntry<Relationship> entry : data.assignedRelationshipProperties()) {
+                previous(relationshipProperties, entry.entity().getId(), entry);
+            }
+            for (PropertyEntry<Relationship> entry : data.removedRelationshipProperties()) {
+                previous(relationshipProperties, entry.entity().getId(), entry);
+            }
+
+            Set<Long> changedNodes = new HashSet<>(assignedLabels.keySet());
+            changedNodes.addAll(removedLabels.keySet());
+            changedNodes.addAll(nodeProperties.keySet());
+            changedNodes.removeAll(createdNodes);
+            changedNodes.removeAll(deletedNodes);
+
+            createdNodes.forEach(id -> add(delta, after(id), 1));
+            deletedNodes.forEach(id -> add(delta, before(id), -1));
+            for (long id : changedNodes) {
+                add(delta, before(id), -1);
+                add(delta, after(id), 1);
+            }
+
+            Set<Long> seen = new HashSet<>();
+            List<Relationship> changedRels = new ArrayList<>();
+            for (Relationship rel : data.createdRelationships()) {
+                seen.add(rel.getId());
+                changedRels.add(rel);
+            }
+            for (Relationship rel : data.deletedRelationships()) {
+                seen.add(rel.getId());
+                changedRels.add(rel);
+            }
+            List<Relationship> rehashedRels = new ArrayList<>();
+            for (long id : relationshipProperties.keySet()) {
+                if (seen.add(id)) {
+                    rehashedRels.add(tx.getRelationshipById(id));
+                }
+            }
+            // only changed by this transaction through the digests of their nodes
+            List<Relationship> nodeRels = new ArrayList<>();
+            for (long id : changedNodes) {
+                for (Relationship rel : tx.getNodeById(id).getRelationships()) {
+                    if (seen.add(rel.getId())) {
+                        nodeRels.add(rel);
+                    }
+                }
+            }
+            rehashedRels.addAll(nodeRels);
+            changedRels.addAll(rehashedRels);
+            lock(changedRels, nodeRels);
+
+            for (Relationship rel : data.createdRelationships()) {
+                add(delta, after(rel), 1);
+            }
+            for (Relationship rel : data.deletedRelationships()) {
+                add(delta, before(rel), -1);
+            }
+            for (Relationship rel : rehashedRels) {
+                add(delta, before(rel), -1);
+                add(delta, after(rel), 1);
+            }
+            return delta;
+        }
+
+        /**
+         * Takes a shared lock on the nodes of the relationships, whose digests are part of theirs,
+         * and on the relationships that are rehashed only because of the digests of the nodes changed here,
+         * so that no other transaction changes them until this one is committed:
+         * otherwise both would subtract the same digest, and the sum would drift.
+         * They are locked in the order of their ids, so that two transactions doing it do not deadlock.
+         */
+        private void lock(List<Relationship> rels, List<Relationship> nodeRels) {
+            Set<Long> nodes = new TreeSet<>();
+            for (Relationship rel : rels) {
+                nodes.add(rel.getStartNodeId());
+                nodes.add(rel.getEndNodeId());
+            }
+            nodes.removeAll(deletedNodes);
+            for (long id : nodes) {
+                tx.acquireReadLock(tx.getNodeById(id));
+            }
+            nodeRels.stream()
+                    .sorted(Comparator.comparingLong(Relationship::getId))
+                    .forEach(tx::acquireReadLock);
+        }
+
+        private void previous(Map<Long, Map<String, Object>> properties, long id, PropertyEntry<?> entry) {
+            properties.computeIfAbsent(id, key -> new HashMap<>()).put(entry.key(), entry.previouslyCommittedValue());
+        }
+
+        private String after(long id) {
+            return after.computeIfAbsent(id, key -> fingerprint(tx.getNodeById(key)));
+        }
+
+        private String before(long id) {
+            return before.computeIfAbsent(id, key -> {
+                List<String> labels = new ArrayList<>();
+                Map<String, Object> properties = new HashMap<>();
+                if (!deletedNodes.contains(key)) {
+                    Node node = tx.getNodeById(key);
+                    labels.addAll(Util.labelStrings(node));
+                    properties.putAll(node.getAllProperties());
+                }
+                labels.removeAll(assignedLabels.getOrDefault(key, List.of()));
+                labels.addAll(removedLabels.getOrDefault(key, List.of()));
+                restore(properties, nodeProperties.get(key));
+                return fingerprinting.fingerprintNode(labels, properties, config);
+            });
+        }
+
+        private String after(Relationship rel) {
+            return fingerprint(rel, after(rel.getStartNodeId()), after(rel.getEndNodeId()));
+        }
+
+        private String before(Relationship rel) {
+            Map<String, Object> properties = new HashMap<>();
+            if (!data.isDeleted(rel)) {
+                properties.putAll(rel.getAllProperties());
+            }
+            restore(properties, relationshipProperties.get(rel.getId()));
+            return fingerprinting.fingerprintRelationship(
+                    rel.getType().name(),
+                    before(rel.getStartNodeId()),
+                    before(rel.getEndNodeId()),
+                    properties,
+                    config);
+        }
+
+        private static void restore(Map<String, Object> properties, Map<String, Object> previous) {
+            if (previous == null) return;
+            previous.forEach((key, value) -> {
+                if (value == null) {
+                    properties.remove(key);
+                } else {
+                    properties.put(key, value);
+                }
+            });
+        }
+    }
+}
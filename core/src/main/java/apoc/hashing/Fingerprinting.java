@@ -18,25 +18,28 @@
  */
 package apoc.hashing;
 
+import apoc.Pools;
 import apoc.util.Util;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Formatter;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
-import org.neo4j.graphdb.Direction;
-import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
@@ -51,6 +54,9 @@ public class Fingerprinting {
     @Context
     public Log log;
 
+    @Context
+    public Pools pools;
+
     @UserFunction("apoc.hashing.fingerprint")
     @Description(
             "Calculates a MD5 checksum over a `NODE` or `RELATIONSHIP` (identical entities share the same checksum).\n"
@@ -172,107 +178,34 @@ public class Fingerprinting {
                 excludedPropertyKeys,
                 "strategy",
                 FingerprintingConfig.FingerprintStrategy.EAGER.toString()));
-        return withMessageDigest(config, messageDigest -> {
-            // step 1: load all nodes, calc their hash and map them to id
-            Map<Long, String> idToNodeHash = tx.getAllNodes().stream()
-                    .collect(Collectors.toMap(
-                            Node::getId,
-                            node -> fingerprint(node, config),
-                            (aLong, aLong2) -> {
-                                throw new RuntimeException();
-                            },
-                            () -> new TreeMap<>()));
-
-            // step 2: build inverse map
-            final Map<String, List<Long>> nodeHashToId = idToNodeHash.entrySet().stream()
-                    .collect(Collectors.groupingBy(
-                            Map.Entry::getValue,
-                            TreeMap::new,
-                            Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
-
-            // step 3: iterate nodes in order of their hash (we cannot rely on internal ids)
-            nodeHashToId.forEach((hash, ids) -> ids.forEach(id -> {
-                messageDigest.update(hash.getBytes());
-                Node node = tx.getNodeById(id);
-                List<EndNodeRelationshipHashTuple> endNodeRelationshipHashTuples = StreamSupport.stream(
-                                node.getRelationships(Direction.OUTGOING).spliterator(), false)
-                        .map(relationship -> {
-                            String endNodeHash = idToNodeHash.get(relationship.getEndNodeId());
-                            String relationshipHash = fingerprint(relationship, excludedPropertyKeys);
-                            return new EndNodeRelationshipHashTuple(endNodeHash, relationshipHash);
-                        })
-                        .collect(Collectors.toList());
-
-                endNodeRelationshipHashTuples.stream().sorted().forEach(endNodeRelationshipHashTuple -> {
-                    messageDigest.update(
-                            endNodeRelationshipHashTuple.getEndNodeHash().getBytes());
-                    messageDigest.update(
-                            endNodeRelationshipHashTuple.getRelationshipHash().getBytes());
-                });
-            }));
-        });
+        KernelTransaction ktx = ((InternalTransaction) tx).kernelTransaction();
+        GraphFingerprint graphFingerprint = new GraphFingerprint(
+                ktx,
+                pools.getDefaultExecutorService(),
+                config.getDigestAlgorithm(),
+                new HashSet<>(excludedPropertyKeys),
+                (md, properties) -> fingerprint(new DiagnosingMessageDigestDecorator(md), properties, config));
+        return withMessageDigest(config, messageDigest -> graphFingerprint.digest(messageDigest::update));
     }
 
-    private static class EndNodeRelationshipHashTuple implements Comparable {
-        private final String endNodeHash;
-        private final String relationshipHash;
-
-        public EndNodeRelationshipHashTuple(String endNodeHash, String relationshipHash) {
-            this.endNodeHash = endNodeHash;
-            this.relationshipHash = relationshipHash;
-        }
-
-        @Override
-        public int compareTo(Object o) {
-            EndNodeRelationshipHashTuple other = (EndNodeRelationshipHashTuple) o;
-            int res = endNodeHash.compareTo(other.endNodeHash);
-            if (res == 0) {
-                res = relationshipHash.compareTo(other.relationshipHash);
-            }
-            return res;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-
-            EndNodeRelationshipHashTuple that = (EndNodeRelationshipHashTuple) o;
-
-            if (endNodeHash != null ? !endNodeHash.equals(that.endNodeHash) : that.endNodeHash != null) return false;
-            return relationshipHash != null
-                    ? relationshipHash.equals(that.relationshipHash)
-                    : that.relationshipHash == null;
-        }
-
-        @Override
-        public int hashCode() {
-            int result = endNodeHash != null ? endNodeHash.hashCode() : 0;
-            result = 31 * result + (relationshipHash != null ? relationshipHash.hashCode() : 0);
-            return result;
-        }
-
-        public String getEndNodeHash() {
-            return endNodeHash;
-        }
-
-        public String getRelationshipHash() {
-            return relationshipHash;
-        }
+    private void fingerprintNode(DiagnosingMessageDigestDecorator md, Node node, FingerprintingConfig config) {
+        List<String> labels = StreamSupport.stream(node.getLabels().spliterator(), false)
+                .map(Label::name)
+                .collect(Collectors.toList());
+        fingerprintNode(md, labels, node::getAllProperties, config);
     }
 
-    private void fingerprintNode(DiagnosingMessageDigestDecorator md, Node node, FingerprintingConfig config) {
+    private void fingerprintNode(
+            DiagnosingMessageDigestDecorator md,
+            List<String> labels,
+            Supplier<Map<String, Object>> properties,
+            FingerprintingConfig config) {
         switch (config.getStrategy()) {
             case EAGER:
-                StreamSupport.stream(node.getLabels().spliterator(), false)
-                        .map(Label::name)
-                        .sorted()
-                        .map(String::getBytes)
-                        .forEach(md::update);
+                labels.stream().sorted().map(String::getBytes).forEach(md::update);
                 break;
             case LAZY:
-                StreamSupport.stream(node.getLabels().spliterator(), false)
-                        .map(Label::name)
+                labels.stream()
                         .filter(name -> config.getAllLabels().contains(name))
                         .sorted()
                         .map(String::getBytes)
@@ -280,52 +213,97 @@ public class Fingerprinting {
         }
 
         final List<String> keysToRetain = new ArrayList<>(config.getAllNodesAllowList());
-        keysToRetain.addAll(StreamSupport.stream(node.getLabels().spliterator(), false)
-                .map(Label::name)
+        keysToRetain.addAll(labels.stream()
                 .flatMap(label -> config.getNodeAllowMap().getOrDefault(label, Collections.emptyList()).stream())
                 .collect(Collectors.toSet()));
 
         final List<String> keysToRemove = new ArrayList<>(config.getAllNodesDisallowList());
-        keysToRemove.addAll(StreamSupport.stream(node.getLabels().spliterator(), false)
-                .map(Label::name)
+        keysToRemove.addAll(labels.stream()
                 .flatMap(label -> config.getNodeDisallowMap().getOrDefault(label, Collections.emptyList()).stream())
                 .collect(Collectors.toSet()));
         keysToRemove.addAll(config.getMapDisallowList()); // just to backwards compatibility remove it
 
-        final Map<String, Object> allProperties = getEntityProperties(node, config, keysToRetain, keysToRemove);
+        final Map<String, Object> allProperties = getEntityProperties(properties, config, keysToRetain, keysToRemove);
         fingerprint(md, allProperties, config);
     }
 
     private void fingerprintRelationship(
             DiagnosingMessageDigestDecorator md, Relationship rel, FingerprintingConfig config) {
+        fingerprintRelationship(
+                md,
+                rel.getType().name(),
+                () -> fingerprint(rel.getStartNode(), config),
+                () -> fingerprint(rel.getEndNode(), config),
+                rel::getAllProperties,
+                config);
+    }
+
+    private void fingerprintRelationship(
+            DiagnosingMessageDigestDecorator md,
+            String type,
+            Supplier<String> startNodeFingerprint,
+            Supplier<String> endNodeFingerprint,
+            Supplier<Map<String, Object>> properties,
+            FingerprintingConfig config) {
         switch (config.getStrategy()) {
             case EAGER:
-                md.update(rel.getType().name().getBytes());
-                md.update(fingerprint(rel.getStartNode(), config).getBytes());
-                md.update(fingerprint(rel.getEndNode(), config).getBytes());
+                md.update(type.getBytes());
+                md.update(startNodeFingerprint.get().getBytes());
+                md.update(endNodeFingerprint.get().getBytes());
                 break;
             case LAZY:
-                if (config.getAllTypes().contains(rel.getType().name())) {
-                    md.update(rel.getType().name().getBytes());
-                    md.update(fingerprint(rel.getStartNode(), config).getBytes());
-                    md.update(fingerprint(rel.getEndNode(), config).getBytes());
+                if (config.getAllTypes().contains(type)) {
+                    md.update(type.getBytes());
+                    md.update(startNodeFingerprint.get().getBytes());
+                    md.update(endNodeFingerprint.get().getBytes());
                 }
         }
 
         final List<String> keysToRetain = new ArrayList<>(config.getAllRelsAllowList());
-        keysToRetain.addAll(config.getRelAllowMap().getOrDefault(rel.getType().name(), Collections.emptyList()));
+        keysToRetain.addAll(config.getRelAllowMap().getOrDefault(type, Collections.emptyList()));
 
         final List<String> keysToRemove = new ArrayList<>(config.getAllRelsDisallowList());
-        keysToRemove.addAll(
-                config.getRelDisallowMap().getOrDefault(rel.getType().name(), Collections.emptyList()));
+        keysToRemove.addAll(config.getRelDisallowMap().getOrDefault(type, Collections.emptyList()));
         keysToRemove.addAll(config.getMapDisallowList()); // just to backwards compatibility remove it
 
-        final Map<String, Object> allProperties = getEntityProperties(rel, config, keysToRetain, keysToRemove);
+        final Map<String, Object> allProperties = getEntityProperties(properties, config, keysToRetain, keysToRemove);
         fingerprint(md, allProperties, config);
     }
 
+    /**
+     * The same as `apoc.hashing.fingerprinting` of a node with the given labels and properties,
+     * which do not have to be the current ones, e.g. the ones before a transaction.
+     */
+    String fingerprintNode(List<String> labels, Map<String, Object> properties, FingerprintingConfig config) {
+        return withMessageDigest(config, md -> fingerprintNode(md, labels, () -> new HashMap<>(properties), config));
+    }
+
+    /**
+     * The same as `apoc.hashing.fingerprinting` of a relationship,
+     * given the fingerprints of its start and end nodes.
+     */
+    String fingerprintRelationship(
+            String type,
+            String startNodeFingerprint,
+            String endNodeFingerprint,
+            Map<String, Object> properties,
+            FingerprintingConfig config) {
+        return withMessageDigest(
+                config,
+                md -> fingerprintRelationship(
+                        md,
+                        type,
+                        () -> startNodeFingerprint,
+                        () -> endNodeFingerprint,
+                        () -> new HashMap<>(properties),
+                        config));
+    }
+
     private Map<String, Object> getEntityProperties(
-            Entity entity, FingerprintingConfig config, List<String> keysToRetain, List<String> keysToRemove) {
+            Supplier<Map<String, Object>> properties,
+            FingerprintingConfig config,
+            List<String> keysToRetain,
+            List<String> keysToRemove) {
         final Map<String, Object> allProperties;
         if (keysToRetain.isEmpty() && keysToRemove.isEmpty()) {
             switch (config.getStrategy()) {
@@ -333,10 +311,10 @@ public class Fingerprinting {
                     allProperties = Collections.emptyMap();
                     break;
                 default:
-                    allProperties = entity.getAllProperties();
+                    allProperties = properties.get();
             }
         } else {
-            allProperties = entity.getAllProperties();
+            allProperties = properties.get();
             if (!keysToRetain.isEmpty()) {
                 allProperties.keySet().retainAll(keysToRetain);
             }
@@ -0,0 +1,487 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.hashing;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PartitionedScan;
+import org.neo4j.internal.kernel.api.PropertyCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.kernel.api.ExecutionContext;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.memory.MemoryTracker;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.neo4j.token.api.TokenSet;
+
+/**
+ * Computes the fingerprint of a whole graph in three passes, keeping only primitive arrays of fixed-width digests:
+ *
+ * 1. the digest of every node, from its labels and properties, with a partitioned scan of all nodes
+ * 2. per node, the sum of the digests of its outgoing relationships (type, start and end node digests, properties),
+ *    with a second partitioned scan. The sum does not depend on the order the relationships are read in.
+ * 3. the (node digest, relationships digest) records, sorted, are fed into the final digest,
+ *    so that the result does not depend on the internal ids either.
+ *
+ * The scans run in parallel over the partitions of the store, unless the transaction has uncommitted changes,
+ * which a partitioned scan cannot see: then the nodes are scanned by the calling thread.
+ */
+class GraphFingerprint {
+
+    interface PropertiesDigest {
+        void update(MessageDigest md, Map<String, Object> properties);
+    }
+
+    private static final int PARTITIONS_PER_WORKER = 4;
+    // the node ids and digests are indexed by int, and the map from node id to index holds twice as many slots
+    static final int MAX_NODES = 1 << 29;
+
+    private final KernelTransaction ktx;
+    private final ExecutorService pool;
+    private final int workers;
+    private final String algorithm;
+    private final int width;
+    private final Set<String> excludedPropertyKeys;
+    private final PropertiesDigest propertiesDigest;
+
+    private long[] ids;
+    private Digests nodeDigests;
+    private LongIntHashMap indexes;
+    private Digests relationshipDigests;
+
+    GraphFingerprint(
+            KernelTransaction ktx,
+            ExecutorService pool,
+            String algorithm,
+            Set<String> excludedPropertyKeys,
+            PropertiesDigest propertiesDigest) {
+        this.ktx = ktx;
+        this.pool = pool;
+        this.workers = Runtime.getRuntime().availableProcessors();
+        this.algorithm = algorithm;
+        this.width = newDigest().getDigestLength();
+        this.excludedPropertyKeys = excludedPropertyKeys;
+        this.propertiesDigest = propertiesDigest;
+    }
+
+    /**
+     * Runs the passes and hands the sorted records, one per node, to the final digest.
+     */
+    void digest(Consumer<byte[]> update) {
+        hashNodes();
+        hashRelationships();
+        int size = ids.length;
+        int[] order = new int[size];
+        Arrays.setAll(order, i -> i);
+        sort(order, new int[size], 0, size);
+        for (int index : order) {
+            byte[] record = new byte[width * 2];
+            nodeDigests.copy(index, record, 0);
+            relationshipDigests.copy(index, record, width);
+            update.accept(record);
+        }
+    }
+
+    private void hashNodes() {
+        List<NodeWorker> results = scanNodes(NodeWorker::new);
+        long total = results.stream().mapToLong(worker -> worker.size).sum();
+        if (total > MAX_NODES) {
+            throw tooManyNodes(total);
+        }
+        int size = (int) total;
+        ids = new long[size];
+        nodeDigests = new Digests(width, size);
+        int offset = 0;
+        for (NodeWorker worker : results) {
+            System.arraycopy(worker.nodeIds, 0, ids, offset, worker.size);
+            for (int i = 0; i < worker.size; i++) {
+                nodeDigests.set(offset + i, worker.digests, i);
+            }
+            offset += worker.size;
+        }
+        indexes = new LongIntHashMap(size);
+        for (int i = 0; i < size; i++) {
+            indexes.put(ids[i], i);
+        }
+    }
+
+    private void hashRelationships() {
+        relationshipDigests = new Digests(width, ids.length);
+        scanNodes(RelationshipWorker::new);
+    }
+
+    private record Cursors(
+            Read read,
+            TokenRead tokenRead,
+            CursorFactory factory,
+            CursorContext cursorContext,
+            MemoryTracker memoryTracker) {}
+
+    private <W extends Worker> List<W> scanNodes(Function<Cursors, W> workerFactory) {
+        Read read = ktx.dataRead();
+        if (workers <= 1 || read.transactionStateHasChanges()) {
+            Cursors cursors =
+                    new Cursors(read, ktx.tokenRead(), ktx.cursors(), ktx.cursorContext(), ktx.memoryTracker());
+            try (W worker = workerFactory.apply(cursors);
+                    NodeCursor nodeCursor = cursors.factory().allocateNodeCursor(cursors.cursorContext())) {
+                read.allNodesScan(nodeCursor);
+                while (nodeCursor.next()) {
+                    worker.visit(nodeCursor);
+                }
+                return List.of(worker);
+            }
+        }
+
+        PartitionedScan<NodeCursor> scan = read.allNodesScan(workers * PARTITIONS_PER_WORKER, ktx.cursorContext());
+        // the execution contexts are created and closed by the thread of the transaction they merge into,
+        // the workers only complete them, and are all waited for before any context is closed
+        List<ExecutionContext> contexts = new ArrayList<>(workers);
+        List<Future<W>> futures = new ArrayList<>(workers);
+        AtomicBoolean stopped = new AtomicBoolean();
+        Throwable failure = null;
+        try {
+            for (int i = 0; i < workers; i++) {
+                ExecutionContext executionContext = ktx.createExecutionContext();
+                contexts.add(executionContext);
+                futures.add(pool.submit(() -> scanPartitions(scan, executionContext, workerFactory, stopped)));
+            }
+        } catch (RuntimeException e) {
+            stopped.set(true);
+            failure = e;
+        }
+        List<W> results = new ArrayList<>(workers);
+        boolean interrupted = false;
+        for (Future<W> future : futures) {
+            while (true) {
+                try {
+                    results.add(future.get());
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    stopped.set(true);
+                } catch (ExecutionException e) {
+                    stopped.set(true);
+                    if (failure == null) failure = e.getCause();
+                    break;
+                }
+            }
+        }
+        contexts.forEach(ExecutionContext::close);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            if (failure == null) failure = new InterruptedException();
+        }
+        if (failure != null) {
+            throw new RuntimeException("Error fingerprinting the graph: " + failure.getMessage(), failure);
+        }
+        return results;
+    }
+
+    private <W extends Worker> W scanPartitions(
+            PartitionedScan<NodeCursor> scan,
+            ExecutionContext executionContext,
+            Function<Cursors, W> workerFactory,
+            AtomicBoolean stopped) {
+        try {
+            Cursors cursors = new Cursors(
+                    executionContext.dataRead(),
+                    executionContext.tokenRead(),
+                    executionContext.cursors(),
+                    executionContext.cursorContext(),
+                    executionContext.memoryTracker());
+            try (W worker = workerFactory.apply(cursors);
+                    NodeCursor nodeCursor = cursors.factory().allocateNodeCursor(cursors.cursorContext())) {
+                while (!stopped.get() && scan.reservePartition(nodeCursor, executionContext)) {
+                    while (nodeCursor.next()) {
+                        worker.visit(nodeCursor);
+                    }
+                }
+                return worker;
+            }
+        } finally {
+            executionContext.complete();
+        }
+    }
+
+    /**
+     * The state of one scanning thread: its cursors, digest and token names.
+     */
+    private abstract class Worker implements AutoCloseable {
+        final Cursors cursors;
+        final PropertyCursor propertyCursor;
+        final MessageDigest md = newDigest();
+        private final Map<Integer, String> propertyKeyNames = new HashMap<>();
+
+        Worker(Cursors cursors) {
+            this.cursors = cursors;
+            this.propertyCursor =
+                    cursors.factory().allocatePropertyCursor(cursors.cursorContext(), cursors.memoryTracker());
+        }
+
+        abstract void visit(NodeCursor nodeCursor);
+
+        /**
+         * Adds the properties the property cursor has been initialized with, without the excluded keys.
+         */
+        void updateProperties() {
+            Map<String, Object> properties = new HashMap<>();
+            while (propertyCursor.next()) {
+                String key = propertyKeyNames.computeIfAbsent(propertyCursor.propertyKey(), this::propertyKeyName);
+                if (!excludedPropertyKeys.contains(key)) {
+                    properties.put(key, propertyCursor.propertyValue().asObjectCopy());
+                }
+            }
+            propertiesDigest.update(md, properties);
+        }
+
+        private String propertyKeyName(int token) {
+            try {
+                return cursors.tokenRead().propertyKeyName(token);
+            } catch (KernelException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            propertyCursor.close();
+        }
+    }
+
+    private class NodeWorker extends Worker {
+        private final Map<Integer, String> labelNames = new HashMap<>();
+        long[] nodeIds = new long[1024];
+        final Digests digests = new Digests(width, 0);
+        int size;
+
+        NodeWorker(Cursors cursors) {
+            super(cursors);
+        }
+
+        @Override
+        void visit(NodeCursor nodeCursor) {
+            TokenSet labels = nodeCursor.labels();
+            String[] names = new String[labels.numberOfTokens()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = labelNames.computeIfAbsent(labels.token(i), this::labelName);
+            }
+            Arrays.sort(names);
+            for (String name : names) {
+                md.update(name.getBytes());
+            }
+            nodeCursor.properties(propertyCursor);
+            updateProperties();
+
+            if (size == MAX_NODES) {
+                throw tooManyNodes(size + 1L);
+            }
+            if (size == nodeIds.length) {
+                nodeIds = Arrays.copyOf(nodeIds, Math.min(size * 2, MAX_NODES));
+            }
+            nodeIds[size] = nodeCursor.nodeReference();
+            digests.ensureCapacity(size + 1L);
+            digests.set(size, md.digest());
+            size++;
+        }
+
+        private String labelName(int token) {
+            try {
+                return cursors.tokenRead().nodeLabelName(token);
+            } catch (KernelException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes into the slot of the visited node only, so the workers never share a slot.
+     */
+    private class RelationshipWorker extends Worker {
+        private final Map<Integer, String> typeNames = new HashMap<>();
+        private final RelationshipTraversalCursor relationshipCursor;
+
+        RelationshipWorker(Cursors cursors) {
+            super(cursors);
+            this.relationshipCursor = cursors.factory().allocateRelationshipTraversalCursor(cursors.cursorContext());
+        }
+
+        @Override
+        void visit(NodeCursor nodeCursor) {
+            int start = indexes.getIfAbsent(nodeCursor.nodeReference(), -1);
+            if (start < 0) return; // created after the first pass
+            nodeCursor.relationships(relationshipCursor, RelationshipSelection.selection(Direction.OUTGOING));
+            while (relationshipCursor.next()) {
+                md.update(typeNames
+                        .computeIfAbsent(relationshipCursor.type(), this::typeName)
+                        .getBytes());
+                nodeDigests.update(md, start);
+                int end = indexes.getIfAbsent(relationshipCursor.targetNodeReference(), -1);
+                if (end >= 0) {
+                    nodeDigests.update(md, end);
+                }
+                relationshipCursor.properties(propertyCursor);
+                updateProperties();
+                relationshipDigests.add(start, md.digest());
+            }
+        }
+
+        private String typeName(int token) {
+            try {
+                return cursors.tokenRead().relationshipTypeName(token);
+            } catch (KernelException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            relationshipCursor.close();
+            super.close();
+        }
+    }
+
+    /**
+     * Merge sort of the node indexes by their records, compared as unsigned bytes.
+     */
+    private void sort(int[] order, int[] buffer, int from, int to) {
+        if (to - from < 2) return;
+        int middle = (from + to) >>> 1;
+        sort(order, buffer, from, middle);
+        sort(order, buffer, middle, to);
+        if (compare(order[middle - 1], order[middle]) <= 0) return;
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from, right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compare(buffer[left], buffer[right]) <= 0)) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    private int compare(int a, int b) {
+        int result = nodeDigests.compare(a, b);
+        if (result != 0) return result;
+        return relationshipDigests.compare(a, b);
+    }
+
+    /**
+     * Fixed-width digests by node index, in pages of byte arrays rather than in one array,
+     * whose size would overflow an int well before the number of nodes does.
+     */
+    private static class Digests {
+        private static final int PAGE_SHIFT = 12;
+        private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+        private final int width;
+        private byte[][] pages = new byte[0][];
+
+        Digests(int width, long size) {
+            this.width = width;
+            ensureCapacity(size);
+        }
+
+        void ensureCapacity(long size) {
+            int needed = Math.toIntExact((size + PAGE_MASK) >>> PAGE_SHIFT);
+            if (needed <= pages.length) return;
+            int allocated = pages.length;
+            pages = Arrays.copyOf(pages, Math.max(needed, allocated * 2));
+            for (int i = allocated; i < pages.length; i++) {
+                pages[i] = new byte[width << PAGE_SHIFT];
+            }
+        }
+
+        private byte[] page(int index) {
+            return pages[index >>> PAGE_SHIFT];
+        }
+
+        private int offset(int index) {
+            return (index & PAGE_MASK) * width;
+        }
+
+        void set(int index, byte[] digest) {
+            System.arraycopy(digest, 0, page(index), offset(index), width);
+        }
+
+        void set(int index, Digests from, int fromIndex) {
+            System.arraycopy(from.page(fromIndex), from.offset(fromIndex), page(index), offset(index), width);
+        }
+
+        void copy(int index, byte[] target, int targetOffset) {
+            System.arraycopy(page(index), offset(index), target, targetOffset, width);
+        }
+
+        void update(MessageDigest md, int index) {
+            md.update(page(index), offset(index), width);
+        }
+
+        /**
+         * Adds the digest to the big-endian number at the index, modulo its width.
+         */
+        void add(int index, byte[] digest) {
+            byte[] page = page(index);
+            int offset = offset(index);
+            int carry = 0;
+            for (int i = width - 1; i >= 0; i--) {
+                int sum = (page[offset + i] & 0xFF) + (digest[i] & 0xFF) + carry;
+                page[offset + i] = (byte) sum;
+                carry = sum >>> 8;
+            }
+        }
+
+        int compare(int a, int b) {
+            int offsetA = offset(a);
+            int offsetB = offset(b);
+            return Arrays.compareUnsigned(page(a), offsetA, offsetA + width, page(b), offsetB, offsetB + width);
+        }
+    }
+
+    private static RuntimeException tooManyNodes(long nodes) {
+        return new RuntimeException(
+                "Unable to fingerprint a graph of " + nodes + " nodes or more, at most " + MAX_NODES + " are supported");
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.hashing;
+
+import static apoc.ApocConfig.apocConfig;
+import static apoc.hashing.FingerprintHandler.FINGERPRINT_INCREMENTAL_ENABLED;
+
+import java.util.Map;
+import java.util.stream.Stream;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Procedure;
+
+/**
+ * Kept apart from {@link Fingerprinting}, since the {@link FingerprintHandler} can only be injected
+ * when the incremental fingerprint is enabled.
+ */
+public class IncrementalFingerprinting {
+
+    @Context
+    public FingerprintHandler fingerprintHandler;
+
+    public record IncrementalFingerprintResult(
+            @Description("Whether or not the fingerprint has been computed, it is not during the initial full scan.")
+                    boolean ready,
+            @Description("The fingerprint of the database.") String fingerprint,
+            @Description("The id of the last transaction included in the fingerprint.") Long transactionId) {}
+
+    @Procedure(name = "apoc.hashing.incrementalFingerprint", mode = Mode.READ)
+    @Description(
+            """
+            Returns the fingerprint of the session database, maintained incrementally by every transaction.
+            It is the sum of the `apoc.hashing.fingerprinting()` checksums of all `NODE` and `RELATIONSHIP` values.
+            While enabled, concurrent writes to connected `NODE` and `RELATIONSHIP` values can fail with deadlocks.
+            Unsuitable for cryptographic use-cases.""")
+    public Stream<IncrementalFingerprintResult> incrementalFingerprint() {
+        if (!apocConfig().getConfig().getBoolean(FINGERPRINT_INCREMENTAL_ENABLED, false)) {
+            throw new RuntimeException(FingerprintHandler.NOT_ENABLED_ERROR);
+        }
+        Map<String, Object> fingerprint = fingerprintHandler.fingerprint();
+        return Stream.of(new IncrementalFingerprintResult(
+                (boolean) fingerprint.get("ready"),
+                (String) fingerprint.get("fingerprint"),
+                (Long) fingerprint.get("transactionId")));
+    }
+}
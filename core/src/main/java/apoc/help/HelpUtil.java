@@ -41,10 +41,13 @@ public class HelpUtil {
             "apoc.trigger.remove",
             "apoc.trigger.removeAll",
             "apoc.trigger.list",
+            "apoc.trigger.asyncStats",
+            "apoc.hashing.incrementalFingerprint",
             "apoc.trigger.pause",
             "apoc.trigger.resume",
             "apoc.util.sleep",
             "apoc.util.validate",
+            "apoc.util.expressionCacheStats",
             "apoc.merge.node.eager",
             "apoc.merge.node",
             "apoc.merge.nodeWithStats.eager",
@@ -482,8 +485,11 @@ public class HelpUtil {
             "apoc.trigger.start",
             "apoc.trigger.show",
             "apoc.trigger.list",
+            "apoc.trigger.asyncStats",
+            "apoc.hashing.incrementalFingerprint",
             "apoc.util.sleep",
             "apoc.util.validate",
+            "apoc.util.expressionCacheStats",
             "apoc.merge.node.eager",
             "apoc.merge.node",
             "apoc.merge.nodeWithStats.eager",
@@ -19,25 +19,35 @@
 package apoc.load;
 
 import apoc.result.LoadDataMapResult;
+import apoc.util.ArchiveType;
 import apoc.util.FileUtils;
 import apoc.util.JsonUtil;
+import apoc.util.StreamConnection;
 import apoc.util.Util;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.Spliterator;
-import java.util.Spliterators;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.BitVector;
 import org.apache.arrow.vector.DateMilliVector;
@@ -47,6 +57,7 @@ import org.apache.arrow.vector.ipc.ArrowFileReader;
 import org.apache.arrow.vector.ipc.ArrowReader;
 import org.apache.arrow.vector.ipc.ArrowStreamReader;
 import org.apache.arrow.vector.util.Text;
+import org.apache.arrow.vector.util.TransferPair;
 import org.neo4j.graphdb.security.URLAccessChecker;
 import org.neo4j.graphdb.security.URLAccessValidationError;
 import org.neo4j.kernel.api.QueryLanguage;
@@ -62,44 +73,190 @@ public class LoadArrow {
     @Context
     public URLAccessChecker urlAccessChecker;
 
-    private static class ArrowSpliterator extends Spliterators.AbstractSpliterator<LoadDataMapResult> {
+    /**
+     * A record batch detached from the reader: its vectors are transferred, not copied,
+     * so that the reader can load the next batch while this one is still being consumed.
+     */
+    private static class ArrowBatch implements AutoCloseable {
+        private final String[] names;
+        private final FieldVector[] vectors;
+        private final Map<String, Integer> columns;
+        private final int rowCount;
+
+        ArrowBatch(VectorSchemaRoot root, BufferAllocator allocator) {
+            List<FieldVector> fieldVectors = root.getFieldVectors();
+            this.names = new String[fieldVectors.size()];
+            this.vectors = new FieldVector[fieldVectors.size()];
+            this.columns = new HashMap<>(fieldVectors.size() * 2);
+            for (int i = 0; i < vectors.length; i++) {
+                TransferPair transferPair = fieldVectors.get(i).getTransferPair(allocator);
+                transferPair.transfer();
+                vectors[i] = (FieldVector) transferPair.getTo();
+                names[i] = vectors[i].getName();
+                columns.put(names[i], i);
+            }
+            this.rowCount = root.getRowCount();
+        }
+
+        @Override
+        public void close() {
+            for (FieldVector vector : vectors) {
+                vector.close();
+            }
+        }
+    }
+
+    /**
+     * A read-only view of one row of a batch, the values are read from the vectors when they are accessed.
+     */
+    private static class ArrowRow extends AbstractMap<String, Object> {
+        private final ArrowBatch batch;
+        private final int index;
+
+        ArrowRow(ArrowBatch batch, int index) {
+            this.batch = batch;
+            this.index = index;
+        }
+
+        @Override
+        public int size() {
+            return batch.names.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return batch.columns.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer column = batch.columns.get(key);
+            return column == null ? null : read(batch.vectors[column], index);
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super String, ? super Object> action) {
+            for (int i = 0; i < batch.names.length; i++) {
+                action.accept(batch.names[i], read(batch.vectors[i], index));
+            }
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int column;
+
+                        @Override
+                        public boolean hasNext() {
+                            return column < batch.names.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int i = column++;
+                            return new SimpleImmutableEntry<>(batch.names[i], read(batch.vectors[i], index));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return batch.names.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * Streams the rows one record batch at a time.
+     * Splitting hands off the rest of the current batch, or the next one, to a new spliterator,
+     * so that every split is a whole batch that can be consumed independently of the reader.
+     */
+    private static class ArrowSpliterator implements Spliterator<LoadDataMapResult>, AutoCloseable {
 
         private final ArrowReader reader;
-        private final VectorSchemaRoot schemaRoot;
-        private final AtomicInteger counter;
+        private final BufferAllocator allocator;
+        private ArrowBatch batch;
+        private int index;
 
-        public ArrowSpliterator(ArrowReader reader, VectorSchemaRoot schemaRoot) throws IOException {
-            super(Long.MAX_VALUE, Spliterator.ORDERED);
+        ArrowSpliterator(ArrowReader reader, BufferAllocator allocator) {
             this.reader = reader;
-            this.schemaRoot = schemaRoot;
-            this.counter = new AtomicInteger();
-            this.reader.loadNextBatch();
+            this.allocator = allocator;
         }
 
-        @Override
-        public synchronized boolean tryAdvance(Consumer<? super LoadDataMapResult> action) {
+        private ArrowSpliterator(ArrowBatch batch, int index) {
+            this(null, null);
+            this.batch = batch;
+            this.index = index;
+        }
+
+        private ArrowBatch nextBatch() {
+            if (reader == null) return null;
             try {
-                if (counter.get() >= schemaRoot.getRowCount()) {
-                    if (reader.loadNextBatch()) {
-                        counter.set(0);
-                    } else {
-                        return false;
-                    }
-                }
-                final Map<String, Object> row = schemaRoot.getFieldVectors().stream()
-                        .collect(
-                                HashMap::new,
-                                (map, fieldVector) -> map.put(fieldVector.getName(), read(fieldVector, counter.get())),
-                                HashMap::putAll); // please look at https://bugs.openjdk.java.net/browse/JDK-8148463
-                counter.incrementAndGet();
-                action.accept(new LoadDataMapResult(row));
-                return true;
-            } catch (Exception e) {
-                return false;
+                return reader.loadNextBatch() ? new ArrowBatch(reader.getVectorSchemaRoot(), allocator) : null;
+            } catch (IOException e) {
+                throw new RuntimeException("Error while reading the Arrow record batch: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super LoadDataMapResult> action) {
+            while (batch == null || index >= batch.rowCount) {
+                close();
+                batch = nextBatch();
+                if (batch == null) return false;
+                index = 0;
+            }
+            action.accept(new LoadDataMapResult(new ArrowRow(batch, index++)));
+            return true;
+        }
+
+        @Override
+        public Spliterator<LoadDataMapResult> trySplit() {
+            if (batch != null && index < batch.rowCount) {
+                ArrowSpliterator prefix = new ArrowSpliterator(batch, index);
+                batch = null;
+                return prefix;
+            }
+            close();
+            ArrowBatch next = nextBatch();
+            return next == null ? null : new ArrowSpliterator(next, 0);
+        }
+
+        @Override
+        public long estimateSize() {
+            return reader == null && batch != null ? batch.rowCount - index : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return reader == null ? ORDERED | SIZED | SUBSIZED : ORDERED;
+        }
+
+        @Override
+        public void close() {
+            if (batch != null) {
+                batch.close();
+                batch = null;
             }
         }
     }
 
+    private static Stream<LoadDataMapResult> toStream(
+            ArrowReader reader, BufferAllocator allocator, AutoCloseable source) {
+        ArrowSpliterator spliterator = new ArrowSpliterator(reader, allocator);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            Util.close(spliterator);
+            Util.close(reader);
+            Util.close(source);
+            Util.close(allocator);
+        });
+    }
+
     @Procedure(name = "apoc.load.arrow.stream", deprecatedBy = "This procedure is being moved to APOC Extended.")
     @Deprecated
     @QueryLanguageScope(scope = {QueryLanguage.CYPHER_5})
@@ -111,15 +268,7 @@ public class LoadArrow {
             throws IOException {
         RootAllocator allocator = new RootAllocator();
         ByteArrayInputStream inputStream = new ByteArrayInputStream(source);
-        ArrowStreamReader streamReader = new ArrowStreamReader(inputStream, allocator);
-        VectorSchemaRoot schemaRoot = streamReader.getVectorSchemaRoot();
-        return StreamSupport.stream(new ArrowSpliterator(streamReader, schemaRoot), false)
-                .onClose(() -> {
-                    Util.close(allocator);
-                    Util.close(streamReader);
-                    Util.close(schemaRoot);
-                    Util.close(inputStream);
-                });
+        return toStream(new ArrowStreamReader(inputStream, allocator), allocator, inputStream);
     }
 
     @Procedure(name = "apoc.load.arrow", deprecatedBy = "This procedure is being moved to APOC Extended.")
@@ -131,18 +280,26 @@ public class LoadArrow {
             @Name(value = "config", defaultValue = "{}", description = "This value is never used.")
                     Map<String, Object> config)
             throws IOException, URISyntaxException, URLAccessValidationError {
-        final SeekableByteChannel channel = FileUtils.inputStreamFor(fileName, null, null, null, urlAccessChecker)
-                .asChannel();
+        final SeekableByteChannel channel = channelFor(fileName);
         RootAllocator allocator = new RootAllocator();
-        ArrowFileReader streamReader = new ArrowFileReader(channel, allocator);
-        VectorSchemaRoot schemaRoot = streamReader.getVectorSchemaRoot();
-        return StreamSupport.stream(new ArrowSpliterator(streamReader, schemaRoot), false)
-                .onClose(() -> {
-                    Util.close(allocator);
-                    Util.close(streamReader);
-                    Util.close(schemaRoot);
-                    Util.close(channel);
-                });
+        return toStream(new ArrowFileReader(channel, allocator), allocator, channel);
+    }
+
+    /**
+     * Local files are read through a file channel, so that the record batches are loaded one at a time
+     * straight into off-heap buffers, other sources are still buffered in memory.
+     */
+    private SeekableByteChannel channelFor(String fileName)
+            throws IOException, URISyntaxException, URLAccessValidationError {
+        final String url = FileUtils.changeFileUrlIfImportDirectoryConstrained(fileName, urlAccessChecker);
+        if (FileUtils.isFile(url) && !ArchiveType.from(url).isArchive()) {
+            StreamConnection connection = Util.getStreamConnection(url, null, null, urlAccessChecker);
+            if (connection instanceof StreamConnection.FileStreamConnection fileConnection) {
+                return FileChannel.open(fileConnection.getFile().toPath(), StandardOpenOption.READ);
+            }
+        }
+        return FileUtils.inputStreamFor(fileName, null, null, null, urlAccessChecker)
+                .asChannel();
     }
 
     private static Object read(FieldVector fieldVector, int index) {
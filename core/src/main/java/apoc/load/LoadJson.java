@@ -25,6 +25,7 @@ import apoc.result.LoadDataMapResult;
 import apoc.result.ObjectResult;
 import apoc.util.CompressionAlgo;
 import apoc.util.JsonUtil;
+import apoc.util.StreamingJsonPath;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -68,9 +69,12 @@ public class LoadJson {
                     }
                     """)
                     Map<String, Object> config) {
-        return JsonUtil.loadJson(
-                        url, null, null, path, true, (List<String>) config.get("pathOptions"), urlAccessChecker)
+        return JsonUtil.loadJsonLazily(
+                        url, null, null, path, true, null, (List<String>) config.get("pathOptions"), urlAccessChecker)
                 .flatMap((value) -> {
+                    if (value instanceof StreamingJsonPath.Matches matches) {
+                        return matches.toResults(ObjectResult::new, ObjectResult::new);
+                    }
                     if (value instanceof List) {
                         List list = (List) value;
                         if (list.isEmpty()) return Stream.empty();
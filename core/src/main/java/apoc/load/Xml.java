@@ -30,8 +30,12 @@ import apoc.generate.config.InvalidConfigException;
 import apoc.result.LoadDataMapResult;
 import apoc.util.CompressionAlgo;
 import apoc.util.CompressionConfig;
+import apoc.util.ExpressionCache;
 import apoc.util.FileUtils;
 import apoc.util.StreamConnection;
+import apoc.util.Util;
+import apoc.util.collection.Iterators;
+import apoc.util.collection.PrefetchingIterator;
 import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -42,6 +46,8 @@ import java.nio.charset.Charset;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
@@ -49,20 +55,22 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathFactory;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.neo4j.graphdb.Label;
@@ -80,6 +88,7 @@ import org.neo4j.procedure.TerminationGuard;
 import org.neo4j.procedure.UserFunction;
 import org.w3c.dom.CharacterData;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -89,11 +98,16 @@ import org.xml.sax.SAXParseException;
 public class Xml {
 
     private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+    // apoc.load.xml keeps CDATA sections apart from the surrounding text, as the DOM parser does
+    private static final XMLInputFactory LOAD_FACTORY = XMLInputFactory.newFactory();
 
     static {
         FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
         FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
         FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        LOAD_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, false);
+        LOAD_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        LOAD_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
     }
 
     @Context
@@ -189,31 +203,22 @@ public class Xml {
 
     private Stream<LoadDataMapResult> parse(InputStream data, boolean simpleMode, String path, boolean failOnError)
             throws Exception {
+        path = StringUtils.isEmpty(path) ? "/" : path;
+        XmlLocationPath locationPath = XmlLocationPath.compile(path);
+        if (locationPath != null) {
+            return parseStreaming(data, simpleMode, locationPath, failOnError);
+        }
         List<LoadDataMapResult> result = new ArrayList<>();
         try {
-            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            documentBuilderFactory.setNamespaceAware(true);
-            documentBuilderFactory.setIgnoringElementContentWhitespace(true);
-            documentBuilderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-            documentBuilder.setEntityResolver((publicId, systemId) -> new InputSource(new StringReader("")));
-
-            Document doc = documentBuilder.parse(data);
-            XPathFactory xPathFactory = XPathFactory.newInstance();
-
-            XPath xPath = xPathFactory.newXPath();
-
-            path = StringUtils.isEmpty(path) ? "/" : path;
-            XPathExpression xPathExpression = xPath.compile(path);
-            NodeList nodeList = (NodeList) xPathExpression.evaluate(doc, XPathConstants.NODESET);
+            Document doc = newDocumentBuilder().parse(data);
+            XPathExpression xPathExpression = ExpressionCache.getOrCreateXPath(path);
+            NodeList nodeList;
+            synchronized (xPathExpression) {
+                nodeList = (NodeList) xPathExpression.evaluate(doc, XPathConstants.NODESET);
+            }
 
             for (int i = 0; i < nodeList.getLength(); i++) {
-                final Deque<Map<String, Object>> stack = new LinkedList<>();
-
-                handleNode(stack, nodeList.item(i), simpleMode);
-                for (int index = 0; index < stack.size(); index++) {
-                    result.add(new LoadDataMapResult(stack.pollFirst()));
-                }
+                addResults(result, nodeList.item(i), simpleMode);
             }
         } catch (FileNotFoundException e) {
             if (!failOnError) return Stream.of(new LoadDataMapResult(Collections.emptyMap()));
@@ -227,6 +232,198 @@ public class Xml {
         return result.stream();
     }
 
+    private DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        documentBuilderFactory.setIgnoringElementContentWhitespace(true);
+        documentBuilderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+        documentBuilder.setEntityResolver((publicId, systemId) -> new InputSource(new StringReader("")));
+        return documentBuilder;
+    }
+
+    private void addResults(Collection<LoadDataMapResult> result, Node node, boolean simpleMode) {
+        final Deque<Map<String, Object>> stack = new LinkedList<>();
+
+        handleNode(stack, node, simpleMode);
+        for (int index = 0; index < stack.size(); index++) {
+            result.add(new LoadDataMapResult(stack.pollFirst()));
+        }
+    }
+
+    private Stream<LoadDataMapResult> parseStreaming(
+            InputStream data, boolean simpleMode, XmlLocationPath path, boolean failOnError) throws Exception {
+        final XMLStreamReader reader;
+        final DocumentBuilder documentBuilder;
+        try {
+            reader = LOAD_FACTORY.createXMLStreamReader(data);
+            documentBuilder = newDocumentBuilder();
+        } catch (Exception e) {
+            if (!failOnError) return Stream.of(new LoadDataMapResult(Collections.emptyMap()));
+            else throw e;
+        }
+        return Iterators.stream(new StreamingMatches(reader, documentBuilder, path, simpleMode, failOnError))
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (XMLStreamException ignored) {
+                    }
+                    Util.close(data);
+                });
+    }
+
+    /**
+     * Yields the elements matched by a simple location path while reading the StAX events.
+     * Only the matched subtrees are built, as DOM fragments, so that they are converted exactly as
+     * with the XPath evaluation, and the other subtrees are skipped without building anything.
+     * With `failOnError: false`, an error ends the stream with an empty map.
+     */
+    private class StreamingMatches extends PrefetchingIterator<LoadDataMapResult> {
+        private final XMLStreamReader reader;
+        private final DocumentBuilder documentBuilder;
+        private final XmlLocationPath path;
+        private final boolean simpleMode;
+        private final boolean failOnError;
+
+        private final Deque<BitSet> states = new ArrayDeque<>();
+        private final Deque<Node> open = new ArrayDeque<>();
+        private final List<Node> matches = new ArrayList<>();
+        private final Deque<LoadDataMapResult> results = new ArrayDeque<>();
+        private final StringBuilder text = new StringBuilder();
+        private Document document;
+        private boolean failed;
+
+        StreamingMatches(
+                XMLStreamReader reader,
+                DocumentBuilder documentBuilder,
+                XmlLocationPath path,
+                boolean simpleMode,
+                boolean failOnError) {
+            this.reader = reader;
+            this.documentBuilder = documentBuilder;
+            this.path = path;
+            this.simpleMode = simpleMode;
+            this.failOnError = failOnError;
+            this.states.push(path.initialState());
+        }
+
+        @Override
+        protected LoadDataMapResult fetchNextOrNull() {
+            try {
+                while (results.isEmpty() && !failed && reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.DTD -> throw generateXmlDoctypeException();
+                        case XMLStreamConstants.START_ELEMENT -> startElement();
+                        case XMLStreamConstants.END_ELEMENT -> endElement();
+                        case XMLStreamConstants.CHARACTERS, XMLStreamConstants.SPACE -> {
+                            if (!open.isEmpty()) {
+                                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                            }
+                        }
+                        case XMLStreamConstants.CDATA -> append(() -> document.createCDATASection(reader.getText()));
+                        case XMLStreamConstants.COMMENT -> append(() -> document.createComment(reader.getText()));
+                        case XMLStreamConstants.PROCESSING_INSTRUCTION -> append(() -> document.createProcessingInstruction(
+                                reader.getPITarget(), Objects.toString(reader.getPIData(), "")));
+                        default -> {}
+                    }
+                }
+            } catch (Exception e) {
+                if (failOnError) {
+                    throw e instanceof RuntimeException re ? re : new RuntimeException(e);
+                }
+                failed = true;
+                results.clear();
+                return new LoadDataMapResult(Collections.emptyMap());
+            }
+            return results.poll();
+        }
+
+        private void startElement() throws XMLStreamException {
+            terminationGuard.check();
+            BitSet state = path.next(states.peek(), reader);
+            boolean matched = path.matches(state, states.size());
+            if (open.isEmpty() && !matched && state.isEmpty()) {
+                skipElement();
+                return;
+            }
+            states.push(state);
+            if (open.isEmpty() && !matched) return;
+
+            if (open.isEmpty()) {
+                document = documentBuilder.newDocument();
+            } else {
+                appendText();
+            }
+            Element element = document.createElementNS(
+                    StringUtils.defaultIfEmpty(reader.getNamespaceURI(), null),
+                    qualifiedName(reader.getPrefix(), reader.getLocalName()));
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                String prefix = reader.getNamespacePrefix(i);
+                element.setAttributeNS(
+                        XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                        qualifiedName(StringUtils.isEmpty(prefix) ? null : XMLConstants.XMLNS_ATTRIBUTE, prefix),
+                        reader.getNamespaceURI(i));
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                element.setAttributeNS(
+                        StringUtils.defaultIfEmpty(reader.getAttributeNamespace(i), null),
+                        qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                        reader.getAttributeValue(i));
+            }
+            if (!open.isEmpty()) {
+                open.peek().appendChild(element);
+            }
+            open.push(element);
+            if (matched) {
+                matches.add(element);
+            }
+        }
+
+        private void skipElement() throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    terminationGuard.check();
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        }
+
+        private void endElement() {
+            states.pop();
+            if (open.isEmpty()) return;
+            appendText();
+            open.pop();
+            if (open.isEmpty()) {
+                for (Node match : matches) {
+                    addResults(results, match, simpleMode);
+                }
+                matches.clear();
+                document = null;
+            }
+        }
+
+        private void append(Supplier<Node> node) {
+            if (open.isEmpty()) return;
+            appendText();
+            open.peek().appendChild(node.get());
+        }
+
+        private void appendText() {
+            if (text.length() > 0) {
+                open.peek().appendChild(document.createTextNode(text.toString()));
+                text.setLength(0);
+            }
+        }
+
+        private String qualifiedName(String prefix, String localName) {
+            return StringUtils.isEmpty(prefix) ? localName : prefix + ":" + localName;
+        }
+    }
+
     private XMLStreamReader getXMLStreamReader(
             Object urlOrBinary, XmlImportConfig config, URLAccessChecker urlAccessChecker)
             throws IOException, XMLStreamException, URISyntaxException, URLAccessValidationError {
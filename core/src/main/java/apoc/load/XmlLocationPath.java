@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.load;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A simple absolute XPath location path, matched against the elements of an {@link XMLStreamReader}
+ * as they are started, so that a document never has to be parsed into a DOM as a whole.
+ *
+ * The supported steps are children (`/a`) and descendants (`//a`) with a name or `*` test,
+ * optionally filtered by attribute predicates (`[@x]`, `[@x='y']`).
+ * As with the JAXP XPath without a namespace context, a name test only matches elements without a namespace.
+ * `/` on its own selects the root element.
+ */
+class XmlLocationPath {
+
+    private record Predicate(String attribute, String value) {
+        boolean matches(XMLStreamReader reader) {
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String namespace = reader.getAttributeNamespace(i);
+                if ((namespace == null || namespace.isEmpty())
+                        && attribute.equals(reader.getAttributeLocalName(i))) {
+                    return value == null || value.equals(reader.getAttributeValue(i));
+                }
+            }
+            return false;
+        }
+    }
+
+    private record Step(boolean descendant, String name, List<Predicate> predicates) {
+        boolean matches(XMLStreamReader reader) {
+            if (!name.equals("*")) {
+                String namespace = reader.getNamespaceURI();
+                if ((namespace != null && !namespace.isEmpty()) || !name.equals(reader.getLocalName())) {
+                    return false;
+                }
+            }
+            for (Predicate predicate : predicates) {
+                if (!predicate.matches(reader)) return false;
+            }
+            return true;
+        }
+    }
+
+    private final Step[] steps;
+
+    private XmlLocationPath(List<Step> steps) {
+        this.steps = steps.toArray(new Step[0]);
+    }
+
+    /**
+     * @return the compiled path, or null if the expression is not in the supported subset
+     */
+    static XmlLocationPath compile(String path) {
+        String expression = path.trim();
+        if (expression.equals("/")) return new XmlLocationPath(List.of());
+        List<Step> steps = new ArrayList<>();
+        int i = 0;
+        int length = expression.length();
+        while (i < length) {
+            if (expression.charAt(i) != '/') return null;
+            boolean descendant = expression.startsWith("//", i);
+            i += descendant ? 2 : 1;
+            int start = i;
+            while (i < length && isNameChar(expression.charAt(i))) i++;
+            String name = expression.substring(start, i);
+            if (name.isEmpty() && i < length && expression.charAt(i) == '*') {
+                name = "*";
+                i++;
+            }
+            if (name.isEmpty() || Character.isDigit(name.charAt(0)) || name.charAt(0) == '-' || name.charAt(0) == '.') {
+                return null;
+            }
+            List<Predicate> predicates = new ArrayList<>();
+            while (i < length && expression.charAt(i) == '[') {
+                int end = expression.indexOf(']', i);
+                if (end < 0) return null;
+                Predicate predicate = predicate(expression.substring(i + 1, end).trim());
+                if (predicate == null) return null;
+                predicates.add(predicate);
+                i = end + 1;
+            }
+            steps.add(new Step(descendant, name, predicates));
+        }
+        return steps.isEmpty() ? null : new XmlLocationPath(steps);
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.';
+    }
+
+    private static Predicate predicate(String content) {
+        if (content.isEmpty() || content.charAt(0) != '@') return null;
+        int i = 1;
+        while (i < content.length() && isNameChar(content.charAt(i))) i++;
+        String attribute = content.substring(1, i);
+        if (attribute.isEmpty()) return null;
+        String rest = content.substring(i).trim();
+        if (rest.isEmpty()) return new Predicate(attribute, null);
+        if (rest.charAt(0) != '=') return null;
+        String literal = rest.substring(1).trim();
+        if (literal.length() < 2) return null;
+        char quote = literal.charAt(0);
+        if ((quote != '\'' && quote != '"') || literal.charAt(literal.length() - 1) != quote) return null;
+        String value = literal.substring(1, literal.length() - 1);
+        return value.indexOf(quote) >= 0 ? null : new Predicate(attribute, value);
+    }
+
+    /**
+     * The state of the document node, before its root element.
+     */
+    BitSet initialState() {
+        BitSet state = new BitSet(steps.length + 1);
+        state.set(0);
+        return state;
+    }
+
+    /**
+     * Computes the state of the element the reader is positioned at from the state of its parent:
+     * the set of steps which still have to be matched by the element or by its descendants.
+     */
+    BitSet next(BitSet parent, XMLStreamReader reader) {
+        BitSet state = new BitSet(steps.length + 1);
+        for (int k = parent.nextSetBit(0); k >= 0 && k < steps.length; k = parent.nextSetBit(k + 1)) {
+            Step step = steps[k];
+            if (step.descendant()) state.set(k);
+            if (step.matches(reader)) state.set(k + 1);
+        }
+        return state;
+    }
+
+    /**
+     * @param depth the depth of the element, 1 for the root element
+     */
+    boolean matches(BitSet state, int depth) {
+        return steps.length == 0 ? depth == 1 : state.get(steps.length);
+    }
+}
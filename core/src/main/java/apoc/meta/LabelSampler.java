@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.meta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.neo4j.common.EntityType;
+import org.neo4j.internal.kernel.api.InternalIndexState;
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
+import org.neo4j.internal.kernel.api.PartitionedScan;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.TokenPredicate;
+import org.neo4j.internal.kernel.api.TokenReadSession;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.internal.schema.SchemaDescriptors;
+import org.neo4j.kernel.api.ExecutionContext;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.token.api.TokenConstants;
+
+/**
+ * Samples the nodes of labels through the label index, one label per thread.
+ *
+ * The index entries of a label are split into up to as many partitions, i.e. ranges of node ids, as nodes to sample.
+ * The nodes of every partition are sampled with a stride over its entries, and the partition is left as soon as
+ * it has its share of samples: the nodes in between are skipped by seeking into the next range instead of being read.
+ * The execution contexts of the sampling threads are created and closed by the thread of the transaction,
+ * once all of them are done, the sampling threads only complete them.
+ * A partitioned scan does not see the changes of the transaction, so the sampler is not used when there are any,
+ * nor when there is no online label index.
+ */
+class LabelSampler {
+    // the maximum number of partitions of a label, i.e. of seeks into its index entries
+    private static final int MAX_PARTITIONS = 10_000;
+
+    private final KernelTransaction ktx;
+    private final ExecutorService pool;
+    private final TokenReadSession session;
+
+    LabelSampler(KernelTransaction ktx, ExecutorService pool) {
+        this.ktx = ktx;
+        this.pool = pool;
+        this.session = labelIndexSession(ktx);
+    }
+
+    private static TokenReadSession labelIndexSession(KernelTransaction ktx) {
+        Read read = ktx.dataRead();
+        if (read.transactionStateHasChanges()) {
+            return null;
+        }
+        try {
+            Iterator<IndexDescriptor> indexes =
+                    ktx.schemaRead().index(SchemaDescriptors.forAnyEntityTokens(EntityType.NODE));
+            if (!indexes.hasNext()) {
+                return null;
+            }
+            IndexDescriptor index = indexes.next();
+            if (ktx.schemaRead().indexGetState(index) != InternalIndexState.ONLINE) {
+                return null;
+            }
+            return read.tokenReadSession(index);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param targets the number of nodes to sample per label name
+     * @param counts the number of nodes per label name
+     * @param deadline the time in millis when to stop sampling
+     * @return the ids of the nodes sampled per label name, before the deadline;
+     * the labels which cannot be sampled through the index are missing
+     */
+    Map<String, long[]> sample(Map<String, Long> targets, Map<String, Long> counts, long deadline) {
+        if (session == null) {
+            return Map.of();
+        }
+        List<ExecutionContext> contexts = new ArrayList<>();
+        Map<String, Future<long[]>> futures = new LinkedHashMap<>();
+        AtomicBoolean stopped = new AtomicBoolean();
+        Throwable failure = null;
+        try {
+            for (Map.Entry<String, Long> entry : targets.entrySet()) {
+                String label = entry.getKey();
+                long target = entry.getValue();
+                PartitionedScan<NodeLabelIndexCursor> scan = scan(label, target);
+                if (scan != null) {
+                    long count = counts.getOrDefault(label, target);
+                    ExecutionContext executionContext = ktx.createExecutionContext();
+                    contexts.add(executionContext);
+                    futures.put(
+                            label,
+                            pool.submit(() -> sample(scan, executionContext, target, count, deadline, stopped)));
+                }
+            }
+        } catch (RuntimeException e) {
+            stopped.set(true);
+            failure = e;
+        }
+        Map<String, long[]> sampled = new HashMap<>();
+        boolean interrupted = false;
+        for (Map.Entry<String, Future<long[]>> entry : futures.entrySet()) {
+            while (true) {
+                try {
+                    sampled.put(entry.getKey(), entry.getValue().get());
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    stopped.set(true);
+                } catch (ExecutionException e) {
+                    stopped.set(true);
+                    if (failure == null) failure = e.getCause();
+                    break;
+                }
+            }
+        }
+        contexts.forEach(ExecutionContext::close);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            if (failure == null) failure = new InterruptedException();
+        }
+        if (failure != null) {
+            throw new RuntimeException("Error sampling the labels: " + failure.getMessage(), failure);
+        }
+        return sampled;
+    }
+
+    private PartitionedScan<NodeLabelIndexCursor> scan(String label, long target) {
+        int token = ktx.tokenRead().nodeLabel(label);
+        if (token == TokenConstants.NO_TOKEN || target <= 0) {
+            return null;
+        }
+        try {
+            return ktx.dataRead()
+                    .nodeLabelScan(
+                            session,
+                            (int) Math.min(target, MAX_PARTITIONS),
+                            ktx.cursorContext(),
+                            new TokenPredicate(token));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private long[] sample(
+            PartitionedScan<NodeLabelIndexCursor> scan,
+            ExecutionContext executionContext,
+            long target,
+            long count,
+            long deadline,
+            AtomicBoolean stopped) {
+        int partitions = Math.max(1, scan.getNumberOfPartitions());
+        long perPartition = (target + partitions - 1) / partitions;
+        // the first entries of a partition are clustered ids, its samples are spread over all its entries instead
+        long stride = Math.max(1, count / partitions / perPartition);
+        long[] ids = new long[(int) Math.min(target, 1024)];
+        int size = 0;
+        try (NodeLabelIndexCursor cursor =
+                executionContext.cursors().allocateNodeLabelIndexCursor(executionContext.cursorContext())) {
+            while (size < target
+                    && !stopped.get()
+                    && System.currentTimeMillis() < deadline
+                    && scan.reservePartition(cursor, executionContext)) {
+                long taken = 0;
+                for (long i = 0; taken < perPartition && size < target && cursor.next(); i++) {
+                    if (i % stride != 0) {
+                        continue;
+                    }
+                    if (size == ids.length) {
+                        ids = Arrays.copyOf(ids, size * 2);
+                    }
+                    ids[size++] = cursor.nodeReference();
+                    taken++;
+                }
+            }
+        } finally {
+            executionContext.complete();
+        }
+        return Arrays.copyOf(ids, size);
+    }
+}
@@ -18,11 +18,14 @@
  */
 package apoc.meta;
 
+import static apoc.ApocConfig.apocConfig;
+import static apoc.meta.MetaSchemaHandler.META_SCHEMA_CACHE_ENABLED;
 import static apoc.util.MapUtil.map;
 import static java.lang.String.format;
 import static org.neo4j.token.api.TokenConstants.ANY_LABEL;
 import static org.neo4j.token.api.TokenConstants.ANY_RELATIONSHIP_TYPE;
 
+import apoc.Pools;
 import apoc.export.util.NodesAndRelsSubGraph;
 import apoc.result.GraphResult;
 import apoc.result.VirtualGraph;
@@ -32,6 +35,9 @@ import apoc.util.CollectionUtils;
 import apoc.util.MapUtil;
 import apoc.util.Util;
 import apoc.util.collection.Iterables;
+import apoc.util.collection.Iterators;
+import apoc.util.collection.PrefetchingIterator;
+import apoc.util.collection.ResourceClosingIterator;
 import com.google.common.collect.Sets;
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -49,6 +55,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -58,8 +65,10 @@ import org.neo4j.cypher.export.DatabaseSubGraph;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.ResourceIterator;
@@ -86,6 +95,9 @@ import org.neo4j.procedure.UserFunction;
  * It is part of the APOC (Awesome Procedures on Cypher) library.
  */
 public class MetaRestricted {
+    // the label count from which a sampled label is read through partitioned label index seeks
+    private static final long INDEX_SAMPLING_MIN_COUNT = 100_000;
+
     private record MetadataKey(Types type, String key) {}
 
     @Context
@@ -103,6 +115,12 @@ public class MetaRestricted {
     @Context
     public ProcedureCallContext procedureCallContext;
 
+    @Context
+    public Pools pools;
+
+    @Context
+    public GraphDatabaseService db;
+
     /**
      * Represents the result of a metadata operation.
      */
@@ -462,7 +480,7 @@ public class MetaRestricted {
                             value = "config",
                             defaultValue = "{}",
                             description =
-                                    "Number of nodes to sample, setting sample to `-1` will remove sampling; { sample = 1000 :: INTEGER }")
+                                    "Number of nodes to sample, setting sample to `-1` will remove sampling; { sample = 1000 :: INTEGER, sampleTimeout = -1 :: INTEGER }")
                     Map<String, Object> config) {
         SampleMetaConfig metaConfig = new SampleMetaConfig(config);
         return collectMetaData(DatabaseSubGraph.optimizedForCount(transaction, kernelTx), metaConfig).values().stream()
@@ -479,7 +497,7 @@ public class MetaRestricted {
                             value = "config",
                             defaultValue = "{}",
                             description =
-                                    "Number of nodes to sample, setting sample to `-1` will remove sampling; { sample = 1000 :: INTEGER }")
+                                    "Number of nodes to sample, setting sample to `-1` will remove sampling; { sample = 1000 :: INTEGER, sampleTimeout = -1 :: INTEGER }")
                     Map<String, Object> config) {
         MetaStats metaStats = collectStats();
         SampleMetaConfig metaConfig = new SampleMetaConfig(config);
@@ -525,7 +543,9 @@ public class MetaRestricted {
                     excludeLabels = [] :: LIST<STRING>,
                     excludeRels = [] :: LIST<STRING>,
                     sample = 1000 :: INTEGER,
-                    maxRels = 100 :: INTEGER
+                    sampleTimeout = -1 :: INTEGER,
+                    maxRels = 100 :: INTEGER,
+                    cached = false :: BOOLEAN
             }
             """)
                     Map<String, Object> config) {
@@ -559,7 +579,9 @@ public class MetaRestricted {
                     excludeLabels = [] :: LIST<STRING>,
                     excludeRels = [] :: LIST<STRING>,
                     sample = 1000 :: INTEGER,
-                    maxRels = 100 :: INTEGER
+                    sampleTimeout = -1 :: INTEGER,
+                    maxRels = 100 :: INTEGER,
+                    cached = false :: BOOLEAN
             }
             """)
                     Map<String, Object> config) {
@@ -605,6 +627,18 @@ public class MetaRestricted {
             }
         }
 
+        if (config.isCached()) {
+            if (!apocConfig().getConfig().getBoolean(META_SCHEMA_CACHE_ENABLED, false)) {
+                throw new RuntimeException(MetaSchemaHandler.NOT_ENABLED_ERROR);
+            }
+            // until the cache is computed, the graph is sampled as usual
+            MetaSchemaHandler handler = MetaSchemaHandler.forDatabase(db.databaseName());
+            Tables4LabelsProfile cached = handler == null ? null : handler.profile(config);
+            if (cached != null) {
+                return cached.finished();
+            }
+        }
+
         // Get label counts from the label count store
         Map<String, Long> countStore = getLabelCountStore(transaction, kernelTx);
 
@@ -614,7 +648,8 @@ public class MetaRestricted {
         Set<String> includeRels = config.getIncludeRels();
         Set<String> excludeRels = config.getExcludeRels();
 
-        // Iterate over labels in the graph
+        // Choose the labels to look at and how many of their nodes to skip
+        Map<Label, Long> strides = new LinkedHashMap<>();
         for (Label label : tx.getAllLabelsInUse()) {
             String labelName = label.name();
 
@@ -622,31 +657,35 @@ public class MetaRestricted {
                 // Skip if explicitly excluded or at least 1 include specified and not included
 
                 long labelCount = countStore.get(labelName);
-                long sample = getSampleForLabelCount(labelCount, config.getSample());
-
-                try (ResourceIterator<Node> nodes = tx.findNodes(label)) {
-                    int count = 1;
-                    while (nodes.hasNext()) {
-                        Node node = nodes.next();
-                        if (count++ % sample == 0) {
-                            final Set<Boolean> skips = StreamSupport
-                                    // we analyze the node for each its relationship type
-                                    .stream(node.getRelationshipTypes().spliterator(), false)
-                                    .map(rel -> excludeRels.contains(
-                                                    rel.name()) // we skip a node when the user said that must be
-                                            // excluded
-                                            // or when the user provided and inclusion list, but it's not in the
-                                            // provided list
-                                            || (!includeRels.isEmpty() && !includeRels.contains(rel.name())))
-                                    .collect(Collectors.toSet());
-                            // if the Set has just one element and is true we skip the node
-                            // if there are two elements [true, false] we don't skip it as give it means that
-                            // it have a relationship that satisfies the condition provided
-                            // by the configuration
-                            if (skips.size() == 1 && skips.iterator().next()) continue;
-                            profile.observe(node, config);
-                        }
-                    }
+                strides.put(label, getSampleForLabelCount(labelCount, config.getSample()));
+            }
+        }
+        long deadline = config.getSampleMetaConfig().getSampleDeadline();
+        Map<String, long[]> sampled = sampleNodes(strides, countStore, deadline);
+
+        // Iterate over labels in the graph
+        for (Map.Entry<Label, Long> entry : strides.entrySet()) {
+            Label label = entry.getKey();
+            try (ResourceIterator<Node> nodes =
+                    nodesToExamine(label, entry.getValue(), sampled, () -> tx.findNodes(label), deadline)) {
+                while (nodes.hasNext()) {
+                    Node node = nodes.next();
+                    final Set<Boolean> skips = StreamSupport
+                            // we analyze the node for each its relationship type
+                            .stream(node.getRelationshipTypes().spliterator(), false)
+                            .map(rel -> excludeRels.contains(
+                                            rel.name()) // we skip a node when the user said that must be
+                                    // excluded
+                                    // or when the user provided and inclusion list, but it's not in the
+                                    // provided list
+                                    || (!includeRels.isEmpty() && !includeRels.contains(rel.name())))
+                            .collect(Collectors.toSet());
+                    // if the Set has just one element and is true we skip the node
+                    // if there are two elements [true, false] we don't skip it as give it means that
+                    // it have a relationship that satisfies the condition provided
+                    // by the configuration
+                    if (skips.size() == 1 && skips.iterator().next()) continue;
+                    profile.observe(node, config);
                 }
             }
         }
@@ -671,20 +710,28 @@ public class MetaRestricted {
             relConstraints.put(type.name(), graph.getConstraints(type));
             relIndexes.put(type.name(), getIndexedProperties(graph.getIndexes(type)));
         }
+        Map<Label, Long> strides = new LinkedHashMap<>();
+        Map<String, Long> labelCounts = new HashMap<>();
         for (Label label : graph.getAllLabelsInUse()) {
+            long labelCount = graph.countsForNode(label);
+            labelCounts.put(label.name(), labelCount);
+            strides.put(label, getSampleForLabelCount(labelCount, config.getSample()));
+        }
+        long deadline = config.getSampleDeadline();
+        Map<String, long[]> sampled =
+                graph instanceof DatabaseSubGraph ? sampleNodes(strides, labelCounts, deadline) : Map.of();
+        for (Map.Entry<Label, Long> entry : strides.entrySet()) {
+            Label label = entry.getKey();
             Map<String, MetaItem> nodeMeta = new LinkedHashMap<>(50);
             String labelName = label.name();
             // workaround in case of duplicated keys
             metaData.put(new MetadataKey(Types.NODE, labelName), nodeMeta);
             Iterable<ConstraintDefinition> constraints = graph.getConstraints(label);
             Set<String> indexed = getIndexedProperties(graph.getIndexes(label));
-            long labelCount = graph.countsForNode(label);
-            long sample = getSampleForLabelCount(labelCount, config.getSample());
-            Iterator<Node> nodes = graph.findNodes(label);
-            int count = 1;
-            while (nodes.hasNext()) {
-                Node node = nodes.next();
-                if (count++ % sample == 0) {
+            try (ResourceIterator<Node> nodes =
+                    nodesToExamine(label, entry.getValue(), sampled, () -> graph.findNodes(label), deadline)) {
+                while (nodes.hasNext()) {
+                    Node node = nodes.next();
                     addRelationships(metaData, nodeMeta, labelName, node, relConstraints, types, relIndexes);
                     addProperties(nodeMeta, labelName, constraints, indexed, node, node);
                 }
@@ -693,6 +740,71 @@ public class MetaRestricted {
         return metaData;
     }
 
+    /**
+     * Samples the labels with a stride through the label index, in parallel,
+     * so that the nodes which are skipped are not read at all.
+     * Small labels are cheap to iterate, so they keep being sampled with the exact stride.
+     */
+    private Map<String, long[]> sampleNodes(Map<Label, Long> strides, Map<String, Long> labelCounts, long deadline) {
+        Map<String, Long> targets = new HashMap<>();
+        strides.forEach((label, stride) -> {
+            long labelCount = labelCounts.get(label.name());
+            if (stride > 1 && labelCount >= INDEX_SAMPLING_MIN_COUNT) {
+                targets.put(label.name(), (labelCount + stride - 1) / stride);
+            }
+        });
+        if (targets.isEmpty()) {
+            return Map.of();
+        }
+        return new LabelSampler(kernelTx, pools.getDefaultExecutorService()).sample(targets, labelCounts, deadline);
+    }
+
+    /**
+     * The nodes of the label to examine: the sampled ones still existing if the label index could be sampled,
+     * otherwise every stride-th node of the label, until the deadline.
+     */
+    private ResourceIterator<Node> nodesToExamine(
+            Label label,
+            long stride,
+            Map<String, long[]> sampled,
+            Supplier<Iterator<Node>> nodesOfLabel,
+            long deadline) {
+        long[] ids = sampled.get(label.name());
+        if (ids != null) {
+            return Iterators.asResourceIterator(Arrays.stream(ids)
+                    .mapToObj(this::sampledNode)
+                    .filter(Objects::nonNull)
+                    .iterator());
+        }
+        Iterator<Node> nodes = nodesOfLabel.get();
+        Iterator<Node> examined = new PrefetchingIterator<>() {
+            private long count = 1;
+
+            @Override
+            protected Node fetchNextOrNull() {
+                while (nodes.hasNext() && System.currentTimeMillis() < deadline) {
+                    Node node = nodes.next();
+                    if (count++ % stride == 0) {
+                        return node;
+                    }
+                }
+                return null;
+            }
+        };
+        return ResourceClosingIterator.newResourceIterator(examined, Iterators.asResourceIterator(nodes));
+    }
+
+    /**
+     * @return the sampled node, or null if it has been deleted since it was sampled
+     */
+    private Node sampledNode(long id) {
+        try {
+            return transaction.getNodeById(id);
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
     private Set<String> getIndexedProperties(Iterable<IndexDefinition> indexes) {
         return Iterables.stream(indexes)
                 .map(IndexDefinition::getPropertyKeys)
@@ -0,0 +1,692 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.meta;
+
+import apoc.ApocConfig;
+import apoc.meta.tablesforlabels.OrderedLabels;
+import apoc.meta.tablesforlabels.PropertyTracker;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+
+/**
+ * Keeps the meta schema of a whole database, i.e. for every label set and for every relationship type
+ * between label sets the number of entities and the number of values of each type of each property,
+ * up to date from the changes of every transaction, so that `apoc.meta.nodeTypeProperties`
+ * and `apoc.meta.relTypeProperties` can be answered with `cached: true` without sampling the graph.
+ *
+ * The counts are computed with a full scan in the background on startup, and then changed by every transaction:
+ * the entities it changes are removed as they were before it and added as they are after it.
+ * Since the key of a relationship includes the labels of its nodes,
+ * the relationships of a node whose labels change are changed too,
+ * and the nodes of the relationships a transaction changes are locked until it is committed.
+ *
+ * The full scan does not stop the transactions: it reads the nodes in the order of their ids,
+ * and the changes of a transaction committed meanwhile are split by the node the scan reads them from,
+ * i.e. the node itself or the start node of a relationship.
+ * They are added to the result of the scan only for the nodes it had already read when they were committed.
+ * The full scan is repeated every `apoc.meta.schema.cache.refreshInterval` ms to reconcile the counts
+ * with the graph, always at a low thread priority, and retried with an exponential backoff when it fails.
+ */
+public class MetaSchemaHandler extends LifecycleAdapter
+        implements TransactionEventListener<MetaSchemaHandler.Changes> {
+
+    public static final String META_SCHEMA_CACHE_ENABLED = "apoc.meta.schema.cache.enabled";
+    // how often the counts are computed again with a full scan, in milliseconds
+    public static final String META_SCHEMA_CACHE_REFRESH_INTERVAL = "apoc.meta.schema.cache.refreshInterval";
+
+    public static final String NOT_ENABLED_ERROR = "The meta schema cache has not been enabled."
+            + " Set '" + META_SCHEMA_CACHE_ENABLED + "=true' in your apoc.conf file"
+            + " located in the $NEO4J_HOME/conf/ directory.";
+
+    // how often the background job checks whether a full scan is due
+    private static final long MAINTENANCE_MILLIS = 1000;
+    // the delay before retrying a failed full scan, doubled on every further failure up to the maximum
+    private static final long MIN_RETRY_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 300_000;
+
+    // the running handlers by database name, looked up only by the calls with `cached: true`,
+    // so that the other apoc.meta procedures do not depend on the cache being enabled
+    private static final Map<String, MetaSchemaHandler> HANDLERS = new ConcurrentHashMap<>();
+
+    private final GraphDatabaseAPI db;
+    private final DatabaseManagementService databaseManagementService;
+    private final ApocConfig apocConfig;
+    private final Log log;
+    private final JobScheduler jobScheduler;
+
+    // guarded by this
+    private Counts counts;
+    private boolean ready;
+    private long nextScan;
+    private long retryDelay = MIN_RETRY_MILLIS;
+
+    // the full scan in progress, or else the last one
+    private volatile Scan scan = Scan.none();
+
+    private volatile boolean running;
+    private JobHandle maintenanceHandle;
+
+    public MetaSchemaHandler(
+            GraphDatabaseAPI db,
+            DatabaseManagementService databaseManagementService,
+            ApocConfig apocConfig,
+            Log log,
+            JobScheduler jobScheduler) {
+        this.db = db;
+        this.databaseManagementService = databaseManagementService;
+        this.apocConfig = apocConfig;
+        this.log = log;
+        this.jobScheduler = jobScheduler;
+    }
+
+    /**
+     * @return the handler of the database, or null if the cache is not enabled or the database is not started
+     */
+    static MetaSchemaHandler forDatabase(String databaseName) {
+        return HANDLERS.get(databaseName);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        HANDLERS.put(db.databaseName(), this);
+        databaseManagementService.registerTransactionEventListener(db.databaseName(), this);
+        maintenanceHandle = jobScheduler.scheduleRecurring(
+                Group.STORAGE_MAINTENANCE, this::maintain, 0, MAINTENANCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        HANDLERS.remove(db.databaseName(), this);
+        databaseManagementService.unregisterTransactionEventListener(db.databaseName(), this);
+        if (maintenanceHandle != null) {
+            maintenanceHandle.cancel();
+        }
+    }
+
+    /**
+     * @return the profile of the entities matching the config, or null while the counts are being computed
+     */
+    public synchronized Tables4LabelsProfile profile(MetaConfig config) {
+        if (!ready) {
+            return null;
+        }
+        Tables4LabelsProfile profile = new Tables4LabelsProfile();
+        counts.nodes.forEach((labels, entities) -> {
+            if (matches(labels, config)) {
+                profile.observeNodes(
+                        new OrderedLabels(labels.stream().map(Label::label).toList()),
+                        entities.count,
+                        entities.propertyTypes);
+            }
+        });
+        counts.rels.forEach((key, entities) -> {
+            // as when sampling, relationships are found from their start nodes
+            if (matches(key.sourceLabels(), config) && config.matches(RelationshipType.withName(key.type()))) {
+                profile.observeRels(
+                        key.sourceLabels(), key.targetLabels(), key.type(), entities.count, entities.propertyTypes);
+            }
+        });
+        return profile;
+    }
+
+    private static boolean matches(List<String> labels, MetaConfig config) {
+        return labels.stream().anyMatch(label -> config.matches(Label.label(label)));
+    }
+
+    @Override
+    public Changes beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) {
+        Scan current = register();
+        // the changes have to be split by node only for a scan still reading them
+        Delta delta = new Delta(data, transaction, !current.done);
+        Counts total;
+        try {
+            total = delta.compute();
+        } catch (RuntimeException e) {
+            // the transaction is not failed because of the cache, which is computed again instead
+            log.warn("Failed to update the meta schema cache of database %s: %s", db.databaseName(), e);
+            total = null;
+        }
+        // read last, since the transaction is not visible to the scan until it is committed
+        return new Changes(total, current, current.read, delta.byNode);
+    }
+
+    /**
+     * @return the scan the transaction is counted in until it is committed or rolled back
+     */
+    private Scan register() {
+        while (true) {
+            Scan current = scan;
+            current.inFlight.incrementAndGet();
+            // otherwise a new scan might have stopped waiting for the transactions of this one already
+            if (current == scan) {
+                return current;
+            }
+            current.inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, Changes changes, GraphDatabaseService databaseService) {
+        if (changes == null) return;
+        Scan current = changes.scan();
+        try {
+            synchronized (this) {
+                if (changes.total() == null) {
+                    if (changes.byNode() != null && !current.installed) {
+                        current.failed = true;
+                    }
+                    invalidate();
+                } else if (changes.byNode() == null) {
+                    if (ready) counts.add(changes.total());
+                } else {
+                    // the counts being replaced by the scan are kept up to date until then
+                    if (ready && !current.installed) {
+                        counts.add(changes.total());
+                    }
+                    scanned(current, changes);
+                }
+            }
+        } finally {
+            // only now a new scan can start, since it has to read all of the changes
+            current.inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionData data, Changes changes, GraphDatabaseService databaseService) {
+        if (changes != null) {
+            changes.scan().inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Adds the changes of a transaction committed during the scan for the nodes read before it,
+     * keeps them for the nodes the scan has not read yet, and fails the scan if it was reading one of them.
+     */
+    // guarded by this
+    private void scanned(Scan current, Changes changes) {
+        long reading = current.reading;
+        for (Map.Entry<Long, Counts> entry : changes.byNode().entrySet()) {
+            long node = entry.getKey();
+            if (node <= changes.read()) {
+                // read before the transaction
+                if (!current.installed) {
+                    current.replay.add(entry.getValue());
+                } else if (ready) {
+                    counts.add(entry.getValue());
+                }
+            } else if (current.done ? node > current.read : node > reading) {
+                // not read yet, so added only if the scan ends before reading it
+                if (!current.done) {
+                    current.pending.computeIfAbsent(node, key -> new Counts()).add(entry.getValue());
+                } else if (current.installed && ready) {
+                    counts.add(entry.getValue());
+                }
+            } else if (!current.installed) {
+                // read while the transaction was being committed
+                current.failed = true;
+            } else {
+                invalidate();
+            }
+        }
+        // the pending changes of the nodes read since then are in the scan already
+        current.pending.headMap(current.read, true).clear();
+    }
+
+    // guarded by this
+    private void invalidate() {
+        ready = false;
+        // otherwise the counts are about to be computed again by the scan in progress
+        if (scan.done) {
+            retry();
+        }
+    }
+
+    // guarded by this
+    private void retry() {
+        nextScan = System.currentTimeMillis() + retryDelay;
+        retryDelay = Math.min(retryDelay * 2, MAX_RETRY_MILLIS);
+    }
+
+    private void maintain() {
+        synchronized (this) {
+            if (System.currentTimeMillis() < nextScan) {
+                return;
+            }
+        }
+        Thread thread = Thread.currentThread();
+        int priority = thread.getPriority();
+        thread.setPriority(Thread.MIN_PRIORITY);
+        try {
+            boolean consistent = rebuild();
+            synchronized (this) {
+                if (consistent) {
+                    retryDelay = MIN_RETRY_MILLIS;
+                    nextScan = System.currentTimeMillis()
+                            + apocConfig.getInt(META_SCHEMA_CACHE_REFRESH_INTERVAL, 3_600_000);
+                } else {
+                    retry();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to maintain the meta schema cache of database %s: %s", db.databaseName(), e);
+            synchronized (this) {
+                retry();
+            }
+        } finally {
+            thread.setPriority(priority);
+        }
+    }
+
+    /**
+     * Computes the counts with a full scan, while the transactions committed meanwhile are reconciled with it.
+     *
+     * @return false if the scan could not be made consistent with them and has to be retried
+     */
+    private boolean rebuild() throws InterruptedException {
+        Scan previous = scan;
+        Scan current = new Scan();
+        scan = current;
+        try {
+            // the changes of these transactions are not split by node, so the scan has to read all of them
+            while (previous.inFlight.get() > 0) {
+                if (!running) return false;
+                Thread.sleep(10);
+            }
+            Counts total = new Counts();
+            try (Transaction tx = db.beginTx()) {
+                // the nodes are scanned in the order of their ids
+                for (Node node : tx.getAllNodes()) {
+                    if (!running) return false;
+                    long id = node.getId();
+                    current.reading = id;
+                    List<String> nodeLabels = labels(node);
+                    total.node(nodeLabels, node.getAllProperties(), 1);
+                    for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
+                        // not cached, since they have to be read together with the start node
+                        List<String> endLabels = labels(rel.getEndNode());
+                        total.rel(new RelKey(nodeLabels, endLabels, rel.getType().name()), rel.getAllProperties(), 1);
+                    }
+                    current.read = id;
+                }
+                tx.commit();
+            }
+            synchronized (this) {
+                current.done = true;
+                if (current.failed) {
+                    return false;
+                }
+                // the nodes created after the scan had passed their ids
+                current.pending.tailMap(current.read, false).values().forEach(current.replay::add);
+                current.pending.clear();
+                total.add(current.replay);
+                counts = total;
+                ready = true;
+                current.installed = true;
+            }
+            log.debug("Computed the meta schema cache of database %s", db.databaseName());
+            return true;
+        } finally {
+            synchronized (this) {
+                current.done = true;
+            }
+        }
+    }
+
+    private static List<String> labels(Node node) {
+        List<String> labels = new ArrayList<>();
+        node.getLabels().forEach(label -> labels.add(label.name()));
+        labels.sort(null);
+        return labels;
+    }
+
+    /**
+     * A full scan, and the changes of the transactions committed while it was in progress.
+     */
+    static class Scan {
+        // the transactions counted in this scan that are not committed or rolled back yet
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        // the id of the node being read, and the one of the last node completely read
+        volatile long reading = -1;
+        volatile long read = -1;
+
+        // guarded by the handler, except that done is also read when a transaction is counted in the scan
+        volatile boolean done;
+        boolean failed;
+        boolean installed;
+        final Counts replay = new Counts();
+        final TreeMap<Long, Counts> pending = new TreeMap<>();
+
+        // the scan before the first one
+        static Scan none() {
+            Scan scan = new Scan();
+            scan.done = true;
+            return scan;
+        }
+    }
+
+    /**
+     * The changes of the counts made by a transaction, and if a full scan was in progress when they were computed,
+     * the same changes by the node the scan reads them from.
+     *
+     * @param total null if the changes could not be computed
+     * @param scan the scan the transaction is counted in
+     * @param read the last node read by the scan before the transaction was committed
+     * @param byNode null if the scan was not in progress
+     */
+    record Changes(Counts total, Scan scan, long read, Map<Long, Counts> byNode) {}
+
+    record RelKey(List<String> sourceLabels, List<String> targetLabels, String type) {}
+
+    /**
+     * The entities of a label set or of a relationship type between label sets,
+     * and for each of their properties the number of values of each type.
+     */
+    static class EntityCounts {
+        long count;
+        final Map<String, Map<String, Long>> propertyTypes = new HashMap<>();
+
+        void add(long entities, Map<String, Map<String, Long>> types) {
+            count += entities;
+            types.forEach((key, byType) -> {
+                Map<String, Long> current = propertyTypes.computeIfAbsent(key, k -> new HashMap<>());
+                byType.forEach((type, values) -> {
+                    if (current.merge(type, values, Long::sum) == 0) {
+                        current.remove(type);
+                    }
+                });
+                if (current.isEmpty()) {
+                    propertyTypes.remove(key);
+                }
+            });
+        }
+
+        boolean isEmpty() {
+            return count == 0 && propertyTypes.isEmpty();
+        }
+    }
+
+    /**
+     * The counts of a database, or the change of them made by a transaction, where they can be negative.
+     */
+    static class Counts {
+        final Map<List<String>, EntityCounts> nodes = new HashMap<>();
+        final Map<RelKey, EntityCounts> rels = new HashMap<>();
+
+        void node(List<String> labels, Map<String, Object> properties, int sign) {
+            count(nodes, labels, properties, sign);
+        }
+
+        void rel(RelKey key, Map<String, Object> properties, int sign) {
+            count(rels, key, properties, sign);
+        }
+
+        private static <K> void count(
+                Map<K, EntityCounts> entities, K key, Map<String, Object> properties, int sign) {
+            Map<String, Map<String, Long>> types = new HashMap<>();
+            properties.forEach((property, value) ->
+                    types.put(property, Map.of(PropertyTracker.assignTypeName(value), (long) sign)));
+            add(entities, key, sign, types);
+        }
+
+        void add(Counts delta) {
+            delta.nodes.forEach((key, entities) -> add(nodes, key, entities.count, entities.propertyTypes));
+            delta.rels.forEach((key, entities) -> add(rels, key, entities.count, entities.propertyTypes));
+        }
+
+        private static <K> void add(
+                Map<K, EntityCounts> entities, K key, long count, Map<String, Map<String, Long>> types) {
+            EntityCounts current = entities.computeIfAbsent(key, k -> new EntityCounts());
+            current.add(count, types);
+            if (current.isEmpty()) {
+                entities.remove(key);
+            }
+        }
+    }
+
+    /**
+     * The change of the counts made by a transaction, computed before it commits,
+     * while both the state before it and the one after it can be read.
+     */
+    private static class Delta {
+        private final TransactionData data;
+        private final Transaction tx;
+        private final Counts delta = new Counts();
+        // the changes by the node a full scan reads them from, if they have to be split
+        final Map<Long, Counts> byNode;
+
+        private final Set<Long> createdNodes = new HashSet<>();
+        private final Set<Long> deletedNodes = new HashSet<>();
+        private final Map<Long, List<String>> assignedLabels = new HashMap<>();
+        private final Map<Long, List<String>> removedLabels = new HashMap<>();
+        // the values before the transaction, null if there was none
+        private final Map<Long, Map<String, Object>> nodeProperties = new HashMap<>();
+        private final Map<Long, Map<String, Object>> relationshipProperties = new HashMap<>();
+
+        private final Map<Long, List<String>> before = new HashMap<>();
+        private final Map<Long, List<String>> after = new HashMap<>();
+
+        Delta(TransactionData data, Transaction tx, boolean splitByNode) {
+            this.data = data;
+            this.tx = tx;
+            this.byNode = splitByNode ? new HashMap<>() : null;
+        }
+
+        Counts compute() {
+            data.createdNodes().forEach(node -> createdNodes.add(node.getId()));
+            data.deletedNodes().forEach(node -> deletedNodes.add(node.getId()));
+            for (LabelEntry entry : data.assignedLabels()) {
+                assignedLabels
+                        .computeIfAbsent(entry.node().getId(), id -> new ArrayList<>())
+                        .add(entry.label().name());
+            }
+            for (LabelEntry entry : data.removedLabels()) {
+                removedLabels
+                        .computeIfAbsent(entry.node().getId(), id -> new ArrayList<>())
+                        .add(entry.label().name());
+            }
+            for (PropertyEntry<Node> entry : data.assignedNodeProperties()) {
+                previous(nodeProperties, entry.entity().getId(), entry);
+            }
+            for (PropertyEntry<Node> entry : data.removedNodeProperties()) {
+                previous(nodeProperties, entry.entity().getId(), entry);
+            }
+            for (PropertyEntry<Relationship> entry : data.assignedRelationshipProperties()) {
+                previous(relationshipProperties, entry.entity().getId(), entry);
+            }
+            for (PropertyEntry<Relationship> entry : data.removedRelationshipProperties()) {
+                previous(relationshipProperties, entry.entity().getId(), entry);
+            }
+
+            Set<Long> relabeledNodes = new HashSet<>(assignedLabels.keySet());
+            relabeledNodes.addAll(removedLabels.keySet());
+            relabeledNodes.removeAll(createdNodes);
+            relabeledNodes.removeAll(deletedNodes);
+            Set<Long> changedNodes = new HashSet<>(relabeledNodes);
+            changedNodes.addAll(nodeProperties.keySet());
+            changedNodes.removeAll(createdNodes);
+            changedNodes.removeAll(deletedNodes);
+
+            createdNodes.forEach(id -> addAfter(id));
+            deletedNodes.forEach(id -> removeBefore(id));
+            for (long id : changedNodes) {
+                removeBefore(id);
+                addAfter(id);
+            }
+
+            Set<Long> seen = new HashSet<>();
+            List<Relationship> changedRels = new ArrayList<>();
+            for (Relationship rel : data.createdRelationships()) {
+                seen.add(rel.getId());
+                changedRels.add(rel);
+            }
+            for (Relationship rel : data.deletedRelationships()) {
+                seen.add(rel.getId());
+                changedRels.add(rel);
+            }
+            List<Relationship> rekeyedRels = new ArrayList<>();
+            for (long id : relationshipProperties.keySet()) {
+                if (seen.add(id)) {
+                    rekeyedRels.add(tx.getRelationshipById(id));
+                }
+            }
+            for (long id : relabeledNodes) {
+                for (Relationship rel : tx.getNodeById(id).getRelationships()) {
+                    if (seen.add(rel.getId())) {
+                        rekeyedRels.add(rel);
+                    }
+                }
+            }
+            changedRels.addAll(rekeyedRels);
+            lockNodes(changedRels);
+
+            for (Relationship rel : data.createdRelationships()) {
+                addAfter(rel);
+            }
+            for (Relationship rel : data.deletedRelationships()) {
+                removeBefore(rel);
+            }
+            for (Relationship rel : rekeyedRels) {
+                removeBefore(rel);
+                addAfter(rel);
+            }
+            if (byNode != null) {
+                byNode.values().forEach(delta::add);
+            }
+            return delta;
+        }
+
+        /**
+         * Takes a shared lock on the nodes of the relationships, whose labels are part of their keys,
+         * so that no other transaction changes them until this one is committed.
+         * The nodes are locked in the order of their ids, so that two transactions doing it do not deadlock.
+         */
+        private void lockNodes(List<Relationship> rels) {
+            Set<Long> nodes = new TreeSet<>();
+            for (Relationship rel : rels) {
+                nodes.add(rel.getStartNodeId());
+                nodes.add(rel.getEndNodeId());
+            }
+            nodes.removeAll(deletedNodes);
+            for (long id : nodes) {
+                tx.acquireReadLock(tx.getNodeById(id));
+            }
+        }
+
+        private Counts at(long node) {
+            return byNode == null ? delta : byNode.computeIfAbsent(node, key -> new Counts());
+        }
+
+        private void previous(Map<Long, Map<String, Object>> properties, long id, PropertyEntry<?> entry) {
+            properties.computeIfAbsent(id, key -> new HashMap<>()).put(entry.key(), entry.previouslyCommittedValue());
+        }
+
+        private void addAfter(long id) {
+            at(id).node(afterLabels(id), tx.getNodeById(id).getAllProperties(), 1);
+        }
+
+        private void removeBefore(long id) {
+            Map<String, Object> properties = new HashMap<>();
+            if (!deletedNodes.contains(id)) {
+                properties.putAll(tx.getNodeById(id).getAllProperties());
+            }
+            restore(properties, nodeProperties.get(id));
+            at(id).node(beforeLabels(id), properties, -1);
+        }
+
+        private void addAfter(Relationship rel) {
+            RelKey key = new RelKey(
+                    afterLabels(rel.getStartNodeId()),
+                    afterLabels(rel.getEndNodeId()),
+                    rel.getType().name());
+            at(rel.getStartNodeId()).rel(key, rel.getAllProperties(), 1);
+        }
+
+        private void removeBefore(Relationship rel) {
+            Map<String, Object> properties = new HashMap<>();
+            if (!data.isDeleted(rel)) {
+                properties.putAll(rel.getAllProperties());
+            }
+            restore(properties, relationshipProperties.get(rel.getId()));
+            RelKey key = new RelKey(
+                    beforeLabels(rel.getStartNodeId()),
+                    beforeLabels(rel.getEndNodeId()),
+                    rel.getType().name());
+            at(rel.getStartNodeId()).rel(key, properties, -1);
+        }
+
+        private List<String> afterLabels(long id) {
+            return after.computeIfAbsent(id, key -> labels(tx.getNodeById(key)));
+        }
+
+        private List<String> beforeLabels(long id) {
+            return before.computeIfAbsent(id, key -> {
+                List<String> labels = new ArrayList<>();
+                if (!deletedNodes.contains(key)) {
+                    labels.addAll(labels(tx.getNodeById(key)));
+                }
+                labels.removeAll(assignedLabels.getOrDefault(key, List.of()));
+                labels.addAll(removedLabels.getOrDefault(key, List.of()));
+                labels.sort(null);
+                return labels;
+            });
+        }
+
+        private static void restore(Map<String, Object> properties, Map<String, Object> previous) {
+            if (previous == null) return;
+            previous.forEach((key, value) -> {
+                if (value == null) {
+                    properties.remove(key);
+                } else {
+                    properties.put(key, value);
+                }
+            });
+        }
+    }
+}
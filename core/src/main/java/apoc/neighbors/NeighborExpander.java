@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.neighbors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.commons.lang3.tuple.Pair;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.neo4j.token.api.TokenConstants;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Expands node ids to the ids of their neighbours with kernel cursors,
+ * so that a traversal never has to go through `Node`, `Relationship` or element ids.
+ *
+ * If a pool is given, large frontiers are partitioned across its threads.
+ * Each worker expands its partition in its own transaction into its own bitmap,
+ * and the bitmaps are OR-merged once the hop is complete.
+ * The workers do not see the uncommitted changes of the transaction, so it is expanded alone if it has any.
+ */
+class NeighborExpander implements AutoCloseable {
+    static final int MIN_PARTITION_SIZE = 1000;
+
+    private final Read read;
+    private final List<RelationshipSelection> selections;
+    private final NodeCursor nodeCursor;
+    private final RelationshipTraversalCursor relationshipCursor;
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+
+    NeighborExpander(KernelTransaction ktx, List<RelationshipSelection> selections) {
+        this(ktx, selections, null, null);
+    }
+
+    NeighborExpander(
+            KernelTransaction ktx,
+            List<RelationshipSelection> selections,
+            GraphDatabaseService db,
+            ExecutorService pool) {
+        this.read = ktx.dataRead();
+        this.selections = selections;
+        this.nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+        this.relationshipCursor = ktx.cursors().allocateRelationshipTraversalCursor(ktx.cursorContext());
+        this.db = db;
+        this.pool = pool;
+    }
+
+    /**
+     * Compiles the parsed rel-direction-pattern into relationship selections on token ids.
+     * As before, a pattern element without both type and direction matches nothing,
+     * and so does a relationship type which does not exist in the database.
+     */
+    static List<RelationshipSelection> selections(
+            TokenRead tokenRead, List<Pair<RelationshipType, Direction>> typesAndDirections) {
+        List<RelationshipSelection> selections = new ArrayList<>(typesAndDirections.size());
+        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
+            Direction direction = pair.getRight();
+            if (pair.getLeft() == null) {
+                if (direction != null) selections.add(RelationshipSelection.selection(direction));
+                continue;
+            }
+            int type = tokenRead.relationshipType(pair.getLeft().name());
+            if (type == TokenConstants.NO_TOKEN) continue;
+            selections.add(RelationshipSelection.selection(type, direction == null ? Direction.BOTH : direction));
+        }
+        return selections;
+    }
+
+    void expand(long nodeId, Roaring64NavigableMap into) {
+        read.singleNode(nodeId, nodeCursor);
+        if (!nodeCursor.next()) return;
+        for (RelationshipSelection selection : selections) {
+            nodeCursor.relationships(relationshipCursor, selection);
+            while (relationshipCursor.next()) {
+                into.addLong(relationshipCursor.otherNodeReference());
+            }
+        }
+    }
+
+    Roaring64NavigableMap expand(Roaring64NavigableMap frontier) {
+        int partitions = pool == null || read.transactionStateHasChanges()
+                ? 1
+                : (int) Math.min(
+                        Runtime.getRuntime().availableProcessors(),
+                        frontier.getLongCardinality() / MIN_PARTITION_SIZE);
+        if (partitions > 1) {
+            return expandInParallel(frontier.toArray(), partitions);
+        }
+        Roaring64NavigableMap next = new Roaring64NavigableMap();
+        LongIterator iterator = frontier.getLongIterator();
+        while (iterator.hasNext()) {
+            expand(iterator.next(), next);
+        }
+        return next;
+    }
+
+    private Roaring64NavigableMap expandInParallel(long[] frontier, int partitions) {
+        List<Future<Roaring64NavigableMap>> futures = new ArrayList<>(partitions);
+        int partitionSize = (frontier.length + partitions - 1) / partitions;
+        for (int from = 0; from < frontier.length; from += partitionSize) {
+            int start = from;
+            int end = Math.min(frontier.length, from + partitionSize);
+            futures.add(pool.submit(() -> {
+                Roaring64NavigableMap next = new Roaring64NavigableMap();
+                try (Transaction tx = db.beginTx();
+                        NeighborExpander worker =
+                                new NeighborExpander(((InternalTransaction) tx).kernelTransaction(), selections)) {
+                    for (int i = start; i < end; i++) {
+                        worker.expand(frontier[i], next);
+                    }
+                    tx.commit();
+                }
+                return next;
+            }));
+        }
+        Roaring64NavigableMap next = new Roaring64NavigableMap();
+        try {
+            for (Future<Roaring64NavigableMap> future : futures) {
+                next.or(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Interrupted while expanding neighbors in parallel", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Error expanding neighbors in parallel: " + e.getMessage(), e);
+        }
+        return next;
+    }
+
+    /**
+     * All nodes within the given distance, excluding the start node.
+     */
+    Roaring64NavigableMap toHop(long startNodeId, long distance) {
+        Roaring64NavigableMap seen = new Roaring64NavigableMap();
+        seen.addLong(startNodeId);
+        Roaring64NavigableMap frontier = new Roaring64NavigableMap();
+        expand(startNodeId, frontier);
+        for (int i = 1; i < distance; i++) {
+            frontier.andNot(seen);
+            seen.or(frontier);
+            frontier = expand(frontier);
+        }
+        seen.or(frontier);
+        seen.removeLong(startNodeId);
+        return seen;
+    }
+
+    /**
+     * The nodes first reached at each distance, the start node is only excluded from the second hop on.
+     */
+    Roaring64NavigableMap[] byHop(long startNodeId, int distance) {
+        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance];
+        seen[0] = new Roaring64NavigableMap();
+        expand(startNodeId, seen[0]);
+        for (int i = 1; i < distance; i++) {
+            seen[i] = expand(seen[i - 1]);
+            for (int j = 0; j < i; j++) {
+                seen[i].andNot(seen[j]);
+            }
+            seen[i].removeLong(startNodeId);
+        }
+        return seen;
+    }
+
+    @Override
+    public void close() {
+        relationshipCursor.close();
+        nodeCursor.close();
+    }
+}
@@ -19,15 +19,16 @@
 package apoc.neighbors;
 
 import static apoc.path.RelationshipTypeAndDirections.parse;
-import static apoc.util.Util.getNodeElementId;
 import static apoc.util.Util.getNodeId;
 
+import apoc.Pools;
+import apoc.util.Util;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.graphdb.*;
+import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
@@ -40,20 +41,42 @@ public class Neighbors {
     @Context
     public Transaction tx;
 
-    private Iterable<Relationship> getRelationshipsByTypeAndDirection(
-            Node node, Pair<RelationshipType, Direction> typesAndDirection) {
-        // as policy if both elements in the pair are null we return an empty result
-        if (typesAndDirection.getLeft() == null) {
-            return typesAndDirection.getRight() == null
-                    ? Collections.emptyList()
-                    : node.getRelationships(typesAndDirection.getRight());
+    @Context
+    public KernelTransaction ktx;
+
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
+
+    private NeighborExpander expander(String types, Map<String, Object> config) {
+        var selections = NeighborExpander.selections(ktx.tokenRead(), parse(types));
+        boolean parallel = Util.toBoolean(config == null ? null : config.get("parallel"));
+        return parallel
+                ? new NeighborExpander(ktx, selections, db, pools.getDefaultExecutorService())
+                : new NeighborExpander(ktx, selections);
+    }
+
+    private long nodeId(Node node) {
+        return getNodeId((InternalTransaction) tx, node.getElementId());
+    }
+
+    private Roaring64NavigableMap toHop(Node node, String types, long distance, Map<String, Object> config) {
+        try (NeighborExpander expander = expander(types, config)) {
+            return expander.toHop(nodeId(node), distance);
         }
-        if (typesAndDirection.getRight() == null) {
-            return typesAndDirection.getLeft() == null
-                    ? Collections.emptyList()
-                    : node.getRelationships(typesAndDirection.getLeft());
+    }
+
+    private Roaring64NavigableMap[] byHop(Node node, String types, long distance, Map<String, Object> config) {
+        try (NeighborExpander expander = expander(types, config)) {
+            return expander.byHop(nodeId(node), (int) distance);
         }
-        return node.getRelationships(typesAndDirection.getRight(), typesAndDirection.getLeft());
+    }
+
+    private Stream<Node> nodes(Roaring64NavigableMap ids) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids.iterator(), Spliterator.SORTED), false)
+                .map(id -> ((InternalTransaction) tx).newNodeEntity(id));
     }
 
     public record NeighborNodeResult(@Description("A neighboring node.") Node node) {}
@@ -71,78 +94,21 @@ public class Neighbors {
                                     "A list of relationship types to follow. Relationship types are represented using APOC's rel-direction-pattern syntax; `[<]RELATIONSHIP_TYPE1[>]|[<]RELATIONSHIP_TYPE2[>]|...`.")
                     String types,
             @Name(value = "distance", defaultValue = "1", description = "The max number of hops to take.")
-                    Long distance) {
+                    Long distance,
+            @Name(
+                            value = "config",
+                            defaultValue = "{}",
+                            description =
+                                    """
+                    {
+                        parallel = false :: BOOLEAN
+                    }
+                    """)
+                    Map<String, Object> config) {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        final long startNodeId = getNodeId((InternalTransaction) tx, node.getElementId());
-
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-        seen.addLong(nodeId);
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                nextB.addLong(
-                        getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        nextA.add(getNodeId(
-                                (InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
-
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                    node = tx.getNodeByElementId(nodeElementId);
-                    for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                        for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                            nextB.add(getNodeId(
-                                    (InternalTransaction) tx,
-                                    r.getOtherNode(node).getElementId()));
-                        }
-                    }
-                }
-            }
-        }
-        if ((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(startNodeId);
-
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(seen.iterator(), Spliterator.SORTED), false)
-                .map(x -> new NeighborNodeResult(tx.getNodeByElementId(getNodeElementId((InternalTransaction) tx, x))));
+        return nodes(toHop(node, types, distance, config)).map(NeighborNodeResult::new);
     }
 
     public record NeighborLongResult(
@@ -160,76 +126,21 @@ public class Neighbors {
                                     "A list of relationship types to follow. Relationship types are represented using APOC's rel-direction-pattern syntax; `[<]RELATIONSHIP_TYPE1[>]|[<]RELATIONSHIP_TYPE2[>]|...`.")
                     String types,
             @Name(value = "distance", defaultValue = "1", description = "The max number of hops to take.")
-                    Long distance) {
+                    Long distance,
+            @Name(
+                            value = "config",
+                            defaultValue = "{}",
+                            description =
+                                    """
+                    {
+                        parallel = false :: BOOLEAN
+                    }
+                    """)
+                    Map<String, Object> config) {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        final long startNodeId = getNodeId((InternalTransaction) tx, node.getElementId());
-
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-        seen.add(nodeId);
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                nextB.add(
-                        getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        nextA.add(getNodeId(
-                                (InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
-
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                    node = tx.getNodeByElementId(nodeElementId);
-                    for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                        for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                            nextB.add(getNodeId(
-                                    (InternalTransaction) tx,
-                                    r.getOtherNode(node).getElementId()));
-                        }
-                    }
-                }
-            }
-        }
-        if ((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(startNodeId);
-
-        return Stream.of(new NeighborLongResult(seen.getLongCardinality()));
+        return Stream.of(new NeighborLongResult(toHop(node, types, distance, config).getLongCardinality()));
     }
 
     public static class NeighbouringNodeListResult {
@@ -253,52 +164,22 @@ public class Neighbors {
                                     "A list of relationship types to follow. Relationship types are represented using APOC's rel-direction-pattern syntax; `[<]RELATIONSHIP_TYPE1[>]|[<]RELATIONSHIP_TYPE2[>]|...`.")
                     String types,
             @Name(value = "distance", defaultValue = "1", description = "The max number of hops to take.")
-                    Long distance) {
+                    Long distance,
+            @Name(
+                            value = "config",
+                            defaultValue = "{}",
+                            description =
+                                    """
+                    {
+                        parallel = false :: BOOLEAN
+                    }
+                    """)
+                    Map<String, Object> config) {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(
-                        getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(getNodeId(
-                                (InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return Arrays.stream(seen)
-                .map(x -> new NeighbouringNodeListResult(StreamSupport.stream(
-                                Spliterators.spliteratorUnknownSize(x.iterator(), Spliterator.SORTED), false)
-                        .map(y -> tx.getNodeByElementId(getNodeElementId((InternalTransaction) tx, y)))
-                        .collect(Collectors.toList())));
+        return Arrays.stream(byHop(node, types, distance, config))
+                .map(ids -> new NeighbouringNodeListResult(nodes(ids).collect(Collectors.toList())));
     }
 
     public record NeighborListResult(
@@ -316,50 +197,24 @@ public class Neighbors {
                                     "A list of relationship types to follow. Relationship types are represented using APOC's rel-direction-pattern syntax; `[<]RELATIONSHIP_TYPE1[>]|[<]RELATIONSHIP_TYPE2[>]|...`.")
                     String types,
             @Name(value = "distance", defaultValue = "1", description = "The max number of hops to take.")
-                    Long distance) {
+                    Long distance,
+            @Name(
+                            value = "config",
+                            defaultValue = "{}",
+                            description =
+                                    """
+                    {
+                        parallel = false :: BOOLEAN
+                    }
+                    """)
+                    Map<String, Object> config) {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(
-                        getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(getNodeId(
-                                (InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        ArrayList counts = new ArrayList<Long>();
-        for (int i = 0; i < distance; i++) {
-            counts.add(seen[i].getLongCardinality());
+        Roaring64NavigableMap[] seen = byHop(node, types, distance, config);
+        List<Object> counts = new ArrayList<>(seen.length);
+        for (Roaring64NavigableMap ids : seen) {
+            counts.add(ids.getLongCardinality());
         }
 
         return Stream.of(new NeighborListResult(counts));
@@ -377,53 +232,22 @@ public class Neighbors {
                             description =
                                     "A list of relationship types to follow. Relationship types are represented using APOC's rel-direction-pattern syntax; `[<]RELATIONSHIP_TYPE1[>]|[<]RELATIONSHIP_TYPE2[>]|...`.")
                     String types,
-            @Name(value = "distance", defaultValue = "1", description = "The number of hops to take.") Long distance) {
+            @Name(value = "distance", defaultValue = "1", description = "The number of hops to take.") Long distance,
+            @Name(
+                            value = "config",
+                            defaultValue = "{}",
+                            description =
+                                    """
+                    {
+                        parallel = false :: BOOLEAN
+                    }
+                    """)
+                    Map<String, Object> config) {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(
-                        getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(getNodeId(
-                                (InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return StreamSupport.stream(
-                        Spliterators.spliteratorUnknownSize(
-                                seen[distance.intValue() - 1].iterator(), Spliterator.SORTED),
-                        false)
-                .map(y -> new NeighboringNodeResult(
-                        tx.getNodeByElementId(getNodeElementId((InternalTransaction) tx, y))));
+        Roaring64NavigableMap[] seen = byHop(node, types, distance, config);
+        return nodes(seen[seen.length - 1]).map(NeighboringNodeResult::new);
     }
 
     public record NeighboursLongResult(
@@ -440,47 +264,21 @@ public class Neighbors {
                             description =
                                     "A list of relationship types to follow. Relationship types are represented using APOC's rel-direction-pattern syntax; `[<]RELATIONSHIP_TYPE1[>]|[<]RELATIONSHIP_TYPE2[>]|...`.")
                     String types,
-            @Name(value = "distance", defaultValue = "1", description = "The number of hops to take.") Long distance) {
+            @Name(value = "distance", defaultValue = "1", description = "The number of hops to take.") Long distance,
+            @Name(
+                            value = "config",
+                            defaultValue = "{}",
+                            description =
+                                    """
+                    {
+                        parallel = false :: BOOLEAN
+                    }
+                    """)
+                    Map<String, Object> config) {
         if (distance < 1) return Stream.empty();
         if (types == null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        String nodeElementId = node.getElementId();
-        long nodeId = getNodeId((InternalTransaction) tx, nodeElementId);
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(
-                        getNodeId((InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                nodeElementId = getNodeElementId((InternalTransaction) tx, iterator.next());
-                node = tx.getNodeByElementId(nodeElementId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(getNodeId(
-                                (InternalTransaction) tx, r.getOtherNode(node).getElementId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return Stream.of(new NeighboursLongResult(seen[distance.intValue() - 1].getLongCardinality()));
+        Roaring64NavigableMap[] seen = byHop(node, types, distance, config);
+        return Stream.of(new NeighboursLongResult(seen[seen.length - 1].getLongCardinality()));
     }
 }
@@ -19,6 +19,9 @@
 package apoc.path;
 
 import java.util.*;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.token.api.TokenConstants;
+import org.neo4j.token.api.TokenSet;
 
 /**
  * A generic label matcher which evaluates whether or not a node has at least one of the labels added on the matcher.
@@ -33,22 +36,38 @@ import java.util.*;
  * Also accepts a special `*` label, indicating that the matcher will always return a positive match.
  * LabelMatchers hold no context about what a match means, and do not handle labels prefixed with filter symbols (+, -, /, &gt;).
  * Please strip these symbols from the start of each label before adding to the matcher.
+ * Once resolved against the label tokens, the matcher can also match the label token ids of a node,
+ * as a bitset of the labels and arrays of the compound labels, without converting them to names.
  */
 public class LabelMatcher {
     private List<String> labels = new ArrayList<>();
     private List<List<String>> compoundLabels;
 
+    // the tokens of the labels, and of the compound labels whose labels all exist
+    private final BitSet labelTokens = new BitSet();
+    private int[][] compoundLabelTokens = new int[0][];
+
     private static LabelMatcher ACCEPTS_ALL_LABEL_MATCHER = new LabelMatcher() {
         @Override
         public boolean matchesLabels(Set<String> nodeLabels) {
             return true;
         }
 
+        @Override
+        public boolean matchesLabels(TokenSet nodeLabels) {
+            return true;
+        }
+
         @Override
         public LabelMatcher addLabel(String label) {
             return this; // no-op
         }
 
+        @Override
+        public boolean resolve(TokenRead tokenRead) {
+            return false;
+        }
+
         @Override
         public boolean isEmpty() {
             return false;
@@ -105,6 +124,69 @@ public class LabelMatcher {
         return false;
     }
 
+    /**
+     * Resolves the labels to their tokens, for {@link #matchesLabels(TokenSet)}.
+     * It has to be called again for the labels which do not exist yet to be matched once they are created.
+     *
+     * @return true if some of the labels do not exist
+     */
+    public boolean resolve(TokenRead tokenRead) {
+        boolean unresolved = false;
+        labelTokens.clear();
+        for (String label : labels) {
+            int token = tokenRead.nodeLabel(label);
+            if (token == TokenConstants.NO_TOKEN) {
+                unresolved = true;
+            } else {
+                labelTokens.set(token);
+            }
+        }
+
+        List<int[]> compoundTokens = new ArrayList<>();
+        if (compoundLabels != null) {
+            for (List<String> compoundLabel : compoundLabels) {
+                int[] tokens = new int[compoundLabel.size()];
+                for (int i = 0; i < tokens.length; i++) {
+                    tokens[i] = tokenRead.nodeLabel(compoundLabel.get(i));
+                }
+                // a node cannot have a label which does not exist
+                if (Arrays.stream(tokens).anyMatch(token -> token == TokenConstants.NO_TOKEN)) {
+                    unresolved = true;
+                } else {
+                    compoundTokens.add(tokens);
+                }
+            }
+        }
+        compoundLabelTokens = compoundTokens.toArray(new int[0][]);
+
+        return unresolved;
+    }
+
+    public boolean matchesLabels(TokenSet nodeLabels) {
+        for (int i = 0; i < nodeLabels.numberOfTokens(); i++) {
+            if (labelTokens.get(nodeLabels.token(i))) {
+                return true;
+            }
+        }
+
+        for (int[] compoundLabel : compoundLabelTokens) {
+            if (containsAll(nodeLabels, compoundLabel)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean containsAll(TokenSet nodeLabels, int[] tokens) {
+        for (int token : tokens) {
+            if (!nodeLabels.contains(token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public boolean isEmpty() {
         return labels.isEmpty() && (compoundLabels == null || compoundLabels.isEmpty());
     }
@@ -22,8 +22,11 @@ import static org.neo4j.graphdb.traversal.Evaluation.*;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Predicate;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.traversal.Evaluation;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.token.api.TokenSet;
 
 /**
  * A matcher for evaluating whether or not a node is accepted by a group of matchers comprised of a denylist, allowlist, endNode and termination node matchers.
@@ -91,25 +94,47 @@ public class LabelMatcherGroup {
         Set<String> nodeLabels = new HashSet<>();
         node.getLabels().forEach(label -> nodeLabels.add(label.name()));
 
-        if (denylistMatcher.matchesLabels(nodeLabels)) {
+        return evaluate(matcher -> matcher.matchesLabels(nodeLabels), belowMinLevel);
+    }
+
+    /**
+     * Evaluates the label tokens of a node, once the matchers are resolved with {@link #resolve(TokenRead)}
+     */
+    public Evaluation evaluate(TokenSet nodeLabels, boolean belowMinLevel) {
+        return evaluate(matcher -> matcher.matchesLabels(nodeLabels), belowMinLevel);
+    }
+
+    private Evaluation evaluate(Predicate<LabelMatcher> matches, boolean belowMinLevel) {
+        if (matches.test(denylistMatcher)) {
             return EXCLUDE_AND_PRUNE;
         }
 
-        if (terminatorNodeMatcher.matchesLabels(nodeLabels)) {
+        if (matches.test(terminatorNodeMatcher)) {
             return belowMinLevel ? EXCLUDE_AND_CONTINUE : INCLUDE_AND_PRUNE;
         }
 
-        if (endNodeMatcher.matchesLabels(nodeLabels)) {
+        if (matches.test(endNodeMatcher)) {
             return belowMinLevel ? EXCLUDE_AND_CONTINUE : INCLUDE_AND_CONTINUE;
         }
 
-        if (allowlistMatcher.isEmpty() || allowlistMatcher.matchesLabels(nodeLabels)) {
+        if (allowlistMatcher.isEmpty() || matches.test(allowlistMatcher)) {
             return endNodesOnly || belowMinLevel ? EXCLUDE_AND_CONTINUE : INCLUDE_AND_CONTINUE;
         }
 
         return EXCLUDE_AND_PRUNE;
     }
 
+    /**
+     * @return true if some of the labels do not exist, see {@link LabelMatcher#resolve(TokenRead)}
+     */
+    public boolean resolve(TokenRead tokenRead) {
+        boolean unresolved = allowlistMatcher.resolve(tokenRead);
+        unresolved |= denylistMatcher.resolve(tokenRead);
+        unresolved |= endNodeMatcher.resolve(tokenRead);
+        unresolved |= terminatorNodeMatcher.resolve(tokenRead);
+        return unresolved;
+    }
+
     public boolean isEndNodesOnly() {
         return endNodesOnly;
     }
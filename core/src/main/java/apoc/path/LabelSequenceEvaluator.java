@@ -23,17 +23,33 @@ import static org.neo4j.graphdb.traversal.Evaluation.INCLUDE_AND_CONTINUE;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.traversal.Evaluation;
 import org.neo4j.graphdb.traversal.Evaluator;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.token.api.TokenSet;
 
-// when no commas present, acts as a pathwide label filter
+/**
+ * When no commas present, acts as a pathwide label filter.
+ *
+ * With a kernel transaction, the label filters are resolved once to label tokens,
+ * and the label token ids of the nodes are read with the ambient node cursor and matched as they are,
+ * instead of building the set of the label names of every visited node.
+ */
 public class LabelSequenceEvaluator implements Evaluator {
     private List<LabelMatcherGroup> sequenceMatchers;
 
+    private final KernelTransaction ktx;
+    // some labels of the filters did not exist yet when they were resolved
+    private boolean unresolved;
+    // the label tokens seen on nodes since then
+    private final BitSet seenLabelTokens = new BitSet();
+
     private Evaluation allowlistAllowedEvaluation;
     private boolean endNodesOnly;
     private boolean filterStartNode;
@@ -42,6 +58,21 @@ public class LabelSequenceEvaluator implements Evaluator {
 
     public LabelSequenceEvaluator(
             String labelSequence, boolean filterStartNode, boolean beginSequenceAtStart, int minLevel) {
+        this(null, labelSequence, filterStartNode, beginSequenceAtStart, minLevel);
+    }
+
+    public LabelSequenceEvaluator(
+            List<String> labelSequenceList, boolean filterStartNode, boolean beginSequenceAtStart, int minLevel) {
+        this(null, labelSequenceList, filterStartNode, beginSequenceAtStart, minLevel);
+    }
+
+    public LabelSequenceEvaluator(
+            KernelTransaction ktx,
+            String labelSequence,
+            boolean filterStartNode,
+            boolean beginSequenceAtStart,
+            int minLevel) {
+        this.ktx = ktx;
         List<String> labelSequenceList;
 
         // parse sequence
@@ -55,7 +86,12 @@ public class LabelSequenceEvaluator implements Evaluator {
     }
 
     public LabelSequenceEvaluator(
-            List<String> labelSequenceList, boolean filterStartNode, boolean beginSequenceAtStart, int minLevel) {
+            KernelTransaction ktx,
+            List<String> labelSequenceList,
+            boolean filterStartNode,
+            boolean beginSequenceAtStart,
+            int minLevel) {
+        this.ktx = ktx;
         initialize(labelSequenceList, filterStartNode, beginSequenceAtStart, minLevel);
     }
 
@@ -80,25 +116,75 @@ public class LabelSequenceEvaluator implements Evaluator {
         }
 
         allowlistAllowedEvaluation = endNodesOnly ? EXCLUDE_AND_CONTINUE : INCLUDE_AND_CONTINUE;
+
+        if (ktx != null) {
+            resolve();
+        }
+    }
+
+    private void resolve() {
+        unresolved = false;
+        for (LabelMatcherGroup group : sequenceMatchers) {
+            unresolved |= group.resolve(ktx.tokenRead());
+        }
     }
 
     @Override
     public Evaluation evaluate(Path path) {
         int depth = path.length();
         Node node = path.endNode();
-        boolean belowMinLevel = depth < minLevel;
 
-        // if start node shouldn't be filtered, exclude/include based on if using termination/endnode filter or not
-        // minLevel evaluator will separately enforce exclusion if we're below minLevel
-        if (depth == 0 && (!filterStartNode || !beginSequenceAtStart)) {
+        if (skipsStartNode(depth)) {
             return allowlistAllowedEvaluation;
         }
 
-        // the user may want the sequence to begin at the start node (default), or the sequence may only apply from the
-        // next node on
-        LabelMatcherGroup matcherGroup =
-                sequenceMatchers.get((beginSequenceAtStart ? depth : depth - 1) % sequenceMatchers.size());
+        if (ktx == null) {
+            return matcherGroup(depth).evaluate(node, depth < minLevel);
+        }
+        // the cursor is shared with the core API, so the labels are only used before calling anything else
+        NodeCursor nodeCursor = ktx.ambientNodeCursor();
+        ktx.dataRead().singleNode(node.getId(), nodeCursor);
+        if (!nodeCursor.next()) {
+            return matcherGroup(depth).evaluate(node, depth < minLevel);
+        }
+        return evaluate(nodeCursor.labels(), depth);
+    }
 
-        return matcherGroup.evaluate(node, belowMinLevel);
+    /**
+     * Evaluates the node with the given label tokens at the given depth, which requires a kernel transaction
+     */
+    Evaluation evaluate(TokenSet nodeLabels, int depth) {
+        if (skipsStartNode(depth)) {
+            return allowlistAllowedEvaluation;
+        }
+        if (unresolved && hasNewLabelTokens(nodeLabels)) {
+            // the labels missing from the filters might have been created since
+            resolve();
+        }
+        return matcherGroup(depth).evaluate(nodeLabels, depth < minLevel);
+    }
+
+    // if start node shouldn't be filtered, exclude/include based on if using termination/endnode filter or not
+    // minLevel evaluator will separately enforce exclusion if we're below minLevel
+    private boolean skipsStartNode(int depth) {
+        return depth == 0 && (!filterStartNode || !beginSequenceAtStart);
+    }
+
+    // the user may want the sequence to begin at the start node (default), or the sequence may only apply from the
+    // next node on
+    private LabelMatcherGroup matcherGroup(int depth) {
+        return sequenceMatchers.get((beginSequenceAtStart ? depth : depth - 1) % sequenceMatchers.size());
+    }
+
+    private boolean hasNewLabelTokens(TokenSet nodeLabels) {
+        boolean hasNew = false;
+        for (int i = 0; i < nodeLabels.numberOfTokens(); i++) {
+            int token = nodeLabels.token(i);
+            if (!seenLabelTokens.get(token)) {
+                seenLabelTokens.set(token);
+                hasNew = true;
+            }
+        }
+        return hasNew;
     }
 }
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.path;
+
+import apoc.result.VirtualPath;
+import apoc.util.QueueUtil;
+import apoc.util.collection.PrefetchingIterator;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.traversal.TraversalBranch;
+import org.neo4j.graphdb.traversal.Uniqueness;
+import org.neo4j.graphdb.traversal.UniquenessFactory;
+import org.neo4j.graphdb.traversal.UniquenessFilter;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.procedure.TerminationGuard;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Expands from many start nodes at once: the start nodes are split into batches,
+ * which a worker per processor takes in turn and expands in its own transaction.
+ *
+ * The workers hand over their paths as ids, the start node id followed by the relationship ids,
+ * through a bounded queue, so that a slow consumer holds them back, and the paths are rebuilt
+ * in the transaction of the procedure. The workers stop as soon as the stream is closed,
+ * which waits for them to finish their current batch, so that none of them outlives the procedure.
+ * The workers do not see the changes of the calling transaction, so the callers only expand in parallel
+ * if it has none, and the paths of different batches are interleaved in no particular order.
+ */
+class ParallelPathExpansion {
+    static final int BATCH_SIZE = 100;
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final long[] DONE = new long[0];
+
+    private final GraphDatabaseService db;
+    private final ExecutorService pool;
+    private final TerminationGuard terminationGuard;
+
+    private final BlockingQueue<long[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean closed;
+
+    ParallelPathExpansion(GraphDatabaseService db, ExecutorService pool, TerminationGuard terminationGuard) {
+        this.db = db;
+        this.pool = pool;
+        this.terminationGuard = terminationGuard;
+    }
+
+    /**
+     * @param expander expands the given batch of start nodes within the given transaction,
+     *                 into the ids of the paths, see {@link #ids(Path)}
+     * @return the ids of the paths of all the batches
+     */
+    Stream<long[]> expand(List<Node> startNodes, BiFunction<Transaction, List<Node>, Stream<long[]>> expander) {
+        List<long[]> batches = new ArrayList<>();
+        for (int from = 0; from < startNodes.size(); from += BATCH_SIZE) {
+            batches.add(startNodes.subList(from, Math.min(startNodes.size(), from + BATCH_SIZE)).stream()
+                    .mapToLong(Node::getId)
+                    .toArray());
+        }
+        int workers = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), batches.size()));
+        AtomicInteger nextBatch = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(pool.submit(() -> {
+                try {
+                    int batch;
+                    while (!closed && failure.get() == null && (batch = nextBatch.getAndIncrement()) < batches.size()) {
+                        expandBatch(batches.get(batch), expander);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    offerDone();
+                }
+            }));
+        }
+        Iterator<long[]> results = new PrefetchingIterator<>() {
+            private int running = workers;
+
+            @Override
+            protected long[] fetchNextOrNull() {
+                while (running > 0) {
+                    long[] ids = take();
+                    if (ids != DONE) return ids;
+                    running--;
+                }
+                Throwable e = failure.get();
+                if (e != null) {
+                    throw new RuntimeException("Error expanding paths in parallel: " + e.getMessage(), e);
+                }
+                return null;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.NONNULL), false)
+                .onClose(() -> close(futures));
+    }
+
+    /**
+     * Stops the workers and waits for them: they leave off at the next path they offer or at the end of their batch
+     */
+    private void close(List<Future<?>> futures) {
+        closed = true;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                return;
+            } catch (ExecutionException | CancellationException ignored) {
+                // the failures of the workers are reported by the stream
+            }
+        }
+    }
+
+    private void expandBatch(long[] startNodeIds, BiFunction<Transaction, List<Node>, Stream<long[]>> expander) {
+        try (Transaction tx = db.beginTx()) {
+            List<Node> startNodes = new ArrayList<>(startNodeIds.length);
+            for (long id : startNodeIds) {
+                startNodes.add(((InternalTransaction) tx).newNodeEntity(id));
+            }
+            try (Stream<long[]> paths = expander.apply(tx, startNodes)) {
+                Iterator<long[]> iterator = paths.iterator();
+                while (iterator.hasNext()) {
+                    if (!offer(iterator.next())) break;
+                }
+            }
+            tx.commit();
+        }
+    }
+
+    /**
+     * Waits for the next ids, as long as the transaction of the procedure is not terminated
+     */
+    private long[] take() {
+        try {
+            long[] ids;
+            while ((ids = queue.poll(QueueUtil.WAIT, QueueUtil.WAIT_UNIT)) == null) {
+                terminationGuard.check();
+            }
+            return ids;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the paths expanded in parallel", e);
+        }
+    }
+
+    /**
+     * Waits for room in the queue, as long as the stream is open: nothing takes from the queue afterwards
+     *
+     * @return false if the stream has been closed
+     */
+    private boolean offer(long[] ids) {
+        try {
+            while (!closed) {
+                if (queue.offer(ids, QueueUtil.WAIT, QueueUtil.WAIT_UNIT)) return true;
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while handing over the paths expanded in parallel", e);
+        }
+    }
+
+    /**
+     * Hands over the end of a worker, even if it failed or was interrupted, so that the stream does not wait for it:
+     * an interrupt does not stop the wait for room in the queue, it is only restored afterwards
+     */
+    private void offerDone() {
+        boolean interrupted = false;
+        while (!closed) {
+            try {
+                if (queue.offer(DONE, QueueUtil.WAIT, QueueUtil.WAIT_UNIT)) break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static long[] ids(Path path) {
+        long[] ids = new long[path.length() + 1];
+        ids[0] = path.startNode().getId();
+        int i = 1;
+        for (Relationship relationship : path.relationships()) {
+            ids[i++] = relationship.getId();
+        }
+        return ids;
+    }
+
+    static Path path(InternalTransaction tx, long[] ids) {
+        VirtualPath path = new VirtualPath(tx.newNodeEntity(ids[0]));
+        for (int i = 1; i < ids.length; i++) {
+            path.addRel(tx.getRelationshipById(ids[i]));
+        }
+        return path;
+    }
+
+    /**
+     * @return true if the uniqueness is shared by the whole traversal, and so has to be shared by the workers
+     */
+    static boolean isGlobal(Uniqueness uniqueness) {
+        return uniqueness == Uniqueness.NODE_GLOBAL || uniqueness == Uniqueness.RELATIONSHIP_GLOBAL;
+    }
+
+    /**
+     * @return true if the uniqueness only applies within each path,
+     * so that the start nodes can be expanded apart with the same results
+     */
+    static boolean isPerPath(Uniqueness uniqueness) {
+        return uniqueness == Uniqueness.NODE_PATH
+                || uniqueness == Uniqueness.RELATIONSHIP_PATH
+                || uniqueness == Uniqueness.NONE;
+    }
+
+    /**
+     * A set of entity ids shared by the workers: a Roaring bitmap per stripe of 65536 consecutive ids,
+     * so that the workers expanding different parts of the graph seldom wait for each other.
+     */
+    static class VisitedSet {
+        private static final int STRIPES = 64;
+        private final Roaring64NavigableMap[] stripes = new Roaring64NavigableMap[STRIPES];
+
+        VisitedSet() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Roaring64NavigableMap();
+            }
+        }
+
+        /**
+         * As a single traversal visits all of its start nodes first, they are visited before any worker starts
+         */
+        static VisitedSet startingWith(List<Node> startNodes) {
+            VisitedSet visited = new VisitedSet();
+            startNodes.forEach(node -> visited.add(node.getId()));
+            return visited;
+        }
+
+        /**
+         * @return true if the id was not in the set yet
+         */
+        boolean add(long id) {
+            Roaring64NavigableMap stripe = stripes[(int) ((id >>> 16) % STRIPES)];
+            synchronized (stripe) {
+                if (stripe.contains(id)) return false;
+                stripe.addLong(id);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * NODE_GLOBAL or RELATIONSHIP_GLOBAL uniqueness across all the workers,
+     * the start nodes of which are distinct and already in the visited set for NODE_GLOBAL
+     */
+    static UniquenessFactory sharedUniqueness(Uniqueness uniqueness, VisitedSet visited) {
+        boolean nodes = uniqueness == Uniqueness.NODE_GLOBAL;
+        return new UniquenessFactory() {
+            @Override
+            public UniquenessFilter create(Object optionalParameter) {
+                return new UniquenessFilter() {
+                    @Override
+                    public boolean checkFirst(TraversalBranch branch) {
+                        return true;
+                    }
+
+                    @Override
+                    public boolean check(TraversalBranch branch) {
+                        return visited.add(nodes ? branch.endNode().getId() : branch.lastRelationship().getId());
+                    }
+
+                    @Override
+                    public boolean checkFull(Path path) {
+                        return true;
+                    }
+                };
+            }
+
+            @Override
+            public boolean eagerStartBranches() {
+                return true;
+            }
+        };
+    }
+}
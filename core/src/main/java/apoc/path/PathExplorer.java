@@ -20,6 +20,7 @@ package apoc.path;
 
 import static apoc.path.PathExplorer.NodeFilter.*;
 
+import apoc.Pools;
 import apoc.algo.Cover;
 import apoc.util.Util;
 import apoc.util.collection.Iterables;
@@ -27,17 +28,20 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.traversal.*;
+import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.NotThreadSafe;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.TerminationGuard;
 
 public class PathExplorer {
     public static final Uniqueness UNIQUENESS = Uniqueness.RELATIONSHIP_PATH;
@@ -46,6 +50,15 @@ public class PathExplorer {
     @Context
     public Transaction tx;
 
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
+
+    @Context
+    public TerminationGuard terminationGuard;
+
     public static class ExpandedPathResult {
         @Description("The expanded path.")
         public Path path;
@@ -115,6 +128,7 @@ public class PathExplorer {
                         filterStartNode = false :: BOOLEAN,
                         limit = -1 :: INTEGER,
                         optional = false :: BOOLEAN,
+                        parallel = false :: BOOLEAN,
                         endNodes :: LIST<NODES>,
                         terminatorNodes:: LIST<NODES>,
                         allowlistNodes:: LIST<NODES>,
@@ -152,6 +166,7 @@ public class PathExplorer {
                         filterStartNode = false :: BOOLEAN,
                         limit = -1 :: INTEGER,
                         optional = false :: BOOLEAN,
+                        parallel = false :: BOOLEAN,
                         endNodes :: LIST<NODES>,
                         terminatorNodes:: LIST<NODES>,
                         allowlistNodes:: LIST<NODES>,
@@ -168,6 +183,10 @@ public class PathExplorer {
             throw new IllegalArgumentException("minLevel can only be 0 or 1 in subgraphNodes()");
         }
 
+        Stream<Node> subgraphNodes = subgraphNodeStream(start, configMap);
+        if (subgraphNodes != null) {
+            return limitAndOptional(subgraphNodes, configMap).map(SubgraphNodeResult::new);
+        }
         return expandConfigPrivate(start, configMap)
                 .map(path -> path == null ? new SubgraphNodeResult(null) : new SubgraphNodeResult(path.endNode()));
     }
@@ -201,6 +220,7 @@ public class PathExplorer {
                         filterStartNode = false :: BOOLEAN,
                         limit = -1 :: INTEGER,
                         optional = false :: BOOLEAN,
+                        parallel = false :: BOOLEAN,
                         endNodes :: LIST<NODES>,
                         terminatorNodes:: LIST<NODES>,
                         allowlistNodes:: LIST<NODES>,
@@ -218,6 +238,14 @@ public class PathExplorer {
             throw new IllegalArgumentException("minLevel can only be 0 or 1 in subgraphAll()");
         }
 
+        try (Stream<Node> nodes = subgraphNodeStream(start, configMap)) {
+            if (nodes != null) {
+                List<Node> subgraphNodes = limitAndOptional(nodes, configMap).collect(Collectors.toList());
+                List<Relationship> subgraphRels =
+                        SubgraphTraversal.relationshipsBetween((InternalTransaction) tx, subgraphNodes);
+                return Stream.of(new SubgraphGraphResult(subgraphNodes, subgraphRels));
+            }
+        }
         List<Node> subgraphNodes =
                 expandConfigPrivate(start, configMap).map(Path::endNode).collect(Collectors.toList());
         List<Relationship> subgraphRels = Cover.coverNodes(subgraphNodes).collect(Collectors.toList());
@@ -259,6 +287,7 @@ public class PathExplorer {
                         filterStartNode = false :: BOOLEAN,
                         limit = -1 :: INTEGER,
                         optional = false :: BOOLEAN,
+                        parallel = false :: BOOLEAN,
                         endNodes :: LIST<NODES>,
                         terminatorNodes:: LIST<NODES>,
                         allowlistNodes:: LIST<NODES>,
@@ -275,6 +304,10 @@ public class PathExplorer {
             throw new IllegalArgumentException("minLevel can only be 0 or 1 in spanningTree()");
         }
 
+        Stream<Path> spanningPaths = spanningPaths(start, configMap);
+        if (spanningPaths != null) {
+            return limitAndOptional(spanningPaths, configMap).map(SpanningPathResult::new);
+        }
         return expandConfigPrivate(start, configMap).map(SpanningPathResult::new);
     }
 
@@ -306,6 +339,50 @@ public class PathExplorer {
         String sequence = (String) config.getOrDefault("sequence", null);
         boolean beginSequenceAtStart = Util.toBoolean(config.getOrDefault("beginSequenceAtStart", true));
 
+        EnumMap<NodeFilter, List<Node>> nodeFilter = nodeFilter(config);
+
+        Uniqueness uniquenessType = getUniqueness(uniqueness);
+        if (isParallel(config, nodes)
+                && (ParallelPathExpansion.isPerPath(uniquenessType)
+                        || (ParallelPathExpansion.isGlobal(uniquenessType) && isDepthIndependent(config)))) {
+            Stream<Path> results = explorePathParallel(
+                    nodes,
+                    relationshipFilter,
+                    labelFilter,
+                    minLevel,
+                    maxLevel,
+                    bfs,
+                    uniquenessType,
+                    filterStartNode,
+                    limit,
+                    nodeFilter,
+                    sequence,
+                    beginSequenceAtStart);
+            return optional ? optionalStream(results) : results;
+        }
+
+        Stream<Path> results = explorePathPrivate(
+                nodes,
+                relationshipFilter,
+                labelFilter,
+                minLevel,
+                maxLevel,
+                bfs,
+                uniquenessType,
+                filterStartNode,
+                limit,
+                nodeFilter,
+                sequence,
+                beginSequenceAtStart);
+
+        if (optional) {
+            return optionalStream(results);
+        } else {
+            return results;
+        }
+    }
+
+    private EnumMap<NodeFilter, List<Node>> nodeFilter(Map<String, Object> config) {
         List<Node> endNodes = Util.nodeList((InternalTransaction) tx, config.get("endNodes"));
         List<Node> terminatorNodes = Util.nodeList((InternalTransaction) tx, config.get("terminatorNodes"));
         List<Node> whitelistNodes =
@@ -337,26 +414,115 @@ public class PathExplorer {
         } else if (blacklistNodes != null && !blacklistNodes.isEmpty()) {
             nodeFilter.put(DENYLIST_NODES, blacklistNodes);
         }
+        return nodeFilter;
+    }
 
-        Stream<Path> results = explorePathPrivate(
-                nodes,
-                relationshipFilter,
-                labelFilter,
-                minLevel,
-                maxLevel,
-                bfs,
-                getUniqueness(uniqueness),
-                filterStartNode,
-                limit,
-                nodeFilter,
-                sequence,
-                beginSequenceAtStart);
+    /**
+     * The nodes of the NODE_GLOBAL breadth-first traversal of the subgraph procedures on kernel cursors,
+     * if the config does not need anything only the traversal framework provides, i.e. depth-first or node filters
+     *
+     * @return the nodes, or null if the traversal framework has to be used
+     */
+    private Stream<Node> subgraphNodeStream(Object start, Map<String, Object> config) {
+        if (!isSubgraphTraversal(config)) {
+            return null;
+        }
+        List<Node> nodes = Util.nodeList((InternalTransaction) tx, start);
+        SubgraphTraversal traversal = subgraphTraversal((InternalTransaction) tx, nodes, config, false, null);
+        if (traversal == null || !isParallel(config, nodes) || !isDepthIndependent(config)) {
+            return traversal == null ? null : traversal.nodes();
+        }
+        traversal.close();
+        return parallelSubgraph(nodes, config, false).map(ids -> ((InternalTransaction) tx).newNodeEntity(ids[0]));
+    }
 
-        if (optional) {
-            return optionalStream(results);
-        } else {
-            return results;
+    /**
+     * The paths of the same traversal as {@link #subgraphNodeStream(Object, Map)}, for the spanning tree
+     */
+    private Stream<Path> spanningPaths(Object start, Map<String, Object> config) {
+        if (!isSubgraphTraversal(config)) {
+            return null;
+        }
+        List<Node> nodes = Util.nodeList((InternalTransaction) tx, start);
+        SubgraphTraversal traversal = subgraphTraversal((InternalTransaction) tx, nodes, config, true, null);
+        if (traversal == null || !isParallel(config, nodes) || !isDepthIndependent(config)) {
+            return traversal == null ? null : traversal.paths();
         }
+        traversal.close();
+        return parallelSubgraph(nodes, config, true)
+                .map(ids -> ParallelPathExpansion.path((InternalTransaction) tx, ids));
+    }
+
+    private boolean isSubgraphTraversal(Map<String, Object> config) {
+        return Util.toBoolean(config.getOrDefault("bfs", true)) && nodeFilter(config).isEmpty();
+    }
+
+    private static SubgraphTraversal subgraphTraversal(
+            InternalTransaction tx,
+            List<Node> startNodes,
+            Map<String, Object> config,
+            boolean trackPaths,
+            ParallelPathExpansion.VisitedSet sharedVisited) {
+        return SubgraphTraversal.of(
+                tx,
+                startNodes,
+                (String) config.getOrDefault("relationshipFilter", null),
+                (String) config.getOrDefault("labelFilter", null),
+                Util.toLong(config.getOrDefault("minLevel", "-1")),
+                Util.toLong(config.getOrDefault("maxLevel", "-1")),
+                Util.toBoolean(config.getOrDefault("filterStartNode", false)),
+                (String) config.getOrDefault("sequence", null),
+                Util.toBoolean(config.getOrDefault("beginSequenceAtStart", true)),
+                trackPaths,
+                sharedVisited);
+    }
+
+    /**
+     * The subgraph traversal of batches of the start nodes in parallel, which share the visited nodes
+     */
+    private Stream<long[]> parallelSubgraph(List<Node> startNodes, Map<String, Object> config, boolean trackPaths) {
+        List<Node> distinctStartNodes = startNodes.stream().distinct().toList();
+        ParallelPathExpansion.VisitedSet visited = ParallelPathExpansion.VisitedSet.startingWith(distinctStartNodes);
+        return parallelExpansion().expand(distinctStartNodes, (workerTx, batch) -> subgraphTraversal(
+                        (InternalTransaction) workerTx, batch, config, trackPaths, visited)
+                .ids());
+    }
+
+    /**
+     * Parallel expansion only pays off with more than a batch of start nodes,
+     * and is only possible if the transaction has no uncommitted changes, which the workers would not see
+     */
+    private boolean isParallel(Map<String, Object> config, List<Node> startNodes) {
+        return Util.toBoolean(config.getOrDefault("parallel", false))
+                && startNodes.size() > ParallelPathExpansion.BATCH_SIZE
+                && !((InternalTransaction) tx).kernelTransaction().dataRead().transactionStateHasChanges();
+    }
+
+    /**
+     * The traversals expanding in parallel share the global uniqueness, but reach the nodes in no particular order:
+     * the same nodes are only found if their evaluation does not depend on the depth they are reached at
+     */
+    private static boolean isDepthIndependent(Map<String, Object> config) {
+        String relationshipFilter = (String) config.get("relationshipFilter");
+        String labelFilter = (String) config.get("labelFilter");
+        String sequence = (String) config.get("sequence");
+        return Util.toLong(config.getOrDefault("minLevel", "-1")) <= 1
+                && Util.toLong(config.getOrDefault("maxLevel", "-1")) == -1
+                && (sequence == null || sequence.trim().isEmpty())
+                && (relationshipFilter == null || !relationshipFilter.contains(","))
+                && (labelFilter == null || !labelFilter.contains(","));
+    }
+
+    private ParallelPathExpansion parallelExpansion() {
+        return new ParallelPathExpansion(db, pools.getDefaultExecutorService(), terminationGuard);
+    }
+
+    private <T> Stream<T> limitAndOptional(Stream<T> stream, Map<String, Object> config) {
+        long limit = Util.toLong(config.getOrDefault("limit", "-1"));
+        if (limit != -1) {
+            stream = stream.limit(limit);
+        }
+        return Util.toBoolean(config.getOrDefault("optional", false)) ? optionalStream(stream) : stream;
     }
 
     private Stream<Path> explorePathPrivate(
@@ -374,6 +540,7 @@ public class PathExplorer {
             boolean beginSequenceAtStart) {
 
         Traverser traverser = traverse(
+                ((InternalTransaction) tx).kernelTransaction(),
                 tx.traversalDescription(),
                 startNodes,
                 pathFilter,
@@ -394,33 +561,89 @@ public class PathExplorer {
         }
     }
 
+    /**
+     * Expands batches of the start nodes in parallel, each with its own traverser in its own transaction.
+     * The global uniqueness is shared by all the traversers,
+     * the uniqueness within paths is the same as with a single traverser.
+     */
+    private Stream<Path> explorePathParallel(
+            List<Node> startNodes,
+            String pathFilter,
+            String labelFilter,
+            long minLevel,
+            long maxLevel,
+            boolean bfs,
+            Uniqueness uniqueness,
+            boolean filterStartNode,
+            long limit,
+            EnumMap<NodeFilter, List<Node>> nodeFilter,
+            String sequence,
+            boolean beginSequenceAtStart) {
+        UniquenessFactory uniquenessFactory = uniqueness;
+        if (uniqueness == Uniqueness.NODE_GLOBAL) {
+            startNodes = startNodes.stream().distinct().toList();
+            uniquenessFactory = ParallelPathExpansion.sharedUniqueness(
+                    uniqueness, ParallelPathExpansion.VisitedSet.startingWith(startNodes));
+        } else if (uniqueness == Uniqueness.RELATIONSHIP_GLOBAL) {
+            uniquenessFactory =
+                    ParallelPathExpansion.sharedUniqueness(uniqueness, new ParallelPathExpansion.VisitedSet());
+        }
+        UniquenessFactory workerUniqueness = uniquenessFactory;
+        Stream<Path> paths = parallelExpansion()
+                .expand(startNodes, (workerTx, batch) -> {
+                    Traverser traverser = traverse(
+                            ((InternalTransaction) workerTx).kernelTransaction(),
+                            workerTx.traversalDescription(),
+                            batch,
+                            pathFilter,
+                            labelFilter,
+                            minLevel,
+                            maxLevel,
+                            workerUniqueness,
+                            bfs,
+                            filterStartNode,
+                            nodeFilter,
+                            sequence,
+                            beginSequenceAtStart);
+                    return Iterables.stream(traverser).map(ParallelPathExpansion::ids);
+                })
+                .map(ids -> ParallelPathExpansion.path((InternalTransaction) tx, ids));
+
+        if (limit == -1) {
+            return paths;
+        } else {
+            return paths.limit(limit);
+        }
+    }
+
     /**
      * If the stream is empty, returns a stream of a single null value, otherwise returns the equivalent of the input stream
      * @param stream the input stream
      * @return a stream of a single null value if the input stream is empty, otherwise returns the equivalent of the input stream
      */
-    private Stream<Path> optionalStream(Stream<Path> stream) {
-        Stream<Path> optionalStream;
-        Iterator<Path> itr = stream.iterator();
+    private <T> Stream<T> optionalStream(Stream<T> stream) {
+        Stream<T> optionalStream;
+        Iterator<T> itr = stream.iterator();
         if (itr.hasNext()) {
             optionalStream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(itr, 0), false);
         } else {
-            List<Path> listOfNull = new ArrayList<>();
+            List<T> listOfNull = new ArrayList<>();
             listOfNull.add(null);
             optionalStream = listOfNull.stream();
         }
 
-        return optionalStream;
+        return optionalStream.onClose(stream::close);
     }
 
     public static Traverser traverse(
+            KernelTransaction ktx,
             TraversalDescription td,
             Iterable<Node> startNodes,
             String pathFilter,
             String labelFilter,
             long minLevel,
             long maxLevel,
-            Uniqueness uniqueness,
+            UniquenessFactory uniqueness,
             boolean bfs,
             boolean filterStartNode,
             EnumMap<NodeFilter, List<Node>> nodeFilter,
@@ -444,7 +667,7 @@ public class PathExplorer {
 
             td = td.expand(new RelationshipSequenceExpander(relSequenceList, beginSequenceAtStart));
             td = td.evaluator(new LabelSequenceEvaluator(
-                    labelSequenceList, filterStartNode, beginSequenceAtStart, (int) minLevel));
+                    ktx, labelSequenceList, filterStartNode, beginSequenceAtStart, (int) minLevel));
         } else {
             if (pathFilter != null && !pathFilter.trim().isEmpty()) {
                 td = td.expand(new RelationshipSequenceExpander(pathFilter.trim(), beginSequenceAtStart));
@@ -452,7 +675,7 @@ public class PathExplorer {
 
             if (labelFilter != null && sequence == null && !labelFilter.trim().isEmpty()) {
                 td = td.evaluator(new LabelSequenceEvaluator(
-                        labelFilter.trim(), filterStartNode, beginSequenceAtStart, (int) minLevel));
+                        ktx, labelFilter.trim(), filterStartNode, beginSequenceAtStart, (int) minLevel));
             }
         }
 
@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.path;
+
+import apoc.util.collection.PrefetchingIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.apache.commons.lang3.tuple.Pair;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.traversal.Evaluation;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.neo4j.token.api.TokenConstants;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * A breadth-first traversal with NODE_GLOBAL uniqueness, the one of `apoc.path.subgraphNodes`, `subgraphAll`
+ * and `spanningTree`, on kernel cursors instead of the traversal framework.
+ *
+ * The nodes are returned in the same order as by a breadth-first {@link PathExplorer#traverse},
+ * with the same evaluation of the label filter or sequence and of the min and max levels,
+ * but without a `Path` per visited node: the visited nodes are kept in a Roaring bitmap,
+ * and the relationship each node was reached through only if the paths are needed.
+ * The relationship filter or sequence is compiled to relationship selections on token ids for every step.
+ */
+class SubgraphTraversal extends PrefetchingIterator<Long> implements AutoCloseable {
+    private static final long NO_PARENT = -1;
+
+    private final InternalTransaction tx;
+    private final Read read;
+    private final NodeCursor nodeCursor;
+    private final NodeCursor labelCursor;
+    private final RelationshipTraversalCursor relationshipCursor;
+
+    // the selections of the first step, if the sequence does not begin at the start nodes
+    private final List<RelationshipSelection> initialSelections;
+    private final List<List<RelationshipSelection>> sequenceSelections;
+    private final LabelSequenceEvaluator labelEvaluator;
+    private final long minLevel;
+    private final long maxLevel;
+
+    private final Roaring64NavigableMap visited = new Roaring64NavigableMap();
+    // the nodes visited by all the traversals expanding in parallel, checked instead past the start nodes
+    private final ParallelPathExpansion.VisitedSet sharedVisited;
+    // the relationship each visited node was reached through, if the paths are needed
+    private final LongLongHashMap parents;
+
+    private final Iterator<Node> startNodes;
+    private LongArrayList level = new LongArrayList();
+    private LongArrayList nextLevel = new LongArrayList();
+    private int depth;
+    private int position;
+    private List<RelationshipSelection> selections;
+    private int selection;
+    private boolean expanding;
+
+    private SubgraphTraversal(
+            InternalTransaction tx,
+            Iterable<Node> startNodes,
+            List<List<RelationshipSelection>> steps,
+            boolean hasInitialStep,
+            LabelSequenceEvaluator labelEvaluator,
+            long minLevel,
+            long maxLevel,
+            boolean trackPaths,
+            ParallelPathExpansion.VisitedSet sharedVisited) {
+        KernelTransaction ktx = tx.kernelTransaction();
+        this.tx = tx;
+        this.read = ktx.dataRead();
+        this.nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+        this.labelCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+        this.relationshipCursor = ktx.cursors().allocateRelationshipTraversalCursor(ktx.cursorContext());
+        this.initialSelections = hasInitialStep ? steps.get(0) : null;
+        this.sequenceSelections = hasInitialStep ? steps.subList(1, steps.size()) : steps;
+        this.labelEvaluator = labelEvaluator;
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+        this.parents = trackPaths ? new LongLongHashMap() : null;
+        this.sharedVisited = sharedVisited;
+        this.startNodes = startNodes.iterator();
+        this.selections = step(0);
+    }
+
+    /**
+     * Mirrors how {@link PathExplorer#traverse} builds the expander and the evaluators.
+     *
+     * @param sharedVisited the nodes visited by all the traversals of a parallel expansion,
+     *                      starting with their start nodes, or null
+     * @return the traversal, or null if the filters are not supported and the traversal framework has to be used
+     */
+    static SubgraphTraversal of(
+            InternalTransaction tx,
+            Iterable<Node> startNodes,
+            String pathFilter,
+            String labelFilter,
+            long minLevel,
+            long maxLevel,
+            boolean filterStartNode,
+            String sequence,
+            boolean beginSequenceAtStart,
+            boolean trackPaths,
+            ParallelPathExpansion.VisitedSet sharedVisited) {
+        KernelTransaction ktx = tx.kernelTransaction();
+        List<String> relSequenceList;
+        LabelSequenceEvaluator labelEvaluator = null;
+        boolean hasInitialStep = !beginSequenceAtStart;
+
+        if (sequence != null && !sequence.trim().isEmpty()) {
+            String[] sequenceSteps = sequence.split(",");
+            List<String> labelSequenceList = new ArrayList<>();
+            relSequenceList = new ArrayList<>();
+
+            for (int index = 0; index < sequenceSteps.length; index++) {
+                List<String> seq =
+                        (beginSequenceAtStart ? index : index - 1) % 2 == 0 ? labelSequenceList : relSequenceList;
+                seq.add(sequenceSteps[index]);
+            }
+            // the traversal framework fails on empty sequences as soon as it gets to them
+            if (labelSequenceList.isEmpty()) {
+                return null;
+            }
+            labelEvaluator = new LabelSequenceEvaluator(
+                    ktx, labelSequenceList, filterStartNode, beginSequenceAtStart, (int) minLevel);
+        } else {
+            if (pathFilter != null && !pathFilter.trim().isEmpty()) {
+                relSequenceList = Arrays.asList(pathFilter.trim().split(","));
+            } else {
+                // the default expander of the traversal framework
+                relSequenceList = Collections.singletonList(null);
+                hasInitialStep = false;
+            }
+
+            if (labelFilter != null && sequence == null && !labelFilter.trim().isEmpty()) {
+                labelEvaluator = new LabelSequenceEvaluator(
+                        ktx, labelFilter.trim(), filterStartNode, beginSequenceAtStart, (int) minLevel);
+            }
+        }
+        if (relSequenceList.size() <= (hasInitialStep ? 1 : 0)) {
+            return null;
+        }
+
+        List<List<RelationshipSelection>> steps = new ArrayList<>(relSequenceList.size());
+        for (String step : relSequenceList) {
+            steps.add(selections(
+                    ktx.tokenRead(), RelationshipTypeAndDirections.parse(step == null ? null : step.trim())));
+        }
+        return new SubgraphTraversal(
+                tx, startNodes, steps, hasInitialStep, labelEvaluator, minLevel, maxLevel, trackPaths, sharedVisited);
+    }
+
+    /**
+     * Compiles the relationship types and directions of a step into relationship selections on token ids.
+     * As with `Node.getRelationships`, a relationship type which does not exist matches nothing.
+     */
+    private static List<RelationshipSelection> selections(
+            TokenRead tokenRead, List<Pair<RelationshipType, Direction>> typesAndDirections) {
+        List<RelationshipSelection> selections = new ArrayList<>(typesAndDirections.size());
+        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
+            if (pair.getLeft() == null) {
+                selections.add(RelationshipSelection.selection(pair.getRight()));
+                continue;
+            }
+            int type = tokenRead.relationshipType(pair.getLeft().name());
+            if (type != TokenConstants.NO_TOKEN) {
+                selections.add(RelationshipSelection.selection(type, pair.getRight()));
+            }
+        }
+        return selections;
+    }
+
+    Stream<Node> nodes() {
+        return stream().map(tx::newNodeEntity);
+    }
+
+    Stream<Path> paths() {
+        return pathIds().map(ids -> ParallelPathExpansion.path(tx, ids));
+    }
+
+    /**
+     * The paths as in {@link ParallelPathExpansion#ids(Path)}, or only the node ids if the paths are not tracked
+     */
+    Stream<long[]> ids() {
+        return parents == null ? stream().map(nodeId -> new long[] {nodeId}) : pathIds();
+    }
+
+    private Stream<long[]> pathIds() {
+        return stream().map(this::pathIds);
+    }
+
+    /**
+     * The outgoing relationships of the given nodes to any of them, in the order of {@link apoc.algo.Cover#coverNodes}
+     */
+    static List<Relationship> relationshipsBetween(InternalTransaction tx, List<Node> nodes) {
+        Roaring64NavigableMap nodeIds = new Roaring64NavigableMap();
+        nodes.forEach(node -> nodeIds.addLong(node.getId()));
+        List<Relationship> relationships = new ArrayList<>();
+        KernelTransaction ktx = tx.kernelTransaction();
+        Read read = ktx.dataRead();
+        try (NodeCursor nodeCursor = ktx.cursors().allocateNodeCursor(ktx.cursorContext());
+                RelationshipTraversalCursor relationshipCursor =
+                        ktx.cursors().allocateRelationshipTraversalCursor(ktx.cursorContext())) {
+            for (Node node : nodes) {
+                read.singleNode(node.getId(), nodeCursor);
+                if (!nodeCursor.next()) continue;
+                nodeCursor.relationships(relationshipCursor, RelationshipSelection.selection(Direction.OUTGOING));
+                while (relationshipCursor.next()) {
+                    long targetId = relationshipCursor.targetNodeReference();
+                    if (nodeIds.contains(targetId)) {
+                        relationships.add(tx.newRelationshipEntity(
+                                relationshipCursor.relationshipReference(),
+                                relationshipCursor.sourceNodeReference(),
+                                relationshipCursor.type(),
+                                targetId));
+                    }
+                }
+            }
+        }
+        return relationships;
+    }
+
+    private Stream<Long> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * The ids of the path through which the node was reached, from its start node
+     */
+    private long[] pathIds(long nodeId) {
+        LongArrayList relationships = new LongArrayList();
+        long current = nodeId;
+        long parent;
+        while ((parent = parents.getIfAbsent(current, NO_PARENT)) != NO_PARENT) {
+            relationships.add(parent);
+            current = tx.getRelationshipById(parent).getOtherNodeId(current);
+        }
+        long[] ids = new long[relationships.size() + 1];
+        ids[0] = current;
+        for (int i = 1; i < ids.length; i++) {
+            ids[i] = relationships.get(ids.length - 1 - i);
+        }
+        return ids;
+    }
+
+    @Override
+    protected Long fetchNextOrNull() {
+        while (startNodes.hasNext()) {
+            long nodeId = startNodes.next().getId();
+            // the shared nodes already contain the start nodes of all the traversals
+            if (visited.contains(nodeId)) continue;
+            visited.addLong(nodeId);
+            if (visit(nodeId, 0)) return nodeId;
+        }
+        while (true) {
+            if (expanding) {
+                while (relationshipCursor.next()) {
+                    long nodeId = relationshipCursor.otherNodeReference();
+                    if (!firstVisit(nodeId)) continue;
+                    if (parents != null) {
+                        parents.put(nodeId, relationshipCursor.relationshipReference());
+                    }
+                    if (visit(nodeId, depth + 1)) return nodeId;
+                }
+                if (++selection < selections.size()) {
+                    nodeCursor.relationships(relationshipCursor, selections.get(selection));
+                    continue;
+                }
+                expanding = false;
+            }
+            if (position < level.size()) {
+                read.singleNode(level.get(position++), nodeCursor);
+                if (!nodeCursor.next() || selections.isEmpty()) continue;
+                selection = 0;
+                nodeCursor.relationships(relationshipCursor, selections.get(selection));
+                expanding = true;
+                continue;
+            }
+            if (nextLevel.isEmpty()) {
+                return null;
+            }
+            LongArrayList expanded = level;
+            level = nextLevel;
+            nextLevel = expanded;
+            nextLevel.clear();
+            position = 0;
+            selections = step(++depth);
+        }
+    }
+
+    private boolean firstVisit(long nodeId) {
+        if (sharedVisited != null) {
+            return sharedVisited.add(nodeId);
+        }
+        if (visited.contains(nodeId)) return false;
+        visited.addLong(nodeId);
+        return true;
+    }
+
+    /**
+     * The relationships to expand the nodes at the given depth with, as chosen by {@link RelationshipSequenceExpander}
+     */
+    private List<RelationshipSelection> step(int depth) {
+        if (depth == 0 && initialSelections != null) {
+            return initialSelections;
+        }
+        return sequenceSelections.get((initialSelections == null ? depth : depth - 1) % sequenceSelections.size());
+    }
+
+    /**
+     * Evaluates a node when it is first visited, and queues it for expansion if the traversal continues from it.
+     *
+     * @return true if the node is included
+     */
+    private boolean visit(long nodeId, int nodeDepth) {
+        boolean includes = (minLevel == -1 || nodeDepth >= minLevel) && (maxLevel == -1 || nodeDepth <= maxLevel);
+        boolean continues = maxLevel == -1 || nodeDepth < maxLevel;
+        if (labelEvaluator != null && (includes || continues)) {
+            read.singleNode(nodeId, labelCursor);
+            if (labelCursor.next()) {
+                Evaluation evaluation = labelEvaluator.evaluate(labelCursor.labels(), nodeDepth);
+                includes &= evaluation.includes();
+                continues &= evaluation.continues();
+            }
+        }
+        if (continues) {
+            (nodeDepth == 0 ? level : nextLevel).add(nodeId);
+        }
+        return includes;
+    }
+
+    @Override
+    public void close() {
+        relationshipCursor.close();
+        labelCursor.close();
+        nodeCursor.close();
+    }
+}
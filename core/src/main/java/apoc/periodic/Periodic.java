@@ -365,9 +365,11 @@ public class Periodic {
                         batchSize = 10000 :: INTEGER,
                         parallel = false :: BOOLEAN,
                         retries = 0 :: INTEGER,
+                        bisect = false :: BOOLEAN,
                         batchMode = "BATCH" :: STRING,
                         params = {} :: MAP,
                         concurrency :: INTEGER,
+                        adaptive = false :: BOOLEAN,
                         failedParams = -1 :: INTEGER,
                         planner = "DEFAULT" :: ["DEFAULT", "COST", "IDP", "DP"]
                     }
@@ -385,8 +387,11 @@ public class Periodic {
             throw new IllegalArgumentException("concurrency parameter must be > 0");
         }
         boolean parallel = Util.toBoolean(config.getOrDefault("parallel", false));
-        long retries = Util.toLong(config.getOrDefault(
-                "retries", 0)); // todo sleep/delay or push to end of batch to try again or immediate ?
+        // in adaptive mode `concurrency` and `batchSize` are upper bounds tuned from the observed commits
+        boolean adaptive = Util.toBoolean(config.getOrDefault("adaptive", false));
+        long retries = Util.toLong(config.getOrDefault("retries", 0));
+        // split batches failing on transient errors and push the rows which keep failing to the end of the run
+        boolean bisect = Util.toBoolean(config.getOrDefault("bisect", false));
         int failedParams = Util.toInteger(config.getOrDefault("failedParams", -1));
 
         final Map<String, Object> metaData;
@@ -421,6 +426,8 @@ public class Periodic {
                     pools,
                     (int) batchSize,
                     parallel,
+                    adaptive,
+                    bisect,
                     iterateList,
                     retries,
                     result,
@@ -22,6 +22,7 @@ import static apoc.util.Util.quote;
 import static java.lang.Math.toIntExact;
 import static java.util.Arrays.asList;
 
+import apoc.util.ExpressionCache;
 import apoc.util.Util;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
@@ -167,7 +168,7 @@ public class Strings {
         if (text == null || regex == null || replacement == null) {
             return null;
         }
-        return text.replaceAll(regex, replacement);
+        return ExpressionCache.getOrCreatePattern(regex).matcher(text).replaceAll(replacement);
     }
 
     @UserFunction("apoc.text.split")
@@ -184,7 +185,7 @@ public class Strings {
         if (text == null || regex == null || limit == null) {
             return null;
         }
-        String[] resultArray = text.split(regex, limit.intValue());
+        String[] resultArray = ExpressionCache.getOrCreatePattern(regex).split(text, limit.intValue());
         return new ArrayList<>(asList(resultArray));
     }
 
@@ -196,7 +197,7 @@ public class Strings {
         if (text == null || regex == null) {
             return Collections.EMPTY_LIST;
         } else {
-            final Pattern pattern = Pattern.compile(regex);
+            final Pattern pattern = ExpressionCache.getOrCreatePattern(regex);
             final Matcher matcher = pattern.matcher(text);
 
             List<List<String>> result = new ArrayList<>();
@@ -221,7 +222,7 @@ public class Strings {
         } else {
             List<Map<String, Object>> result = new ArrayList<>();
             try {
-                final Pattern pattern = Pattern.compile(regex);
+                final Pattern pattern = ExpressionCache.getOrCreatePattern(regex);
 
                 final Matcher matcher = pattern.matcher(text);
                 List<String> namedGroups = getNamedGroups(regex);
@@ -245,10 +246,12 @@ public class Strings {
         }
     }
 
+    private static final Pattern NAMED_GROUP_PATTERN = Pattern.compile("\\(\\?<(.+?)>");
+
     private List<String> getNamedGroups(String text) {
         List<String> namedGroups = new ArrayList<>();
 
-        Matcher mG = Pattern.compile("\\(\\?<(.+?)>").matcher(text);
+        Matcher mG = NAMED_GROUP_PATTERN.matcher(text);
 
         while (mG.find()) {
             for (int i = 1; i <= mG.groupCount(); i++) {
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.trigger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.neo4j.logging.Log;
+
+/**
+ * Coalesces the afterAsync triggers of many small commits:
+ * the committed transactions are queued, and drained in batches, when the batch size is reached
+ * or when the window elapses, so that every trigger is executed once per batch.
+ * As the batch is executed in a single transaction, a failing trigger would roll it back for all its commits:
+ * the commits of a failed batch are executed again one by one, so that only the failing ones lose their triggers.
+ *
+ * The queue is bounded: when it is full, the committing transactions wait for room in it.
+ */
+class AsyncTriggerBatcher {
+
+    /**
+     * The afterAsync triggers matching a committed transaction, and its metadata.
+     */
+    record Commit(Map<String, Map<String, Object>> triggers, TriggerMetadata metadata) {}
+
+    private final BlockingQueue<Commit> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final ExecutorService pool;
+    private final Consumer<List<Commit>> executor;
+    private final Log log;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+
+    AsyncTriggerBatcher(
+            int capacity, int batchSize, ExecutorService pool, Consumer<List<Commit>> executor, Log log) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.pool = pool;
+        this.executor = executor;
+        this.log = log;
+    }
+
+    void submit(Commit commit) {
+        if (!queue.offer(commit)) {
+            blocked.increment();
+            long start = System.nanoTime();
+            drain();
+            try {
+                queue.put(commit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting for room in the afterAsync trigger queue, "
+                        + "the afterAsync triggers of a transaction are not executed");
+                return;
+            } finally {
+                blockedNanos.add(System.nanoTime() - start);
+            }
+        }
+        queued.increment();
+        if (queue.size() >= batchSize) {
+            drain();
+        }
+    }
+
+    /**
+     * Drains the queue in the pool, unless it is already being drained.
+     */
+    void drain() {
+        if (queue.isEmpty() || !draining.compareAndSet(false, true)) return;
+        try {
+            pool.submit(this::drainAll);
+        } catch (Exception e) {
+            draining.set(false);
+            log.warn("Unable to execute the afterAsync triggers: " + e.getMessage(), e);
+        }
+    }
+
+    private void drainAll() {
+        try {
+            List<Commit> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                batches.increment();
+                try {
+                    executor.accept(batch);
+                } catch (Exception e) {
+                    executeOneByOne(batch, e);
+                }
+                batch.clear();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // a full batch may have been queued after the last drain, and before the flag was reset
+        if (queue.size() >= batchSize) {
+            drain();
+        }
+    }
+
+    private void executeOneByOne(List<Commit> batch, Exception batchFailure) {
+        if (batch.size() == 1) {
+            logFailure(batchFailure);
+            return;
+        }
+        for (Commit commit : batch) {
+            try {
+                executor.accept(List.of(commit));
+            } catch (Exception e) {
+                logFailure(e);
+            }
+        }
+    }
+
+    private void logFailure(Exception e) {
+        log.warn("Error executing the afterAsync triggers of a transaction: " + e.getMessage(), e);
+    }
+
+    Map<String, Object> stats() {
+        return Map.of(
+                "pending", (long) queue.size(),
+                "capacity", (long) capacity,
+                "batchSize", (long) batchSize,
+                "queued", queued.sum(),
+                "batches", batches.sum(),
+                "blocked", blocked.sum(),
+                "blockedMillis", TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum()));
+    }
+}
@@ -81,7 +81,7 @@ public class Trigger {
             @Name(
                             value = "selector",
                             description =
-                                    "{ phase = \"before\" :: [\"before\", \"rollback\", \"after\", \"afterAsync\"] }")
+                                    "{ phase = \"before\" :: [\"before\", \"rollback\", \"after\", \"afterAsync\"], labels :: LIST<STRING>, types :: LIST<STRING>, properties :: LIST<STRING> }")
                     Map<String, Object> selector,
             @Name(value = "config", defaultValue = "{}", description = "The parameters for the given Cypher statement.")
                     Map<String, Object> config) {
@@ -160,6 +160,39 @@ public class Trigger {
                         (Boolean) e.getValue().getOrDefault("paused", false)));
     }
 
+    public record AsyncTriggerStatsResult(
+            @Description("Whether or not the afterAsync triggers of many transactions are coalesced.")
+                    boolean coalesced,
+            @Description("The number of transactions waiting for their afterAsync triggers.") long pending,
+            @Description("The maximum number of transactions waiting for their afterAsync triggers.") long capacity,
+            @Description("The maximum number of transactions coalesced in one execution of the triggers.")
+                    long batchSize,
+            @Description("The number of transactions queued so far.") long queued,
+            @Description("The number of batches of transactions executed so far.") long batches,
+            @Description("The number of transactions which waited for room in the queue.") long blocked,
+            @Description("The total time the transactions waited for room in the queue, in milliseconds.")
+                    long blockedMillis) {}
+
+    @Admin
+    @Procedure(name = "apoc.trigger.asyncStats", mode = Mode.READ)
+    @Description("Returns the statistics of the queue coalescing the afterAsync triggers of the session database.")
+    public Stream<AsyncTriggerStatsResult> asyncStats() {
+        checkEnabled(apocConfig());
+        Map<String, Object> stats = triggerHandler.asyncTriggerStats();
+        if (stats.isEmpty()) {
+            return Stream.of(new AsyncTriggerStatsResult(false, 0, 0, 0, 0, 0, 0, 0));
+        }
+        return Stream.of(new AsyncTriggerStatsResult(
+                true,
+                (long) stats.get("pending"),
+                (long) stats.get("capacity"),
+                (long) stats.get("batchSize"),
+                (long) stats.get("queued"),
+                (long) stats.get("batches"),
+                (long) stats.get("blocked"),
+                (long) stats.get("blockedMillis")));
+    }
+
     @Admin
     @Deprecated
     @QueryLanguageScope(scope = {QueryLanguage.CYPHER_5})
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.trigger;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.LabelEntry;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+
+/**
+ * The `labels`, `types` and `properties` of a trigger selector:
+ * a trigger with any of them is only executed for the transactions which
+ * assign or remove one of the labels (including by creating or deleting a node),
+ * create or delete a relationship of one of the types,
+ * or assign or remove one of the property keys.
+ */
+record TriggerFilter(Set<String> labels, Set<String> types, Set<String> properties) {
+
+    /**
+     * @return the filter of the selector, or null if the selector does not restrict the transactions
+     */
+    static TriggerFilter from(Map<String, Object> selector) {
+        if (selector == null) return null;
+        Set<String> labels = names(selector.get("labels"));
+        Set<String> types = names(selector.get("types"));
+        Set<String> properties = names(selector.get("properties"));
+        if (labels.isEmpty() && types.isEmpty() && properties.isEmpty()) return null;
+        return new TriggerFilter(labels, types, properties);
+    }
+
+    private static Set<String> names(Object value) {
+        if (value == null) return Set.of();
+        if (value instanceof Collection<?> collection) {
+            return collection.stream().map(String::valueOf).collect(Collectors.toUnmodifiableSet());
+        }
+        return Set.of(value.toString());
+    }
+
+    boolean matches(Footprint footprint) {
+        return (!labels.isEmpty() && intersects(labels, footprint.labels()))
+                || (!types.isEmpty() && intersects(types, footprint.types()))
+                || (!properties.isEmpty() && intersects(properties, footprint.properties()));
+    }
+
+    private static boolean intersects(Set<String> names, Set<String> touched) {
+        for (String name : names) {
+            if (touched.contains(name)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The labels, relationship types and property keys touched by a transaction,
+     * each one is only collected when a filter first needs it.
+     */
+    static class Footprint {
+        private final TransactionData txData;
+        private Set<String> labels;
+        private Set<String> types;
+        private Set<String> properties;
+
+        Footprint(TransactionData txData) {
+            this.txData = txData;
+        }
+
+        Set<String> labels() {
+            if (labels == null) {
+                labels = new HashSet<>();
+                for (LabelEntry entry : txData.assignedLabels()) labels.add(entry.label().name());
+                for (LabelEntry entry : txData.removedLabels()) labels.add(entry.label().name());
+            }
+            return labels;
+        }
+
+        Set<String> types() {
+            if (types == null) {
+                types = new HashSet<>();
+                for (Relationship rel : txData.createdRelationships()) types.add(rel.getType().name());
+                for (Relationship rel : txData.deletedRelationships()) types.add(rel.getType().name());
+            }
+            return types;
+        }
+
+        Set<String> properties() {
+            if (properties == null) {
+                properties = new HashSet<>();
+                addKeys(txData.assignedNodeProperties());
+                addKeys(txData.removedNodeProperties());
+                addKeys(txData.assignedRelationshipProperties());
+                addKeys(txData.removedRelationshipProperties());
+            }
+            return properties;
+        }
+
+        private <T extends Entity> void addKeys(Iterable<PropertyEntry<T>> entries) {
+            for (PropertyEntry<T> entry : entries) properties.add(entry.key());
+        }
+    }
+}
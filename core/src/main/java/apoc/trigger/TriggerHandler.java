@@ -28,8 +28,12 @@ import apoc.SystemPropertyKeys;
 import apoc.util.MapUtil;
 import apoc.util.Util;
 import apoc.util.collection.Iterators;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -62,6 +66,13 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
 
     public static final String TRIGGER_REFRESH = "apoc.trigger.refresh";
 
+    // the window in milliseconds to coalesce the afterAsync triggers of many transactions, 0 to disable it
+    public static final String TRIGGER_ASYNC_WINDOW = "apoc.trigger.async.window";
+    // the maximum number of transactions coalesced in one execution of the afterAsync triggers
+    public static final String TRIGGER_ASYNC_BATCH_SIZE = "apoc.trigger.async.batchSize";
+    // the maximum number of transactions waiting for their afterAsync triggers when they are coalesced
+    public static final String TRIGGER_ASYNC_QUEUE_SIZE = "apoc.trigger.async.queueSize";
+
     // Snapshot of installed triggers. The containing map is immutable.
     private final AtomicReference<Map<String, Map<String, Object>>> triggersSnapshot = new AtomicReference<>(Map.of());
 
@@ -76,6 +87,9 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
 
     private JobHandle restoreTriggerHandler;
 
+    private volatile AsyncTriggerBatcher asyncTriggerBatcher;
+    private JobHandle asyncTriggerBatcherHandler;
+
     private final AtomicBoolean registeredWithKernel = new AtomicBoolean(false);
 
     public TriggerHandler(
@@ -122,20 +136,31 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
             return tx.findNodes(ApocTrigger, SystemPropertyKeys.database.name(), dbName).stream()
                     .collect(Collectors.toUnmodifiableMap(
                             node -> (String) node.getProperty(SystemPropertyKeys.name.name()),
-                            node -> MapUtil.map(
-                                    "statement",
-                                    node.getProperty(SystemPropertyKeys.statement.name()),
-                                    "selector",
-                                    Util.fromJson(
-                                            (String) node.getProperty(SystemPropertyKeys.selector.name()), Map.class),
-                                    "params",
-                                    Util.fromJson(
-                                            (String) node.getProperty(SystemPropertyKeys.params.name()), Map.class),
-                                    "paused",
-                                    node.getProperty(SystemPropertyKeys.paused.name()))));
+                            TriggerHandler::toTriggerData));
         });
     }
 
+    private static Map<String, Object> toTriggerData(Node node) {
+        final var statement = (String) node.getProperty(SystemPropertyKeys.statement.name());
+        final Map<String, Object> selector =
+                Util.fromJson((String) node.getProperty(SystemPropertyKeys.selector.name()), Map.class);
+        return MapUtil.map(
+                "statement",
+                statement,
+                "selector",
+                selector,
+                "params",
+                Util.fromJson((String) node.getProperty(SystemPropertyKeys.params.name()), Map.class),
+                "paused",
+                node.getProperty(SystemPropertyKeys.paused.name()),
+                // the metadata is only collected for the parameters the statement references
+                "parameters",
+                TriggerMetadata.referencedParameters(statement),
+                // null when the trigger is executed for any transaction
+                "filter",
+                TriggerFilter.from(selector));
+    }
+
     /**
      * There is substantial memory overhead to the kernel event system, so if a user has enabled apoc triggers in
      * config, but there are no triggers set up, unregister to let the kernel bypass the event handling system.
@@ -265,15 +290,66 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
 
     private void afterAsync(TransactionData txData) {
         if (hasPhase(Phase.afterAsync)) {
-            TriggerMetadata triggerMetadata = TriggerMetadata.from(txData, true);
+            // the transaction data is not available anymore once the commit is done,
+            // so the parameters of the triggers are collected now, for the triggers installed now
+            final var footprint = new TriggerFilter.Footprint(txData);
+            final var triggers = triggersSnapshot.get().entrySet().stream()
+                    .filter(e -> isActive(e.getValue(), Phase.afterAsync, footprint))
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+            if (triggers.isEmpty()) {
+                return;
+            }
+            final var parameters = triggers.values().stream()
+                    .flatMap(data -> ((Set<String>) data.get("parameters")).stream())
+                    .collect(Collectors.toSet());
+            TriggerMetadata triggerMetadata = TriggerMetadata.from(txData, true).collect(parameters);
+            final var batcher = asyncTriggerBatcher;
+            if (batcher != null) {
+                batcher.submit(new AsyncTriggerBatcher.Commit(triggers, triggerMetadata));
+                return;
+            }
             Util.inTxFuture(pools.getDefaultExecutorService(), db, (inner) -> {
                 setTriggerMetadata(inner);
-                executeTriggers(inner, triggerMetadata.rebind(inner), Phase.afterAsync);
+                final var rebound = triggerMetadata.rebind(inner);
+                executeTriggers(inner, name -> rebound, Phase.afterAsync, triggers, null);
                 return null;
             });
         }
     }
 
+    /**
+     * Executes every trigger once for the batch, with the merged metadata of the transactions it matched.
+     */
+    private void executeAsyncBatch(List<AsyncTriggerBatcher.Commit> batch) {
+        // the triggers as installed at the last transaction matching them
+        final Map<String, Map<String, Object>> triggers = new LinkedHashMap<>();
+        final Map<String, List<TriggerMetadata>> metadataByTrigger = new HashMap<>();
+        for (AsyncTriggerBatcher.Commit commit : batch) {
+            commit.triggers().forEach((name, data) -> {
+                triggers.put(name, data);
+                metadataByTrigger.computeIfAbsent(name, k -> new ArrayList<>()).add(commit.metadata());
+            });
+        }
+        try (Transaction tx = db.beginTx()) {
+            setTriggerMetadata(tx);
+            // the triggers matching the same transactions share the merged metadata
+            final Map<List<TriggerMetadata>, TriggerMetadata> merged = new HashMap<>();
+            executeTriggers(
+                    tx,
+                    name -> merged.computeIfAbsent(
+                            metadataByTrigger.get(name), metadata -> TriggerMetadata.merge(metadata).rebind(tx)),
+                    Phase.afterAsync,
+                    triggers,
+                    null);
+            tx.commit();
+        }
+    }
+
+    public Map<String, Object> asyncTriggerStats() {
+        final var batcher = asyncTriggerBatcher;
+        return batcher == null ? Map.of() : batcher.stats();
+    }
+
     private static void setTriggerMetadata(Transaction tx) {
         tx.execute("CALL tx.setMetaData($data)", Map.of("data", TRIGGER_META));
     }
@@ -295,18 +371,28 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
     }
 
     private void executeTriggers(Transaction tx, TransactionData txData, Phase phase) {
-        executeTriggers(tx, TriggerMetadata.from(txData, false), phase);
+        final var triggerMetadata = TriggerMetadata.from(txData, false);
+        executeTriggers(
+                tx, name -> triggerMetadata, phase, triggersSnapshot.get(), new TriggerFilter.Footprint(txData));
     }
 
-    private void executeTriggers(Transaction tx, TriggerMetadata triggerMetadata, Phase phase) {
+    /**
+     * @param footprint the footprint to filter the triggers on, or null if they are already filtered
+     */
+    private void executeTriggers(
+            Transaction tx,
+            Function<String, TriggerMetadata> triggerMetadata,
+            Phase phase,
+            Map<String, Map<String, Object>> triggers,
+            TriggerFilter.Footprint footprint) {
         Map<String, String> exceptions = new LinkedHashMap<>();
-        triggersSnapshot.get().forEach((name, data) -> {
-            Map<String, Object> params = triggerMetadata.toMap();
-            if (data.get("params") != null) {
-                params.putAll((Map<String, Object>) data.get("params"));
-            }
-            Map<String, Object> selector = (Map<String, Object>) data.get("selector");
-            if ((!(boolean) data.get("paused")) && when(selector, phase)) {
+        triggers.forEach((name, data) -> {
+            if (footprint == null || isActive(data, phase, footprint)) {
+                Map<String, Object> params =
+                        triggerMetadata.apply(name).toMap((Set<String>) data.get("parameters"));
+                if (data.get("params") != null) {
+                    params.putAll((Map<String, Object>) data.get("params"));
+                }
                 try {
                     params.put("trigger", name);
                     Result result = tx.execute((String) data.get("statement"), params);
@@ -322,6 +408,14 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
         }
     }
 
+    private boolean isActive(Map<String, Object> data, Phase phase, TriggerFilter.Footprint footprint) {
+        if ((boolean) data.get("paused") || !when((Map<String, Object>) data.get("selector"), phase)) {
+            return false;
+        }
+        final var filter = (TriggerFilter) data.get("filter");
+        return filter == null || filter.matches(footprint);
+    }
+
     private boolean when(Map<String, Object> selector, Phase phase) {
         if (selector == null) return phase == Phase.before;
         return Phase.valueOf(selector.getOrDefault("phase", "before").toString()) == phase;
@@ -329,6 +423,7 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
 
     @Override
     public void start() {
+        startAsyncTriggerBatcher();
         updateCache();
         long refreshInterval = apocConfig().getInt(TRIGGER_REFRESH, 60000);
         restoreTriggerHandler = jobScheduler.scheduleRecurring(
@@ -343,6 +438,21 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
                 TimeUnit.MILLISECONDS);
     }
 
+    private void startAsyncTriggerBatcher() {
+        long window = apocConfig().getInt(TRIGGER_ASYNC_WINDOW, 0);
+        if (window <= 0) {
+            return;
+        }
+        asyncTriggerBatcher = new AsyncTriggerBatcher(
+                apocConfig().getInt(TRIGGER_ASYNC_QUEUE_SIZE, 10000),
+                apocConfig().getInt(TRIGGER_ASYNC_BATCH_SIZE, 1000),
+                pools.getDefaultExecutorService(),
+                this::executeAsyncBatch,
+                log);
+        asyncTriggerBatcherHandler = jobScheduler.scheduleRecurring(
+                Group.STORAGE_MAINTENANCE, asyncTriggerBatcher::drain, window, window, TimeUnit.MILLISECONDS);
+    }
+
     @Override
     public void stop() {
         if (registeredWithKernel.compareAndSet(true, false)) {
@@ -351,6 +461,11 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
         if (restoreTriggerHandler != null) {
             restoreTriggerHandler.cancel();
         }
+        if (asyncTriggerBatcherHandler != null) {
+            asyncTriggerBatcherHandler.cancel();
+            // the transactions already queued still get their triggers
+            asyncTriggerBatcher.drain();
+        }
     }
 
     private <T> T withSystemDb(Function<Transaction, T> action) {
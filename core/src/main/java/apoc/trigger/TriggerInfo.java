@@ -33,7 +33,7 @@ public class TriggerInfo {
     @Description("The query belonging to the trigger.")
     public String query;
 
-    @Description("{ phase = \"before\" :: [\"before\", \"rollback\", \"after\", \"afterAsync\"] }")
+    @Description("{ phase = \"before\" :: [\"before\", \"rollback\", \"after\", \"afterAsync\"], labels :: LIST<STRING>, types :: LIST<STRING>, properties :: LIST<STRING> }")
     public Map<String, Object> selector;
 
     @Description("The parameters for the given Cypher statement.")
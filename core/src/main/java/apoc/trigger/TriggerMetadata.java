@@ -26,10 +26,17 @@ import apoc.result.VirtualRelationship;
 import apoc.util.Util;
 import apoc.util.collection.Iterables;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Label;
@@ -40,34 +47,58 @@ import org.neo4j.graphdb.event.LabelEntry;
 import org.neo4j.graphdb.event.PropertyEntry;
 import org.neo4j.graphdb.event.TransactionData;
 
+/**
+ * The `$createdNodes`, `$assignedLabels`, ... parameters of the trigger statements.
+ *
+ * Every parameter is only collected from the {@link TransactionData} when a trigger statement references it,
+ * and then shared, as an unmodifiable view, by all the triggers executed for the transaction.
+ */
 public class TriggerMetadata {
+    public static final List<String> PARAMETERS = List.of(
+            "transactionId",
+            "commitTime",
+            "createdNodes",
+            "createdRelationships",
+            "deletedNodes",
+            "deletedRelationships",
+            "removedLabels",
+            "removedNodeProperties",
+            "removedRelationshipProperties",
+            "assignedLabels",
+            "assignedNodeProperties",
+            "assignedRelationshipProperties",
+            "metaData");
+
+    private static final Pattern PARAMETER = Pattern.compile("\\$\\s*(?:`([^`]+)`|([\\p{L}_][\\p{L}\\p{N}_]*))");
+
     private final long transactionId;
     private final long commitTime;
-    private final List<Node> createdNodes;
-    private final List<Relationship> createdRelationships;
-    private final List<Node> deletedNodes;
-    private final List<Relationship> deletedRelationships;
-    private final Map<String, List<Node>> removedLabels;
-    private final Map<String, List<PropertyEntryContainer<Node>>> removedNodeProperties;
-    private final Map<String, List<PropertyEntryContainer<Relationship>>> removedRelationshipProperties;
-    private final Map<String, List<Node>> assignedLabels;
-    private final Map<String, List<PropertyEntryContainer<Node>>> assignedNodeProperties;
-    private final Map<String, List<PropertyEntryContainer<Relationship>>> assignedRelationshipProperties;
+    private final Lazy<List<Node>> createdNodes;
+    private final Lazy<List<Relationship>> createdRelationships;
+    private final Lazy<List<Node>> deletedNodes;
+    private final Lazy<List<Relationship>> deletedRelationships;
+    private final Lazy<Map<String, List<Node>>> removedLabels;
+    private final Lazy<Map<String, List<PropertyEntryContainer<Node>>>> removedNodeProperties;
+    private final Lazy<Map<String, List<PropertyEntryContainer<Relationship>>>> removedRelationshipProperties;
+    private final Lazy<Map<String, List<Node>>> assignedLabels;
+    private final Lazy<Map<String, List<PropertyEntryContainer<Node>>>> assignedNodeProperties;
+    private final Lazy<Map<String, List<PropertyEntryContainer<Relationship>>>> assignedRelationshipProperties;
     private final Map<String, Object> metaData;
+    private final Map<String, Lazy<Object>> parameters;
 
     private TriggerMetadata(
             long transactionId,
             long commitTime,
-            List<Node> createdNodes,
-            List<Relationship> createdRelationships,
-            List<Node> deletedNodes,
-            List<Relationship> deletedRelationships,
-            Map<String, List<Node>> removedLabels,
-            Map<String, List<PropertyEntryContainer<Node>>> removedNodeProperties,
-            Map<String, List<PropertyEntryContainer<Relationship>>> removedRelationshipProperties,
-            Map<String, List<Node>> assignedLabels,
-            Map<String, List<PropertyEntryContainer<Node>>> assignedNodeProperties,
-            Map<String, List<PropertyEntryContainer<Relationship>>> assignedRelationshipProperties,
+            Lazy<List<Node>> createdNodes,
+            Lazy<List<Relationship>> createdRelationships,
+            Lazy<List<Node>> deletedNodes,
+            Lazy<List<Relationship>> deletedRelationships,
+            Lazy<Map<String, List<Node>>> removedLabels,
+            Lazy<Map<String, List<PropertyEntryContainer<Node>>>> removedNodeProperties,
+            Lazy<Map<String, List<PropertyEntryContainer<Relationship>>>> removedRelationshipProperties,
+            Lazy<Map<String, List<Node>>> assignedLabels,
+            Lazy<Map<String, List<PropertyEntryContainer<Node>>>> assignedNodeProperties,
+            Lazy<Map<String, List<PropertyEntryContainer<Relationship>>>> assignedRelationshipProperties,
             Map<String, Object> metaData) {
         this.transactionId = transactionId;
         this.commitTime = commitTime;
@@ -82,6 +113,32 @@ public class TriggerMetadata {
         this.assignedNodeProperties = assignedNodeProperties;
         this.assignedRelationshipProperties = assignedRelationshipProperties;
         this.metaData = metaData;
+
+        Map<String, Lazy<Object>> parameters = new HashMap<>();
+        parameters.put("transactionId", Lazy.of(transactionId));
+        parameters.put("commitTime", Lazy.of(commitTime));
+        parameters.put("createdNodes", new Lazy<>(() -> Collections.unmodifiableList(createdNodes.get())));
+        parameters.put(
+                "createdRelationships", new Lazy<>(() -> Collections.unmodifiableList(createdRelationships.get())));
+        parameters.put("deletedNodes", new Lazy<>(() -> Collections.unmodifiableList(deletedNodes.get())));
+        parameters.put(
+                "deletedRelationships", new Lazy<>(() -> Collections.unmodifiableList(deletedRelationships.get())));
+        parameters.put("removedLabels", new Lazy<>(() -> Collections.unmodifiableMap(removedLabels.get())));
+        parameters.put(
+                "removedNodeProperties",
+                new Lazy<>(() -> convertMapOfPropertyEntryContainers(removedNodeProperties.get())));
+        parameters.put(
+                "removedRelationshipProperties",
+                new Lazy<>(() -> convertMapOfPropertyEntryContainers(removedRelationshipProperties.get())));
+        parameters.put("assignedLabels", new Lazy<>(() -> Collections.unmodifiableMap(assignedLabels.get())));
+        parameters.put(
+                "assignedNodeProperties",
+                new Lazy<>(() -> convertMapOfPropertyEntryContainers(assignedNodeProperties.get())));
+        parameters.put(
+                "assignedRelationshipProperties",
+                new Lazy<>(() -> convertMapOfPropertyEntryContainers(assignedRelationshipProperties.get())));
+        parameters.put("metaData", Lazy.of(metaData));
+        this.parameters = parameters;
     }
 
     public static TriggerMetadata from(TransactionData txData, boolean rebindDeleted) {
@@ -96,46 +153,61 @@ public class TriggerMetadata {
         } catch (Exception ignored) {
             commitTime = -1L;
         }
-        List<Node> createdNodes = ConvertUtils.convertToList(txData.createdNodes());
-        List<Relationship> createdRelationships = ConvertUtils.convertToList(txData.createdRelationships());
-        List<Node> deletedNodes = rebindDeleted
+        Lazy<List<Node>> deletedNodes = new Lazy<>(() -> rebindDeleted
                 ? rebindDeleted(ConvertUtils.convertToList(txData.deletedNodes()), txData)
-                : ConvertUtils.convertToList(txData.deletedNodes());
-        List<Relationship> deletedRelationships = rebindDeleted
+                : ConvertUtils.convertToList(txData.deletedNodes()));
+        Lazy<List<Relationship>> deletedRelationships = new Lazy<>(() -> rebindDeleted
                 ? rebindDeleted(ConvertUtils.convertToList(txData.deletedRelationships()), txData)
-                : ConvertUtils.convertToList(txData.deletedRelationships());
-        Map<String, List<Node>> removedLabels = aggregateLabels(txData.removedLabels());
-        Map<String, List<Node>> assignedLabels = aggregateLabels(txData.assignedLabels());
-        Map<String, List<PropertyEntryContainer<Node>>> removedNodeProperties =
-                aggregatePropertyKeys(txData.removedNodeProperties(), true);
-        Map<String, List<PropertyEntryContainer<Relationship>>> removedRelationshipProperties =
-                aggregatePropertyKeys(txData.removedRelationshipProperties(), true);
-        final Map<String, List<PropertyEntryContainer<Node>>> assignedNodeProperties =
-                aggregatePropertyKeys(txData.assignedNodeProperties(), false);
-        final Map<String, List<PropertyEntryContainer<Relationship>>> assignedRelationshipProperties =
-                aggregatePropertyKeys(txData.assignedRelationshipProperties(), false);
-        if (rebindDeleted) {
-            removedLabels = removedLabels.entrySet().stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey, e -> rebindDeleted(e.getValue(), txData)));
-            removedNodeProperties = rebindPropsEntries(txData, removedNodeProperties);
-            removedRelationshipProperties = rebindPropsEntries(txData, removedRelationshipProperties);
-        }
+                : ConvertUtils.convertToList(txData.deletedRelationships()));
+        Lazy<Map<String, List<Node>>> removedLabels = new Lazy<>(() -> {
+            Map<String, List<Node>> labels = aggregateLabels(txData.removedLabels());
+            return rebindDeleted
+                    ? labels.entrySet().stream()
+                            .collect(Collectors.toMap(Map.Entry::getKey, e -> rebindDeleted(e.getValue(), txData)))
+                    : labels;
+        });
+        Lazy<Map<String, List<PropertyEntryContainer<Node>>>> removedNodeProperties = new Lazy<>(() -> {
+            Map<String, List<PropertyEntryContainer<Node>>> properties =
+                    aggregatePropertyKeys(txData.removedNodeProperties(), true);
+            return rebindDeleted ? rebindPropsEntries(txData, properties) : properties;
+        });
+        Lazy<Map<String, List<PropertyEntryContainer<Relationship>>>> removedRelationshipProperties =
+                new Lazy<>(() -> {
+                    Map<String, List<PropertyEntryContainer<Relationship>>> properties =
+                            aggregatePropertyKeys(txData.removedRelationshipProperties(), true);
+                    return rebindDeleted ? rebindPropsEntries(txData, properties) : properties;
+                });
         return new TriggerMetadata(
                 txId,
                 commitTime,
-                createdNodes,
-                createdRelationships,
+                new Lazy<>(() -> ConvertUtils.convertToList(txData.createdNodes())),
+                new Lazy<>(() -> ConvertUtils.convertToList(txData.createdRelationships())),
                 deletedNodes,
                 deletedRelationships,
                 removedLabels,
                 removedNodeProperties,
                 removedRelationshipProperties,
-                assignedLabels,
-                assignedNodeProperties,
-                assignedRelationshipProperties,
+                new Lazy<>(() -> aggregateLabels(txData.assignedLabels())),
+                new Lazy<>(() -> aggregatePropertyKeys(txData.assignedNodeProperties(), false)),
+                new Lazy<>(() -> aggregatePropertyKeys(txData.assignedRelationshipProperties(), false)),
                 txData.metaData());
     }
 
+    /**
+     * @return the metadata parameters referenced by the given statement
+     */
+    public static Set<String> referencedParameters(String statement) {
+        Set<String> referenced = new HashSet<>();
+        Matcher matcher = PARAMETER.matcher(statement);
+        while (matcher.find()) {
+            String name = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            if (PARAMETERS.contains(name)) {
+                referenced.add(name);
+            }
+        }
+        return Collections.unmodifiableSet(referenced);
+    }
+
     private static <T extends Entity> Map<String, List<PropertyEntryContainer<T>>> rebindPropsEntries(
             TransactionData txData, Map<String, List<PropertyEntryContainer<T>>> removedNodeProperties) {
         return removedNodeProperties.entrySet().stream()
@@ -174,32 +246,77 @@ public class TriggerMetadata {
                 .collect(Collectors.toMap(PropertyEntry::key, PropertyEntry::previouslyCommittedValue));
     }
 
+    /**
+     * Collects the given parameters from the transaction data,
+     * so that they can still be read once the transaction data is no longer available.
+     */
+    public TriggerMetadata collect(Collection<String> names) {
+        for (String name : names) {
+            parameters.get(name).get();
+        }
+        return this;
+    }
+
+    /**
+     * Merges the metadata of consecutive transactions, in commit order: the entities and the changes are concatenated,
+     * the transaction id, the commit time and the transaction metadata are those of the last transaction.
+     * Only the parameters collected from all of them can be read from the merged metadata.
+     */
+    public static TriggerMetadata merge(List<TriggerMetadata> batch) {
+        if (batch.size() == 1) return batch.get(0);
+        final TriggerMetadata last = batch.get(batch.size() - 1);
+        return new TriggerMetadata(
+                last.transactionId,
+                last.commitTime,
+                new Lazy<>(() -> concat(batch, m -> m.createdNodes)),
+                new Lazy<>(() -> concat(batch, m -> m.createdRelationships)),
+                new Lazy<>(() -> concat(batch, m -> m.deletedNodes)),
+                new Lazy<>(() -> concat(batch, m -> m.deletedRelationships)),
+                new Lazy<>(() -> concatByKey(batch, m -> m.removedLabels)),
+                new Lazy<>(() -> concatByKey(batch, m -> m.removedNodeProperties)),
+                new Lazy<>(() -> concatByKey(batch, m -> m.removedRelationshipProperties)),
+                new Lazy<>(() -> concatByKey(batch, m -> m.assignedLabels)),
+                new Lazy<>(() -> concatByKey(batch, m -> m.assignedNodeProperties)),
+                new Lazy<>(() -> concatByKey(batch, m -> m.assignedRelationshipProperties)),
+                last.metaData);
+    }
+
+    private static <T> List<T> concat(List<TriggerMetadata> batch, Function<TriggerMetadata, Lazy<List<T>>> field) {
+        List<T> result = new ArrayList<>();
+        for (TriggerMetadata metadata : batch) {
+            result.addAll(field.apply(metadata).get());
+        }
+        return result;
+    }
+
+    private static <T> Map<String, List<T>> concatByKey(
+            List<TriggerMetadata> batch, Function<TriggerMetadata, Lazy<Map<String, List<T>>>> field) {
+        Map<String, List<T>> result = new HashMap<>();
+        for (TriggerMetadata metadata : batch) {
+            field.apply(metadata).get().forEach((key, values) -> result.computeIfAbsent(key, k -> new ArrayList<>())
+                    .addAll(values));
+        }
+        return result;
+    }
+
+    /**
+     * Rebinds the entities to the given transaction, only the parameters already collected
+     * or collected from this metadata afterward can be read from the rebound metadata.
+     */
     public TriggerMetadata rebind(Transaction tx) {
-        final List<Node> createdNodes = Util.rebind(this.createdNodes, tx);
-        final List<Relationship> createdRelationships = Util.rebind(this.createdRelationships, tx);
-        final Map<String, List<Node>> removedLabels = rebindMap(this.removedLabels, tx);
-        final Map<String, List<Node>> assignedLabels = rebindMap(this.assignedLabels, tx);
-        final Map<String, List<PropertyEntryContainer<Node>>> removedNodeProperties =
-                rebindPropertyEntryContainer(this.removedNodeProperties, tx);
-        final Map<String, List<PropertyEntryContainer<Relationship>>> removedRelationshipProperties =
-                rebindPropertyEntryContainer(this.removedRelationshipProperties, tx);
-        final Map<String, List<PropertyEntryContainer<Node>>> assignedNodeProperties =
-                rebindPropertyEntryContainer(this.assignedNodeProperties, tx);
-        final Map<String, List<PropertyEntryContainer<Relationship>>> assignedRelationshipProperties =
-                rebindPropertyEntryContainer(this.assignedRelationshipProperties, tx);
         return new TriggerMetadata(
                 transactionId,
                 commitTime,
-                createdNodes,
-                createdRelationships,
+                new Lazy<>(() -> Util.rebind(this.createdNodes.get(), tx)),
+                new Lazy<>(() -> Util.rebind(this.createdRelationships.get(), tx)),
                 deletedNodes,
                 deletedRelationships,
-                removedLabels,
-                removedNodeProperties,
-                removedRelationshipProperties,
-                assignedLabels,
-                assignedNodeProperties,
-                assignedRelationshipProperties,
+                new Lazy<>(() -> rebindMap(this.removedLabels.get(), tx)),
+                new Lazy<>(() -> rebindPropertyEntryContainer(this.removedNodeProperties.get(), tx)),
+                new Lazy<>(() -> rebindPropertyEntryContainer(this.removedRelationshipProperties.get(), tx)),
+                new Lazy<>(() -> rebindMap(this.assignedLabels.get(), tx)),
+                new Lazy<>(() -> rebindPropertyEntryContainer(this.assignedNodeProperties.get(), tx)),
+                new Lazy<>(() -> rebindPropertyEntryContainer(this.assignedRelationshipProperties.get(), tx)),
                 metaData);
     }
 
@@ -214,41 +331,27 @@ public class TriggerMetadata {
         return map.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> Util.rebind(e.getValue(), tx)));
     }
 
-    private <T extends Entity> Map<String, List<Map<String, Object>>> convertMapOfPropertyEntryContainers(
+    private static <T extends Entity> Map<String, List<Map<String, Object>>> convertMapOfPropertyEntryContainers(
             Map<String, List<PropertyEntryContainer<T>>> map) {
-        return map.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue().stream()
-                .map(PropertyEntryContainer::toMap)
-                .collect(Collectors.toList())));
+        return map.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(e -> e.getKey(), e -> e.getValue().stream()
+                        .map(PropertyEntryContainer::toMap)
+                        .toList()));
     }
 
     public Map<String, Object> toMap() {
-        return map(
-                "transactionId",
-                transactionId,
-                "commitTime",
-                commitTime,
-                "createdNodes",
-                createdNodes,
-                "createdRelationships",
-                createdRelationships,
-                "deletedNodes",
-                deletedNodes,
-                "deletedRelationships",
-                deletedRelationships,
-                "removedLabels",
-                removedLabels,
-                "removedNodeProperties",
-                convertMapOfPropertyEntryContainers(removedNodeProperties),
-                "removedRelationshipProperties",
-                convertMapOfPropertyEntryContainers(removedRelationshipProperties),
-                "assignedLabels",
-                assignedLabels,
-                "assignedNodeProperties",
-                convertMapOfPropertyEntryContainers(assignedNodeProperties),
-                "assignedRelationshipProperties",
-                convertMapOfPropertyEntryContainers(assignedRelationshipProperties),
-                "metaData",
-                metaData);
+        return toMap(PARAMETERS);
+    }
+
+    /**
+     * @return a new map with the given parameters, their values are shared by all the maps of this metadata
+     */
+    public Map<String, Object> toMap(Collection<String> names) {
+        Map<String, Object> map = new HashMap<>();
+        for (String name : names) {
+            map.put(name, parameters.get(name).get());
+        }
+        return map;
     }
 
     private static Map<String, List<Node>> aggregateLabels(Iterable<LabelEntry> labelEntries) {
@@ -309,4 +412,28 @@ public class TriggerMetadata {
         }
         return result;
     }
+
+    private static class Lazy<T> implements Supplier<T> {
+        private Supplier<T> supplier;
+        private T value;
+
+        Lazy(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        static <T> Lazy<T> of(T value) {
+            Lazy<T> lazy = new Lazy<>(null);
+            lazy.value = value;
+            return lazy;
+        }
+
+        @Override
+        public synchronized T get() {
+            if (supplier != null) {
+                value = supplier.get();
+                supplier = null;
+            }
+            return value;
+        }
+    }
 }
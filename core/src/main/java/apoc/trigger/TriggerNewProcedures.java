@@ -98,7 +98,7 @@ public class TriggerNewProcedures {
             @Name(
                             value = "selector",
                             description =
-                                    "{ phase = \"before\" :: [\"before\", \"rollback\", \"after\", \"afterAsync\"] }")
+                                    "{ phase = \"before\" :: [\"before\", \"rollback\", \"after\", \"afterAsync\"], labels :: LIST<STRING>, types :: LIST<STRING>, properties :: LIST<STRING> }")
                     Map<String, Object> selector,
             @Name(value = "config", defaultValue = "{}", description = "The parameters for the given Cypher statement.")
                     Map<String, Object> config) {
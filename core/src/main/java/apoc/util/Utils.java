@@ -25,6 +25,7 @@ import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.neo4j.graphdb.TransactionTerminatedException;
@@ -123,6 +124,22 @@ public class Utils {
         }
     }
 
+    public record ExpressionCacheResult(
+            @Description("The kind of compiled expressions: regex, jsonPath or xpath.") String kind,
+            @Description("The number of compiled expressions currently cached.") long size,
+            @Description("The maximum number of compiled expressions cached.") long maxSize,
+            @Description("The number of lookups which found a compiled expression.") long hits,
+            @Description("The number of lookups which had to compile the expression.") long misses) {}
+
+    @Procedure("apoc.util.expressionCacheStats")
+    @Description(
+            "Returns the hit and miss counts of the caches of compiled regular expressions, JSON paths and XPath expressions.")
+    public Stream<ExpressionCacheResult> expressionCacheStats() {
+        return ExpressionCache.caches().stream()
+                .map(cache -> new ExpressionCacheResult(
+                        cache.name(), cache.size(), ExpressionCache.MAX_SIZE, cache.hits(), cache.misses()));
+    }
+
     @UserFunction("apoc.util.validatePredicate")
     @Description(
             "If the given predicate is true an exception is thrown, otherwise it returns true (for use inside `WHERE` subclauses).")
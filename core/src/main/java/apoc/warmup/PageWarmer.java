@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.warmup;
+
+import apoc.util.Util;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.logging.Log;
+import org.neo4j.procedure.TerminationGuard;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Touches the pages of mapped files.
+ *
+ * The page range of every file is split into chunks of at most {@link #CHUNK_PAGES} pages,
+ * which are pulled in file order by up to `concurrency` workers: the calling thread and `concurrency - 1` pool threads.
+ * The workers share one rate limit and one progress counter, which is logged every {@link #PROGRESS_INTERVAL_MILLIS}.
+ */
+class PageWarmer {
+    static final long CHUNK_PAGES = 8192;
+    static final int CHECK_INTERVAL_PAGES = 1000;
+    static final int RATE_LIMIT_PAGES = 64;
+    static final long PROGRESS_INTERVAL_MILLIS = 10_000;
+    static final long READ_AHEAD_GAP_PAGES = 16;
+
+    private final ExecutorService pool;
+    private final TerminationGuard guard;
+    private final Log log;
+    private final int concurrency;
+    private final long pagesPerSecond;
+
+    private final Queue<Chunk> chunks = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong lastReportMillis = new AtomicLong();
+    private volatile boolean terminated;
+    private long startMillis;
+    private long nextPermitNanos;
+
+    PageWarmer(ExecutorService pool, TerminationGuard guard, Log log, int concurrency, long pagesPerSecond) {
+        this.pool = pool;
+        this.guard = guard;
+        this.log = log;
+        this.concurrency = concurrency;
+        this.pagesPerSecond = pagesPerSecond;
+    }
+
+    static class FileWarmup {
+        final PagedFile pagedFile;
+        final String name;
+        final boolean index;
+        private final AtomicLong pages = new AtomicLong();
+        private volatile String error;
+        private long start = Long.MAX_VALUE;
+        private long end = Long.MIN_VALUE;
+
+        FileWarmup(PagedFile pagedFile, String name, boolean index) {
+            this.pagedFile = pagedFile;
+            this.name = name;
+            this.index = index;
+        }
+
+        private synchronized void record(long pages, long start, long end) {
+            this.pages.addAndGet(pages);
+            this.start = Math.min(this.start, start);
+            this.end = Math.max(this.end, end);
+        }
+
+        synchronized Warmup.PageResult toResult() {
+            long time = end < start ? 0 : end - start;
+            try {
+                return new Warmup.PageResult(name, index, pagedFile.fileSize(), pages.get(), error, time);
+            } catch (IOException e) {
+                return new Warmup.PageResult(name, index, -1L, pages.get(), e.getMessage(), time);
+            }
+        }
+    }
+
+    private record Chunk(FileWarmup file, long firstPage, long lastPage) {}
+
+    /**
+     * Schedules all pages of the file.
+     */
+    FileWarmup add(PagedFile pagedFile, String name, boolean index) {
+        FileWarmup file = new FileWarmup(pagedFile, name, index);
+        try {
+            if (pagedFile.fileSize() > 0) {
+                addRange(file, 0, pagedFile.getLastPageId());
+            }
+        } catch (IOException e) {
+            file.error = e.getMessage();
+        }
+        return file;
+    }
+
+    /**
+     * Schedules only the given pages of the file, in file order.
+     * Runs of pages separated by no more than {@link #READ_AHEAD_GAP_PAGES} are merged,
+     * so that they are read sequentially with read-ahead rather than one by one.
+     */
+    FileWarmup add(PagedFile pagedFile, String name, boolean index, Roaring64NavigableMap pages) {
+        FileWarmup file = new FileWarmup(pagedFile, name, index);
+        LongIterator iterator = pages.getLongIterator();
+        if (!iterator.hasNext()) return file;
+        long first = iterator.next();
+        long last = first;
+        while (iterator.hasNext()) {
+            long page = iterator.next();
+            if (page - last > READ_AHEAD_GAP_PAGES) {
+                addRange(file, first, last);
+                first = page;
+            }
+            last = page;
+        }
+        addRange(file, first, last);
+        return file;
+    }
+
+    /**
+     * Schedules the pages from `firstPage` to `lastPage`, both inclusive, of an already added file.
+     */
+    void addRange(FileWarmup file, long firstPage, long lastPage) {
+        for (long page = firstPage; page <= lastPage; page += CHUNK_PAGES) {
+            chunks.add(new Chunk(file, page, Math.min(lastPage, page + CHUNK_PAGES - 1)));
+        }
+    }
+
+    /**
+     * Warms up all scheduled pages.
+     *
+     * @param cursorContext the context of the calling thread, pool threads do not trace their page cache access
+     * @return the time taken in milliseconds
+     */
+    long run(CursorContext cursorContext) {
+        startMillis = System.currentTimeMillis();
+        lastReportMillis.set(startMillis);
+        nextPermitNanos = System.nanoTime();
+
+        List<Future<?>> futures = new ArrayList<>();
+        int workers = Math.min(concurrency, chunks.size());
+        for (int i = 1; i < workers; i++) {
+            futures.add(pool.submit(() -> work(CursorContext.NULL_CONTEXT)));
+        }
+        try {
+            work(cursorContext);
+        } finally {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    terminated = true;
+                    throw new RuntimeException("Error warming up pages: " + e.getMessage(), e);
+                }
+            }
+        }
+        return System.currentTimeMillis() - startMillis;
+    }
+
+    boolean isTerminated() {
+        return terminated;
+    }
+
+    long getPages() {
+        return pages.get();
+    }
+
+    static long pagesPerSecond(long pages, long millis) {
+        return pages * 1000 / Math.max(1, millis);
+    }
+
+    private void work(CursorContext cursorContext) {
+        Chunk chunk;
+        while (!terminated && (chunk = chunks.poll()) != null) {
+            warm(chunk, cursorContext);
+        }
+    }
+
+    private void warm(Chunk chunk, CursorContext cursorContext) {
+        long start = System.currentTimeMillis();
+        long touched = 0;
+        try (PageCursor cursor = chunk.file.pagedFile.io(
+                chunk.firstPage, PagedFile.PF_READ_AHEAD | PagedFile.PF_SHARED_READ_LOCK, cursorContext)) {
+            for (long page = chunk.firstPage; page <= chunk.lastPage && cursor.next(); page++) {
+                cursor.getByte();
+                touched++;
+                if (touched % RATE_LIMIT_PAGES == 0) {
+                    acquire(RATE_LIMIT_PAGES);
+                }
+                if (touched % CHECK_INTERVAL_PAGES == 0) {
+                    report(CHECK_INTERVAL_PAGES);
+                    if (Util.transactionIsTerminated(guard)) {
+                        terminated = true;
+                        break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            chunk.file.error = e.getMessage();
+        } finally {
+            report(touched % CHECK_INTERVAL_PAGES);
+            chunk.file.record(touched, start, System.currentTimeMillis());
+        }
+    }
+
+    private void acquire(long permits) {
+        if (pagesPerSecond <= 0) return;
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextPermitNanos);
+            nextPermitNanos = start + permits * TimeUnit.SECONDS.toNanos(1) / pagesPerSecond;
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+    private void report(long touched) {
+        long total = pages.addAndGet(touched);
+        long now = System.currentTimeMillis();
+        long last = lastReportMillis.get();
+        if (now - last >= PROGRESS_INTERVAL_MILLIS && lastReportMillis.compareAndSet(last, now)) {
+            log.info(
+                    "apoc.warmup.run: %d pages warmed up, %d pages/s",
+                    total, pagesPerSecond(total, now - startMillis));
+        }
+    }
+}
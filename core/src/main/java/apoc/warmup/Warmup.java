@@ -18,24 +18,38 @@
  */
 package apoc.warmup;
 
+import apoc.Pools;
 import apoc.util.Util;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.neo4j.common.EntityType;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.layout.recordstorage.RecordDatabaseLayout;
 import org.neo4j.io.pagecache.PageCache;
-import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.api.QueryLanguage;
 import org.neo4j.kernel.api.procedure.QueryLanguageScope;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
+import org.neo4j.token.api.TokenConstants;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 /**
  * @author Sascha Peukert
@@ -52,6 +66,12 @@ public class Warmup {
     @Context
     public TerminationGuard guard;
 
+    @Context
+    public Pools pools;
+
+    @Context
+    public Log log;
+
     static class PageResult {
         public final String file;
         public final boolean index;
@@ -60,13 +80,13 @@ public class Warmup {
         public final String error;
         public final long time;
 
-        public PageResult(String file, boolean index, long fileSize, long pages, String error, long start) {
+        public PageResult(String file, boolean index, long fileSize, long pages, String error, long time) {
             this.file = file;
             this.index = index;
             this.fileSize = fileSize;
             this.pages = pages;
             this.error = error;
-            this.time = System.currentTimeMillis() - start;
+            this.time = time;
         }
     }
 
@@ -93,50 +113,68 @@ public class Warmup {
     public Stream<WarmupResult> run(
             @Name(value = "loadProperties", defaultValue = "false") boolean loadProperties,
             @Name(value = "loadDynamicProperties", defaultValue = "false") boolean loadDynamicProperties,
-            @Name(value = "loadIndexes", defaultValue = "false") boolean loadIndexes)
-            throws IOException {
+            @Name(value = "loadIndexes", defaultValue = "false") boolean loadIndexes,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
         if (!(db.databaseLayout() instanceof RecordDatabaseLayout)) {
             throw new IllegalArgumentException("`apoc.warmup.run` is only supported on record storage databases");
         }
+        WarmupConfig conf = new WarmupConfig(config);
 
         PageCache pageCache = db.getDependencyResolver().resolveDependency(PageCache.class);
         KernelTransaction ktx = ((InternalTransaction) tx).kernelTransaction();
+        Set<String> indexDirectories = conf.isSelective() ? indexDirectories(ktx, conf) : null;
+        Path databaseDirectory = db.databaseLayout().databaseDirectory();
+        WarmupProfile profile =
+                conf.getProfile() == WarmupConfig.Profile.REPLAY ? readProfile(pageCache.pageSize()) : null;
 
-        List<PagedFile> pagedFiles = pageCache.listExistingMappings();
-
-        Map<String, PageResult> records = pagedFiles.stream()
+        List<PagedFile> pagedFiles = pageCache.listExistingMappings().stream()
                 .filter(pF -> {
                     String name = pF.path().toFile().getName();
                     if (isSchema(pF.path().toFile()) && !loadIndexes) return false;
                     if ((name.endsWith("propertystore.db.strings") || name.endsWith("propertystore.db.arrays"))
                             && !loadDynamicProperties) return false;
                     if ((name.startsWith("propertystore.db")) && !loadProperties) return false;
-                    return true;
+                    return !conf.isSelective() || isSelected(pF.path(), conf, indexDirectories);
                 })
-                .map((pagedFile -> {
-                    File file = pagedFile.path().toFile();
-                    boolean index = isSchema(file);
-                    String fileName = index ? subPath(file, "schema") : file.getName();
-                    long pages = 0;
-                    long start = System.currentTimeMillis();
-                    try {
-                        if (pagedFile.fileSize() > 0) {
-                            PageCursor cursor = pagedFile.io(
-                                    0L, PagedFile.PF_READ_AHEAD | PagedFile.PF_SHARED_READ_LOCK, ktx.cursorContext());
-                            while (cursor.next()) {
-                                cursor.getByte();
-                                pages++;
-                                if (pages % 1000 == 0 && Util.transactionIsTerminated(guard)) {
-                                    break;
-                                }
-                            }
+                .collect(Collectors.toList());
+
+        long totalTime;
+        long pages;
+        Map<String, PageResult> records;
+        boolean terminated;
+        if (conf.getProfile() == WarmupConfig.Profile.RECORD) {
+            long start = System.currentTimeMillis();
+            WarmupProfile recorded = recordProfile(pagedFiles, databaseDirectory, pageCache.pageSize(), ktx);
+            totalTime = System.currentTimeMillis() - start;
+            pages = recorded.getPages();
+            records = pagedFiles.stream()
+                    .map(pagedFile ->
+                            recordedResult(pagedFile, recorded.getPages(databaseDirectory, pagedFile.path())))
+                    .collect(Collectors.toMap(r -> r.file, r -> r));
+            terminated = Util.transactionIsTerminated(guard);
+        } else {
+            PageWarmer warmer = new PageWarmer(
+                    pools.getDefaultExecutorService(), guard, log, conf.getConcurrency(), conf.getPagesPerSecond());
+            List<PageWarmer.FileWarmup> files = pagedFiles.stream()
+                    .map(pagedFile -> {
+                        File file = pagedFile.path().toFile();
+                        boolean index = isSchema(file);
+                        String fileName = fileName(file);
+                        if (profile == null) {
+                            return warmer.add(pagedFile, fileName, index);
                         }
-                        return new PageResult(fileName, index, pagedFile.fileSize(), pages, null, start);
-                    } catch (IOException e) {
-                        return new PageResult(fileName, index, -1L, pages, e.getMessage(), start);
-                    }
-                }))
-                .collect(Collectors.toMap(r -> r.file, r -> r));
+                        Roaring64NavigableMap hot = profile.getPages(databaseDirectory, pagedFile.path());
+                        return warmer.add(pagedFile, fileName, index, hot == null ? new Roaring64NavigableMap() : hot);
+                    })
+                    .collect(Collectors.toList());
+
+            totalTime = warmer.run(ktx.cursorContext());
+            pages = warmer.getPages();
+            records = files.stream()
+                    .map(PageWarmer.FileWarmup::toResult)
+                    .collect(Collectors.toMap(r -> r.file, r -> r));
+            terminated = warmer.isTerminated() || Util.transactionIsTerminated(guard);
+        }
 
         WarmupResult result = new WarmupResult(
                 pageCache.pageSize(),
@@ -147,16 +185,122 @@ public class Warmup {
                 records.get("neostore.relationshipgroupstore.db"),
                 loadProperties,
                 records.get("neostore.propertystore.db"),
-                records.values().stream().mapToLong((r) -> r.time).sum(),
-                Util.transactionIsTerminated(guard),
+                totalTime,
+                terminated,
                 loadDynamicProperties,
                 records.get("neostore.propertystore.db.strings"),
                 records.get("neostore.propertystore.db.arrays"),
                 loadIndexes,
-                records.values().stream().filter(r -> r.index).collect(Collectors.toList()));
+                records.values().stream().filter(r -> r.index).collect(Collectors.toList()),
+                PageWarmer.pagesPerSecond(pages, totalTime));
         return Stream.of(result);
     }
 
+    private String fileName(File file) {
+        return isSchema(file) ? subPath(file, "schema") : file.getName();
+    }
+
+    private WarmupProfile readProfile(int pageSize) {
+        FileSystemAbstraction fs = db.getDependencyResolver().resolveDependency(FileSystemAbstraction.class);
+        Path location = WarmupProfile.location(db.databaseName());
+        if (!fs.fileExists(location)) {
+            throw new IllegalArgumentException("No warmup profile found for this database,"
+                    + " record one with `apoc.warmup.run` and the `{profile: 'record'}` config first");
+        }
+        try {
+            WarmupProfile profile = WarmupProfile.read(fs, location);
+            if (profile.getPageSize() != pageSize) {
+                throw new IllegalArgumentException("The warmup profile was captured with a page size of "
+                        + profile.getPageSize() + " bytes, but the page size is now " + pageSize + " bytes");
+            }
+            return profile;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records which pages of the files are in the page cache, and keeps them unless the transaction was terminated.
+     */
+    private WarmupProfile recordProfile(
+            List<PagedFile> pagedFiles, Path databaseDirectory, int pageSize, KernelTransaction ktx) {
+        try {
+            WarmupProfile profile =
+                    WarmupProfile.capture(pagedFiles, databaseDirectory, pageSize, ktx.cursorContext(), guard);
+            if (!Util.transactionIsTerminated(guard)) {
+                profile.write(
+                        db.getDependencyResolver().resolveDependency(FileSystemAbstraction.class),
+                        WarmupProfile.location(db.databaseName()));
+            }
+            return profile;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private PageResult recordedResult(PagedFile pagedFile, Roaring64NavigableMap pages) {
+        File file = pagedFile.path().toFile();
+        long recorded = pages == null ? 0 : pages.getLongCardinality();
+        try {
+            return new PageResult(fileName(file), isSchema(file), pagedFile.fileSize(), recorded, null, 0);
+        } catch (IOException e) {
+            return new PageResult(fileName(file), isSchema(file), -1L, recorded, e.getMessage(), 0);
+        }
+    }
+
+    /**
+     * In selective mode, node stores are only warmed up for labels, relationship stores only for relationship types,
+     * and of the indexes only the ones on the given labels and types, plus the matching token lookup index.
+     * All other stores are selected as usual.
+     */
+    private boolean isSelected(Path path, WarmupConfig conf, Set<String> indexDirectories) {
+        if (isSchema(path.toFile())) {
+            for (Path element : path) {
+                if (indexDirectories.contains(element.toString())) return true;
+            }
+            return false;
+        }
+        String name = path.getFileName().toString();
+        if (name.startsWith("neostore.nodestore.db") || name.startsWith("neostore.labeltokenstore.db")) {
+            return !conf.getLabels().isEmpty();
+        }
+        if (name.startsWith("neostore.relationshipstore.db")
+                || name.startsWith("neostore.relationshipgroupstore.db")
+                || name.startsWith("neostore.relationshiptypestore.db")) {
+            return !conf.getRelTypes().isEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * The names of the directories of the indexes that belong to the configured labels and relationship types,
+     * which are the ids of the indexes.
+     */
+    private Set<String> indexDirectories(KernelTransaction ktx, WarmupConfig conf) {
+        TokenRead tokenRead = ktx.tokenRead();
+        Set<Integer> labels = tokenIds(conf.getLabels(), tokenRead::nodeLabel);
+        Set<Integer> relTypes = tokenIds(conf.getRelTypes(), tokenRead::relationshipType);
+        Set<String> directories = new HashSet<>();
+        Iterator<IndexDescriptor> indexes = ktx.schemaRead().indexesGetAll();
+        while (indexes.hasNext()) {
+            IndexDescriptor index = indexes.next();
+            boolean nodes = index.schema().entityType() == EntityType.NODE;
+            Set<Integer> tokens = nodes ? labels : relTypes;
+            boolean selected = index.isTokenIndex()
+                    ? !(nodes ? conf.getLabels() : conf.getRelTypes()).isEmpty()
+                    : Arrays.stream(index.schema().getEntityTokenIds()).anyMatch(tokens::contains);
+            if (selected) directories.add(String.valueOf(index.getId()));
+        }
+        return directories;
+    }
+
+    private Set<Integer> tokenIds(List<String> names, ToIntFunction<String> tokenId) {
+        return names.stream()
+                .map(tokenId::applyAsInt)
+                .filter(id -> id != TokenConstants.NO_TOKEN)
+                .collect(Collectors.toSet());
+    }
+
     public boolean isSchema(File file) {
         return file.getAbsolutePath().contains(File.separator + "schema" + File.separator);
     }
@@ -196,6 +340,7 @@ public class Warmup {
         public final boolean indexesLoaded;
         public long indexPages;
         public long indexTime;
+        public final long pagesPerSecond;
 
         public WarmupResult(
                 long pageSize,
@@ -212,23 +357,26 @@ public class Warmup {
                 PageResult stringProps,
                 PageResult arrayProps,
                 boolean loadIndexes,
-                List<PageResult> indexes) {
+                List<PageResult> indexes,
+                long pagesPerSecond) {
             this.pageSize = pageSize;
             this.transactionWasTerminated = transactionWasTerminated;
             this.totalTime = totalTime;
             this.propertiesLoaded = propertiesLoaded;
             this.dynamicPropertiesLoaded = dynamicPropertiesLoaded;
 
+            this.pagesPerSecond = pagesPerSecond;
+
             this.nodesTotal = nodesTotal;
-            this.nodePages = nodes.pages;
-            this.nodesTime = nodes.time;
+            this.nodePages = nodes == null ? 0 : nodes.pages;
+            this.nodesTime = nodes == null ? 0 : nodes.time;
 
             this.relsTotal = relsTotal;
-            this.relPages = rels.pages;
-            this.relsTime = rels.time;
+            this.relPages = rels == null ? 0 : rels.pages;
+            this.relsTime = rels == null ? 0 : rels.time;
 
-            this.relGroupPages = relGroups.pages;
-            this.relGroupsTime = relGroups.time;
+            this.relGroupPages = relGroups == null ? 0 : relGroups.pages;
+            this.relGroupsTime = relGroups == null ? 0 : relGroups.time;
 
             if (props != null) {
                 this.propPages = props.pages;
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.warmup;
+
+import apoc.util.Util;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class WarmupConfig {
+
+    public enum Profile {
+        // all the pages of the selected files are warmed up
+        NONE,
+        // the pages of the selected files that are in the page cache are recorded, and none is warmed up
+        RECORD,
+        // only the recorded pages of the selected files are warmed up
+        REPLAY
+    }
+
+    private final int concurrency;
+    private final long pagesPerSecond;
+    private final List<String> labels;
+    private final List<String> relTypes;
+    private final Profile profile;
+
+    public WarmupConfig(Map<String, Object> config) {
+        if (config == null) config = Collections.emptyMap();
+        this.concurrency = Math.max(1, Util.toInteger(config.getOrDefault("concurrency", 1)));
+        this.pagesPerSecond = Math.max(0, Util.toLong(config.getOrDefault("pagesPerSecond", 0)));
+        this.labels = (List<String>) config.getOrDefault("labels", Collections.emptyList());
+        this.relTypes = (List<String>) config.getOrDefault("relTypes", Collections.emptyList());
+        Object profile = config.get("profile");
+        this.profile = profile instanceof String mode
+                ? Profile.valueOf(mode.toUpperCase())
+                : Util.toBoolean(profile) ? Profile.REPLAY : Profile.NONE;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return the maximum number of pages touched per second over all workers, 0 means unlimited
+     */
+    public long getPagesPerSecond() {
+        return pagesPerSecond;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public List<String> getRelTypes() {
+        return relTypes;
+    }
+
+    /**
+     * @return what to do with the profile of the pages in the page cache, `true` meaning {@link Profile#REPLAY}
+     */
+    public Profile getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return true if only the stores and indexes of the given labels and relationship types should be warmed up
+     */
+    public boolean isSelective() {
+        return !labels.isEmpty() || !relTypes.isEmpty();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.warmup;
+
+import static apoc.ApocConfig.apocConfig;
+
+import apoc.util.Util;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.procedure.TerminationGuard;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * The pages of the files of a database that were resident in the page cache when the profile was captured,
+ * as one bitmap of page ids per file, keyed by the path of the file relative to the database directory.
+ *
+ * Profiles are stored in a directory of APOC, one file per database, so that they survive a restart.
+ * It is {@link #PROFILE_DIRECTORY} if set, otherwise `apoc/warmup` in the data directory of the DBMS,
+ * but never the database directory, which belongs to the store.
+ */
+class WarmupProfile {
+    static final String PROFILE_DIRECTORY = "apoc.warmup.profile.directory";
+    private static final int MAGIC = 0x41504F43; // APOC
+    private static final int VERSION = 1;
+
+    private final int pageSize;
+    private final Map<String, Roaring64NavigableMap> pages;
+
+    private WarmupProfile(int pageSize, Map<String, Roaring64NavigableMap> pages) {
+        this.pageSize = pageSize;
+        this.pages = pages;
+    }
+
+    static Path location(String databaseName) {
+        String directory = apocConfig().getString(PROFILE_DIRECTORY, null);
+        Path profiles = directory != null
+                ? Path.of(directory)
+                : Path.of(apocConfig().getString(GraphDatabaseSettings.data_directory.name()), "apoc", "warmup");
+        return profiles.resolve(databaseName + ".profile");
+    }
+
+    /**
+     * Samples which pages of the files under the database directory are in memory, without faulting any in.
+     */
+    static WarmupProfile capture(
+            List<PagedFile> pagedFiles,
+            Path databaseDirectory,
+            int pageSize,
+            CursorContext cursorContext,
+            TerminationGuard guard)
+            throws IOException {
+        Map<String, Roaring64NavigableMap> pages = new LinkedHashMap<>();
+        for (PagedFile pagedFile : pagedFiles) {
+            if (!pagedFile.path().startsWith(databaseDirectory) || pagedFile.fileSize() <= 0) continue;
+            Roaring64NavigableMap hot = new Roaring64NavigableMap();
+            try (PageCursor cursor =
+                    pagedFile.io(0L, PagedFile.PF_SHARED_READ_LOCK | PagedFile.PF_NO_FAULT, cursorContext)) {
+                long pageId = 0;
+                while (cursor.next()) {
+                    if (cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID) {
+                        hot.addLong(pageId);
+                    }
+                    pageId++;
+                    if (pageId % PageWarmer.CHECK_INTERVAL_PAGES == 0 && Util.transactionIsTerminated(guard)) {
+                        break;
+                    }
+                }
+            }
+            hot.runOptimize();
+            pages.put(databaseDirectory.relativize(pagedFile.path()).toString(), hot);
+        }
+        return new WarmupProfile(pageSize, pages);
+    }
+
+    static WarmupProfile read(FileSystemAbstraction fs, Path location) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(fs.openAsInputStream(location)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported warmup profile " + location);
+            }
+            int pageSize = in.readInt();
+            int files = in.readInt();
+            Map<String, Roaring64NavigableMap> pages = new LinkedHashMap<>(files);
+            for (int i = 0; i < files; i++) {
+                String file = in.readUTF();
+                Roaring64NavigableMap hot = new Roaring64NavigableMap();
+                hot.deserialize(in);
+                pages.put(file, hot);
+            }
+            return new WarmupProfile(pageSize, pages);
+        }
+    }
+
+    /**
+     * Writes the profile to a temporary file first, so that a crash never leaves a truncated profile behind.
+     */
+    void write(FileSystemAbstraction fs, Path location) throws IOException {
+        fs.mkdirs(location.getParent());
+        Path tmp = location.resolveSibling(location.getFileName() + ".tmp");
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(fs.openAsOutputStream(tmp, false)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(pageSize);
+            out.writeInt(pages.size());
+            for (Map.Entry<String, Roaring64NavigableMap> entry : pages.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().serialize(out);
+            }
+        }
+        fs.renameFile(tmp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    int getFiles() {
+        return pages.size();
+    }
+
+    long getPages() {
+        return pages.values().stream()
+                .mapToLong(Roaring64NavigableMap::getLongCardinality)
+                .sum();
+    }
+
+    /**
+     * @return the hot pages of the file, or null if the file was not profiled
+     */
+    Roaring64NavigableMap getPages(Path databaseDirectory, Path file) {
+        return pages.get(databaseDirectory.relativize(file).toString());
+    }
+}
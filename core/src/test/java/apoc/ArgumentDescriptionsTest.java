@@ -52,6 +52,7 @@ import apoc.export.json.ExportJson;
 import apoc.export.json.ImportJson;
 import apoc.graph.Graphs;
 import apoc.hashing.Fingerprinting;
+import apoc.hashing.IncrementalFingerprinting;
 import apoc.help.Help;
 import apoc.index.SchemaIndex;
 import apoc.label.Label;
@@ -180,6 +181,7 @@ public class ArgumentDescriptionsTest {
                 Help.class,
                 ImportCsv.class,
                 ImportJson.class,
+                IncrementalFingerprinting.class,
                 Json.class,
                 Label.class,
                 LoadArrow.class,
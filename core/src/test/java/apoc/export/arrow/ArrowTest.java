@@ -38,6 +38,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 import org.junit.jupiter.api.BeforeAll;
@@ -327,6 +328,25 @@ public class ArrowTest {
         });
     }
 
+    @Test
+    public void testStreamRoundtripArrowAllInSmallBatches() {
+        // given - when
+        final List<byte[]> list = db.executeTransactionally(
+                "CYPHER 5 CALL apoc.export.arrow.stream.all({batchSize: 1}) YIELD value AS byteArray ",
+                Map.of(),
+                result -> result.<byte[]>columnAs("byteArray").stream().collect(Collectors.toList()));
+
+        // then
+        assertEquals(3, list.size());
+        final String query =
+                "UNWIND $list AS byteArray CALL apoc.load.arrow.stream(byteArray) YIELD value RETURN value";
+        db.executeTransactionally(query, Map.of("list", list), result -> {
+            final List<Map<String, Object>> actual = getActual(result);
+            assertEquals(EXPECTED, actual);
+            return null;
+        });
+    }
+
     @Test
     public void testFileRoundtripArrowAll() {
         // given - when
@@ -391,6 +411,30 @@ public class ArrowTest {
         db.executeTransactionally("MATCH (n:ArrowNode) DELETE n");
     }
 
+    @Test
+    public void testFileLoadArrowAcrossRecordBatches() {
+        // given - when
+        String file = db.executeTransactionally(
+                "CALL apoc.export.arrow.query('batches_test.arrow', 'UNWIND range(0, 9) AS id RETURN id, toString(id) AS name', {batchSize: 3}) YIELD file",
+                Map.of(),
+                this::extractFileName);
+
+        // then
+        final String query = "CALL apoc.load.arrow($file) YIELD value "
+                + "RETURN value.id AS id, value.name AS name, keys(value) AS keys";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final List<Map<String, Object>> rows = result.stream().collect(Collectors.toList());
+            assertEquals(
+                    LongStream.range(0, 10).boxed().collect(Collectors.toList()),
+                    rows.stream().map(row -> (Long) row.get("id")).sorted().collect(Collectors.toList()));
+            rows.forEach(row -> {
+                assertEquals(String.valueOf(row.get("id")), row.get("name"));
+                assertEquals(Set.of("id", "name"), Set.copyOf((List<String>) row.get("keys")));
+            });
+            return null;
+        });
+    }
+
     @Test
     public void testArrowCorrectBatchCount() {
         // given - when
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.export.csv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.neo4j.memory.LocalMemoryTracker;
+
+public class CsvIdMappingTest {
+
+    private static final int IDS = 100_000;
+
+    @Test
+    public void testStringIds() {
+        for (CsvIdMapping.Storage storage : CsvIdMapping.Storage.values()) {
+            try (CsvIdMapping mapping = new CsvIdMapping(storage, true)) {
+                CsvIdMapping.IdSpace persons = mapping.idSpace("Person");
+                for (int i = 0; i < IDS; i++) {
+                    assertTrue(persons.put("person-" + i, i));
+                }
+                assertFalse(persons.put("person-42", 4242));
+                assertTrue(mapping.idSpace("Movie").put("person-42", 7));
+
+                assertEquals(IDS, persons.size());
+                for (int i = 0; i < IDS; i++) {
+                    assertEquals(i, mapping.get("Person", "person-" + i));
+                }
+                assertEquals(7, mapping.get("Movie", "person-42"));
+                assertEquals(CsvIdMapping.NOT_FOUND, mapping.get("Person", "person-" + IDS));
+                assertEquals(CsvIdMapping.NOT_FOUND, mapping.get("Unknown", "person-1"));
+            }
+        }
+    }
+
+    @Test
+    public void testNumericIds() {
+        for (CsvIdMapping.Storage storage : CsvIdMapping.Storage.values()) {
+            try (CsvIdMapping mapping = new CsvIdMapping(storage, false)) {
+                CsvIdMapping.IdSpace idSpace = mapping.idSpace(CsvLoaderConstants.DEFAULT_IDSPACE);
+                for (long i = 0; i < IDS; i++) {
+                    assertTrue(idSpace.put(String.valueOf(i * 31 - IDS), i));
+                }
+                assertFalse(idSpace.put(String.valueOf(-IDS), 0));
+
+                for (long i = 0; i < IDS; i++) {
+                    assertEquals(i, mapping.get(CsvLoaderConstants.DEFAULT_IDSPACE, String.valueOf(i * 31 - IDS)));
+                }
+                assertEquals(CsvIdMapping.NOT_FOUND, mapping.get(CsvLoaderConstants.DEFAULT_IDSPACE, "1"));
+                assertEquals(CsvIdMapping.NOT_FOUND, mapping.get(CsvLoaderConstants.DEFAULT_IDSPACE, "not-a-number"));
+            }
+        }
+    }
+
+    @Test
+    public void testNonCanonicalNumericIdsAreDistinct() {
+        for (CsvIdMapping.Storage storage : CsvIdMapping.Storage.values()) {
+            try (CsvIdMapping mapping = new CsvIdMapping(storage, false)) {
+                CsvIdMapping.IdSpace idSpace = mapping.idSpace(CsvLoaderConstants.DEFAULT_IDSPACE);
+                List<String> ids = List.of("1", "01", "+1", "001", "0", "-0", "-1", "-01", "one");
+                for (int i = 0; i < ids.size(); i++) {
+                    assertTrue(idSpace.put(ids.get(i), i));
+                }
+                assertFalse(idSpace.put("01", 42));
+                idSpace.set("+1", 43);
+
+                assertEquals(ids.size(), idSpace.size());
+                assertEquals(0, mapping.get(CsvLoaderConstants.DEFAULT_IDSPACE, "1"));
+                assertEquals(1, mapping.get(CsvLoaderConstants.DEFAULT_IDSPACE, "01"));
+                assertEquals(43, mapping.get(CsvLoaderConstants.DEFAULT_IDSPACE, "+1"));
+                assertEquals(4, mapping.get(CsvLoaderConstants.DEFAULT_IDSPACE, "0"));
+                assertEquals(5, mapping.get(CsvLoaderConstants.DEFAULT_IDSPACE, "-0"));
+                assertEquals(8, mapping.get(CsvLoaderConstants.DEFAULT_IDSPACE, "one"));
+                assertEquals(CsvIdMapping.NOT_FOUND, mapping.get(CsvLoaderConstants.DEFAULT_IDSPACE, "0001"));
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeapMemoryIsTrackedUntilClosed() {
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+        try (CsvIdMapping mapping = new CsvIdMapping(CsvIdMapping.Storage.OFF_HEAP, true, memoryTracker)) {
+            CsvIdMapping.IdSpace persons = mapping.idSpace("Person");
+            for (int i = 0; i < IDS; i++) {
+                persons.put("person-" + i, i);
+            }
+            assertTrue(memoryTracker.usedNativeMemory() > IDS * 16L);
+        }
+        assertEquals(0, memoryTracker.usedNativeMemory());
+    }
+}
@@ -38,6 +38,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.junit.After;
@@ -268,6 +269,54 @@ public class ExportCsvNeo4jAdminTest {
         testExportGraphNeo4jAdminCsvCommon("graph.multi.dots.name.file", ".csv");
     }
 
+    @Test
+    public void testExportAllNeo4jAdminCsvWithInterleavedLabelSetsAndTypes() {
+        db.executeTransactionally("MATCH (n) DETACH DELETE n");
+        db.executeTransactionally(
+                """
+                UNWIND range(0, 999) AS i
+                CREATE (n:Interleaved {idx: i})
+                FOREACH (_ IN CASE WHEN i % 2 = 0 THEN [1] ELSE [] END | SET n:Even, n.even = true)
+                WITH collect(n) AS nodes
+                UNWIND range(0, size(nodes) - 2) AS i
+                WITH nodes[i] AS from, nodes[i + 1] AS to, i
+                FOREACH (_ IN CASE WHEN i % 2 = 0 THEN [1] ELSE [] END | CREATE (from)-[:FORWARD {idx: i}]->(to))
+                FOREACH (_ IN CASE WHEN i % 2 = 1 THEN [1] ELSE [] END | CREATE (from)-[:BACKWARD]->(to))
+                """);
+        final String fileName = "interleaved.csv";
+
+        TestUtil.testCall(
+                db,
+                "CALL apoc.export.csv.all($fileName,{bulkImport: true})",
+                map("fileName", fileName),
+                r -> {
+                    assertEquals(1000L, r.get("nodes"));
+                    assertEquals(999L, r.get("relationships"));
+                    assertEquals(1000L + 500L + 500L, r.get("properties"));
+                });
+
+        String file = directory.getAbsolutePath() + File.separator;
+        List<String> odd = readLines(file + "interleaved.nodes.Interleaved.csv");
+        assertEquals("\":ID\",\"idx:long\",\":LABEL\"", odd.get(0));
+        assertEquals(501, odd.size());
+        assertTrue(odd.stream().skip(1).allMatch(line -> line.endsWith(",\"Interleaved\"")));
+
+        List<String> even = readLines(file + "interleaved.nodes.Interleaved.Even.csv");
+        assertEquals(
+                Set.of("\":ID\"", "\"idx:long\"", "\"even:boolean\"", "\":LABEL\""),
+                Set.of(even.get(0).split(",")));
+        assertEquals(501, even.size());
+        assertTrue(even.stream().skip(1).allMatch(line -> line.endsWith(",\"Interleaved;Even\"")));
+
+        assertEquals(501, readLines(file + "interleaved.relationships.FORWARD.csv").size());
+        assertEquals(500, readLines(file + "interleaved.relationships.BACKWARD.csv").size());
+    }
+
+    private List<String> readLines(String file) {
+        return List.of(BinaryTestUtil.readFileToString(new File(file), StandardCharsets.UTF_8, CompressionAlgo.NONE)
+                .split("\\R"));
+    }
+
     private void testExportGraphNeo4jAdminCsvCommon(String fileBaseName, String fileExpectedExt) {
         final String fileName = fileBaseName + fileExpectedExt;
         File output = new File(directory, fileName);
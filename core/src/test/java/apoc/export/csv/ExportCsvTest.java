@@ -53,6 +53,7 @@ import com.neo4j.test.extension.EnterpriseDbmsExtension;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -646,6 +647,45 @@ public class ExportCsvTest {
         assertEquals(EXPECTED_ALL_ALWAYS, readFile(fileName, UTF_8, compressionAlgo));
     }
 
+    @Test
+    public void testExportAllCsvInShards() throws Exception {
+        int shards = 3;
+        testCall(
+                db,
+                "CALL apoc.export.csv.all($file, {shards: $shards})",
+                map("file", "sharded.csv", "shards", shards),
+                (r) -> {
+                    assertEquals(10L, r.get("nodes"));
+                    assertEquals(3L, r.get("relationships"));
+                    assertEquals(22L, r.get("properties"));
+                });
+
+        List<String> expected = EXPECTED_ALL_ALWAYS.lines().toList();
+        List<String> rows = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            List<String> lines = readFile("sharded.shard-" + shard + ".csv").lines().toList();
+            assertEquals(expected.get(0), lines.get(0));
+            rows.addAll(lines.subList(1, lines.size()));
+        }
+        assertThat(rows).containsExactlyInAnyOrderElementsOf(expected.subList(1, expected.size()));
+    }
+
+    @Test
+    public void testExportCsvInShardsOnlyWithAll() {
+        QueryExecutionException e = assertThrows(
+                QueryExecutionException.class,
+                () -> testCall(
+                        db,
+                        "CALL apoc.export.csv.all($file, {shards: 3, bulkImport: true})",
+                        map("file", "sharded.csv"),
+                        (r) -> {}));
+        assertError(
+                e,
+                "You can use `shards` only with apoc.export.csv.all, exporting to a file and without `bulkImport`",
+                RuntimeException.class,
+                "apoc.export.csv.all");
+    }
+
     @Test
     public void testConsistentQuotingAlways() throws Exception {
         // All in one file
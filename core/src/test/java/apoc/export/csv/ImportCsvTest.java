@@ -33,6 +33,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import apoc.Pools;
 import apoc.csv.CsvTestUtil;
 import apoc.util.CompressionAlgo;
 import apoc.util.TestUtil;
@@ -364,6 +365,32 @@ public class ImportCsvTest {
         assertTrue(ids.containsAll(List.of(1L, 2L)));
     }
 
+    @Test
+    public void testNodesAndRelationshipsWithMemoryMappedIdMapping() {
+        for (boolean stringIds : List.of(true, false)) {
+            TestUtil.testCall(
+                    db,
+                    "CALL apoc.import.csv([{fileName: $nodeFile, labels: ['Person']}], [{fileName: $relFile, type: 'KNOWS'}], $config)",
+                    map(
+                            "nodeFile",
+                            "file:/ignore-nodes.csv",
+                            "relFile",
+                            "file:/ignore-relationships.csv",
+                            "config",
+                            map("delimiter", '|', "stringIds", stringIds, "idMapping", "MEMORY_MAPPED")),
+                    (r) -> {
+                        assertEquals(2L, r.get("nodes"));
+                        assertEquals(2L, r.get("relationships"));
+                    });
+
+            TestUtil.testCallCount(
+                    db, "MATCH (:Person {firstname: 'John'})-[:KNOWS {prop2: 3}]->(:Person {firstname: 'Jane'}) RETURN 1", 1);
+            TestUtil.testCallCount(
+                    db, "MATCH (:Person {firstname: 'Jane'})-[:KNOWS {prop2: 6}]->(:Person {firstname: 'John'}) RETURN 1", 1);
+            db.executeTransactionally("MATCH (n:Person) DETACH DELETE n");
+        }
+    }
+
     @Test
     public void testImportCsvWithSkipLines() {
         // skip only-header (default config)
@@ -876,6 +903,65 @@ public class ImportCsvTest {
         assertTrue(pairs.containsAll(List.of("Jane Neo4j", "John TU Munich")));
     }
 
+    @Test
+    public void testRelationshipWithCustomIdNamesAndIdSpacesInParallel() {
+        TestUtil.testCall(
+                db,
+                "CALL apoc.import.csv(" + "["
+                        + "  {fileName: $personFile, labels: ['Person']},"
+                        + "  {fileName: $companyFile, labels: ['Company']},"
+                        + "  {fileName: $universityFile, labels: ['University']}"
+                        + "],"
+                        + "["
+                        + "  {fileName: $relFile, type: 'AFFILIATED_WITH'}"
+                        + "],"
+                        + " $config)",
+                map(
+                        "personFile", "file:/custom-ids-idspaces-persons.csv",
+                        "companyFile", "file:/custom-ids-idspaces-companies.csv",
+                        "universityFile", "file:/custom-ids-idspaces-unis.csv",
+                        "relFile", "file:/custom-ids-idspaces-affiliated-with.csv",
+                        "config", map("parallel", true, "concurrency", 4, "batchSize", 1)),
+                (r) -> {
+                    assertEquals(4L, r.get("nodes"));
+                    assertEquals(2L, r.get("relationships"));
+                });
+
+        List<String> pairs = TestUtil.firstColumn(
+                db, "MATCH (p:Person)-[:AFFILIATED_WITH]->(org) RETURN p.name + ' ' + org.name AS pair ORDER BY pair");
+        assertEquals(List.of("Jane Neo4j", "John TU Munich"), pairs);
+    }
+
+    @Test
+    public void testImportInParallelWithMoreWritersThanPoolThreads() {
+        TestUtil.testCall(
+                db,
+                "CALL apoc.import.csv(" + "["
+                        + "  {fileName: $personFile, labels: ['Person']},"
+                        + "  {fileName: $companyFile, labels: ['Company']},"
+                        + "  {fileName: $universityFile, labels: ['University']}"
+                        + "],"
+                        + "["
+                        + "  {fileName: $relFile, type: 'AFFILIATED_WITH'}"
+                        + "],"
+                        + " $config)",
+                map(
+                        "personFile", "file:/custom-ids-idspaces-persons.csv",
+                        "companyFile", "file:/custom-ids-idspaces-companies.csv",
+                        "universityFile", "file:/custom-ids-idspaces-unis.csv",
+                        "relFile", "file:/custom-ids-idspaces-affiliated-with.csv",
+                        "config",
+                        map("parallel", true, "concurrency", Pools.DEFAULT_POOL_THREADS * 4, "batchSize", 1)),
+                (r) -> {
+                    assertEquals(4L, r.get("nodes"));
+                    assertEquals(2L, r.get("relationships"));
+                });
+
+        List<String> pairs = TestUtil.firstColumn(
+                db, "MATCH (p:Person)-[:AFFILIATED_WITH]->(org) RETURN p.name + ' ' + org.name AS pair ORDER BY pair");
+        assertEquals(List.of("Jane Neo4j", "John TU Munich"), pairs);
+    }
+
     @Test
     public void ignoreFieldType() {
         final String query =
@@ -977,6 +1063,51 @@ public class ImportCsvTest {
         assertTrue(e.getMessage().contains("Duplicate node with id 1 found on line 2"));
     }
 
+    @Test
+    public void testDuplicateNodesFailInParallel() {
+        QueryExecutionException e = assertThrows(
+                QueryExecutionException.class,
+                () -> db.executeTransactionally(
+                        "CALL apoc.import.csv([{fileName: $file, labels: ['Person']}], [], $config)",
+                        map(
+                                "file",
+                                "file:/id-with-duplicates.csv",
+                                "config",
+                                map("delimiter", '|', "stringIds", false, "parallel", true, "batchSize", 1))));
+        assertTrue(e.getMessage().contains("Duplicate node with id 1 found on line 2"));
+    }
+
+    @Test
+    public void testIgnoreDuplicateNodesInParallel() {
+        TestUtil.testCall(
+                db,
+                "CALL apoc.import.csv([{fileName: $file, labels: ['Person']}], [], $config)",
+                map(
+                        "file",
+                        "file:/id-with-duplicates.csv",
+                        "config",
+                        map(
+                                "delimiter",
+                                '|',
+                                "stringIds",
+                                false,
+                                "ignoreDuplicateNodes",
+                                true,
+                                "parallel",
+                                true,
+                                "batchSize",
+                                1)),
+                (r) -> {
+                    assertEquals(1L, r.get("nodes"));
+                    assertEquals(0L, r.get("relationships"));
+                });
+
+        assertEquals(
+                "John", TestUtil.singleResultFirstColumn(db, "MATCH (n:Person) RETURN n.name AS name ORDER BY name"));
+        long id = TestUtil.<Long>singleResultFirstColumn(db, "MATCH (n:Person) RETURN n.id AS id ORDER BY id");
+        assertEquals(1L, id);
+    }
+
     @Test
     public void testLoadDuplicateNodes() {
         TestUtil.testCall(
@@ -65,6 +65,7 @@ import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
@@ -125,6 +126,71 @@ public class ExportJsonTest {
         assertFileEquals(filename);
     }
 
+    @Test
+    public void testExportAllJsonInShards() {
+        String filename = "all.json";
+        TestUtil.testCall(db, "CALL apoc.export.json.all($file,null)", map("file", filename), (r) -> {});
+
+        TestUtil.testCall(
+                db,
+                "CALL apoc.export.json.all($file,{shards: 3})",
+                map("file", "sharded.json"),
+                (r) -> {
+                    assertEquals(3L, r.get("nodes"));
+                    assertEquals(1L, r.get("relationships"));
+                    assertEquals(11L, r.get("properties"));
+                });
+
+        List<String> shardedLines = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            shardedLines.addAll(BinaryTestUtil.readFileToString(
+                            new File(directory, "sharded.shard-" + shard + ".json"), UTF_8, NONE)
+                    .lines()
+                    .toList());
+        }
+        List<String> lines = BinaryTestUtil.readFileToString(new File(directory, filename), UTF_8, NONE)
+                .lines()
+                .toList();
+        assertThat(shardedLines).containsExactlyInAnyOrderElementsOf(lines);
+    }
+
+    @Test
+    public void testExportAllJsonInShardsSeesUncommittedChanges() {
+        try (Transaction tx = db.beginTx()) {
+            tx.execute("CREATE (:Uncommitted {name: 'shard'})");
+            Map<String, Object> row = tx.execute(
+                            "CALL apoc.export.json.all($file, {shards: 3})", map("file", "shardedUncommitted.json"))
+                    .next();
+            assertEquals(4L, row.get("nodes"));
+        }
+
+        List<String> shardedLines = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            shardedLines.addAll(BinaryTestUtil.readFileToString(
+                            new File(directory, "shardedUncommitted.shard-" + shard + ".json"), UTF_8, NONE)
+                    .lines()
+                    .toList());
+        }
+        assertEquals(4, shardedLines.stream().filter(line -> line.contains("\"type\":\"node\"")).count());
+        assertTrue(shardedLines.stream().anyMatch(line -> line.contains("Uncommitted")));
+    }
+
+    @Test
+    public void testExportJsonInShardsOnlyWithAll() {
+        QueryExecutionException e = Assert.assertThrows(
+                QueryExecutionException.class,
+                () -> TestUtil.testCall(
+                        db,
+                        "CALL apoc.export.json.query('MATCH (n) RETURN n', $file, {shards: 3})",
+                        map("file", "sharded.json"),
+                        (r) -> {}));
+        assertError(
+                e,
+                "You can use `shards` only with apoc.export.json.all, exporting to a file",
+                RuntimeException.class,
+                "apoc.export.json.query");
+    }
+
     @Test
     public void testExportJsonAdminOperationErrorMessage() {
         String filename = "test.json";
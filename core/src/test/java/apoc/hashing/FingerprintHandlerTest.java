@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.hashing;
+
+import static apoc.hashing.FingerprintHandler.FINGERPRINT_INCREMENTAL_CONFIG;
+import static apoc.hashing.FingerprintHandler.FINGERPRINT_INCREMENTAL_ENABLED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import apoc.util.TestUtil;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.neo4j.test.assertion.Assert;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+public class FingerprintHandlerTest {
+
+    private static final String CONFIG = "{\"strategy\":\"EAGER\",\"allNodesDisallowList\":[\"ignored\"]}";
+
+    @ClassRule
+    public static final ProvideSystemProperty systemPropertyRule = new ProvideSystemProperty(
+                    FINGERPRINT_INCREMENTAL_ENABLED, String.valueOf(true))
+            .and(FINGERPRINT_INCREMENTAL_CONFIG, CONFIG);
+
+    @Rule
+    public DbmsRule db = new ImpermanentDbmsRule();
+
+    @Before
+    public void setUp() {
+        TestUtil.registerProcedure(db, Fingerprinting.class, IncrementalFingerprinting.class);
+    }
+
+    @After
+    public void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testFingerprintIsMaintainedByTransactions() {
+        db.executeTransactionally(
+                "CREATE (a:Person {name: 'ABC', ignored: 1})-[:KNOWS {since: 1}]->(b:Person {name: 'DEF'}), (b)-[:LIKES]->(a)");
+        Map<String, Object> initial = awaitFingerprint();
+        assertEquals(expectedFingerprint(), initial.get("fingerprint"));
+
+        db.executeTransactionally("MATCH (n:Person {name: 'ABC'}) SET n.ignored = 2");
+        assertEquals(initial.get("fingerprint"), fingerprint().get("fingerprint"));
+
+        db.executeTransactionally("MATCH (n:Person {name: 'ABC'}) SET n.age = 42, n:Admin");
+        db.executeTransactionally("MATCH (n:Person {name: 'DEF'}) REMOVE n:Person SET n.name = 'GHI'");
+        db.executeTransactionally("MATCH ()-[r:KNOWS]->() SET r.since = 2");
+        db.executeTransactionally("MATCH ()-[r:LIKES]->() DELETE r");
+        db.executeTransactionally("MATCH (a:Admin), (b {name: 'GHI'}) CREATE (b)-[:FOLLOWS {weight: 0.5}]->(a), (:Other)");
+        db.executeTransactionally("MATCH (n:Other) DETACH DELETE n");
+        db.executeTransactionally("MATCH (a:Admin) CREATE (a)-[:OWNS]->(:Item {tags: ['x', 'y']})");
+
+        Map<String, Object> updated = fingerprint();
+        assertNotEquals(initial.get("fingerprint"), updated.get("fingerprint"));
+        assertTrue((long) updated.get("transactionId") > (long) initial.get("transactionId"));
+        assertEquals(expectedFingerprint(), updated.get("fingerprint"));
+
+        db.executeTransactionally("MATCH (n) DETACH DELETE n");
+        assertEquals(expectedFingerprint(), fingerprint().get("fingerprint"));
+    }
+
+    private Map<String, Object> awaitFingerprint() {
+        Assert.assertEventually(() -> (boolean) fingerprint().get("ready"), (ready) -> ready, 30L, TimeUnit.SECONDS);
+        return fingerprint();
+    }
+
+    private Map<String, Object> fingerprint() {
+        return db.executeTransactionally(
+                "CALL apoc.hashing.incrementalFingerprint()", Map.of(), result -> result.next());
+    }
+
+    /**
+     * The sum of the fingerprints of all the entities, computed the same way as the incremental fingerprint.
+     */
+    private String expectedFingerprint() {
+        List<String> fingerprints = TestUtil.singleResultFirstColumn(
+                db,
+                """
+                CALL {
+                    MATCH (n) RETURN apoc.hashing.fingerprinting(n, $config) AS hash
+                    UNION ALL
+                    MATCH ()-[r]->() RETURN apoc.hashing.fingerprinting(r, $config) AS hash
+                }
+                RETURN collect(hash)""",
+                Map.of("config", Map.of("strategy", "EAGER", "allNodesDisallowList", List.of("ignored"))));
+        byte[] sum = new byte[16];
+        for (String fingerprint : fingerprints) {
+            byte[] digest = HexFormat.of().parseHex(fingerprint);
+            int carry = 0;
+            for (int i = sum.length - 1; i >= 0; i--) {
+                int result = (sum[i] & 0xFF) + (digest[i] & 0xFF) + carry;
+                sum[i] = (byte) result;
+                carry = result >> 8;
+            }
+        }
+        return HexFormat.of().withUpperCase().formatHex(sum);
+    }
+}
@@ -124,6 +124,21 @@ public class FingerprintingTest {
         assertNotEquals(valueAfter, valueWithExclude);
     }
 
+    @Test
+    public void fingerprintGraphShouldNotDependOnCreationOrder() {
+        db.executeTransactionally(
+                "CREATE (a:Person{name:'ABC'}), (b:Person{name:'DEF'}), (a)-[:KNOWS{since:1}]->(b), (a)-[:KNOWS{since:2}]->(b), (b)-[:LIKES]->(a)");
+        String value = TestUtil.singleResultFirstColumn(db, "return apoc.hashing.fingerprintGraph()");
+
+        db.executeTransactionally("match (n) detach delete n");
+        db.executeTransactionally(
+                "CREATE (b:Person{name:'DEF'}), (a:Person{name:'ABC'}), (b)-[:LIKES]->(a), (a)-[:KNOWS{since:2}]->(b), (a)-[:KNOWS{since:1}]->(b)");
+        assertEquals(value, TestUtil.singleResultFirstColumn(db, "return apoc.hashing.fingerprintGraph()"));
+
+        db.executeTransactionally("match (:Person{name:'DEF'})-[r:LIKES]->() delete r");
+        assertNotEquals(value, TestUtil.singleResultFirstColumn(db, "return apoc.hashing.fingerprintGraph()"));
+    }
+
     @Test
     public void testExcludes() {
         compareGraph("CREATE (:Person{name:'ABC', created:timestamp()})", singletonList("created"), true);
@@ -229,6 +229,54 @@ public class LoadJsonTest {
                 (res) -> assertEquals(List.of(EXPECTED_AS_PATH_LIST), Iterators.asList(res.columnAs("value"))));
     }
 
+    @Test
+    public void testLoadJsonStreamingPathsLikeJsonPath() {
+        final byte[] json = ("{\"a\": {\"x\": {\"name\": 1}}, \"name\": 2, "
+                        + "\"items\": [{\"id\": 1, \"name\": \"a\"}, {\"id\": 2}, {\"id\": 3, \"tags\": [1, 2]}], "
+                        + "\"nested\": {\"items\": [{\"id\": 4}]}}\n"
+                        + "{\"items\": [{\"id\": 5}], \"name\": 6}")
+                .getBytes();
+        final List<String> paths = List.of(
+                "$",
+                "$.items[*]",
+                "$.items[*].name",
+                "$.items[1:]",
+                "$.items[:2].id",
+                "$['items'][0]",
+                "$.items[5]",
+                "$.items[*].tags[*]",
+                "$.nested.items[*].id",
+                "$.a.*",
+                "$.missing",
+                "$..name",
+                "$..id");
+        // the default options are evaluated while parsing, the explicit ones by JsonPath
+        final Map<String, Object> jsonPathConfig =
+                map("pathOptions", List.of("DEFAULT_PATH_LEAF_TO_NULL", "SUPPRESS_EXCEPTIONS"));
+        final String query = "CALL apoc.load.json($json, $path, $config) YIELD value RETURN value";
+        for (String path : paths) {
+            final List<Object> streamed = db.executeTransactionally(
+                    query,
+                    map("json", json, "path", path, "config", Collections.emptyMap()),
+                    res -> Iterators.asList(res.columnAs("value")));
+            final List<Object> expected = db.executeTransactionally(
+                    query,
+                    map("json", json, "path", path, "config", jsonPathConfig),
+                    res -> Iterators.asList(res.columnAs("value")));
+            assertEquals(path, expected, streamed);
+        }
+    }
+
+    @Test
+    public void testLoadJsonReturnsListsForIndefinitePaths() {
+        final byte[] json = "{\"items\": [{\"id\": 1}, {\"id\": 2}]}".getBytes();
+        final List<Object> values = JsonUtil.loadJson(
+                        json, null, null, "$.items[*]", true, CompressionAlgo.NONE.name(), null, null)
+                .toList();
+        assertEquals(List.of(List.of(Map.of("id", 1), Map.of("id", 2))), values);
+        assertTrue(values.get(0) instanceof List);
+    }
+
     @Test
     public void testLoadJsonArrayPath() {
         URL url = ClassLoader.getSystemResource("map.json");
@@ -274,6 +274,28 @@ public class XmlTest {
                 });
     }
 
+    @Test
+    public void testLoadXmlStreamingPathsLikeXPath() {
+        // the trailing `/.` is out of the streamed subset, so the same path is evaluated on the DOM
+        String query = "CALL apoc.load.xml($url, $path) YIELD value RETURN collect(value) AS values";
+        for (String file : List.of("xml/books.xml", "xml/mixedcontent.xml", "xml/databases.xml")) {
+            for (String path : List.of(
+                    "/catalog",
+                    "/catalog/book[@id='bk102']/author",
+                    "//book[@id]/*",
+                    "//author",
+                    "/*/*",
+                    "//text",
+                    "//*[@name]",
+                    "/parent/child[@name=\"relational\"]")) {
+                String url = TestUtil.getUrlFileName(file);
+                Object streamed = singleResultFirstColumn(db, query, map("url", url, "path", path));
+                Object evaluated = singleResultFirstColumn(db, query, map("url", url, "path", path + "/."));
+                assertEquals(file + " " + path, evaluated, streamed);
+            }
+        }
+    }
+
     @Test
     public void testLoadXmlXpathGenreFromBookTitle() {
         testCall(
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.meta;
+
+import static apoc.meta.MetaSchemaHandler.META_SCHEMA_CACHE_ENABLED;
+import static apoc.meta.MetaSchemaHandler.META_SCHEMA_CACHE_REFRESH_INTERVAL;
+import static org.junit.Assert.assertEquals;
+
+import apoc.util.TestUtil;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.test.assertion.Assert;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+public class MetaSchemaHandlerTest {
+
+    @ClassRule
+    public static final ProvideSystemProperty systemPropertyRule = new ProvideSystemProperty(
+                    META_SCHEMA_CACHE_ENABLED, String.valueOf(true))
+            .and(META_SCHEMA_CACHE_REFRESH_INTERVAL, "1000");
+
+    @Rule
+    public DbmsRule db = new ImpermanentDbmsRule()
+            .withSetting(
+                    GraphDatabaseSettings.procedure_unrestricted,
+                    List.of("apoc.meta.nodeTypeProperties", "apoc.meta.relTypeProperties"));
+
+    @Before
+    public void setUp() {
+        TestUtil.registerProcedure(db, MetaRestricted.class);
+    }
+
+    @After
+    public void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testCachedSchemaIsMaintainedByTransactions() {
+        db.executeTransactionally(
+                "UNWIND range(1, 100) AS i CREATE (p:Person {name: 'name' + i})-[:LIVES_IN {since: i}]->(:City)");
+        // the cache counts all the nodes, whereas only about 1 in 10 is sampled
+        Assert.assertEventually(
+                () -> nodeTypeProperties("{cached: true, sample: 10}"),
+                (rows) -> rows.contains(Map.of(
+                        "nodeType", ":`Person`",
+                        "nodeLabels", List.of("Person"),
+                        "propertyName", "name",
+                        "propertyTypes", List.of("String"),
+                        "mandatory", false,
+                        "propertyObservations", 100L,
+                        "totalObservations", 100L)),
+                30L,
+                TimeUnit.SECONDS);
+        assertCachedSchemaIsUpToDate();
+
+        db.executeTransactionally("MATCH (p:Person) WHERE p.name ENDS WITH '0' SET p.age = 42");
+        db.executeTransactionally("MATCH (p:Person {name: 'name1'}) SET p.age = '42', p.name = ['a', 'b']");
+        db.executeTransactionally("MATCH (p:Person {name: 'name2'}) REMOVE p:Person SET p:Admin");
+        db.executeTransactionally("MATCH (p:Person {name: 'name3'})-[r:LIVES_IN]->() SET r.since = 'now'");
+        db.executeTransactionally("MATCH (p:Person {name: 'name4'})-[r:LIVES_IN]->() DELETE r");
+        db.executeTransactionally("MATCH (p:Person {name: 'name5'}) DETACH DELETE p");
+        db.executeTransactionally("MATCH (a:Admin), (c:City) WITH a, c LIMIT 1 CREATE (a)-[:OWNS]->(c)");
+        db.executeTransactionally("MATCH (c:City) WITH c LIMIT 1 REMOVE c:City SET c:Town");
+        assertCachedSchemaIsUpToDate();
+
+        db.executeTransactionally("MATCH (n) DETACH DELETE n");
+        assertCachedSchemaIsUpToDate();
+    }
+
+    @Test
+    public void testCachedSchemaIsConsistentWithTransactionsCommittedDuringTheScans() throws Exception {
+        db.executeTransactionally(
+                "UNWIND range(1, 1000) AS i CREATE (:Person {name: 'name' + i})-[:LIVES_IN {since: i}]->(:City)");
+        // the cache is scanned again every second meanwhile
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writes = executor.submit(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    db.executeTransactionally(
+                            "MATCH (p:Person {name: $name}) SET p:Admin, p.age = $age",
+                            Map.of("name", "name" + i, "age", i));
+                    db.executeTransactionally("CREATE (:Person {name: 'new'})-[:LIVES_IN {since: 'now'}]->(:Town)");
+                    db.executeTransactionally(
+                            "MATCH (c:City)<-[r:LIVES_IN]-(:Person {name: $name}) DELETE r",
+                            Map.of("name", "name" + i));
+                }
+            });
+            writes.get(5, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdown();
+        }
+
+        MetaSchemaHandler handler = MetaSchemaHandler.forDatabase(db.databaseName());
+        Assert.assertEventually(
+                () -> handler.profile(new MetaConfig(Map.of())) != null, ready -> ready, 30L, TimeUnit.SECONDS);
+        assertCachedSchemaIsUpToDate();
+    }
+
+    private void assertCachedSchemaIsUpToDate() {
+        String config = "{sample: -1, maxRels: 1000000}";
+        assertEquals(nodeTypeProperties(config), nodeTypeProperties("{cached: true}"));
+        assertEquals(relTypeProperties(config), relTypeProperties("{cached: true}"));
+    }
+
+    private Set<Map<String, Object>> nodeTypeProperties(String config) {
+        return rows("CALL apoc.meta.nodeTypeProperties(" + config + ")");
+    }
+
+    private Set<Map<String, Object>> relTypeProperties(String config) {
+        return rows("CALL apoc.meta.relTypeProperties(" + config + ")");
+    }
+
+    private Set<Map<String, Object>> rows(String query) {
+        return db.executeTransactionally(query, Map.of(), result -> new HashSet<>(result.stream().toList()));
+    }
+}
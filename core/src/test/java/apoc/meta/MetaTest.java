@@ -1296,6 +1296,18 @@ public class MetaTest {
         });
     }
 
+    @Test
+    void testMetaDataWithSampleTimeout() {
+        db.executeTransactionally("UNWIND range(1, 100) AS i CREATE (:Person {name: 'name' + i})");
+        TestUtil.testResult(db, "CALL apoc.meta.data({sample: 5, sampleTimeout: 0})", (r) -> {
+            // nothing is sampled once the time is up
+            assertFalse(r.stream().anyMatch(m -> "name".equals(m.get("property"))));
+        });
+        TestUtil.testResult(db, "CALL apoc.meta.data({sample: 5, sampleTimeout: 60000})", (r) -> {
+            assertThat(r.stream().map(m -> m.get("property"))).contains("name");
+        });
+    }
+
     @Test
     void testSchemaWithSample() {
         db.executeTransactionally("create constraint for (p:Person) require p.name is unique");
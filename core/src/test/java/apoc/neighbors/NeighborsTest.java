@@ -24,11 +24,13 @@ import apoc.util.TestUtil;
 import com.neo4j.test.extension.EnterpriseDbmsExtension;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.test.extension.Inject;
 
 @EnterpriseDbmsExtension(createDatabasePerTest = false)
@@ -206,4 +208,60 @@ public class NeighborsTest {
                         + "RETURN number",
                 (row) -> assertEquals(1L, row.get("number")));
     }
+
+    @Test
+    void getNeighborsCountBothDirections() {
+        TestUtil.testCall(
+                db,
+                "MATCH (n:Neighbor {name: 'c'}) WITH n "
+                        + "CALL apoc.neighbors.tohop.count(n,'KNOWS', 2) YIELD value AS number "
+                        + "RETURN number",
+                (row) -> assertEquals(3L, row.get("number")));
+    }
+
+    @Test
+    void getNeighborsCountOfMissingRelationshipType() {
+        TestUtil.testCall(
+                db,
+                "MATCH (n:First) WITH n " + "CALL apoc.neighbors.tohop.count(n,'MISSING>|KNOWS>', 1) YIELD value AS number "
+                        + "RETURN number",
+                (row) -> assertEquals(1L, row.get("number")));
+    }
+
+    @Test
+    void getNeighborsInParallel() {
+        db.executeTransactionally("CREATE (hub:Hub) WITH hub "
+                + "UNWIND range(1, 5000) AS i "
+                + "CREATE (hub)-[:LINKS]->(:Spoke)-[:LINKS]->(:Rim {i: i % 2500})");
+        db.executeTransactionally("MATCH (r:Rim) WHERE r.i < 1000 CREATE (r)-[:LINKS]->(:Tail)");
+
+        for (String procedure : List.of("tohop.count", "byhop.count", "athop.count")) {
+            String query = "MATCH (n:Hub) CALL apoc.neighbors.%s(n, 'LINKS>', 3, $config) YIELD value RETURN value"
+                    .formatted(procedure);
+            Object sequential = TestUtil.singleResultFirstColumn(db, query, Map.of("config", Map.of()));
+            Object parallel =
+                    TestUtil.singleResultFirstColumn(db, query, Map.of("config", Map.of("parallel", true)));
+            assertEquals(sequential, parallel);
+        }
+        TestUtil.testCall(
+                db,
+                "MATCH (n:Hub) CALL apoc.neighbors.byhop.count(n, 'LINKS>', 3, {parallel: true}) YIELD value RETURN value",
+                (row) -> assertEquals(List.of(5000L, 5000L, 2000L), row.get("value")));
+    }
+
+    @Test
+    void getNeighborsInParallelSeesUncommittedChanges() {
+        db.executeTransactionally("CREATE (hub:TxHub) WITH hub "
+                + "UNWIND range(1, 5000) AS i "
+                + "CREATE (hub)-[:LINKS]->(:TxSpoke)-[:LINKS]->(:TxRim {i: i})");
+
+        try (Transaction tx = db.beginTx()) {
+            tx.execute("MATCH (r:TxRim) WHERE r.i <= 1500 CREATE (r)-[:LINKS]->(:TxTail)");
+            Object value = tx.execute(
+                            "MATCH (n:TxHub) CALL apoc.neighbors.byhop.count(n, 'LINKS>', 3, {parallel: true}) YIELD value RETURN value")
+                    .next()
+                    .get("value");
+            assertEquals(List.of(5000L, 5000L, 1500L), value);
+        }
+    }
 }
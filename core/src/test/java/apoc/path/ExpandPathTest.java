@@ -713,6 +713,24 @@ public class ExpandPathTest {
         assertEquals(expectedMessage, e.getMessage());
     }
 
+    @Test
+    public void testExpandConfigInParallel() {
+        String query =
+                """
+                MATCH (p:Person)
+                WITH collect(p) AS people
+                CALL apoc.path.expandConfig(people, {relationshipFilter: 'ACTED_IN>|<DIRECTED', maxLevel: 2, parallel: $parallel})
+                YIELD path
+                WITH [n IN nodes(path) | elementId(n)] + [r IN relationships(path) | elementId(r)] AS ids
+                ORDER BY ids
+                RETURN collect(ids) AS paths
+                """;
+        List<List<String>> sequential = TestUtil.singleResultFirstColumn(db, query, Map.of("parallel", false));
+        List<List<String>> parallel = TestUtil.singleResultFirstColumn(db, query, Map.of("parallel", true));
+        assertTrue(sequential.size() > 100);
+        assertEquals(sequential, parallel);
+    }
+
     private void specialCharAssertions(Result result) {
         Map<String, Object> row = result.next();
         assertSinglePath(row);
@@ -91,6 +91,17 @@ public class LabelSequenceTest {
         });
     }
 
+    @Test
+    void testLabelFilterWithMissingLabels() {
+        String query =
+                "MATCH (s:Start {name: 'start'}) CALL apoc.path.subgraphNodes(s,{labelFilter:'+A|-Missing|+B:Missing'}) yield node return collect(distinct node.name) as nodes";
+        TestUtil.testCall(db, query, (row) -> {
+            List<String> names = (List<String>) row.get("nodes");
+            assertEquals(2L, names.size());
+            assertTrue(names.containsAll(Arrays.asList("start", "a")));
+        });
+    }
+
     @Test
     void testSequenceWithDenylist() {
         String query =
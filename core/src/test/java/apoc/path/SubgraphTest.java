@@ -412,6 +412,76 @@ public class SubgraphTest {
         });
     }
 
+    @Test
+    public void testSpanningTreeShouldBeTheSameAsWithTheTraversalFramework() {
+        // a deny list makes the procedure fall back to the traversal framework, Big Brother is never reached anyway
+        String query =
+                """
+				MATCH (m:Movie {title: 'The Matrix'}), (bb:BigBrother)
+				CALL apoc.path.spanningTree(m, {
+				    relationshipFilter: 'ACTED_IN|DIRECTED', labelFilter: '-Critic', maxLevel: 4,
+				    denylistNodes: CASE WHEN $deny THEN [bb] ELSE [] END
+				})
+				YIELD path
+				RETURN collect([n IN nodes(path) | elementId(n)] + [r IN relationships(path) | elementId(r)]) AS paths
+				""";
+        List<List<String>> paths = TestUtil.singleResultFirstColumn(db, query, Map.of("deny", false));
+        List<List<String>> traversalPaths = TestUtil.singleResultFirstColumn(db, query, Map.of("deny", true));
+        assertTrue(paths.size() > 1);
+        assertEquals(traversalPaths, paths);
+    }
+
+    @Test
+    public void testSubgraphNodesInParallel() {
+        String query =
+                """
+				MATCH (p:Person)
+				WITH collect(p) AS people
+				CALL apoc.path.subgraphNodes(people, {relationshipFilter: 'ACTED_IN>|PRODUCED>', parallel: $parallel})
+				YIELD node
+				WITH elementId(node) AS id
+				ORDER BY id
+				RETURN collect(id) AS nodes
+				""";
+        List<String> sequential = TestUtil.singleResultFirstColumn(db, query, Map.of("parallel", false));
+        List<String> parallel = TestUtil.singleResultFirstColumn(db, query, Map.of("parallel", true));
+        assertTrue(sequential.size() > 100);
+        assertEquals(sequential, parallel);
+
+        TestUtil.testCall(
+                db,
+                """
+				MATCH (p:Person)
+				WITH collect(p) AS people
+				CALL apoc.path.spanningTree(people, {relationshipFilter: 'ACTED_IN>|PRODUCED>', parallel: true})
+				YIELD path
+				RETURN count(path) AS paths, count(DISTINCT last(nodes(path))) AS nodes
+				""",
+                (row) -> {
+                    assertEquals((long) sequential.size(), row.get("paths"));
+                    assertEquals((long) sequential.size(), row.get("nodes"));
+                });
+    }
+
+    @Test
+    public void testSubgraphNodesInParallelSeesUncommittedChanges() {
+        try (Transaction tx = db.beginTx()) {
+            tx.execute("MATCH (p:Person {name: 'Keanu Reeves'}) CREATE (p)-[:ACTED_IN]->(:Movie {title: 'Uncommitted'})");
+            long count = (long) tx.execute(
+                            """
+							MATCH (p:Person)
+							WITH collect(p) AS people
+							CALL apoc.path.subgraphNodes(people, {relationshipFilter: 'ACTED_IN>', parallel: true})
+							YIELD node
+							WHERE node.title = 'Uncommitted'
+							RETURN count(node) AS count
+							""")
+                    .next()
+                    .get("count");
+            assertEquals(1L, count);
+        }
+    }
+
     @Test
     public void testOptionalSpanningTreeWithNoResultsShouldReturnNull() {
         String query = "MATCH (k:Person {name: 'Keanu Reeves'}) "
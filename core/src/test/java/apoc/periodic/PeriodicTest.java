@@ -70,6 +70,7 @@ import org.neo4j.graphdb.schema.ConstraintDefinition;
 import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.kernel.api.KernelTransactionHandle;
+import org.neo4j.kernel.api.exceptions.Status;
 import org.neo4j.kernel.impl.api.KernelTransactions;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.AssertableLogProvider;
@@ -118,7 +119,8 @@ public class PeriodicTest {
                 MockLogger.class,
                 GraphRefactoring.class,
                 HelperProcedures.class,
-                TickTockProcedure.class);
+                TickTockProcedure.class,
+                TransientFailureProcedure.class);
     }
 
     @AfterEach
@@ -591,6 +593,48 @@ public class PeriodicTest {
                 row -> assertEquals(100L, row.get("count")));
     }
 
+    @Test
+    public void testIterateAdaptive() {
+        db.executeTransactionally("UNWIND range(1,1000) AS x CREATE (:Customer{name:'Customer_'+x})");
+
+        testResult(
+                db,
+                "CALL apoc.periodic.iterate('match (p:Customer) return p', 'SET p.lastname =p.name REMOVE p.name', {batchSize:10, parallel:true, concurrency:4, adaptive:true})",
+                result -> {
+                    Map<String, Object> row = Iterators.single(result);
+                    assertEquals(1000L, row.get("total"));
+                    assertEquals(1000L, row.get("committedOperations"));
+                    assertEquals(0L, row.get("failedBatches"));
+
+                    Map<String, Object> adaptive = (Map<String, Object>) row.get("adaptive");
+                    assertEquals(true, adaptive.get("enabled"));
+                    assertThat((long) adaptive.get("concurrency")).isBetween(1L, 4L);
+                    assertThat((long) adaptive.get("batchSize")).isBetween(1L, 10L);
+                    assertThat((long) adaptive.get("lowestBatchSize")).isLessThanOrEqualTo(10L);
+                });
+
+        testCall(
+                db,
+                "MATCH (p:Customer) where p.lastname is not null return count(p) as count",
+                row -> assertEquals(1000L, row.get("count")));
+    }
+
+    @Test
+    public void testIterateNotAdaptiveByDefault() {
+        testResult(
+                db,
+                "CALL apoc.periodic.iterate('UNWIND range(1, 100) AS x RETURN x', 'RETURN x', {batchSize:10, parallel:true, concurrency:3})",
+                result -> {
+                    Map<String, Object> row = Iterators.single(result);
+                    assertEquals(10L, row.get("batches"));
+                    Map<String, Object> adaptive = (Map<String, Object>) row.get("adaptive");
+                    assertEquals(false, adaptive.get("enabled"));
+                    assertEquals(3L, adaptive.get("concurrency"));
+                    assertEquals(10L, adaptive.get("batchSize"));
+                    assertEquals(0L, adaptive.get("adjustments"));
+                });
+    }
+
     @Test
     public void testIterateWithQueryPlanner() {
         db.executeTransactionally("UNWIND range(1,100) AS x CREATE (:Person{name:'Person_'+x})");
@@ -797,6 +841,40 @@ public class PeriodicTest {
                 });
     }
 
+    @Test
+    public void testIterateBisectTransientFailures() {
+        TransientFailureProcedure.failures.set(0);
+        testResult(
+                db,
+                "CALL apoc.periodic.iterate('UNWIND range(1, 20) AS x RETURN x', 'CALL test.failTransiently(x, 7, 4)', {batchSize:10, bisect:true})",
+                result -> {
+                    Map<String, Object> row = Iterators.single(result);
+                    assertEquals(2L, row.get("batches"));
+                    assertEquals(20L, row.get("total"));
+                    // the whole batch, its second half, a quarter of it and then the row itself failed
+                    // before the row was deferred and committed at the end of the run
+                    assertEquals(20L, row.get("committedOperations"));
+                    assertEquals(0L, row.get("failedOperations"));
+                    assertEquals(0L, row.get("failedBatches"));
+                });
+        assertEquals(5L, TransientFailureProcedure.failures.get());
+    }
+
+    @Test
+    public void testIterateBisectRecordsRowsFailingAfterDeferral() {
+        TransientFailureProcedure.failures.set(0);
+        testResult(
+                db,
+                "CALL apoc.periodic.iterate('UNWIND range(1, 20) AS x RETURN x', 'CALL test.failTransiently(x, 7, 100)', {batchSize:10, bisect:true, failedParams:0})",
+                result -> {
+                    Map<String, Object> row = Iterators.single(result);
+                    assertEquals(2L, row.get("batches"));
+                    assertEquals(19L, row.get("committedOperations"));
+                    assertEquals(1L, row.get("failedOperations"));
+                    assertEquals(1L, row.get("failedBatches"));
+                });
+    }
+
     @Test
     public void testIterateFail() {
         db.executeTransactionally("UNWIND range(1,100) AS x CREATE (:Person{name:'Person_'+x})");
@@ -1147,6 +1225,19 @@ public class PeriodicTest {
         assertThat(TickTockProcedure.counter.get()).isEqualTo(ticks);
     }
 
+    public static class TransientFailureProcedure {
+        public static final AtomicLong failures = new AtomicLong();
+
+        @Procedure(name = "test.failTransiently")
+        public void failTransiently(
+                @Name("value") long value, @Name("failOn") long failOn, @Name("times") long times) {
+            if (value == failOn && failures.getAndIncrement() < times) {
+                throw new TransientTransactionFailureException(
+                        Status.Transaction.DeadlockDetected, "Simulated deadlock on " + value);
+            }
+        }
+    }
+
     public static class TickTockProcedure {
         public static final AtomicLong counter = new AtomicLong();
 
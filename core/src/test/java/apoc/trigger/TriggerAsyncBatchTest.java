@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package apoc.trigger;
+
+import static apoc.ApocConfig.APOC_TRIGGER_ENABLED;
+import static apoc.trigger.TriggerHandler.TRIGGER_ASYNC_WINDOW;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import apoc.util.TestUtil;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.test.assertion.Assert;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+public class TriggerAsyncBatchTest {
+
+    @ClassRule
+    public static final ProvideSystemProperty systemPropertyRule = new ProvideSystemProperty(
+                    APOC_TRIGGER_ENABLED, String.valueOf(true))
+            .and(TRIGGER_ASYNC_WINDOW, String.valueOf(200));
+
+    @Rule
+    public DbmsRule db = new ImpermanentDbmsRule()
+            .withSetting(GraphDatabaseSettings.default_language, GraphDatabaseSettings.CypherVersion.Cypher5);
+
+    @Before
+    public void setUp() {
+        TestUtil.registerProcedure(db, Trigger.class);
+    }
+
+    @After
+    public void teardown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testAfterAsyncTriggersOfManyTransactionsAreCoalesced() {
+        db.executeTransactionally("CREATE (:Counter {runs: 0, created: 0})");
+        db.executeTransactionally(
+                "CALL apoc.trigger.add('count', 'MATCH (c:Counter) SET c.runs = c.runs + 1, c.created = c.created + size($createdNodes)', {phase: 'afterAsync'})");
+
+        for (int i = 0; i < 20; i++) {
+            db.executeTransactionally("CREATE (:Foo)");
+        }
+
+        Assert.assertEventually(
+                () -> db.executeTransactionally(
+                        "MATCH (c:Counter) RETURN c.created AS created", Map.of(), r -> r.<Long>columnAs("created")
+                                .next()),
+                (value) -> value == 20L,
+                30L,
+                TimeUnit.SECONDS);
+        TestUtil.testCall(db, "MATCH (c:Counter) RETURN c.runs AS runs", (row) -> {
+            assertTrue((long) row.get("runs") <= 20L);
+        });
+        TestUtil.testCall(db, "CALL apoc.trigger.asyncStats()", (row) -> {
+            assertEquals(true, row.get("coalesced"));
+            assertEquals(20L, row.get("queued"));
+            assertEquals(0L, row.get("pending"));
+            long batches = (long) row.get("batches");
+            assertTrue(batches >= 1L);
+            assertTrue(batches < 20L);
+        });
+    }
+
+    @Test
+    public void testFailingAfterAsyncTriggerOnlyLosesItsOwnTransaction() {
+        db.executeTransactionally("CREATE (:Counter {created: 0})");
+        db.executeTransactionally(
+                "CALL apoc.trigger.add('count', 'UNWIND $createdNodes AS n MATCH (c:Counter) SET c.created = c.created + 1 / CASE WHEN n.fail THEN 0 ELSE 1 END', {phase: 'afterAsync'})");
+
+        for (int i = 0; i < 20; i++) {
+            db.executeTransactionally("CREATE (:Foo {fail: $fail})", Map.of("fail", i == 10));
+        }
+
+        Assert.assertEventually(
+                () -> db.executeTransactionally(
+                        "MATCH (c:Counter) RETURN c.created AS created", Map.of(), r -> r.<Long>columnAs("created")
+                                .next()),
+                (value) -> value == 19L,
+                30L,
+                TimeUnit.SECONDS);
+        TestUtil.testCall(db, "CALL apoc.trigger.asyncStats()", (row) -> {
+            assertEquals(20L, row.get("queued"));
+            assertEquals(0L, row.get("pending"));
+        });
+    }
+}
@@ -110,6 +110,49 @@ public class TriggerTest {
         });
     }
 
+    @Test
+    public void testTriggersOnlyGetTheReferencedMetadata() {
+        db.executeTransactionally("CREATE (:Counter {count:0})");
+        db.executeTransactionally(
+                "CALL apoc.trigger.add('count-created','MATCH (c:Counter) SET c.count = c.count + size($createdNodes)',{})");
+        db.executeTransactionally(
+                "CALL apoc.trigger.add('label-created', 'UNWIND $`assignedLabels`[$label] AS n SET n.trigger = $trigger', {}, {params: {label: 'Foo'}})");
+        db.executeTransactionally("CREATE (:Foo), (:Foo), (:Bar)");
+        TestUtil.testCall(
+                db,
+                "MATCH (c:Counter) RETURN c.count AS count, COUNT { (f:Foo {trigger: 'label-created'}) } AS foos",
+                (row) -> {
+                    assertEquals(3L, row.get("count"));
+                    assertEquals(2L, row.get("foos"));
+                });
+    }
+
+    @Test
+    public void testTriggerSelectorFilters() {
+        db.executeTransactionally("CREATE (:Counter {labels: 0, types: 0, properties: 0})");
+        db.executeTransactionally(
+                "CALL apoc.trigger.add('by-label', 'MATCH (c:Counter) SET c.labels = c.labels + 1', {labels: ['Foo']})");
+        db.executeTransactionally(
+                "CALL apoc.trigger.add('by-type', 'MATCH (c:Counter) SET c.types = c.types + 1', {types: 'KNOWS'})");
+        db.executeTransactionally(
+                "CALL apoc.trigger.add('by-property', 'MATCH (c:Counter) SET c.properties = c.properties + 1', {properties: ['name']})");
+
+        db.executeTransactionally("CREATE (:Bar)-[:LIKES]->(:Bar {age: 42})");
+        db.executeTransactionally("CREATE (:Foo)");
+        db.executeTransactionally("MATCH (b:Bar {age: 42}) SET b.name = 'bar'");
+        db.executeTransactionally("MATCH (b:Bar {age: 42}) CREATE (b)-[:KNOWS]->(b)");
+        db.executeTransactionally("MATCH (f:Foo) DELETE f");
+
+        TestUtil.testCall(
+                db,
+                "MATCH (c:Counter) RETURN c.labels AS labels, c.types AS types, c.properties AS properties",
+                (row) -> {
+                    assertEquals(2L, row.get("labels"));
+                    assertEquals(1L, row.get("types"));
+                    assertEquals(1L, row.get("properties"));
+                });
+    }
+
     @Test
     public void testIssue2247() {
         db.executeTransactionally("CREATE (n:ToBeDeleted)");
@@ -29,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import apoc.text.Strings;
 import com.neo4j.test.extension.EnterpriseDbmsExtension;
 import java.util.ArrayList;
 import java.util.Base64;
@@ -75,7 +76,25 @@ public class UtilsTest {
 
     @BeforeAll
     void setUp() {
-        TestUtil.registerProcedure(db, Utils.class);
+        TestUtil.registerProcedure(db, Utils.class, Strings.class);
+    }
+
+    @Test
+    void testExpressionCacheStats() {
+        String statsQuery = "CALL apoc.util.expressionCacheStats() YIELD kind, hits, misses "
+                + "WHERE kind = 'regex' RETURN {hits: hits, misses: misses} AS stats";
+        Map<String, Long> before = TestUtil.singleResultFirstColumn(db, statsQuery);
+
+        List<String> split = List.of("a", "b", "c");
+        TestUtil.testCall(
+                db,
+                "UNWIND range(1, 3) AS i RETURN collect(apoc.text.split('a1b22c', $regex)) AS value",
+                map("regex", "\\d+(?#testExpressionCacheStats)"),
+                r -> assertEquals(List.of(split, split, split), r.get("value")));
+
+        Map<String, Long> after = TestUtil.singleResultFirstColumn(db, statsQuery);
+        assertEquals(1L, after.get("misses") - before.get("misses"));
+        assertEquals(2L, after.get("hits") - before.get("hits"));
     }
 
     @Test
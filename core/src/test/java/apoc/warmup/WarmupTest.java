@@ -19,9 +19,13 @@
 package apoc.warmup;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 import apoc.util.TestUtil;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +34,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
@@ -99,6 +104,63 @@ public class WarmupTest {
         });
     }
 
+    @Test
+    public void testWarmupConcurrently() {
+        TestUtil.testCall(db, "CALL apoc.warmup.run(true, true, true, {concurrency: 4, pagesPerSecond: 100000})", r -> {
+            assertNotEquals(0L, r.get("nodePages"));
+            assertNotEquals(0L, r.get("relPages"));
+            assertNotEquals(0L, r.get("propPages"));
+            assertNotEquals(0L, r.get("indexPages"));
+            assertEquals(false, r.get("transactionWasTerminated"));
+        });
+    }
+
+    @Test
+    public void testWarmupSelectedLabels() {
+        TestUtil.testCall(db, "CALL apoc.warmup.run(false, false, true, {labels: ['Foo']})", r -> {
+            assertNotEquals(0L, r.get("nodePages"));
+            assertEquals(0L, r.get("relPages"));
+            assertEquals(0L, r.get("relGroupPages"));
+            assertNotEquals(0L, r.get("indexPages"));
+        });
+    }
+
+    @Test
+    public void testWarmupSelectedRelTypesSkipsLabelIndexes() {
+        TestUtil.testCall(db, "CALL apoc.warmup.run(false, false, true, {relTypes: ['KNOWS']})", r -> {
+            assertEquals(0L, r.get("nodePages"));
+            assertNotEquals(0L, r.get("relPages"));
+            assertNotEquals(0L, r.get("pagesPerSecond"));
+        });
+    }
+
+    @Test
+    public void testWarmupFromProfile() {
+        db.executeTransactionally("CALL apoc.warmup.run(true, true, true)");
+        TestUtil.testCall(db, "CALL apoc.warmup.run(true, true, true, {profile: 'record'})", r -> {
+            assertNotEquals(0L, r.get("nodePages"));
+            assertNotEquals(0L, r.get("relPages"));
+            assertEquals(false, r.get("transactionWasTerminated"));
+        });
+        // the profile is kept by APOC, out of the store files
+        Path location = WarmupProfile.location(db.databaseName());
+        assertTrue(db.getDependencyResolver().resolveDependency(FileSystemAbstraction.class).fileExists(location));
+        assertFalse(location.startsWith(db.databaseLayout().databaseDirectory()));
+        TestUtil.testCall(db, "CALL apoc.warmup.run(true, true, true, {profile: true})", r -> {
+            assertNotEquals(0L, r.get("nodePages"));
+            assertNotEquals(0L, r.get("relPages"));
+            assertNotEquals(0L, r.get("indexPages"));
+        });
+    }
+
+    @Test
+    public void testWarmupFromMissingProfile() {
+        RuntimeException e = assertThrows(
+                RuntimeException.class,
+                () -> TestUtil.testCall(db, "CALL apoc.warmup.run(false, false, false, {profile: true})", r -> {}));
+        assertTrue(e.getMessage().contains("No warmup profile found for this database"));
+    }
+
     @Test
     public void testWarmupOnDifferentStorageEngines() {
         final List<String> supportedTypes = Arrays.asList("standard", "aligned");
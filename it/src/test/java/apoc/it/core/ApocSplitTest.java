@@ -50,6 +50,8 @@ class ApocSplitTest {
             "apoc.trigger.remove",
             "apoc.trigger.removeAll",
             "apoc.trigger.list",
+            "apoc.trigger.asyncStats",
+            "apoc.hashing.incrementalFingerprint",
             "apoc.trigger.pause",
             "apoc.trigger.resume",
             "apoc.trigger.install",
@@ -60,6 +62,7 @@ class ApocSplitTest {
             "apoc.trigger.start",
             "apoc.util.sleep",
             "apoc.util.validate",
+            "apoc.util.expressionCacheStats",
             "apoc.merge.node.eager",
             "apoc.merge.node",
             "apoc.merge.nodeWithStats.eager",
@@ -52,6 +52,7 @@ import apoc.export.json.ExportJson;
 import apoc.export.json.ImportJson;
 import apoc.graph.Graphs;
 import apoc.hashing.Fingerprinting;
+import apoc.hashing.IncrementalFingerprinting;
 import apoc.help.Help;
 import apoc.index.SchemaIndex;
 import apoc.label.Label;
@@ -160,6 +161,7 @@ public class ApocVersionsTest {
                 Help.class,
                 ImportCsv.class,
                 ImportJson.class,
+                IncrementalFingerprinting.class,
                 Json.class,
                 Label.class,
                 LoadArrow.class,